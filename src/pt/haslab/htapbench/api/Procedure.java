@@ -40,10 +40,13 @@ import java.sql.SQLException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import org.apache.log4j.Logger;
+import org.postgresql.PGStatement;
 
 import pt.haslab.htapbench.api.dialects.StatementDialects;
 import pt.haslab.htapbench.jdbc.AutoIncrementPreparedStatement;
@@ -54,14 +57,25 @@ public abstract class Procedure {
 
     private static final Logger LOG = Logger.getLogger(Procedure.class);
 
-    private final Map<SQLStmt, PreparedStatement> prepardStatements = new HashMap<SQLStmt, PreparedStatement>();
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
+
     private final Map<SQLStmt, String> stmt_name_xref = new HashMap<SQLStmt, String>();
+    private final Set<SQLStmt> dialect_stmts = new HashSet<SQLStmt>();
     private final String procName;
 
     private Map<String, SQLStmt> name_stmt_xref;
     private DatabaseType dbType;
     protected RandomParameters random;
 
+    // The prepared statements on the current connection
+    private StatementCache prepardStatements;
+    private int statementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+    private int prepareThreshold = 0;
+
+    // Cache lookups on the previous connections
+    private long statementCacheHits = 0;
+    private long statementCacheMisses = 0;
+
     /**
      * Constructor
      */
@@ -89,6 +103,21 @@ public abstract class Procedure {
         return ((T) this);
     }
 
+    /**
+     * Return the DatabaseType of the target DBMS
+     */
+    protected final DatabaseType getDatabaseType() {
+        return (this.dbType);
+    }
+
+    /**
+     * Returns whether the SQL of the SQLStmt was set from the dialects file of
+     * the target DBMS.
+     */
+    protected final boolean hasDialect(SQLStmt stmt) {
+        return (this.dialect_stmts.contains(stmt));
+    }
+
     /**
      * Return the name of this Procedure
      */
@@ -96,12 +125,50 @@ public abstract class Procedure {
         return (this.procName);
     }
 
+    /**
+     * Sets the number of PreparedStatements kept per connection, which is raised to the
+     * number of SQLStmts of the procedure if it is smaller, and the number of
+     * executions before the PostgreSQL driver switches a statement to a server-side
+     * prepared statement, or 0 to keep the default of the driver.
+     */
+    public final void setStatementCache(int size, int prepareThreshold) {
+        this.statementCacheSize = Math.max(size, 1);
+        this.prepareThreshold = prepareThreshold;
+    }
+
     /**
      * Flush all PreparedStatements, requiring us to rebuild them the next time
      * we try to run one.
      */
     protected void resetPreparedStatements() {
-        prepardStatements.clear();
+        if (prepardStatements != null)
+            prepardStatements.clear();
+    }
+
+    /**
+     * Closes all the PreparedStatements, e.g. before the connection is closed.
+     */
+    public final void closePreparedStatements() {
+        if (prepardStatements != null) {
+            statementCacheHits += prepardStatements.getHits();
+            statementCacheMisses += prepardStatements.getMisses();
+            prepardStatements.clear();
+            prepardStatements = null;
+        }
+    }
+
+    /**
+     * Returns the number of PreparedStatements found in the cache.
+     */
+    public final long getStatementCacheHits() {
+        return statementCacheHits + (prepardStatements != null ? prepardStatements.getHits() : 0);
+    }
+
+    /**
+     * Returns the number of PreparedStatements that had to be prepared.
+     */
+    public final long getStatementCacheMisses() {
+        return statementCacheMisses + (prepardStatements != null ? prepardStatements.getMisses() : 0);
     }
 
     /**
@@ -127,19 +194,28 @@ public abstract class Procedure {
     private PreparedStatement getPreparedStatementReturnKeys(Connection conn, SQLStmt stmt, int[] is) throws SQLException {
         assert (this.name_stmt_xref != null) : "The Procedure " + this + " has not been initialized yet!";
 
+        // The statements are only valid on the connection that prepared them
+        if (this.prepardStatements == null || this.prepardStatements.getConnection() != conn) {
+            this.closePreparedStatements();
+            // The TPC-C procedures fetch all their statements before executing them, so the
+            // cache never evicts a statement the current execution still holds
+            int capacity = Math.max(this.statementCacheSize, this.name_stmt_xref.size());
+            this.prepardStatements = new StatementCache(conn, capacity);
+        }
+
         PreparedStatement pStmt = this.prepardStatements.get(stmt);
 
         if (pStmt == null) {
             if (is != null && this.dbType == DatabaseType.POSTGRES) {
                 // HACK: If the target system is Postgres, wrap the PreparedStatement in a special
                 //       one that fakes the getGeneratedKeys().
-                pStmt = new AutoIncrementPreparedStatement(this.dbType, conn.prepareStatement(stmt.getSQL()));
+                pStmt = new AutoIncrementPreparedStatement(this.dbType, this.setPrepareThreshold(conn.prepareStatement(stmt.getSQL())));
             } else if (is != null) {
                 // Everyone else can use the regular getGeneratedKeys() method
                 pStmt = conn.prepareStatement(stmt.getSQL(), is);
             } else {
                 // They don't care about keys
-                pStmt = conn.prepareStatement(stmt.getSQL());
+                pStmt = this.setPrepareThreshold(conn.prepareStatement(stmt.getSQL()));
             }
 
             this.prepardStatements.put(stmt, pStmt);
@@ -150,6 +226,18 @@ public abstract class Procedure {
         return (pStmt);
     }
 
+    /**
+     * Lets the PostgreSQL driver keep the statement prepared on the server after
+     * prepareThreshold executions, instead of parsing and planning it again on each of
+     * its first 4 executions by default.
+     */
+    private PreparedStatement setPrepareThreshold(PreparedStatement pStmt) throws SQLException {
+        if (this.prepareThreshold > 0 && pStmt instanceof PGStatement)
+            ((PGStatement) pStmt).setPrepareThreshold(this.prepareThreshold);
+
+        return pStmt;
+    }
+
     /**
      * Fetch the SQL from the dialect map
      */
@@ -179,6 +267,7 @@ public abstract class Procedure {
                     dialects.getDatabaseType(), this.procName, stmtName));
 
             stmt.setSQL(sql);
+            this.dialect_stmts.add(stmt);
         }
     }
 
@@ -0,0 +1,92 @@
+package pt.haslab.htapbench.api;
+
+import org.apache.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The prepared statements of a Procedure on one connection, keyed by their SQLStmt. The
+ * cache holds at most capacity statements and closes the least recently used one when
+ * it is full, so the statements of a long-running worker do not hold on to the cursors
+ * and memory of the server and the driver.
+ */
+final class StatementCache {
+
+    private static final Logger LOG = Logger.getLogger(StatementCache.class);
+
+    private final Connection conn;
+    private final LinkedHashMap<SQLStmt, PreparedStatement> statements;
+
+    private long hits = 0;
+    private long misses = 0;
+
+    StatementCache(Connection conn, final int capacity) {
+        this.conn = conn;
+        this.statements = new LinkedHashMap<SQLStmt, PreparedStatement>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SQLStmt, PreparedStatement> eldest) {
+                if (size() <= capacity)
+                    return false;
+
+                close(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    Connection getConnection() {
+        return conn;
+    }
+
+    /**
+     * Returns the statement prepared for the SQLStmt, or null if it has to be prepared.
+     */
+    PreparedStatement get(SQLStmt stmt) {
+        PreparedStatement pStmt = statements.get(stmt);
+        if (pStmt != null)
+            hits++;
+        else
+            misses++;
+
+        return pStmt;
+    }
+
+    /**
+     * Adds a statement, closing the least recently used one if the cache is full.
+     */
+    void put(SQLStmt stmt, PreparedStatement pStmt) {
+        statements.put(stmt, pStmt);
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Closes all the statements.
+     */
+    void clear() {
+        for (PreparedStatement pStmt : statements.values())
+            close(pStmt);
+
+        statements.clear();
+    }
+
+    private static void close(PreparedStatement pStmt) {
+        try {
+            pStmt.close();
+        } catch (SQLException ex) {
+            LOG.debug("Failed to close a prepared statement: " + ex.getMessage());
+        }
+    }
+}
@@ -277,6 +277,7 @@ public abstract class BenchmarkModule {
                         new Object[0],
                         new Class<?>[0]);
                 proc.initialize(workConf.getDBType(), (int) workConf.getScaleFactor());
+                proc.setStatementCache(workConf.getStatementCacheSize(), workConf.getPrepareThreshold());
                 proc_xref.put(txn, proc);
                 proc.loadSQLDialect(this.dialects);
             } // FOR
@@ -107,6 +107,20 @@ public class DistributionStatistics {
         return new DistributionStatistics(values.length, percentiles, average, standardDeviation);
     }
 
+    /**
+     * Computes distribution statistics over the values recorded in a histogram. The
+     * percentiles are exact up to the resolution of the histogram, without sorting.
+     */
+    public static DistributionStatistics computeStatistics(LatencyHistogram histogram) {
+        long[] percentiles = new long[PERCENTILES.length];
+        for (int i = 0; i < percentiles.length; ++i) {
+            percentiles[i] = histogram.getValueAtPercentile(PERCENTILES[i]);
+        }
+
+        return new DistributionStatistics((int) histogram.getTotalCount(), percentiles,
+                histogram.getMean(), histogram.getStandardDeviation());
+    }
+
     public int getCount() {
         return count;
     }
@@ -0,0 +1,91 @@
+package pt.haslab.htapbench.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Records the latencies of a single worker into interval histograms that are read while
+ * the benchmark is running. The worker records into the active interval, while a reader
+ * periodically flips the active interval with a spare one and drains the flipped interval
+ * once the worker is no longer recording into it. Neither side takes a lock, so recording
+ * never waits for the reader.
+ *
+ * The worker brackets each record with two increments of a counter, which is odd while a
+ * record is in progress. After the flip, the reader only waits for the record that was in
+ * progress, as any later record reads the new active interval.
+ */
+public final class IntervalRecorder {
+
+    /**
+     * The histograms of an interval, indexed by transaction type id.
+     */
+    private static final class Interval {
+        LatencyHistogram[] serviceTimes = new LatencyHistogram[0];
+        LatencyHistogram[] responseTimes = new LatencyHistogram[0];
+    }
+
+    // The interval the worker records into, flipped by the reader
+    private volatile Interval active = new Interval();
+
+    // The interval of the previous drain, only accessed by the reader
+    private Interval spare = new Interval();
+
+    // Incremented by the worker before and after each record, only written by the worker
+    private volatile long recordEpoch = 0;
+
+    /**
+     * Records a latency. Must only be called by the worker that owns the recorder.
+     */
+    void record(int transType, long latencyUs, long responseUs) {
+        recordEpoch++;
+        try {
+            Interval interval = active;
+            if (transType >= interval.serviceTimes.length) {
+                interval.serviceTimes = Arrays.copyOf(interval.serviceTimes, transType + 1);
+                interval.responseTimes = Arrays.copyOf(interval.responseTimes, transType + 1);
+            }
+
+            if (interval.serviceTimes[transType] == null) {
+                interval.serviceTimes[transType] = new LatencyHistogram();
+                interval.responseTimes[transType] = new LatencyHistogram();
+            }
+
+            interval.serviceTimes[transType].record(latencyUs);
+            interval.responseTimes[transType].record(responseUs);
+        } finally {
+            recordEpoch++;
+        }
+    }
+
+    /**
+     * Makes the spare interval the active one and waits until the worker has finished
+     * recording into the interval that was active.
+     */
+    private void swap() {
+        Interval drained = active;
+        active = spare;
+        spare = drained;
+
+        long epoch = recordEpoch;
+        while ((epoch & 1) != 0 && recordEpoch == epoch)
+            Thread.yield();
+    }
+
+    /**
+     * Adds the latencies recorded since the previous call to the given window of the target
+     * and resets them. Must only be called by a single reader thread.
+     */
+    public void drainInto(WindowedHistograms target, int window) {
+        swap();
+
+        LatencyHistogram[] serviceTimes = spare.serviceTimes;
+        LatencyHistogram[] responseTimes = spare.responseTimes;
+        for (int type = 0; type < serviceTimes.length; type++) {
+            LatencyHistogram service = serviceTimes[type];
+            if (service != null && service.getTotalCount() > 0) {
+                target.add(window, type, service, responseTimes[type]);
+                service.reset();
+                responseTimes[type].reset();
+            }
+        }
+    }
+}
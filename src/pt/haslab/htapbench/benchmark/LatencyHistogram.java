@@ -0,0 +1,171 @@
+package pt.haslab.htapbench.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * A log-linear latency histogram in the style of HdrHistogram. Values are counted in
+ * buckets whose width doubles every 256 values, which bounds the relative error of a
+ * reported percentile to below 1% (two significant decimal digits) over the whole
+ * range, while the histogram has a fixed size regardless of how many values it holds.
+ *
+ * Recording a value never allocates. The minimum, maximum, mean and standard deviation
+ * are tracked exactly. Values above the trackable range (2^32 us, about 71 minutes) are
+ * counted in the highest bucket. The histogram is not thread-safe.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 8;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_BITS = SUB_BUCKET_BITS - 1;
+    private static final int SUB_BUCKET_HALF_COUNT = 1 << SUB_BUCKET_HALF_BITS;
+    private static final long SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+
+    private static final int BUCKET_COUNT = 25;
+    private static final long MAX_TRACKABLE = ((long) SUB_BUCKET_COUNT << (BUCKET_COUNT - 1)) - 1;
+
+    private final int[] counts = new int[(BUCKET_COUNT + 1) * SUB_BUCKET_HALF_COUNT];
+
+    private long totalCount = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+    private double sum = 0;
+    private double sumOfSquares = 0;
+
+    /**
+     * Records a single value, e.g. a latency in microseconds. Negative values are recorded as 0.
+     */
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+
+        counts[countsIndex(Math.min(value, MAX_TRACKABLE))]++;
+        totalCount++;
+        sum += value;
+        sumOfSquares += (double) value * value;
+
+        if (value < min)
+            min = value;
+        if (value > max)
+            max = value;
+    }
+
+    /**
+     * Adds all values recorded in the other histogram to this histogram.
+     */
+    public void add(LatencyHistogram other) {
+        if (other.totalCount == 0)
+            return;
+
+        for (int i = 0; i < counts.length; i++)
+            counts[i] += other.counts[i];
+
+        totalCount += other.totalCount;
+        sum += other.sum;
+        sumOfSquares += other.sumOfSquares;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Removes all recorded values, without releasing the memory of the histogram.
+     */
+    public void reset() {
+        if (totalCount == 0)
+            return;
+
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+        sum = 0;
+        sumOfSquares = 0;
+    }
+
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.add(this);
+        return copy;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    /**
+     * Returns the sample standard deviation of the recorded values.
+     */
+    public double getStandardDeviation() {
+        if (totalCount < 2)
+            return 0;
+
+        double mean = getMean();
+        double variance = (sumOfSquares - totalCount * mean * mean) / (totalCount - 1);
+        return variance > 0 ? Math.sqrt(variance) : 0;
+    }
+
+    /**
+     * Returns the value at the given percentile, where the percentile is given as a
+     * fraction in [0, 1]. Like DistributionStatistics, the value of the element at
+     * index (percentile * count) in the sorted values is selected, without interpolating.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0)
+            return -1;
+
+        long index = (long) (percentile * totalCount);
+        if (index >= totalCount)
+            index = totalCount - 1;
+
+        // The extremes are known exactly
+        if (index == 0)
+            return min;
+        if (index == totalCount - 1)
+            return max;
+
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > index)
+                return Math.max(min, Math.min(max, highestEquivalentValue(i)));
+        }
+
+        return max;
+    }
+
+    // -------------------------------------------------------------------
+    //                          Bucket arithmetic
+    // -------------------------------------------------------------------
+
+    private static int countsIndex(long value) {
+        int bucketIndex = 64 - Long.numberOfLeadingZeros(value | SUB_BUCKET_MASK) - SUB_BUCKET_BITS;
+        int subBucketIndex = (int) (value >>> bucketIndex);
+        return ((bucketIndex + 1) << SUB_BUCKET_HALF_BITS) + (subBucketIndex - SUB_BUCKET_HALF_COUNT);
+    }
+
+    /**
+     * Returns the highest value that is counted at the given index.
+     */
+    private static long highestEquivalentValue(int index) {
+        int bucketIndex = (index >> SUB_BUCKET_HALF_BITS) - 1;
+        int subBucketIndex = (index & (SUB_BUCKET_HALF_COUNT - 1)) + SUB_BUCKET_HALF_COUNT;
+        if (bucketIndex < 0) {
+            subBucketIndex -= SUB_BUCKET_HALF_COUNT;
+            bucketIndex = 0;
+        }
+
+        long lowest = (long) subBucketIndex << bucketIndex;
+        return lowest + (1L << bucketIndex) - 1;
+    }
+}
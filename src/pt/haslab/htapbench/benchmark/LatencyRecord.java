@@ -33,31 +33,54 @@
 package pt.haslab.htapbench.benchmark;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * Efficiently stores a record of (start time, latency) pairs.
  */
 public class LatencyRecord implements Iterable<LatencyRecord.Sample> {
     /**
-     * Allocate space for 500k samples at a time
+     * Allocate space for 64k samples at a time
      */
-    private static final int ALLOC_SIZE = 500000;
+    private static final int ALLOC_SIZE = 1 << 16;
 
     /**
-     * Contains (start time, latency, transactionType, workerid, phaseid) pentiplets in
-     * microsecond form. The start times are "compressed" by encoding them as increments,
-     * starting from globalStartNs.
+     * Contains (start time, end time, latency, response time, transactionType, workerid, phaseid)
+     * tuples in microsecond form, stored column-wise in primitive arrays so that recording a
+     * sample does not create an object. The start times are "compressed" by encoding them as
+     * increments with respect to the previous sample, starting from the first start time of
+     * the chunk, and the end times as their difference from start time plus latency.
      */
-    private final ArrayList<Sample[]> values = new ArrayList<Sample[]>();
+    private final ArrayList<Chunk> values = new ArrayList<Chunk>();
+    private Chunk chunk;
     private int nextIndex;
+    private long lastStartUs;
+
+    /**
+     * Optional log on disk that receives every sample. While the samples are spilled,
+     * only the chunk that is currently filled is kept on the heap.
+     */
+    private SampleLog log;
 
     private long globalStartNs;
 
+    /**
+     * Histograms of the current window, indexed by transaction type id. They are added
+     * to the shared aggregate and reused when a sample falls into another window.
+     */
+    private WindowedHistograms histograms;
+    private long windowUs;
+    private int window = -1;
+    private LatencyHistogram[] serviceTimes = new LatencyHistogram[0];
+    private LatencyHistogram[] responseTimes = new LatencyHistogram[0];
+
+    // Optional histograms of the current interval, read while the benchmark is running
+    private IntervalRecorder intervalRecorder;
+
     public LatencyRecord(long globalStartNs) {
         this.globalStartNs = globalStartNs;
-
-        allocateChunk();
     }
 
     public void setGlobalStartNs(long globalStartNs) {
@@ -66,40 +89,139 @@ public class LatencyRecord implements Iterable<LatencyRecord.Sample> {
             this.globalStartNs = globalStartNs;
     }
 
-    // For the ClientBalancer
-    public void addLatency(int olapStreams, long timeInterval, int txnCount, int deltaT) {
-        if (nextIndex == ALLOC_SIZE)
-            allocateChunk();
+    /**
+     * Also records the latencies of the TPCC and TPCH samples into per-window histograms,
+     * which are added to the given aggregate.
+     */
+    public void setHistograms(WindowedHistograms histograms) {
+        this.histograms = histograms;
+        this.windowUs = histograms.getWindowSizeSeconds() * 1000000L;
+    }
 
-        Sample[] chunk = values.get(values.size() - 1);
+    /**
+     * Also records the latencies of the TPCC and TPCH samples into the given interval
+     * histograms, which are drained periodically to report live metrics.
+     */
+    public void setIntervalRecorder(IntervalRecorder intervalRecorder) {
+        this.intervalRecorder = intervalRecorder;
+    }
 
-        chunk[nextIndex] = new Sample(olapStreams, timeInterval, 0, 0, txnCount, deltaT);
+    /**
+     * Also appends every sample to the given log on disk, which then replaces the chunks
+     * on the heap as the source of the samples returned by the iterator.
+     */
+    public void setSampleLog(SampleLog log) {
+        assert size() == 0;
+        this.log = log;
+    }
 
-        ++nextIndex;
+    public SampleLog getSampleLog() {
+        return log;
+    }
+
+    // For the ClientBalancer
+    public void addLatency(int olapStreams, long timeInterval, int txnCount, int deltaT) {
+        append(olapStreams, timeInterval, 0, 0, 0, txnCount, deltaT);
     }
 
     // For TPCC and TPCH
     public void addLatency(int transType, long startNs, long endNs, int workerId, int phaseId) {
-        assert endNs >= startNs;
-
-        if (nextIndex == ALLOC_SIZE)
-            allocateChunk();
+        addLatency(transType, startNs, startNs, endNs, workerId, phaseId);
+    }
 
-        Sample[] chunk = values.get(values.size() - 1);
+    /**
+     * Records a transaction that was intended to arrive at arrivalNs, but only started
+     * executing at startNs. The latency is the service time from start to end, while the
+     * response time also covers the time the transaction spent waiting to be executed.
+     */
+    public void addLatency(int transType, long arrivalNs, long startNs, long endNs, int workerId, int phaseId) {
+        assert endNs >= startNs;
 
         // Determine the latency and start/end-time, offset with respect to the global benchmark start-time
         long latencyUs = (endNs - startNs) / 1000;
+        long responseUs = (endNs - Math.min(arrivalNs, startNs)) / 1000;
         long startOffsetUs = (startNs - globalStartNs) / 1000;
         long endOffsetUs = (endNs - globalStartNs) / 1000;
 
-        chunk[nextIndex] = new Sample(transType, startOffsetUs, endOffsetUs, latencyUs, workerId, phaseId);
+        append(transType, startOffsetUs, endOffsetUs, latencyUs, responseUs, workerId, phaseId);
+
+        if (histograms != null)
+            recordHistograms(transType, startOffsetUs, latencyUs, responseUs);
+
+        if (intervalRecorder != null)
+            intervalRecorder.record(transType, latencyUs, responseUs);
+    }
+
+    private void recordHistograms(int transType, long startOffsetUs, long latencyUs, long responseUs) {
+        int sampleWindow = windowUs > 0 ? (int) (Math.max(startOffsetUs, 0) / windowUs) : 0;
+        if (sampleWindow != window) {
+            flushHistograms();
+            window = sampleWindow;
+        }
+
+        if (transType >= serviceTimes.length) {
+            serviceTimes = Arrays.copyOf(serviceTimes, transType + 1);
+            responseTimes = Arrays.copyOf(responseTimes, transType + 1);
+        }
 
+        if (serviceTimes[transType] == null) {
+            serviceTimes[transType] = new LatencyHistogram();
+            responseTimes[transType] = new LatencyHistogram();
+        }
+
+        serviceTimes[transType].record(latencyUs);
+        responseTimes[transType].record(responseUs);
+    }
+
+    /**
+     * Adds the histograms of the current window to the shared aggregate. Must be called
+     * once the worker stopped recording, to include the samples of the last window.
+     */
+    public void flushHistograms() {
+        if (histograms == null || window < 0)
+            return;
+
+        for (int type = 0; type < serviceTimes.length; type++) {
+            if (serviceTimes[type] != null && serviceTimes[type].getTotalCount() > 0) {
+                histograms.add(window, type, serviceTimes[type], responseTimes[type]);
+                serviceTimes[type].reset();
+                responseTimes[type].reset();
+            }
+        }
+    }
+
+    private void append(int tranType, long startUs, long endUs, long latencyUs, long responseUs, int workerId, int phaseId) {
+        // Start a new chunk when it is full or when the start time increment does not fit
+        long startDeltaUs = startUs - lastStartUs;
+        if (chunk == null || nextIndex == ALLOC_SIZE || startDeltaUs != (int) startDeltaUs) {
+            allocateChunk(startUs);
+            startDeltaUs = 0;
+        }
+
+        chunk.tranTypes[nextIndex] = tranType;
+        chunk.startDeltas[nextIndex] = (int) startDeltaUs;
+        chunk.endSkews[nextIndex] = (int) (endUs - startUs - latencyUs);
+        chunk.latencies[nextIndex] = latencyUs;
+        chunk.responses[nextIndex] = responseUs;
+        chunk.workerIds[nextIndex] = workerId;
+        chunk.phaseIds[nextIndex] = phaseId;
+
+        lastStartUs = startUs;
         ++nextIndex;
+
+        if (log != null)
+            log.append(tranType, startUs, endUs, latencyUs, responseUs, workerId, phaseId);
     }
 
-    private void allocateChunk() {
-        assert (values.isEmpty() && nextIndex == 0 || nextIndex == ALLOC_SIZE);
-        values.add(new Sample[ALLOC_SIZE]);
+    private void allocateChunk(long firstStartUs) {
+        Chunk next = new Chunk(firstStartUs, size());
+
+        // The spilled samples are read back from the log, so only the tail is kept
+        if (log != null)
+            values.clear();
+
+        values.add(next);
+        chunk = next;
         nextIndex = 0;
     }
 
@@ -107,34 +229,67 @@ public class LatencyRecord implements Iterable<LatencyRecord.Sample> {
      * Returns the number of recorded samples.
      */
     public int size() {
-        // Samples stored in full chunks
-        int samples = (values.size() - 1) * ALLOC_SIZE;
+        if (chunk == null)
+            return 0;
+
+        // Samples stored in the previous chunks, which are not necessarily full
+        return chunk.previousSize + nextIndex;
+    }
 
-        // Samples stored in the last not full chunk
-        samples += nextIndex;
-        return samples;
+    /**
+     * The columns of up to ALLOC_SIZE samples.
+     */
+    private static final class Chunk {
+        private final long firstStartUs;
+        private final int previousSize;
+
+        private final int[] tranTypes = new int[ALLOC_SIZE];
+        private final int[] startDeltas = new int[ALLOC_SIZE];
+        private final int[] endSkews = new int[ALLOC_SIZE];
+        private final long[] latencies = new long[ALLOC_SIZE];
+        private final long[] responses = new long[ALLOC_SIZE];
+        private final int[] workerIds = new int[ALLOC_SIZE];
+        private final int[] phaseIds = new int[ALLOC_SIZE];
+
+        private Chunk(long firstStartUs, int previousSize) {
+            this.firstStartUs = firstStartUs;
+            this.previousSize = previousSize;
+        }
     }
 
     /**
-     * Stores the start time and latency for a single sample. Immutable.
+     * Stores the start time and latency for a single sample.
+     *
+     * The iterator of the LatencyRecord returns the same Sample instance for every sample,
+     * updated in place to avoid an allocation per sample. A Sample must therefore be read
+     * before advancing the iterator, or be copied when it has to outlive the iteration.
      */
     public static final class Sample implements Comparable<Sample> {
-        final int tranType;
-        final long startUs;
-        final long endUs;
-        final long latencyUs;
-        final int workerId;
-        final int phaseId;
-
-        Sample(int tranType, long startUs, long endUs, long latencyUs, int workerId, int phaseId) {
+        int tranType;
+        long startUs;
+        long endUs;
+        long latencyUs;
+        long responseUs;
+        int workerId;
+        int phaseId;
+
+        Sample(int tranType, long startUs, long endUs, long latencyUs, long responseUs, int workerId, int phaseId) {
             this.tranType = tranType;
             this.startUs = startUs;
             this.endUs = endUs;
             this.latencyUs = latencyUs;
+            this.responseUs = responseUs;
             this.workerId = workerId;
             this.phaseId = phaseId;
         }
 
+        /**
+         * Returns a copy of this sample that is not reused by the iterator.
+         */
+        public Sample copy() {
+            return new Sample(tranType, startUs, endUs, latencyUs, responseUs, workerId, phaseId);
+        }
+
         @Override
         public int compareTo(Sample other) {
             long diff = this.endUs - other.endUs;
@@ -150,41 +305,53 @@ public class LatencyRecord implements Iterable<LatencyRecord.Sample> {
         }
 
         public long getLatencyUs() { return this.latencyUs;}
+
+        public long getResponseUs() { return this.responseUs;}
     }
 
     private final class LatencyRecordIterator implements Iterator<Sample> {
+        private final Sample flyweight = new Sample(0, 0, 0, 0, 0, 0, 0);
+        private final int size = size();
+        private int returned = 0;
+
         private int chunkIndex = 0;
         private int subIndex = 0;
+        private long startUs;
 
         @Override
         public boolean hasNext() {
-            if (chunkIndex < values.size() - 1) {
-                return true;
-            }
-
-            assert chunkIndex == values.size() - 1;
-            if (subIndex < nextIndex) {
-                return true;
-            }
-
-            assert chunkIndex == values.size() - 1 && subIndex == nextIndex;
-            return false;
+            return returned < size;
         }
 
         @Override
         public Sample next() {
-            Sample[] chunk = values.get(chunkIndex);
-            Sample s = chunk[subIndex];
-
-            // Iterate in chunk, and wrap to next one
-            ++subIndex;
-            assert subIndex <= ALLOC_SIZE;
-            if (subIndex == ALLOC_SIZE) {
-                chunkIndex += 1;
+            if (returned >= size)
+                throw new NoSuchElementException();
+
+            // Wrap to the next chunk once all samples of the current chunk were returned
+            Chunk current = values.get(chunkIndex);
+            int chunkSize = chunkIndex + 1 < values.size() ? values.get(chunkIndex + 1).previousSize - current.previousSize : nextIndex;
+            if (subIndex == chunkSize) {
+                current = values.get(++chunkIndex);
                 subIndex = 0;
             }
 
-            return s;
+            if (subIndex == 0)
+                startUs = current.firstStartUs;
+
+            startUs += current.startDeltas[subIndex];
+
+            flyweight.tranType = current.tranTypes[subIndex];
+            flyweight.startUs = startUs;
+            flyweight.latencyUs = current.latencies[subIndex];
+            flyweight.endUs = startUs + flyweight.latencyUs + current.endSkews[subIndex];
+            flyweight.responseUs = current.responses[subIndex];
+            flyweight.workerId = current.workerIds[subIndex];
+            flyweight.phaseId = current.phaseIds[subIndex];
+
+            ++subIndex;
+            ++returned;
+            return flyweight;
         }
 
         @Override
@@ -194,6 +361,9 @@ public class LatencyRecord implements Iterable<LatencyRecord.Sample> {
     }
 
     public Iterator<Sample> iterator() {
+        if (log != null)
+            return new SampleLogReader(log.getSegments()).iterator();
+
         return new LatencyRecordIterator();
     }
 }
@@ -0,0 +1,102 @@
+package pt.haslab.htapbench.benchmark;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Iterates over the samples of several LatencyRecords in the order of their end times.
+ * Each worker records its samples in end time order already, so the records are merged
+ * lazily through a k-way merge instead of being copied into a single list and sorted.
+ */
+public final class MergedSampleIterable implements Iterable<LatencyRecord.Sample> {
+    private final List<? extends Iterable<LatencyRecord.Sample>> records;
+
+    public MergedSampleIterable(List<? extends Iterable<LatencyRecord.Sample>> records) {
+        this.records = records;
+    }
+
+    @Override
+    public Iterator<LatencyRecord.Sample> iterator() {
+        return new MergedSampleIterator();
+    }
+
+    /**
+     * The next sample of one of the records.
+     */
+    private static final class Head implements Comparable<Head> {
+        private final Iterator<LatencyRecord.Sample> samples;
+        private LatencyRecord.Sample sample;
+
+        private Head(Iterator<LatencyRecord.Sample> samples) {
+            this.samples = samples;
+        }
+
+        /**
+         * Moves to the next sample of the record, skipping empty entries.
+         *
+         * @return false if the record is exhausted.
+         */
+        private boolean advance() {
+            while (samples.hasNext()) {
+                sample = samples.next();
+                if (sample != null)
+                    return true;
+            }
+
+            sample = null;
+            return false;
+        }
+
+        @Override
+        public int compareTo(Head other) {
+            return sample.compareTo(other.sample);
+        }
+    }
+
+    private final class MergedSampleIterator implements Iterator<LatencyRecord.Sample> {
+        private final PriorityQueue<Head> heads = new PriorityQueue<Head>(Math.max(records.size(), 1));
+
+        // The record iterators reuse their samples, so the head of the last returned
+        // sample is only advanced once the caller moves on to the next sample
+        private Head returned;
+
+        private MergedSampleIterator() {
+            for (Iterable<LatencyRecord.Sample> record : records) {
+                Head head = new Head(record.iterator());
+                if (head.advance())
+                    heads.add(head);
+            }
+        }
+
+        private void advanceReturned() {
+            if (returned != null && returned.advance())
+                heads.add(returned);
+
+            returned = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            advanceReturned();
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public LatencyRecord.Sample next() {
+            advanceReturned();
+
+            returned = heads.poll();
+            if (returned == null)
+                throw new NoSuchElementException();
+
+            return returned.sample;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove is not supported");
+        }
+    }
+}
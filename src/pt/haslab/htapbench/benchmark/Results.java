@@ -46,16 +46,19 @@ public final class Results {
     public final Histogram<TransactionType> txnAborted = new Histogram<TransactionType>(true);
     public final Histogram<TransactionType> txnRetry = new Histogram<TransactionType>(true);
     public final Histogram<TransactionType> txnErrors = new Histogram<TransactionType>(true);
+    public final Histogram<TransactionType> txnTimeouts = new Histogram<TransactionType>(true);
     public final Map<TransactionType, Histogram<String>> txnRecordedMessages = new HashMap<TransactionType, Histogram<String>>();
     private int ts_counter = 0;
     private String name;
 
-    private final List<LatencyRecord.Sample> latencySamples;
+    private final Iterable<LatencyRecord.Sample> latencySamples;
+    private final WindowedHistograms latencyHistograms;
 
     public Results(long nanoSeconds, int measuredRequests, DistributionStatistics latencyDistribution, final List<LatencyRecord.Sample> latencySamples) {
         this.nanoSeconds = nanoSeconds;
         this.measuredRequests = measuredRequests;
         this.latencyDistribution = latencyDistribution;
+        this.latencyHistograms = null;
 
         if (latencyDistribution == null) {
             assert latencySamples == null;
@@ -63,10 +66,24 @@ public final class Results {
         } else {
             // defensive copy
             this.latencySamples = Collections.unmodifiableList(new ArrayList<LatencyRecord.Sample>(latencySamples));
-            assert !this.latencySamples.isEmpty();
+            assert !latencySamples.isEmpty();
         }
     }
 
+    /**
+     * Builds the results from the latency histograms of the workers. The samples are
+     * only iterated to write the raw output, so they are neither copied nor sorted.
+     *
+     * @param latencySamples the samples in the order of their end times.
+     */
+    public Results(long nanoSeconds, int measuredRequests, WindowedHistograms latencyHistograms, Iterable<LatencyRecord.Sample> latencySamples) {
+        this.nanoSeconds = nanoSeconds;
+        this.measuredRequests = measuredRequests;
+        this.latencyHistograms = latencyHistograms;
+        this.latencyDistribution = DistributionStatistics.computeStatistics(latencyHistograms.getTotal(false));
+        this.latencySamples = latencySamples;
+    }
+
     /**
      * Get a histogram of how often each transaction was executed
      */
@@ -86,6 +103,10 @@ public final class Results {
         return (this.txnErrors);
     }
 
+    public final Histogram<TransactionType> getTimeoutHistogram() {
+        return (this.txnTimeouts);
+    }
+
     public final Map<TransactionType, Histogram<String>> getRecordedMessagesHistogram() {
         return (this.txnRecordedMessages);
     }
@@ -120,7 +141,8 @@ public final class Results {
             results = results + "tpmC : " + get_tpmC() + "\n**************************";
 
         if (getName().equals("TPCH"))
-            results = results + "QphH : " + get_QphH() + "\n**************************";
+            results = results + "QphH : " + get_QphH() + "\n"
+                    + "Timed out queries : " + txnTimeouts.getSampleCount() + "\n**************************";
 
         return results;
     }
@@ -129,7 +151,20 @@ public final class Results {
         writeCSV(windowSizeSeconds, out, TransactionType.INVALID);
     }
 
+    /**
+     * Writes the windowed statistics of the service times, measured from the moment a worker
+     * started the transaction, followed by the windowed statistics of the response times,
+     * measured from the intended arrival of the transaction. The difference between the two
+     * is the time transactions spent queued, which is hidden by the service times alone.
+     */
     public void writeCSV(int windowSizeSeconds, PrintStream out, TransactionType txType) {
+        writeWindows(windowSizeSeconds, out, txType, false);
+        writeWindows(windowSizeSeconds, out, txType, true);
+
+        out.println(toString());
+    }
+
+    private void writeWindows(int windowSizeSeconds, PrintStream out, TransactionType txType, boolean responseTime) {
         boolean tpcc = this.getName().equalsIgnoreCase("TPCC");
 
         String headerTPCC = "time,    TPS, avg_lat, min_lat, 25th_lat, 50th_lat, 75th_lat, 90th_lat, 95th_lat, 99th_lat,  max_lat";
@@ -139,13 +174,23 @@ public final class Results {
         String formatTPCH = "%4d, %7d, %7.0f, %7.0f, %8.0f, %8.0f, %8.0f, %8.0f, %8.0f, %8.0f, %8.0f\n";
 
         out.println("**********************************************");
-        out.println(this.getName() + " results (latencies in milliseconds)");
+        if (responseTime)
+            out.println(this.getName() + " response times from the intended arrival (latencies in milliseconds)");
+        else
+            out.println(this.getName() + " results (latencies in milliseconds)");
         out.println("**********************************************");
         out.println(tpcc ? headerTPCC : headerTPCH);
 
         int i = 0;
         final double factor = 1000;
-        for (DistributionStatistics s : new TimeBucketIterable(latencySamples, windowSizeSeconds, txType)) {
+        // The histograms can only be used if they were recorded with the same window size
+        TimeBucketIterable buckets;
+        if (latencyHistograms != null && latencyHistograms.getWindowSizeSeconds() == windowSizeSeconds)
+            buckets = new TimeBucketIterable(latencyHistograms, txType, responseTime);
+        else
+            buckets = new TimeBucketIterable(latencySamples, windowSizeSeconds, txType, responseTime);
+
+        for (DistributionStatistics s : buckets) {
             if (tpcc){
                 out.printf(Locale.US, formatTPCC,
                         i * windowSizeSeconds,
@@ -176,8 +221,6 @@ public final class Results {
 
             i += 1;
         }
-
-        out.println(toString());
     }
 
     public void writeAllCSVAbsoluteTiming(PrintStream out) {
@@ -198,13 +241,13 @@ public final class Results {
         } else {
             // Otherwise write the raw result file
             if (this.getName().endsWith("TPCC"))
-                out.println("transaction type (index in config file), start time (us), end time(us), latency(us), worker id(start number), phase id(index in config file)");
+                out.println("transaction type (index in config file), start time (us), end time(us), latency(us), worker id(start number), phase id(index in config file), response time(us)");
 
             if (this.getName().equals("TPCH"))
-                out.println("transaction type (index in config file), start time (us), end time(us), latency(us), worker id(start number), Rows in ResultSet");
+                out.println("transaction type (index in config file), start time (us), end time(us), latency(us), worker id(start number), Rows in ResultSet, response time(us)");
 
             for (Sample s : latencySamples) {
-                out.println(s.tranType + "," + s.startUs + "," + s.endUs + "," + s.latencyUs + "," + s.workerId + "," + s.phaseId);
+                out.println(s.tranType + "," + s.startUs + "," + s.endUs + "," + s.latencyUs + "," + s.workerId + "," + s.phaseId + "," + s.responseUs);
             }
         }
     }
@@ -230,6 +273,7 @@ public final class Results {
         getErrorHistogram().putHistogram(other.getErrorHistogram());
         getAbortedHistogram().putHistogram(other.getAbortedHistogram());
         getRetryHistogram().putHistogram(other.getRetryHistogram());
+        getTimeoutHistogram().putHistogram(other.getTimeoutHistogram());
 
         // Combine the histograms within the maps containing recorded messages
         for (TransactionType key : other.txnRecordedMessages.keySet()){
@@ -0,0 +1,155 @@
+package pt.haslab.htapbench.benchmark;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Append-only log of the samples of a single worker, written as fixed-width binary
+ * records into memory-mapped segment files while the benchmark is running. The samples
+ * reach the page cache as soon as they are recorded, so they survive a crash or an
+ * OutOfMemoryError of the benchmark and can be replayed by the SampleLogReader.
+ *
+ * Each segment starts with a header holding the number of records it contains, which is
+ * updated after every record, followed by the records themselves. The log is not
+ * thread-safe and is meant to be written by the worker that owns it. The segments left
+ * in the directory by an earlier log of the same name are deleted when the log is
+ * created, and the Workload clears those of all the workers of an earlier run with
+ * clear(), so the SampleLogReader never replays them as part of this run.
+ */
+public final class SampleLog {
+
+    static final int MAGIC = 0x48545042;
+    static final int HEADER_SIZE = 16;
+    static final int COUNT_OFFSET = 8;
+
+    // tranType, startUs, endUs, latencyUs, responseUs, workerId, phaseId
+    static final int RECORD_SIZE = 4 + 8 + 8 + 8 + 8 + 4 + 4;
+
+    // Number of records per segment, about 44 MB per segment file
+    static final int SEGMENT_RECORDS = 1 << 20;
+
+    static final String SUFFIX = ".seg";
+
+    // The prefixes of the names of the OLTP and OLAP workers, which group their logs
+    public static final String OLTP_PREFIX = "TPCCWorker";
+    public static final String OLAP_PREFIX = "TPCHWorker";
+
+    private final File directory;
+    private final String name;
+    private final List<File> segments = new ArrayList<File>();
+
+    private MappedByteBuffer buffer;
+    private long count;
+
+    /**
+     * @param directory the directory that holds the segment files.
+     * @param name      the name of the worker, which prefixes its segment files.
+     */
+    public SampleLog(File directory, String name) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Unable to create the sample log directory " + directory);
+
+        this.directory = directory;
+        this.name = name;
+
+        deleteSegments(directory, name);
+    }
+
+    /**
+     * Deletes the segment files of the logs whose names start with the prefix, e.g. those
+     * of the workers of an earlier run, which may have had more workers than this one.
+     */
+    public static void clear(File directory, String prefix) throws IOException {
+        deleteSegments(directory, Pattern.compile(Pattern.quote(prefix) + ".*-\\d{4,}" + Pattern.quote(SUFFIX)));
+    }
+
+    /**
+     * Deletes the segment files of the log with the given name.
+     */
+    private static void deleteSegments(File directory, String name) throws IOException {
+        deleteSegments(directory, Pattern.compile(Pattern.quote(name) + "-\\d{4,}" + Pattern.quote(SUFFIX)));
+    }
+
+    private static void deleteSegments(File directory, final Pattern pattern) throws IOException {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String fileName) {
+                return pattern.matcher(fileName).matches();
+            }
+        });
+
+        if (files == null)
+            return;
+
+        for (File file : files) {
+            if (!file.delete())
+                throw new IOException("Unable to delete the stale sample log segment " + file);
+        }
+    }
+
+    /**
+     * Appends a sample to the current segment, mapping a new segment if it is full.
+     */
+    void append(int tranType, long startUs, long endUs, long latencyUs, long responseUs, int workerId, int phaseId) {
+        if (buffer == null || count == SEGMENT_RECORDS)
+            nextSegment();
+
+        buffer.putInt(tranType);
+        buffer.putLong(startUs);
+        buffer.putLong(endUs);
+        buffer.putLong(latencyUs);
+        buffer.putLong(responseUs);
+        buffer.putInt(workerId);
+        buffer.putInt(phaseId);
+
+        // Publish the record only once it has been written completely
+        buffer.putLong(COUNT_OFFSET, ++count);
+    }
+
+    private void nextSegment() {
+        File segment = new File(directory, String.format("%s-%04d%s", name, segments.size() + 1, SUFFIX));
+        long size = HEADER_SIZE + (long) SEGMENT_RECORDS * RECORD_SIZE;
+
+        try {
+            RandomAccessFile file = new RandomAccessFile(segment, "rw");
+            try {
+                file.setLength(size);
+                buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } finally {
+                // The mapping stays valid after the file is closed
+                file.close();
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException("Unable to map the sample log segment " + segment, ex);
+        }
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(RECORD_SIZE);
+        buffer.putLong(0);
+        count = 0;
+
+        segments.add(segment);
+    }
+
+    /**
+     * Flushes the mapped segments to the storage device.
+     */
+    public void force() {
+        if (buffer != null)
+            buffer.force();
+    }
+
+    /**
+     * Returns the segment files written so far, in order.
+     */
+    public List<File> getSegments() {
+        return new ArrayList<File>(segments);
+    }
+}
@@ -0,0 +1,204 @@
+package pt.haslab.htapbench.benchmark;
+
+import pt.haslab.htapbench.util.FileUtil;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * Reads the samples of a worker back from the memory-mapped segment files of its SampleLog.
+ * Like the LatencyRecord iterator, the iterator returns a single Sample updated in place.
+ *
+ * The main method rebuilds the .raw and .res result files from a directory of sample logs,
+ * e.g. after a run that crashed before it could write its results:
+ *
+ *   java pt.haslab.htapbench.benchmark.SampleLogReader <log directory> [output directory] [window seconds]
+ */
+public final class SampleLogReader implements Iterable<LatencyRecord.Sample> {
+    private final List<File> segments;
+
+    /**
+     * @param segments the segment files of a single worker, in order.
+     */
+    public SampleLogReader(List<File> segments) {
+        this.segments = segments;
+    }
+
+    @Override
+    public Iterator<LatencyRecord.Sample> iterator() {
+        return new SampleLogIterator();
+    }
+
+    private static MappedByteBuffer map(File segment) {
+        try {
+            RandomAccessFile file = new RandomAccessFile(segment, "r");
+            try {
+                MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+                if (buffer.getInt(0) != SampleLog.MAGIC || buffer.getInt(4) != SampleLog.RECORD_SIZE)
+                    throw new IOException("Not a sample log segment");
+
+                return buffer;
+            } finally {
+                file.close();
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException("Unable to map the sample log segment " + segment, ex);
+        }
+    }
+
+    private final class SampleLogIterator implements Iterator<LatencyRecord.Sample> {
+        private final LatencyRecord.Sample flyweight = new LatencyRecord.Sample(0, 0, 0, 0, 0, 0, 0);
+
+        private int segmentIndex = 0;
+        private MappedByteBuffer buffer;
+        private long remaining = 0;
+
+        @Override
+        public boolean hasNext() {
+            // Map the next segment with records once the current one is exhausted
+            while (remaining == 0 && segmentIndex < segments.size()) {
+                buffer = map(segments.get(segmentIndex++));
+                remaining = buffer.getLong(SampleLog.COUNT_OFFSET);
+                buffer.position(SampleLog.HEADER_SIZE);
+            }
+
+            return remaining > 0;
+        }
+
+        @Override
+        public LatencyRecord.Sample next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            flyweight.tranType = buffer.getInt();
+            flyweight.startUs = buffer.getLong();
+            flyweight.endUs = buffer.getLong();
+            flyweight.latencyUs = buffer.getLong();
+            flyweight.responseUs = buffer.getLong();
+            flyweight.workerId = buffer.getInt();
+            flyweight.phaseId = buffer.getInt();
+
+            remaining--;
+            return flyweight;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove is not supported");
+        }
+    }
+
+    // -------------------------------------------------------------------
+    //                          Result replay
+    // -------------------------------------------------------------------
+
+    /**
+     * Returns the segment files in the directory for each worker whose name starts with
+     * the given prefix. The segments of each worker are sorted by their sequence number.
+     */
+    static Map<String, List<File>> findSegments(File directory, final String prefix) {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(prefix) && name.endsWith(SampleLog.SUFFIX);
+            }
+        });
+
+        Map<String, List<File>> workers = new TreeMap<String, List<File>>();
+        if (files == null)
+            return workers;
+
+        Arrays.sort(files);
+        for (File file : files) {
+            String worker = file.getName().substring(0, file.getName().lastIndexOf('-'));
+            List<File> segments = workers.get(worker);
+            if (segments == null) {
+                segments = new ArrayList<File>();
+                workers.put(worker, segments);
+            }
+
+            segments.add(file);
+        }
+
+        return workers;
+    }
+
+    /**
+     * Rebuilds the Results of the workers whose sample logs start with the given prefix.
+     *
+     * @return the Results or null if there are no sample logs with the prefix.
+     */
+    static Results replay(File directory, String prefix, String name, int windowSizeSeconds) {
+        List<SampleLogReader> readers = new ArrayList<SampleLogReader>();
+        for (List<File> segments : findSegments(directory, prefix).values())
+            readers.add(new SampleLogReader(segments));
+
+        if (readers.isEmpty())
+            return null;
+
+        // Rebuild the histograms and the duration of the run in a single pass
+        MergedSampleIterable samples = new MergedSampleIterable(readers);
+        WindowedHistograms histograms = new WindowedHistograms(windowSizeSeconds);
+        int requests = 0;
+        long lastEndUs = 0;
+
+        for (LatencyRecord.Sample sample : samples) {
+            histograms.record(sample);
+            lastEndUs = Math.max(lastEndUs, sample.endUs);
+            requests++;
+        }
+
+        // The start and end times are offsets from the start of the measurement
+        Results results = new Results(lastEndUs * 1000, requests, histograms, samples);
+        results.setName(name);
+        return results;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: SampleLogReader <log directory> [output directory] [window seconds]");
+            return;
+        }
+
+        File directory = new File(args[0]);
+        String outputDirectory = args.length > 1 ? args[1] : args[0];
+        int windowSize = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+
+        FileUtil.makeDirIfNotExists(outputDirectory);
+
+        String[][] groups = {{SampleLog.OLTP_PREFIX, "TPCC"}, {SampleLog.OLAP_PREFIX, "TPCH"}};
+        for (String[] group : groups) {
+            Results results = replay(directory, group[0], group[1], windowSize);
+            if (results == null)
+                continue;
+
+            String baseFile = FileUtil.joinPath(outputDirectory, group[1].toLowerCase());
+
+            String nextName = FileUtil.getNextFilename(baseFile + ".raw");
+            PrintStream raw = new PrintStream(new File(nextName));
+            results.writeAllCSVAbsoluteTiming(raw);
+            raw.close();
+            System.out.println("Output raw data into file: " + nextName);
+
+            if (windowSize != 0) {
+                nextName = FileUtil.getNextFilename(baseFile + ".res");
+                PrintStream res = new PrintStream(new File(nextName));
+                results.writeCSV(windowSize, res);
+                res.close();
+                System.out.println("Output windowed results into file: " + nextName);
+            }
+        }
+    }
+}
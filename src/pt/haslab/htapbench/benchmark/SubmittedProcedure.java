@@ -51,7 +51,10 @@ public class SubmittedProcedure {
         this.startTime = System.nanoTime();
     }
 
-    SubmittedProcedure(int type, long startTime) {
+    /**
+     * @param startTime the intended start time of the procedure in System.nanoTime() form.
+     */
+    public SubmittedProcedure(int type, long startTime) {
         this.type = type;
         this.startTime = startTime;
     }
@@ -35,20 +35,67 @@ package pt.haslab.htapbench.benchmark;
 import pt.haslab.htapbench.api.TransactionType;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 public final class TimeBucketIterable implements Iterable<DistributionStatistics> {
     private final Iterable<LatencyRecord.Sample> samples;
+    private final WindowedHistograms histograms;
     private final int windowSizeSeconds;
     private final TransactionType txType;
+    private final boolean responseTime;
 
-    TimeBucketIterable(Iterable<LatencyRecord.Sample> samples, int windowSizeSeconds, TransactionType txType) {
+    /**
+     * @param responseTime compute the statistics over the response times instead of the service times.
+     */
+    TimeBucketIterable(Iterable<LatencyRecord.Sample> samples, int windowSizeSeconds, TransactionType txType,
+                       boolean responseTime) {
         this.samples = samples;
+        this.histograms = null;
         this.windowSizeSeconds = windowSizeSeconds;
         this.txType = txType;
+        this.responseTime = responseTime;
+    }
+
+    /**
+     * Iterates over the windows of the histograms, which were recorded with the window size
+     * used for the output. The statistics are computed without visiting the raw samples.
+     */
+    TimeBucketIterable(WindowedHistograms histograms, TransactionType txType, boolean responseTime) {
+        this.samples = null;
+        this.histograms = histograms;
+        this.windowSizeSeconds = histograms.getWindowSizeSeconds();
+        this.txType = txType;
+        this.responseTime = responseTime;
     }
 
     @Override
     public Iterator<DistributionStatistics> iterator() {
-        return new TimeBucketIterator(samples.iterator(), windowSizeSeconds, txType);
+        if (histograms != null)
+            return new HistogramBucketIterator();
+
+        return new TimeBucketIterator(samples.iterator(), windowSizeSeconds, txType, responseTime);
+    }
+
+    private final class HistogramBucketIterator implements Iterator<DistributionStatistics> {
+        private final int windows = histograms.getWindowCount();
+        private int window = 0;
+
+        @Override
+        public boolean hasNext() {
+            return window < windows;
+        }
+
+        @Override
+        public DistributionStatistics next() {
+            if (window >= windows)
+                throw new NoSuchElementException();
+
+            return DistributionStatistics.computeStatistics(histograms.getHistogram(window++, txType, responseTime));
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("unsupported");
+        }
     }
 }
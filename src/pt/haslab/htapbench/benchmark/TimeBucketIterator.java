@@ -45,16 +45,19 @@ public final class TimeBucketIterator implements Iterator<DistributionStatistics
     private final Iterator<LatencyRecord.Sample> samples;
     private final int windowSizeSeconds;
     private final TransactionType txType;
+    private final boolean responseTime;
 
     private LatencyRecord.Sample sample;
     private long nextStartUs = 0;
 
     private DistributionStatistics next;
 
-    TimeBucketIterator(Iterator<LatencyRecord.Sample> samples, int windowSizeSeconds, TransactionType txType) {
+    TimeBucketIterator(Iterator<LatencyRecord.Sample> samples, int windowSizeSeconds, TransactionType txType,
+                       boolean responseTime) {
         this.samples = samples;
         this.windowSizeSeconds = windowSizeSeconds;
         this.txType = txType;
+        this.responseTime = responseTime;
 
         if (samples.hasNext()) {
             sample = samples.next();
@@ -76,7 +79,7 @@ public final class TimeBucketIterator implements Iterator<DistributionStatistics
             // INVALID TXType means all should be reported, if a filter is
             // set, only this specific transaction
             if (txType == TransactionType.INVALID || txType.getId() == sample.tranType)
-                latencies.add(sample.latencyUs);
+                latencies.add(responseTime ? sample.responseUs : sample.latencyUs);
 
             if (samples.hasNext()) {
                 sample = samples.next();
@@ -0,0 +1,126 @@
+package pt.haslab.htapbench.benchmark;
+
+import pt.haslab.htapbench.api.TransactionType;
+
+import java.util.ArrayList;
+
+/**
+ * Aggregates the latency histograms of a group of workers, e.g. all TPCC workers, per time
+ * window and per transaction type. Each worker records into its own histograms for the
+ * current window and only adds them to this aggregate when it moves on to the next window,
+ * so the workers do not contend on the aggregate while executing transactions.
+ *
+ * Both the service times and the response times from the intended arrival are kept, which
+ * allows the windowed results to be reported without storing or sorting the raw samples.
+ */
+public final class WindowedHistograms {
+    private final int windowSizeSeconds;
+
+    // Histograms indexed by window and transaction type id
+    private final ArrayList<LatencyHistogram[]> serviceTimes = new ArrayList<LatencyHistogram[]>();
+    private final ArrayList<LatencyHistogram[]> responseTimes = new ArrayList<LatencyHistogram[]>();
+
+    /**
+     * @param windowSizeSeconds the size of the time windows, where 0 aggregates all samples in a single window.
+     */
+    public WindowedHistograms(int windowSizeSeconds) {
+        this.windowSizeSeconds = Math.max(windowSizeSeconds, 0);
+    }
+
+    public int getWindowSizeSeconds() {
+        return windowSizeSeconds;
+    }
+
+    /**
+     * Adds the latencies recorded for a transaction type in the given window.
+     */
+    synchronized void add(int window, int transType, LatencyHistogram service, LatencyHistogram response) {
+        histogram(serviceTimes, window, transType).add(service);
+        histogram(responseTimes, window, transType).add(response);
+    }
+
+    /**
+     * Adds a single sample, e.g. when rebuilding the histograms from a SampleLog.
+     */
+    synchronized void record(LatencyRecord.Sample sample) {
+        long windowUs = windowSizeSeconds * 1000000L;
+        int window = windowUs > 0 ? (int) (Math.max(sample.startUs, 0) / windowUs) : 0;
+
+        histogram(serviceTimes, window, sample.tranType).record(sample.latencyUs);
+        histogram(responseTimes, window, sample.tranType).record(sample.responseUs);
+    }
+
+    /**
+     * Adds all the histograms of the other aggregate to this aggregate.
+     */
+    public synchronized void add(WindowedHistograms other) {
+        synchronized (other) {
+            for (int window = 0; window < other.serviceTimes.size(); window++) {
+                LatencyHistogram[] service = other.serviceTimes.get(window);
+                LatencyHistogram[] response = other.responseTimes.get(window);
+
+                for (int type = 0; type < service.length; type++) {
+                    if (service[type] != null)
+                        add(window, type, service[type], response[type]);
+                }
+            }
+        }
+    }
+
+    private static LatencyHistogram histogram(ArrayList<LatencyHistogram[]> windows, int window, int transType) {
+        while (windows.size() <= window)
+            windows.add(new LatencyHistogram[0]);
+
+        LatencyHistogram[] types = windows.get(window);
+        if (types.length <= transType) {
+            LatencyHistogram[] grown = new LatencyHistogram[transType + 1];
+            System.arraycopy(types, 0, grown, 0, types.length);
+            windows.set(window, grown);
+            types = grown;
+        }
+
+        if (types[transType] == null)
+            types[transType] = new LatencyHistogram();
+
+        return types[transType];
+    }
+
+    /**
+     * Returns the number of windows up to and including the last window with samples.
+     */
+    public synchronized int getWindowCount() {
+        return serviceTimes.size();
+    }
+
+    /**
+     * Returns the latencies recorded in the given window for the given transaction type,
+     * where TransactionType.INVALID selects all transaction types.
+     *
+     * @param responseTime select the response times instead of the service times.
+     */
+    public synchronized LatencyHistogram getHistogram(int window, TransactionType txType, boolean responseTime) {
+        LatencyHistogram merged = new LatencyHistogram();
+        ArrayList<LatencyHistogram[]> windows = responseTime ? responseTimes : serviceTimes;
+        if (window >= windows.size())
+            return merged;
+
+        LatencyHistogram[] types = windows.get(window);
+        for (int type = 0; type < types.length; type++) {
+            if (types[type] != null && (txType == TransactionType.INVALID || txType.getId() == type))
+                merged.add(types[type]);
+        }
+
+        return merged;
+    }
+
+    /**
+     * Returns the latencies recorded over all windows and transaction types.
+     */
+    public synchronized LatencyHistogram getTotal(boolean responseTime) {
+        LatencyHistogram total = new LatencyHistogram();
+        for (int window = 0; window < serviceTimes.size(); window++)
+            total.add(getHistogram(window, TransactionType.INVALID, responseTime));
+
+        return total;
+    }
+}
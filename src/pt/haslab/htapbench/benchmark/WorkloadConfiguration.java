@@ -69,6 +69,15 @@ public class WorkloadConfiguration {
     private String db_password;
     private String db_driver;
     private String db_name;
+    private String workQueue;
+    private String executor;
+    private String sampleLog;
+    private String liveResultsFile;
+    private String loaderBatchSize;
+    private String loaderCommitInterval;
+    private String loaderStreams;
+    private String csvCompression;
+    private String queryTimeout;
 
     private int isolationMode = Connection.TRANSACTION_SERIALIZABLE;
     private int numberOfPhases = 0;
@@ -77,8 +86,19 @@ public class WorkloadConfiguration {
     private int targetTPS;
     private int terminals;
     private int sample;
+    private int workQueueShards;
+    private int carrierThreads;
+    private int liveWindow;
+    private int statementCacheSize;
+    private int prepareThreshold;
+    private int fetchSize;
+    private int loaderThreads;
 
     private boolean useCSV = true;
+    private boolean streamLoad;
+    private boolean binaryCopy;
+    private boolean resultChecksum;
+    private int scaleOutFrom;
     private boolean recordAbortMessages;
     private boolean hybridWorkload;
     private boolean idealClient;
@@ -264,6 +284,190 @@ public class WorkloadConfiguration {
         this.filePathCSV = FileUtil.resolvePath(path);
     }
 
+    // Work queue implementation
+    public String getWorkQueue() {
+        return this.workQueue;
+    }
+
+    public void setWorkQueue(String workQueue) {
+        this.workQueue = workQueue;
+    }
+
+    public int getWorkQueueShards() {
+        return this.workQueueShards;
+    }
+
+    public void setWorkQueueShards(int shards) {
+        this.workQueueShards = shards;
+    }
+
+    // Worker thread executor
+    public String getExecutor() {
+        return this.executor;
+    }
+
+    public void setExecutor(String executor) {
+        this.executor = executor;
+    }
+
+    public int getCarrierThreads() {
+        return this.carrierThreads;
+    }
+
+    public void setCarrierThreads(int carrierThreads) {
+        this.carrierThreads = carrierThreads;
+    }
+
+    // Directory of the on-disk sample logs, or null to keep the samples in memory
+    public String getSampleLog() {
+        return this.sampleLog;
+    }
+
+    public void setSampleLog(String sampleLog) {
+        this.sampleLog = sampleLog;
+    }
+
+    // Live windowed metrics, disabled if the window is 0
+    public int getLiveWindow() {
+        return this.liveWindow;
+    }
+
+    public void setLiveWindow(int liveWindow) {
+        this.liveWindow = liveWindow;
+    }
+
+    public String getLiveResultsFile() {
+        return this.liveResultsFile;
+    }
+
+    public void setLiveResultsFile(String liveResultsFile) {
+        this.liveResultsFile = liveResultsFile;
+    }
+
+    // Prepared statements cached per procedure and connection
+    public int getStatementCacheSize() {
+        return this.statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    // Executions before the driver prepares a statement on the server, 0 for the driver default
+    public int getPrepareThreshold() {
+        return this.prepareThreshold;
+    }
+
+    public void setPrepareThreshold(int prepareThreshold) {
+        this.prepareThreshold = prepareThreshold;
+    }
+
+    // Rows fetched at once from the results of the OLAP queries, 0 for the driver default
+    public int getFetchSize() {
+        return this.fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    // Time budget in seconds of the OLAP queries, as "default[,Qn=seconds...]"
+    public String getQueryTimeout() {
+        return this.queryTimeout;
+    }
+
+    public void setQueryTimeout(String queryTimeout) {
+        this.queryTimeout = queryTimeout;
+    }
+
+    // Compute a checksum of the rows of the OLAP query results
+    public boolean getResultChecksum() {
+        return this.resultChecksum;
+    }
+
+    public void setResultChecksum(boolean resultChecksum) {
+        this.resultChecksum = resultChecksum;
+    }
+
+    // Number of threads generating the data, 0 for the number of cores
+    public int getLoaderThreads() {
+        return this.loaderThreads;
+    }
+
+    public void setLoaderThreads(int loaderThreads) {
+        this.loaderThreads = loaderThreads;
+    }
+
+    /**
+     * Returns the number of loader threads, i.e. the number of cores unless loaderThreads is set.
+     */
+    public int getEffectiveLoaderThreads() {
+        return this.loaderThreads > 0 ? this.loaderThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    // Rows per insert batch of the loader, as "default[,TABLE=rows...]"
+    public String getLoaderBatchSize() {
+        return this.loaderBatchSize;
+    }
+
+    public void setLoaderBatchSize(String loaderBatchSize) {
+        this.loaderBatchSize = loaderBatchSize;
+    }
+
+    // Rows per commit of the loader, as "default[,TABLE=rows...]"
+    public String getLoaderCommitInterval() {
+        return this.loaderCommitInterval;
+    }
+
+    public void setLoaderCommitInterval(String loaderCommitInterval) {
+        this.loaderCommitInterval = loaderCommitInterval;
+    }
+
+    // Stream the generated rows into the bulk load command of the database
+    public boolean getStreamLoad() {
+        return this.streamLoad;
+    }
+
+    public void setStreamLoad(boolean streamLoad) {
+        this.streamLoad = streamLoad;
+    }
+
+    // Bulk load streams per table, as "default[,TABLE=streams...]"
+    public String getLoaderStreams() {
+        return this.loaderStreams;
+    }
+
+    public void setLoaderStreams(String loaderStreams) {
+        this.loaderStreams = loaderStreams;
+    }
+
+    // Stream the generated rows in the binary COPY format of PostgreSQL
+    public boolean getBinaryCopy() {
+        return this.binaryCopy;
+    }
+
+    public void setBinaryCopy(boolean binaryCopy) {
+        this.binaryCopy = binaryCopy;
+    }
+
+    // Number of warehouses of the populated database to add warehouses to, 0 for a full population
+    public int getScaleOutFrom() {
+        return this.scaleOutFrom;
+    }
+
+    public void setScaleOutFrom(int scaleOutFrom) {
+        this.scaleOutFrom = scaleOutFrom;
+    }
+
+    // Compression of the CSV shards written per warehouse, i.e. none or gzip
+    public String getCSVCompression() {
+        return this.csvCompression;
+    }
+
+    public void setCSVCompression(String csvCompression) {
+        this.csvCompression = csvCompression;
+    }
+
     // Number of TPCC terminals
     public int getTerminals() {
         return terminals;
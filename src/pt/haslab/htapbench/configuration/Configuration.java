@@ -1,13 +1,19 @@
 package pt.haslab.htapbench.configuration;
 
 import org.apache.log4j.Logger;
+import org.postgresql.PGConnection;
+import pt.haslab.htapbench.benchmark.AuxiliarFileHandler;
 import pt.haslab.htapbench.benchmark.WorkloadConfiguration;
 import pt.haslab.htapbench.benchmark.BenchmarkModule;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.configuration.database.MySQL;
+import pt.haslab.htapbench.configuration.database.Postgres;
+import pt.haslab.htapbench.configuration.loader.CSVCompression;
 import pt.haslab.htapbench.configuration.loader.HTAPBCSVLoader;
 import pt.haslab.htapbench.configuration.loader.HTAPBLoader;
+import pt.haslab.htapbench.configuration.loader.StreamLoader;
 import pt.haslab.htapbench.configuration.loader.Loader;
+import pt.haslab.htapbench.configuration.loader.PopulationManifest;
 import pt.haslab.htapbench.core.HTAPBenchmark;
 import pt.haslab.htapbench.types.DatabaseType;
 import pt.haslab.htapbench.util.FileUtil;
@@ -16,12 +22,24 @@ import pt.haslab.htapbench.util.ScriptRunner;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static pt.haslab.htapbench.configuration.Configuration.Mode.*;
 
@@ -29,9 +47,12 @@ public abstract class Configuration {
 
     private static final Logger LOG = Logger.getLogger(Configuration.class);
 
+    // The table of a create index or alter table statement
+    private static final Pattern INDEX_TABLE = Pattern.compile("\\b(?:on|table)\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+
     // Configuration variables
     private static BenchmarkModule benchModule;
-    private WorkloadConfiguration workConf;
+    protected WorkloadConfiguration workConf;
     private HTAPBenchmark benchmark;
     private Connection conn;
     private Statement stmt;
@@ -40,7 +61,7 @@ public abstract class Configuration {
 
     // Convenience variables
     protected String dbname;
-    private String filePathCSV;
+    protected String filePathCSV;
 
     // -------------------------------------------------------------------
     //                        Configuration utility methods
@@ -127,6 +148,25 @@ public abstract class Configuration {
         }
     }
 
+    /**
+     * Opens an additional connection to the database of interest, e.g. for
+     * the threads of the Loader, without changing the connection of this
+     * Configuration.
+     */
+    public Connection openConnection() throws SQLException {
+        Connection c = benchModule.makeConnection();
+        c.setAutoCommit(!getTxnControl());
+
+        Statement s = c.createStatement();
+        try {
+            s.execute(getUse());
+        } finally {
+            s.close();
+        }
+
+        return c;
+    }
+
     public enum Mode {
 
         /**
@@ -224,10 +264,20 @@ public abstract class Configuration {
      * statements issued directly to the database.
      */
     private void populateDatabase(boolean overwrite) throws SQLException {
+        // An interrupted population is resumed, unless it is overwritten
+        boolean resume = !overwrite && PopulationManifest.exists(filePathCSV);
+        if (overwrite)
+            PopulationManifest.delete(filePathCSV);
+
+        // Warehouses are added to the existing data
+        boolean scaleOut = workConf.getScaleOutFrom() > 0;
+
         // Make sure we are not overwriting existing data without permission
-        if (containsData && !overwrite) {
+        if (containsData && !overwrite && !resume && !scaleOut) {
             LOG.info("Skipped database population: Database contains data");
             return;
+        } else if (resume) {
+            LOG.info("Resuming the interrupted database population ... This may take a while");
         } else {
             LOG.info("Beginning database population ... This may take a while");
         }
@@ -236,25 +286,30 @@ public abstract class Configuration {
         checkPrerequisites(Mode.POPULATE);
 
         // Populate the database with insert statements or through CSV files
-        if (!workConf.getUseCSV()) {
-            // Create an instance of the insert-based Loader class
-            Loader loader = new HTAPBLoader(benchmark, conn);
+        if (workConf.getStreamLoad() || !workConf.getUseCSV()) {
+            // Create an instance of the stream- or insert-based Loader class
+            Loader loader = workConf.getStreamLoad() ? new StreamLoader(benchmark, this, conn) : new HTAPBLoader(benchmark, this, conn);
             loader.setNullConstant(getNull());
 
-            // Populate the database through insert statements
+            // Populate the database through bulk load streams or insert statements
             loader.load();
         } else {
             // Generate the CSV files if they do not already exist
             generateCSVData(overwrite);
 
+            // Track the loaded files, which were generated from the start timestamp in the auxiliar file
+            int warehouses = (int) Math.max(Math.round(workConf.getScaleFactor()), 1);
+            PopulationManifest manifest = PopulationManifest.open(filePathCSV, PopulationManifest.CSV,
+                    warehouses, AuxiliarFileHandler.importFirstTs(filePathCSV));
+
             // Bulk load the data into the database using the database-specific command
-            for (Entry<String, String> entry : HTAPBConstants.tableToCSV.entrySet()) {
-                String tableName = filePathCSV + "/" + entry.getValue();
-                stmt.executeQuery(String.format(getBulk(), tableName, entry.getKey()));
-                LOG.debug("Populated the " + entry.getKey() + " table");
-            }
+            loadCSVFiles(manifest);
+            manifest.complete();
         }
 
+        // Build the indexes that were left out while loading
+        createDeferredIndexes();
+
         // The database now contains data
         containsData = true;
 
@@ -263,6 +318,148 @@ public abstract class Configuration {
 
     }
 
+    /**
+     * Bulk loads the CSV files into their tables, one file at a time, with the
+     * database-specific command. The compressed files, which the database cannot
+     * read, are decompressed while streaming them into the bulk load command.
+     * Each file is loaded by a single statement, so it is recorded in the
+     * manifest once the statement completes and skipped when the population is
+     * resumed.
+     */
+    protected void loadCSVFiles(PopulationManifest manifest) throws SQLException {
+        for (Entry<String, String> entry : HTAPBConstants.tableToCSV.entrySet()) {
+            // The tables generated per warehouse are split into one file per partition
+            for (Entry<Integer, String> file : HTAPBCSVLoader.getCSVFiles(filePathCSV, entry.getValue()).entrySet()) {
+                if (manifest.isDone(entry.getKey(), file.getKey()))
+                    continue;
+
+                if (CSVCompression.forFile(file.getValue()) == CSVCompression.NONE)
+                    stmt.executeQuery(String.format(getBulk(), file.getValue(), entry.getKey()));
+                else
+                    loadCSVFile(file.getValue(), entry.getKey());
+
+                manifest.markDone(file.getKey(), entry.getKey());
+            }
+
+            LOG.debug("Populated the " + entry.getKey() + " table");
+        }
+    }
+
+    private void loadCSVFile(String fileName, String tableName) throws SQLException {
+        try {
+            InputStream rows = CSVCompression.open(fileName);
+            try {
+                // Its own connection has the auto-commit mode of the transaction control
+                Connection c = openConnection();
+                try {
+                    loadStream(c, tableName, rows);
+                    if (getTxnControl())
+                        c.commit();
+                } catch (SQLException | IOException ex) {
+                    if (getTxnControl())
+                        c.rollback();
+
+                    throw ex;
+                } finally {
+                    c.close();
+                }
+            } finally {
+                rows.close();
+            }
+        } catch (IOException ex) {
+            throw new SQLException("Error when trying to read the CSV file " + fileName, ex);
+        }
+    }
+
+    /**
+     * Runs the statements on the indexes of a table, in order, through its own connection.
+     */
+    private final class IndexBuild implements Callable<Void> {
+        private final List<String> statements;
+
+        IndexBuild(List<String> statements) {
+            this.statements = statements;
+        }
+
+        @Override
+        public Void call() throws SQLException {
+            Connection c = openConnection();
+            try {
+                Statement s = c.createStatement();
+                for (String statement : statements) {
+                    try {
+                        s.execute(statement);
+                    } catch (SQLException ex) {
+                        // The index may be left from a previous population
+                        if (!isDuplicateObject(ex))
+                            throw new SQLException(String.format("Error when trying to run '%s' in the %s database", statement, dbname), ex);
+
+                        LOG.info("Skipped '" + statement + "': " + ex.getMessage());
+                    }
+
+                    if (getTxnControl())
+                        c.commit();
+
+                    LOG.debug("Finished '" + statement + "'");
+                }
+
+                return null;
+            } finally {
+                c.close();
+            }
+        }
+    }
+
+    /**
+     * Runs the index DDL of the database, if any, once the tables are populated. The
+     * statements on different tables are independent and are run in parallel over
+     * loaderThreads connections, while those on the same table are run in order.
+     */
+    private void createDeferredIndexes() throws SQLException {
+        URL indexDDL = getDatabaseIndexDDL();
+        if (indexDDL == null)
+            return;
+
+        // Group the statements by the table they operate on
+        Map<String, List<String>> tables = new LinkedHashMap<String, List<String>>();
+        try {
+            for (String statement : ScriptRunner.getStatements(indexDDL)) {
+                Matcher m = INDEX_TABLE.matcher(statement);
+                String table = m.find() ? m.group(1).toLowerCase() : statement;
+
+                if (!tables.containsKey(table))
+                    tables.put(table, new ArrayList<String>());
+
+                tables.get(table).add(statement);
+            }
+        } catch (IOException ex) {
+            throw new SQLException("Error when trying to read the index DDL " + indexDDL, ex);
+        }
+
+        int threads = workConf.getEffectiveLoaderThreads();
+        threads = Math.max(Math.min(threads, tables.size()), 1);
+        LOG.info("Building the indexes of " + tables.size() + " tables through " + threads + " connections");
+
+        List<IndexBuild> builds = new ArrayList<IndexBuild>();
+        for (List<String> statements : tables.values())
+            builds.add(new IndexBuild(statements));
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Void> build : pool.invokeAll(builds))
+                build.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while building the indexes", ex);
+        } catch (ExecutionException ex) {
+            throw new SQLException("Error when trying to build the indexes", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        LOG.info("Built the indexes of the populated tables");
+    }
+
     // -------------------------------------------------------------------
     //                     Database configuration helper functions
     // -------------------------------------------------------------------
@@ -367,6 +564,15 @@ public abstract class Configuration {
         return ddl;
     }
 
+    /**
+     * Return the URL handle to the optional DDL of the indexes and constraints that are
+     * created after the population, or null if the database has none.
+     */
+    private URL getDatabaseIndexDDL() {
+        String db_type = this.toString().toLowerCase();
+        return Configuration.class.getResource("ddl/" + dbname + "-" + db_type + "-indexes.sql");
+    }
+
     /**
      * Return the URL handle to the DDL used to load the benchmark's database schema.
      * This method provides a static entry-point for classes that need access to a ddl
@@ -495,6 +701,46 @@ public abstract class Configuration {
      */
     public abstract String getNull();
 
+    /**
+     * Streams CSV rows into the named table through the bulk load protocol of the
+     * database, without writing them to a file first. The default implementation
+     * uses the COPY protocol of the drivers that expose it, e.g. the PostgreSQL
+     * driver, and the caller commits the load.
+     *
+     * @return the number of loaded rows.
+     */
+    public long loadStream(Connection c, String tableName, InputStream rows) throws SQLException, IOException {
+        if (c instanceof PGConnection)
+            return ((PGConnection) c).getCopyAPI().copyIn(
+                    String.format("COPY %s FROM STDIN WITH CSV NULL '%s'", tableName, getNull()), rows);
+
+        throw new UnsupportedOperationException("Streaming the rows into the " + this + " database is not supported");
+    }
+
+    /**
+     * Streams rows in the binary COPY format of PostgreSQL, i.e. a header, the
+     * tuples and a trailer, into the named table. Only the COPY protocol of the
+     * PostgreSQL driver accepts this format, and the caller commits the load.
+     *
+     * @return the number of loaded rows.
+     */
+    public long loadBinaryStream(Connection c, String tableName, InputStream rows) throws SQLException, IOException {
+        if (c instanceof PGConnection)
+            return ((PGConnection) c).getCopyAPI().copyIn(String.format("COPY %s FROM STDIN WITH BINARY", tableName), rows);
+
+        throw new UnsupportedOperationException("Streaming binary rows into the " + this + " database is not supported");
+    }
+
+
+    /**
+     * Whether the exception of an index DDL statement means the index or constraint
+     * already exists, e.g. when the population is repeated, in which case the
+     * statement is skipped.
+     */
+    protected boolean isDuplicateObject(SQLException ex) {
+        return false;
+    }
+
 
     // -------------------------------------------------------------------
     //                Public methods for Configuration configuration
@@ -590,6 +836,8 @@ public abstract class Configuration {
         switch (dbtype) {
             case MYSQL:
                 return new MySQL(benchmarkModule);
+            case POSTGRES:
+                return new Postgres(benchmarkModule);
             default:
                 throw new UnsupportedOperationException("Support for automatic configuration of database " + dbtype + " not implemented. " +
                         "Please prepare the database configuration manually through the command line and " +
@@ -3,6 +3,11 @@ package pt.haslab.htapbench.configuration.database;
 import pt.haslab.htapbench.benchmark.BenchmarkModule;
 import pt.haslab.htapbench.configuration.Configuration;
 
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
 public class MySQL extends Configuration {
 
     public MySQL(BenchmarkModule benchmarkModule){
@@ -30,4 +35,31 @@ public class MySQL extends Configuration {
     public String getNull(){
         return "\\N";
     }
+
+    /**
+     * Duplicate key names (ER_DUP_KEYNAME) and a second primary key (ER_MULTIPLE_PRI_KEY),
+     * e.g. when the population is repeated.
+     */
+    @Override
+    protected boolean isDuplicateObject(SQLException ex) {
+        return ex.getErrorCode() == 1061 || ex.getErrorCode() == 1068;
+    }
+
+    /**
+     * Streams the rows through load data local infile, which reads the InputStream set
+     * on the statement by Connector/J instead of the named file.
+     */
+    @Override
+    public long loadStream(Connection c, String tableName, InputStream rows) throws SQLException {
+        Statement s = c.createStatement();
+        try {
+            // Connector/J is not a compile-time dependency
+            s.getClass().getMethod("setLocalInfileInputStream", InputStream.class).invoke(s, rows);
+            return s.executeUpdate(String.format(getBulk(), "stream", tableName));
+        } catch (ReflectiveOperationException ex) {
+            throw new SQLException("The MySQL driver does not support streaming load data local infile", ex);
+        } finally {
+            s.close();
+        }
+    }
 }
@@ -0,0 +1,143 @@
+package pt.haslab.htapbench.configuration.database;
+
+import org.apache.log4j.Logger;
+import pt.haslab.htapbench.benchmark.BenchmarkModule;
+import pt.haslab.htapbench.benchmark.HTAPBConstants;
+import pt.haslab.htapbench.configuration.Configuration;
+import pt.haslab.htapbench.configuration.loader.CSVCompression;
+import pt.haslab.htapbench.configuration.loader.HTAPBCSVLoader;
+import pt.haslab.htapbench.configuration.loader.PopulationManifest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The benchmark database is kept in its own schema, as a PostgreSQL connection
+ * cannot switch between databases. The CSV files are streamed to the server
+ * through the COPY protocol of the driver, so they do not need to be readable
+ * by the server and may be compressed, and are loaded in parallel over loaderThreads connections.
+ */
+public class Postgres extends Configuration {
+
+    private static final Logger LOG = Logger.getLogger(Postgres.class);
+
+    public Postgres(BenchmarkModule benchmarkModule){
+        super(benchmarkModule);
+    }
+
+    public boolean getTxnControl() { return true; }
+
+    public String getCreate(){
+        return String.format("create schema if not exists %s", dbname);
+    }
+
+    public String getDrop(){
+        return String.format("drop schema if exists %s cascade", dbname);
+    }
+
+    public String getBulk(){
+        return "copy %2$s from '%1$s' with csv null '\\N'";
+    }
+
+    public String getUse(){
+        return String.format("set search_path to %s", dbname);
+    }
+
+    public String getNull(){
+        return "\\N";
+    }
+
+    /**
+     * Relations that already exist (42P07) and a second primary key (42P16),
+     * e.g. when the population is repeated.
+     */
+    @Override
+    protected boolean isDuplicateObject(SQLException ex) {
+        return "42P07".equals(ex.getSQLState()) || "42P16".equals(ex.getSQLState());
+    }
+
+    /**
+     * Copies a CSV file into its table through its own connection.
+     */
+    private final class CopyFile implements Callable<Long> {
+        private final PopulationManifest manifest;
+        private final int partition;
+        private final String fileName;
+        private final String tableName;
+
+        CopyFile(PopulationManifest manifest, int partition, String fileName, String tableName) {
+            this.manifest = manifest;
+            this.partition = partition;
+            this.fileName = fileName;
+            this.tableName = tableName;
+        }
+
+        @Override
+        public Long call() throws SQLException, IOException {
+            InputStream rows = CSVCompression.open(fileName);
+            try {
+                Connection c = openConnection();
+                try {
+                    long n = loadStream(c, tableName, rows);
+                    c.commit();
+                    manifest.markDone(partition, tableName);
+
+                    LOG.debug("Copied " + n + " rows from " + fileName + " into the " + tableName + " table");
+                    return n;
+                } catch (SQLException | IOException ex) {
+                    c.rollback();
+                    throw ex;
+                } finally {
+                    c.close();
+                }
+            } finally {
+                rows.close();
+            }
+        }
+    }
+
+    /**
+     * Copies the CSV files into their tables, with as many files at once as
+     * there are loaderThreads, skipping the files copied by an interrupted
+     * population.
+     */
+    @Override
+    protected void loadCSVFiles(PopulationManifest manifest) throws SQLException {
+        List<CopyFile> copies = new ArrayList<CopyFile>();
+        for (Entry<String, String> entry : HTAPBConstants.tableToCSV.entrySet()) {
+            for (Entry<Integer, String> file : HTAPBCSVLoader.getCSVFiles(filePathCSV, entry.getValue()).entrySet()) {
+                if (!manifest.isDone(entry.getKey(), file.getKey()))
+                    copies.add(new CopyFile(manifest, file.getKey(), file.getValue(), entry.getKey()));
+            }
+        }
+
+        int threads = workConf.getEffectiveLoaderThreads();
+        LOG.info("Copying " + copies.size() + " CSV files through " + threads + " connections");
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long rows = 0;
+            for (Future<Long> copy : pool.invokeAll(copies))
+                rows += copy.get();
+
+            LOG.debug("Copied " + rows + " rows");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while copying the CSV files", ex);
+        } catch (ExecutionException ex) {
+            throw new SQLException("Error when trying to copy the CSV files", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -184,7 +184,8 @@ create table SUPPLIER (
 );
 
 -- INDEXES
-CREATE INDEX IDX_CUSTOMER_NAME ON CUSTOMER (C_W_ID,C_D_ID,C_LAST,C_FIRST);
+-- The secondary indexes are in htapb-mysql-indexes.sql, which is run once the tables are populated.
+-- The primary keys stay here, as InnoDB clusters the rows by the primary key.
 
 -- woohak, add constraints. MySQL/InnoDB storage engine is kind of IoT.
 -- and add constraints and make indexes later aretoo slow when running a single thread.
@@ -192,7 +193,6 @@ CREATE INDEX IDX_CUSTOMER_NAME ON CUSTOMER (C_W_ID,C_D_ID,C_LAST,C_FIRST);
 
 -- already created
 -- CREATE INDEX IDX_CUSTOMER ON CUSTOMER (C_W_ID,C_D_ID,C_LAST,C_FIRST);
-CREATE INDEX IDX_ORDER ON OORDER (O_W_ID,O_D_ID,O_C_ID,O_ID);
 -- tpcc-mysql create two indexes for the foreign key constraints, Is it really necessary?
 -- CREATE INDEX FKEY_STOCK_2 ON STOCK (S_I_ID);
 -- CREATE INDEX FKEY_ORDER_LINE_2 ON ORDER_LINE (OL_SUPPLY_W_ID,OL_I_ID);
@@ -0,0 +1,5 @@
+-- Secondary indexes, created once the tables are populated.
+-- The statements on different tables are run in parallel over separate connections.
+
+CREATE INDEX IDX_CUSTOMER_NAME ON CUSTOMER (C_W_ID,C_D_ID,C_LAST,C_FIRST);
+CREATE INDEX IDX_ORDER ON OORDER (O_W_ID,O_D_ID,O_C_ID,O_ID);
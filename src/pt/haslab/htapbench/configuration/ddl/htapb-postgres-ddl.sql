@@ -11,16 +11,14 @@ CREATE TABLE order_line (
   ol_amount decimal(6,2) NOT NULL,
   ol_supply_w_id int NOT NULL,
   ol_quantity decimal(2,0) NOT NULL,
-  ol_dist_info char(24) NOT NULL,
-  PRIMARY KEY (ol_w_id,ol_d_id,ol_o_id,ol_number)
+  ol_dist_info char(24) NOT NULL
 );
 
 DROP TABLE IF EXISTS new_order;
 CREATE TABLE new_order (
   no_w_id int NOT NULL,
   no_d_id int NOT NULL,
-  no_o_id int NOT NULL,
-  PRIMARY KEY (no_w_id,no_d_id,no_o_id)
+  no_o_id int NOT NULL
 );
 
 DROP TABLE IF EXISTS stock;
@@ -28,6 +26,7 @@ CREATE TABLE stock (
   s_w_id int NOT NULL,
   s_i_id int NOT NULL,
   s_quantity decimal(4,0) NOT NULL,
+  s_suppkey int NOT NULL,
   s_ytd decimal(8,2) NOT NULL,
   s_order_cnt int NOT NULL,
   s_remote_cnt int NOT NULL,
@@ -41,8 +40,7 @@ CREATE TABLE stock (
   s_dist_07 char(24) NOT NULL,
   s_dist_08 char(24) NOT NULL,
   s_dist_09 char(24) NOT NULL,
-  s_dist_10 char(24) NOT NULL,
-  PRIMARY KEY (s_w_id,s_i_id)
+  s_dist_10 char(24) NOT NULL
 );
 
 -- TODO: o_entry_d  ON UPDATE CURRENT_TIMESTAMP
@@ -55,9 +53,7 @@ CREATE TABLE oorder (
   o_carrier_id int DEFAULT NULL,
   o_ol_cnt decimal(2,0) NOT NULL,
   o_all_local decimal(1,0) NOT NULL,
-  o_entry_d timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
-  PRIMARY KEY (o_w_id,o_d_id,o_id),
-  UNIQUE (o_w_id,o_d_id,o_c_id,o_id)
+  o_entry_d timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
 -- TODO: h_date ON UPDATE CURRENT_TIMESTAMP
@@ -95,8 +91,7 @@ CREATE TABLE customer (
   c_phone char(16) NOT NULL,
   c_since timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
   c_middle char(2) NOT NULL,
-  c_data varchar(500) NOT NULL,
-  PRIMARY KEY (c_w_id,c_d_id,c_id)
+  c_data varchar(500) NOT NULL
 );
 
 DROP TABLE IF EXISTS district;
@@ -112,7 +107,7 @@ CREATE TABLE district (
   d_city varchar(20) NOT NULL,
   d_state char(2) NOT NULL,
   d_zip char(9) NOT NULL,
-  PRIMARY KEY (d_w_id,d_id)
+  d_nationkey int NOT NULL
 );
 
 
@@ -122,8 +117,7 @@ CREATE TABLE item (
   i_name varchar(24) NOT NULL,
   i_price decimal(5,2) NOT NULL,
   i_data varchar(50) NOT NULL,
-  i_im_id int NOT NULL,
-  PRIMARY KEY (i_id)
+  i_im_id int NOT NULL
 );
 
 DROP TABLE IF EXISTS warehouse;
@@ -137,13 +131,12 @@ CREATE TABLE warehouse (
   w_city varchar(20) NOT NULL,
   w_state char(2) NOT NULL,
   w_zip char(9) NOT NULL,
-  PRIMARY KEY (w_id)
+  w_nationkey int NOT NULL
 );
 
 
 --add constraints and indexes
-CREATE INDEX IDX_CUSTOMER_NAME ON customer (c_w_id,c_d_id,c_last,c_first);
-CREATE INDEX IDX_ORDER ON OORDER (O_W_ID,O_D_ID,O_C_ID,O_ID);
+-- The primary keys and indexes are in htapb-postgres-indexes.sql, which is run once the tables are populated
 -- tpcc-mysql create two indexes for the foreign key constraints, Is it really necessary?
 -- CREATE INDEX FKEY_STOCK_2 ON STOCK (S_I_ID);
 -- CREATE INDEX FKEY_ORDER_LINE_2 ON ORDER_LINE (OL_SUPPLY_W_ID,OL_I_ID);
@@ -168,16 +161,14 @@ DROP TABLE IF EXISTS supplier CASCADE;
 create table region (
    r_regionkey int not null,
    r_name char(55) not null,
-   r_comment char(152) not null,
-   PRIMARY KEY ( r_regionkey )
+   r_comment char(152) not null
 );
 
 create table nation (
    n_nationkey int not null,
    n_name char(25) not null,
    n_regionkey int not null,
-   n_comment char(152) not null,
-   PRIMARY KEY ( n_nationkey )
+   n_comment char(152) not null
 );
 --n_regionkey int not null references region(r_regionkey) ON DELETE CASCADE,
 
@@ -188,8 +179,7 @@ create table supplier (
    su_nationkey int not null,
    su_phone char(15) not null,
    su_acctbal numeric(12,2) not null,
-   su_comment char(101) not null,
-   PRIMARY KEY ( su_suppkey )
+   su_comment char(101) not null
 );
 --su_nationkey int not null references nation(n_nationkey) ON DELETE CASCADE,
 
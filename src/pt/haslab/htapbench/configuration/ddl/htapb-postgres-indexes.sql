@@ -0,0 +1,18 @@
+-- Primary keys, constraints and indexes, created once the tables are populated.
+-- The statements on different tables are run in parallel over separate connections.
+
+alter table order_line add primary key (ol_w_id,ol_d_id,ol_o_id,ol_number);
+alter table new_order add primary key (no_w_id,no_d_id,no_o_id);
+alter table stock add primary key (s_w_id,s_i_id);
+alter table oorder add primary key (o_w_id,o_d_id,o_id);
+alter table oorder add constraint oorder_customer_key unique (o_w_id,o_d_id,o_c_id,o_id);
+alter table customer add primary key (c_w_id,c_d_id,c_id);
+alter table district add primary key (d_w_id,d_id);
+alter table item add primary key (i_id);
+alter table warehouse add primary key (w_id);
+alter table region add primary key (r_regionkey);
+alter table nation add primary key (n_nationkey);
+alter table supplier add primary key (su_suppkey);
+
+create index IDX_CUSTOMER_NAME on customer (c_w_id,c_d_id,c_last,c_first);
+create index IDX_ORDER on oorder (o_w_id,o_d_id,o_c_id,o_id);
@@ -0,0 +1,199 @@
+package pt.haslab.htapbench.configuration.loader;
+
+import pt.haslab.htapbench.random.RandomGenerator;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import static pt.haslab.htapbench.benchmark.HTAPBConstants.nameTokens;
+
+/**
+ * Inserts the rows of a table through a batched PreparedStatement. The batch is executed
+ * every batchSize rows and the connection is committed every commitInterval rows, so each
+ * table can be tuned separately, e.g. larger batches for the narrow ORDER_LINE rows.
+ */
+final class BatchRowWriter implements RowSink {
+
+    private final Connection conn;
+    private final PreparedStatement stmt;
+    private final int batchSize;
+    private final int commitInterval;
+
+    // The string field that is being written, set when the next field starts
+    private final StringBuilder field = new StringBuilder();
+    private boolean pendingField = false;
+
+    private int parameter = 1;
+    private long rows = 0;
+
+    BatchRowWriter(Connection conn, String tableName, int columns, int batchSize, int commitInterval) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(tableName).append(" VALUES (");
+        for (int i = 0; i < columns; i++)
+            sql.append(i == 0 ? "?" : ", ?");
+
+        this.conn = conn;
+        this.stmt = conn.prepareStatement(sql.append(")").toString());
+        this.batchSize = Math.max(batchSize, 1);
+        this.commitInterval = Math.max(commitInterval, 1);
+    }
+
+    // -------------------------------------------------------------------
+    //                              Fields
+    // -------------------------------------------------------------------
+
+    @Override
+    public BatchRowWriter writeInt(long value) throws SQLException {
+        separate();
+        stmt.setLong(parameter++, value);
+        return this;
+    }
+
+    @Override
+    public BatchRowWriter writeFixed(long unscaled, int scale) throws SQLException {
+        separate();
+        stmt.setBigDecimal(parameter++, BigDecimal.valueOf(unscaled, scale));
+        return this;
+    }
+
+    @Override
+    public BatchRowWriter writeTimestamp(long timeMs) throws SQLException {
+        separate();
+        stmt.setTimestamp(parameter++, new Timestamp(timeMs));
+        return this;
+    }
+
+    @Override
+    public BatchRowWriter writeNull(int sqlType) throws SQLException {
+        separate();
+        stmt.setNull(parameter++, sqlType);
+        return this;
+    }
+
+    @Override
+    public BatchRowWriter writeString(String value) throws SQLException {
+        separate();
+        pendingField = true;
+        field.append(value);
+        return this;
+    }
+
+    @Override
+    public BatchRowWriter appendString(String value) {
+        field.append(value);
+        return this;
+    }
+
+    @Override
+    public BatchRowWriter writeLastName(int num) throws SQLException {
+        separate();
+        pendingField = true;
+        field.append(nameTokens[num / 100]).append(nameTokens[(num / 10) % 10]).append(nameTokens[num % 10]);
+        return this;
+    }
+
+    // -------------------------------------------------------------------
+    //                          Random strings
+    // -------------------------------------------------------------------
+
+    @Override
+    public BatchRowWriter writeRandomStr(RandomGenerator gen, int strLen) throws SQLException {
+        separate();
+        pendingField = true;
+        return appendRandomStr(gen, strLen);
+    }
+
+    @Override
+    public BatchRowWriter appendRandomStr(RandomGenerator gen, int strLen) {
+        if (strLen > 1)
+            appendRandom(gen, strLen - 1, 'a', 26);
+
+        return this;
+    }
+
+    @Override
+    public BatchRowWriter writeRandomUpperStr(RandomGenerator gen, int strLen) throws SQLException {
+        separate();
+        pendingField = true;
+        if (strLen > 1)
+            appendRandom(gen, strLen - 1, 'A', 26);
+
+        return this;
+    }
+
+    @Override
+    public BatchRowWriter writeRandomNStr(RandomGenerator gen, int stringLength) throws SQLException {
+        separate();
+        pendingField = true;
+        if (stringLength > 0)
+            appendRandom(gen, stringLength, '0', 10);
+
+        return this;
+    }
+
+    private void appendRandom(RandomGenerator gen, int length, char base, int numCharacters) {
+        // Draw the length like RandomGenerator.astring and nstring, to generate the same strings
+        length = gen.number(length, length);
+        for (int i = 0; i < length; i++)
+            field.append((char) (base + gen.number(0, numCharacters - 1)));
+    }
+
+    // -------------------------------------------------------------------
+    //                          Rows and batches
+    // -------------------------------------------------------------------
+
+    @Override
+    public void endRow() throws SQLException {
+        separate();
+        stmt.addBatch();
+        parameter = 1;
+        rows++;
+
+        if (rows % batchSize == 0)
+            stmt.executeBatch();
+
+        if (rows % commitInterval == 0) {
+            if (rows % batchSize != 0)
+                stmt.executeBatch();
+
+            conn.commit();
+        }
+    }
+
+    /**
+     * Inserts and commits the pending rows.
+     */
+    @Override
+    public void flush() throws SQLException {
+        if (rows % batchSize != 0 || rows % commitInterval != 0) {
+            stmt.executeBatch();
+            conn.commit();
+            rows = 0;
+        }
+    }
+
+    /**
+     * Inserts and commits the remaining rows and closes the statement.
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            flush();
+        } finally {
+            stmt.close();
+        }
+    }
+
+    /**
+     * Sets the string field that was written before the next field starts.
+     */
+    private void separate() throws SQLException {
+        if (pendingField) {
+            stmt.setString(parameter++, field.toString());
+            field.setLength(0);
+            pendingField = false;
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package pt.haslab.htapbench.configuration.loader;
+
+import pt.haslab.htapbench.random.RandomGenerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.sql.Types;
+import java.util.TimeZone;
+
+import static pt.haslab.htapbench.benchmark.HTAPBConstants.nameTokens;
+
+/**
+ * Encodes the rows as the tuples of the PostgreSQL binary COPY format straight into a
+ * reusable byte buffer, which is written to a channel whenever it fills up. Each field is
+ * encoded in the binary representation of the type of its column, given by the
+ * java.sql.Types of the table, so the server neither parses text nor the client formats
+ * numbers and timestamps.
+ *
+ * Only whole tuples are written to the channel, so the tuples of several writers can be
+ * interleaved in a RowPipe. The header and trailer of the format are added by each reader
+ * of the tuples through wrap(InputStream).
+ *
+ * Timestamps are encoded as microseconds, i.e. the server must use integer datetimes,
+ * the default since PostgreSQL 8.4.
+ */
+final class BinaryRowWriter implements RowSink {
+
+    // The signature, flags and header extension length of the format
+    private static final byte[] HEADER = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0, 0, 0, 0, 0, 0, 0, 0, 0};
+
+    // A field count of -1 ends the tuples
+    private static final byte[] TRAILER = {(byte) 0xFF, (byte) 0xFF};
+
+    // The PostgreSQL epoch, 2000-01-01, in milliseconds since the Unix epoch
+    private static final long PG_EPOCH_MS = 946684800000L;
+
+    private static final int NUMERIC_NEG = 0x4000;
+
+    private final WritableByteChannel channel;
+    private final int[] columnTypes;
+    private final byte[] buffer;
+    private final ByteBuffer wrapper;
+    private final TimeZone timeZone = TimeZone.getDefault();
+
+    // The base-10000 digits of a numeric, least significant first
+    private final int[] digits = new int[10];
+
+    private int position = 0;
+    private int rowStart = 0;
+    private int column = 0;
+
+    // The position of the length of the open variable-length field, or -1 if there is none
+    private int fieldStart = -1;
+
+    /**
+     * @param columnTypes the java.sql.Types of the columns of the table, in order.
+     */
+    BinaryRowWriter(WritableByteChannel channel, int[] columnTypes, int bufferSize) {
+        this.channel = channel;
+        this.columnTypes = columnTypes;
+        this.buffer = new byte[bufferSize];
+        this.wrapper = ByteBuffer.wrap(buffer);
+    }
+
+    BinaryRowWriter(WritableByteChannel channel, int[] columnTypes) {
+        this(channel, columnTypes, RowWriter.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Adds the header and trailer of the binary COPY format to a stream of tuples.
+     */
+    static InputStream wrap(InputStream tuples) {
+        return new SequenceInputStream(new ByteArrayInputStream(HEADER),
+                new SequenceInputStream(tuples, new ByteArrayInputStream(TRAILER)));
+    }
+
+    // -------------------------------------------------------------------
+    //                              Fields
+    // -------------------------------------------------------------------
+
+    @Override
+    public BinaryRowWriter writeInt(long value) throws IOException {
+        int type = nextColumn();
+        switch (type) {
+            case Types.SMALLINT:
+                putLength(2);
+                putShort((int) value);
+                break;
+            case Types.INTEGER:
+                putLength(4);
+                putInt((int) value);
+                break;
+            case Types.BIGINT:
+                putLength(8);
+                putLong(value);
+                break;
+            default:
+                writeNumber(type, value, 0);
+        }
+
+        return this;
+    }
+
+    /**
+     * Writes the decimal unscaled / 10^scale as a numeric, or as the nearest value of a
+     * floating point column.
+     */
+    @Override
+    public BinaryRowWriter writeFixed(long unscaled, int scale) throws IOException {
+        writeNumber(nextColumn(), unscaled, scale);
+        return this;
+    }
+
+    private void writeNumber(int type, long unscaled, int scale) throws IOException {
+        switch (type) {
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                putNumeric(unscaled, scale);
+                break;
+            case Types.DOUBLE:
+            case Types.FLOAT:
+                putLength(8);
+                putLong(Double.doubleToLongBits(BigDecimal.valueOf(unscaled, scale).doubleValue()));
+                break;
+            case Types.REAL:
+                putLength(4);
+                putInt(Float.floatToIntBits(BigDecimal.valueOf(unscaled, scale).floatValue()));
+                break;
+            default:
+                if (!isText(type))
+                    throw new IOException("A number cannot be written to column " + column + " of type " + type);
+
+                startText();
+                appendString(BigDecimal.valueOf(unscaled, scale).toPlainString());
+        }
+    }
+
+    /**
+     * Writes the timestamp in the local time zone, as timestamp without time zone.
+     */
+    @Override
+    public BinaryRowWriter writeTimestamp(long timeMs) throws IOException {
+        int type = nextColumn();
+        if (type != Types.TIMESTAMP)
+            throw new IOException("A timestamp cannot be written to column " + column + " of type " + type);
+
+        putLength(8);
+        putLong((timeMs + timeZone.getOffset(timeMs) - PG_EPOCH_MS) * 1000);
+        return this;
+    }
+
+    @Override
+    public BinaryRowWriter writeNull(int sqlType) throws IOException {
+        nextColumn();
+        putLength(-1);
+        return this;
+    }
+
+    /**
+     * Writes an ASCII string.
+     */
+    @Override
+    public BinaryRowWriter writeString(String value) throws IOException {
+        startText(nextColumn());
+        return appendString(value);
+    }
+
+    @Override
+    public BinaryRowWriter appendString(String value) throws IOException {
+        int length = value.length();
+        ensure(length);
+        for (int i = 0; i < length; i++)
+            buffer[position++] = (byte) value.charAt(i);
+
+        return this;
+    }
+
+    @Override
+    public BinaryRowWriter writeLastName(int num) throws IOException {
+        startText(nextColumn());
+        appendString(nameTokens[num / 100]);
+        appendString(nameTokens[(num / 10) % 10]);
+        return appendString(nameTokens[num % 10]);
+    }
+
+    // -------------------------------------------------------------------
+    //                          Random strings
+    // -------------------------------------------------------------------
+
+    @Override
+    public BinaryRowWriter writeRandomStr(RandomGenerator gen, int strLen) throws IOException {
+        startText(nextColumn());
+        return appendRandomStr(gen, strLen);
+    }
+
+    @Override
+    public BinaryRowWriter appendRandomStr(RandomGenerator gen, int strLen) throws IOException {
+        if (strLen > 1)
+            appendRandom(gen, strLen - 1, 'a', 26);
+
+        return this;
+    }
+
+    @Override
+    public BinaryRowWriter writeRandomUpperStr(RandomGenerator gen, int strLen) throws IOException {
+        startText(nextColumn());
+        if (strLen > 1)
+            appendRandom(gen, strLen - 1, 'A', 26);
+
+        return this;
+    }
+
+    @Override
+    public BinaryRowWriter writeRandomNStr(RandomGenerator gen, int stringLength) throws IOException {
+        startText(nextColumn());
+        if (stringLength > 0)
+            appendRandom(gen, stringLength, '0', 10);
+
+        return this;
+    }
+
+    private void appendRandom(RandomGenerator gen, int length, char base, int numCharacters) throws IOException {
+        // Draw the length like RandomGenerator.astring and nstring, to generate the same strings
+        length = gen.number(length, length);
+        ensure(length);
+        for (int i = 0; i < length; i++)
+            buffer[position++] = (byte) (base + gen.number(0, numCharacters - 1));
+    }
+
+    // -------------------------------------------------------------------
+    //                          Tuples and buffer
+    // -------------------------------------------------------------------
+
+    /**
+     * Ends the previous field and returns the type of the column of the next one, starting
+     * the tuple with its field count if it is the first.
+     */
+    private int nextColumn() throws IOException {
+        endField();
+        if (column == columnTypes.length)
+            throw new IOException("The row has more fields than the " + columnTypes.length + " columns of the table");
+
+        if (column == 0) {
+            ensure(2);
+            putShort(columnTypes.length);
+        }
+
+        return columnTypes[column++];
+    }
+
+    private void startText(int type) throws IOException {
+        if (!isText(type))
+            throw new IOException("A string cannot be written to column " + column + " of type " + type);
+
+        startText();
+    }
+
+    /**
+     * Reserves the length of a variable-length field, which is set once the field ends.
+     */
+    private void startText() throws IOException {
+        ensure(4);
+        fieldStart = position;
+        position += 4;
+    }
+
+    private void endField() {
+        if (fieldStart >= 0) {
+            int end = position;
+            position = fieldStart;
+            putInt(end - fieldStart - 4);
+            position = end;
+            fieldStart = -1;
+        }
+    }
+
+    private static boolean isText(int type) {
+        return type == Types.CHAR || type == Types.VARCHAR || type == Types.LONGVARCHAR || type == Types.OTHER;
+    }
+
+    /**
+     * Writes the numeric as its base-10000 digits, without the leading and trailing zeros,
+     * with the weight of the first digit and the display scale.
+     */
+    private void putNumeric(long unscaled, int scale) throws IOException {
+        long multiplier = 1;
+        for (int i = 0; i < scale; i++)
+            multiplier *= 10;
+
+        // Align the fraction to whole base-10000 digits, apart from the integer part so
+        // that the padding cannot overflow
+        int fractionDigits = (scale + 3) / 4;
+        long integer = Math.abs(unscaled / multiplier);
+        long fraction = Math.abs(unscaled % multiplier);
+        for (int i = scale; i < fractionDigits * 4; i++)
+            fraction *= 10;
+
+        int n = 0;
+        for (; n < fractionDigits; fraction /= 10000)
+            digits[n++] = (int) (fraction % 10000);
+        for (; integer > 0; integer /= 10000)
+            digits[n++] = (int) (integer % 10000);
+
+        while (n > 0 && digits[n - 1] == 0)
+            n--;
+
+        int low = 0;
+        while (low < n && digits[low] == 0)
+            low++;
+
+        int ndigits = n - low;
+        putLength(8 + 2 * ndigits);
+        putShort(ndigits);
+        putShort(ndigits == 0 ? 0 : n - fractionDigits - 1);
+        putShort(unscaled < 0 ? NUMERIC_NEG : 0);
+        putShort(scale);
+        for (int i = n - 1; i >= low; i--)
+            putShort(digits[i]);
+    }
+
+    /**
+     * Writes the length of a fixed-length field, making room for its value, or -1 for null.
+     */
+    private void putLength(int length) throws IOException {
+        ensure(4 + Math.max(length, 0));
+        putInt(length);
+    }
+
+    private void putShort(int value) {
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void putInt(int value) {
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void putLong(long value) {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        endField();
+        if (column != columnTypes.length)
+            throw new IOException("The row has " + column + " fields instead of the " + columnTypes.length + " columns of the table");
+
+        column = 0;
+        rowStart = position;
+    }
+
+    /**
+     * Writes the complete tuples to the channel and moves the current tuple, if any, to the
+     * start of the buffer.
+     */
+    @Override
+    public void flush() throws IOException {
+        wrapper.clear();
+        wrapper.limit(rowStart);
+        while (wrapper.hasRemaining())
+            channel.write(wrapper);
+
+        System.arraycopy(buffer, rowStart, buffer, 0, position - rowStart);
+        position -= rowStart;
+        if (fieldStart >= 0)
+            fieldStart -= rowStart;
+
+        rowStart = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void ensure(int length) throws IOException {
+        if (position + length > buffer.length) {
+            flush();
+
+            if (position + length > buffer.length)
+                throw new IOException("The row of " + (position + length) + " bytes does not fit in the row buffer");
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package pt.haslab.htapbench.configuration.loader;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The compression of the CSV shards written per warehouse. Each shard is compressed by the
+ * loader thread generating it, so the shards are compressed in parallel, and is identified
+ * by the suffix of its file name, so the populate phase can decompress it while streaming
+ * it into the bulk load command of the database.
+ */
+public enum CSVCompression {
+
+    NONE("") {
+        @Override
+        public OutputStream compress(OutputStream out) {
+            return out;
+        }
+
+        @Override
+        public InputStream decompress(InputStream in) {
+            return in;
+        }
+    },
+
+    /**
+     * Compresses at the fastest level, as the generation is bound by the disk rather than
+     * the size of the files.
+     */
+    GZIP(".gz") {
+        @Override
+        public OutputStream compress(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, BUFFER_SIZE) {
+                {
+                    def.setLevel(Deflater.BEST_SPEED);
+                }
+            };
+        }
+
+        @Override
+        public InputStream decompress(InputStream in) throws IOException {
+            return new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final String suffix;
+
+    CSVCompression(String suffix) {
+        this.suffix = suffix;
+    }
+
+    /**
+     * Returns the suffix appended to the names of the compressed files, e.g. ".gz".
+     */
+    public String getSuffix() {
+        return suffix;
+    }
+
+    public abstract OutputStream compress(OutputStream out) throws IOException;
+
+    public abstract InputStream decompress(InputStream in) throws IOException;
+
+    /**
+     * Returns the compression given by the csvCompression option, i.e. none or gzip.
+     */
+    public static CSVCompression get(String name) {
+        if (name == null || name.equalsIgnoreCase("none"))
+            return NONE;
+        else if (name.equalsIgnoreCase("gzip"))
+            return GZIP;
+        else
+            throw new RuntimeException("CSV compression " + name + " not recognized as a valid option.");
+    }
+
+    /**
+     * Returns the compression of a file from the suffix of its name.
+     */
+    public static CSVCompression forFile(String fileName) {
+        for (CSVCompression compression : values()) {
+            if (compression != NONE && fileName.endsWith(compression.suffix))
+                return compression;
+        }
+
+        return NONE;
+    }
+
+    /**
+     * Opens a CSV file for reading its rows, decompressing them if necessary.
+     */
+    public static InputStream open(String fileName) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(fileName), BUFFER_SIZE);
+        try {
+            return forFile(fileName).decompress(in);
+        } catch (IOException ex) {
+            in.close();
+            throw ex;
+        }
+    }
+}
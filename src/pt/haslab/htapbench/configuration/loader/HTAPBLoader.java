@@ -19,21 +19,28 @@ package pt.haslab.htapbench.configuration.loader;
 
 import pt.haslab.htapbench.benchmark.AuxiliarFileHandler;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
+import pt.haslab.htapbench.configuration.Configuration;
 import pt.haslab.htapbench.core.HTAPBenchmark;
+import pt.haslab.htapbench.util.OptionUtil;
 import pt.haslab.htapbench.util.TPCCUtil;
 
 import static pt.haslab.htapbench.benchmark.HTAPBConstants.configCommitCount;
-import static pt.haslab.htapbench.benchmark.HTAPBConstants.configCustPerDist;
-import static pt.haslab.htapbench.benchmark.HTAPBConstants.configDistPerWhse;
 import static pt.haslab.htapbench.benchmark.HTAPBConstants.configItemCount;
 
 import java.io.FileOutputStream;
 import java.io.PrintWriter;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 import org.apache.log4j.Logger;
@@ -41,18 +48,8 @@ import org.apache.log4j.Logger;
 import pt.haslab.htapbench.configuration.loader.pojo.Nation;
 import pt.haslab.htapbench.configuration.loader.pojo.Region;
 import pt.haslab.htapbench.configuration.loader.pojo.Supplier;
-import pt.haslab.htapbench.jdbc.jdbcIO;
-import pt.haslab.htapbench.configuration.loader.pojo.Customer;
-import pt.haslab.htapbench.configuration.loader.pojo.District;
-import pt.haslab.htapbench.configuration.loader.pojo.History;
 import pt.haslab.htapbench.configuration.loader.pojo.Item;
-import pt.haslab.htapbench.configuration.loader.pojo.NewOrder;
-import pt.haslab.htapbench.configuration.loader.pojo.Oorder;
-import pt.haslab.htapbench.configuration.loader.pojo.OrderLine;
-import pt.haslab.htapbench.configuration.loader.pojo.Stock;
-import pt.haslab.htapbench.configuration.loader.pojo.Warehouse;
 import pt.haslab.htapbench.core.Clock;
-import pt.haslab.htapbench.core.DensityConsultant;
 import pt.haslab.htapbench.random.RandomGenerator;
 import java.io.BufferedReader;
 import java.io.File;
@@ -60,6 +57,11 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
 
@@ -73,8 +75,12 @@ public class HTAPBLoader extends Loader {
 
     private static final Logger LOG = Logger.getLogger(HTAPBLoader.class);
 
-    public HTAPBLoader(HTAPBenchmark benchmark, Connection c) {
+    /**
+     * @param configuration opens the connections of the loader threads.
+     */
+    public HTAPBLoader(HTAPBenchmark benchmark, Configuration configuration, Connection c) {
         super(benchmark, c);
+        this.configuration = configuration;
 
         numWarehouses = (int) Math.round(this.scaleFactor);
         if (numWarehouses == 0) {
@@ -89,13 +95,15 @@ public class HTAPBLoader extends Loader {
 
     private static PrintWriter out = null;
     private static Random gen;
-    private static int numWarehouses = 0;
+    protected static int numWarehouses = 0;
     private static long lastTimeMS = 0;
 
     private static final RandomGenerator ran = new RandomGenerator(0);
-    private static final int FIRST_UNPROCESSED_O_ID = 2101;
 
-    private AtomicInteger counter;
+
+    protected AtomicInteger counter;
+    protected final Configuration configuration;
+    protected PopulationManifest manifest;
 
     private static final int[] nationkeys = new int[62];
 
@@ -272,772 +280,96 @@ public class HTAPBLoader extends Loader {
 
     } // end loadItem()
 
-    private int loadWhse(int whseKount) {
-
-        try {
-            PreparedStatement whsePrepStmt = conn.prepareStatement("INSERT INTO " + HTAPBConstants.TABLENAME_WAREHOUSE + " VALUES(?,?,?,?,?,?,?,?,?)");
-
-            now = new java.util.Date();
-            LOG.debug("\nStart Whse Load for " + whseKount + " Whses @ " + now + " ...");
-
-            if (generateCsvFiles) {
-                out = new PrintWriter(new FileOutputStream(warehousePath));
-                LOG.debug("\nWriting Warehouse file to: " + warehousePath);
-            }
-
-            Warehouse warehouse = new Warehouse();
-            for (int i = 1; i <= whseKount; i++) {
-
-                warehouse.w_id = i;
-                warehouse.w_ytd = 300000;
-
-                // random within [0.0000 .. 0.2000]
-                warehouse.w_tax = (TPCCUtil.randomNumber(0, 2000, gen)) / 10000.0;
-                warehouse.w_name = TPCCUtil.randomStr(TPCCUtil.randomNumber(6, 10, gen));
-                warehouse.w_street_1 = TPCCUtil.randomStr(TPCCUtil.randomNumber(10, 20, gen));
-                warehouse.w_street_2 = TPCCUtil.randomStr(TPCCUtil.randomNumber(10, 20, gen));
-                warehouse.w_city = TPCCUtil.randomStr(TPCCUtil.randomNumber(10, 20, gen));
-                warehouse.w_state = TPCCUtil.randomStr(3).toUpperCase();
-                warehouse.w_zip = "123456789";
-
-                if (!generateCsvFiles) {
-                    whsePrepStmt.setLong(1, warehouse.w_id);
-                    whsePrepStmt.setDouble(2, warehouse.w_ytd);
-                    whsePrepStmt.setDouble(3, warehouse.w_tax);
-                    whsePrepStmt.setString(4, warehouse.w_name);
-                    whsePrepStmt.setString(5, warehouse.w_street_1);
-                    whsePrepStmt.setString(6, warehouse.w_street_2);
-                    whsePrepStmt.setString(7, warehouse.w_city);
-                    whsePrepStmt.setString(8, warehouse.w_state);
-                    whsePrepStmt.setString(9, warehouse.w_zip);
-                    whsePrepStmt.executeUpdate();
-                } else {
-                    String str = "";
-                    str = str + warehouse.w_id + ",";
-                    str = str + warehouse.w_ytd + ",";
-                    str = str + warehouse.w_tax + ",";
-                    str = str + warehouse.w_name + ",";
-                    str = str + warehouse.w_street_1 + ",";
-                    str = str + warehouse.w_street_2 + ",";
-                    str = str + warehouse.w_city + ",";
-                    str = str + warehouse.w_state + ",";
-                    str = str + warehouse.w_zip;
-                    out.println(str);
-                }
-            } // end for
-
-            transCommit();
-            now = new java.util.Date();
-
-            long tmpTime = new java.util.Date().getTime();
-            LOG.debug("Elasped Time(ms): "
-                    + ((tmpTime - lastTimeMS) / 1000.000));
-            lastTimeMS = tmpTime;
-            LOG.debug("End Whse Load @  " + now);
-
-        } catch (SQLException se) {
-            LOG.debug(se.getMessage());
-            transRollback();
-        } catch (Exception e) {
-            e.printStackTrace();
-            transRollback();
-        }
-
-        return whseKount;
-
-    } // end loadWhse()
-
-    private int loadStock(int whseKount, int itemKount) {
-
-        int k = 0;
-        int t;
-        int randPct;
-        int len;
-        int startORIGINAL;
-
-        try {
-            PreparedStatement stckPrepStmt = conn.prepareStatement("INSERT INTO " + HTAPBConstants.TABLENAME_STOCK + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
-            now = new java.util.Date();
-            t = (whseKount * itemKount);
-            LOG.debug("\nStart Stock Load for " + t + " units @ " + now + " ...");
-
-            if (generateCsvFiles) {
-                out = new PrintWriter(new FileOutputStream(stockPath));
-                LOG.debug("\nWriting Stock file to: " + stockPath);
-            }
-
-            Stock stock = new Stock();
-
-            for (int i = 1; i <= itemKount; i++) {
-
-                for (int w = 1; w <= whseKount; w++) {
-
-                    stock.s_i_id = i;
-                    stock.s_w_id = w;
-                    stock.s_quantity = TPCCUtil.randomNumber(10, 100, gen);
-                    stock.s_ytd = 0;
-                    stock.s_order_cnt = 0;
-                    stock.s_remote_cnt = 0;
-
-                    // s_data
-                    randPct = TPCCUtil.randomNumber(1, 100, gen);
-                    len = TPCCUtil.randomNumber(26, 50, gen);
-                    if (randPct > 10) {
-                        // 90% of time i_data isa random string of length [26 ..
-                        // 50]
-                        stock.s_data = TPCCUtil.randomStr(len);
-                    } else {
-                        // 10% of time i_data has "ORIGINAL" crammed somewhere
-                        // in middle
-                        startORIGINAL = TPCCUtil.randomNumber(2, (len - 8), gen);
-                        stock.s_data = TPCCUtil.randomStr(startORIGINAL - 1) + "ORIGINAL"
-                                + TPCCUtil.randomStr(len - startORIGINAL - 9);
-                    }
-
-                    stock.s_dist_01 = TPCCUtil.randomStr(24);
-                    stock.s_dist_02 = TPCCUtil.randomStr(24);
-                    stock.s_dist_03 = TPCCUtil.randomStr(24);
-                    stock.s_dist_04 = TPCCUtil.randomStr(24);
-                    stock.s_dist_05 = TPCCUtil.randomStr(24);
-                    stock.s_dist_06 = TPCCUtil.randomStr(24);
-                    stock.s_dist_07 = TPCCUtil.randomStr(24);
-                    stock.s_dist_08 = TPCCUtil.randomStr(24);
-                    stock.s_dist_09 = TPCCUtil.randomStr(24);
-                    stock.s_dist_10 = TPCCUtil.randomStr(24);
-
-                    k++;
-                    if (!generateCsvFiles) {
-                        stckPrepStmt.setLong(1, stock.s_w_id);
-                        stckPrepStmt.setLong(2, stock.s_i_id);
-                        stckPrepStmt.setLong(3, stock.s_quantity);
-                        stckPrepStmt.setDouble(4, stock.s_ytd);
-                        stckPrepStmt.setLong(5, stock.s_order_cnt);
-                        stckPrepStmt.setLong(6, stock.s_remote_cnt);
-                        stckPrepStmt.setString(7, stock.s_data);
-                        stckPrepStmt.setString(8, stock.s_dist_01);
-                        stckPrepStmt.setString(9, stock.s_dist_02);
-                        stckPrepStmt.setString(10, stock.s_dist_03);
-                        stckPrepStmt.setString(11, stock.s_dist_04);
-                        stckPrepStmt.setString(12, stock.s_dist_05);
-                        stckPrepStmt.setString(13, stock.s_dist_06);
-                        stckPrepStmt.setString(14, stock.s_dist_07);
-                        stckPrepStmt.setString(15, stock.s_dist_08);
-                        stckPrepStmt.setString(16, stock.s_dist_09);
-                        stckPrepStmt.setString(17, stock.s_dist_10);
-                        stckPrepStmt.addBatch();
-
-                        if ((k % configCommitCount) == 0) {
-                            long tmpTime = new java.util.Date().getTime();
-                            String etStr = "  Elasped Time(ms): "
-                                    + ((tmpTime - lastTimeMS) / 1000.000)
-                                    + "                    ";
-                            LOG.debug(etStr.substring(0, 30)
-                                    + "  Writing record " + k + " of " + t);
-                            lastTimeMS = tmpTime;
-
-                            stckPrepStmt.executeBatch();
-                            stckPrepStmt.clearBatch();
-
-                            transCommit();
-                        }
-                    } else {
-                        String str = "";
-                        str = str + stock.s_w_id + ",";
-                        str = str + stock.s_i_id + ",";
-                        str = str + stock.s_quantity + ",";
-                        str = str + stock.s_ytd + ",";
-                        str = str + stock.s_order_cnt + ",";
-                        str = str + stock.s_remote_cnt + ",";
-                        str = str + stock.s_data + ",";
-                        str = str + stock.s_dist_01 + ",";
-                        str = str + stock.s_dist_02 + ",";
-                        str = str + stock.s_dist_03 + ",";
-                        str = str + stock.s_dist_04 + ",";
-                        str = str + stock.s_dist_05 + ",";
-                        str = str + stock.s_dist_06 + ",";
-                        str = str + stock.s_dist_07 + ",";
-                        str = str + stock.s_dist_08 + ",";
-                        str = str + stock.s_dist_09 + ",";
-                        str = str + stock.s_dist_10;
-                        out.println(str);
-
-                        if ((k % configCommitCount) == 0) {
-                            long tmpTime = new java.util.Date().getTime();
-                            String etStr = "  Elasped Time(ms): "
-                                    + ((tmpTime - lastTimeMS) / 1000.000)
-                                    + "                    ";
-                            LOG.debug(etStr.substring(0, 30)
-                                    + "  Writing record " + k + " of " + t);
-                            lastTimeMS = tmpTime;
-                        }
-                    }
-
-                } // end for [w]
-
-            } // end for [i]
-
-            long tmpTime = new java.util.Date().getTime();
-            String etStr = "  Elasped Time(ms): "
-                    + ((tmpTime - lastTimeMS) / 1000.000)
-                    + "                    ";
-            LOG.debug(etStr.substring(0, 30)
-                    + "  Writing final records " + k + " of " + t);
-            lastTimeMS = tmpTime;
-            if (!generateCsvFiles) {
-                stckPrepStmt.executeBatch();
-            }
-            transCommit();
-
-            now = new java.util.Date();
-            LOG.debug("End Stock Load @  " + now);
-
-        } catch (SQLException se) {
-            LOG.debug(se.getMessage());
-            transRollback();
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            transRollback();
-        }
-
-        return k;
-
-    } // end loadStock()
-
-    private int loadDist(int whseKount, int distWhseKount) {
-
-        int k = 0;
-        int t;
-
-        try {
-            PreparedStatement distPrepStmt = conn.prepareStatement("INSERT INTO " + HTAPBConstants.TABLENAME_DISTRICT + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
-            now = new java.util.Date();
-
-            if (generateCsvFiles) {
-                out = new PrintWriter(new FileOutputStream(districtPath));
-                LOG.debug("\nWriting District file to: " + districtPath);
-            }
-
-            District district = new District();
-
-            t = (whseKount * distWhseKount);
-            LOG.debug("\nStart District Data for " + t + " Dists @ " + now + " ...");
-
-            for (int w = 1; w <= whseKount; w++) {
-
-                for (int d = 1; d <= distWhseKount; d++) {
-
-                    district.d_id = d;
-                    district.d_w_id = w;
-                    district.d_ytd = 30000;
-
-                    // random within [0.0000 .. 0.2000]
-                    district.d_tax = (float) ((TPCCUtil.randomNumber(0, 2000, gen)) / 10000.0);
-                    district.d_next_o_id = 3001;
-                    district.d_name = TPCCUtil.randomStr(TPCCUtil.randomNumber(6, 10, gen));
-                    district.d_street_1 = TPCCUtil.randomStr(TPCCUtil.randomNumber(10, 20, gen));
-                    district.d_street_2 = TPCCUtil.randomStr(TPCCUtil.randomNumber(10, 20, gen));
-                    district.d_city = TPCCUtil.randomStr(TPCCUtil.randomNumber(10, 20, gen));
-                    district.d_state = TPCCUtil.randomStr(3).toUpperCase();
-                    district.d_zip = "123456789";
-
-                    k++;
-                    if (!generateCsvFiles) {
-                        distPrepStmt.setLong(1, district.d_w_id);
-                        distPrepStmt.setLong(2, district.d_id);
-                        distPrepStmt.setDouble(3, district.d_ytd);
-                        distPrepStmt.setDouble(4, district.d_tax);
-                        distPrepStmt.setLong(5, district.d_next_o_id);
-                        distPrepStmt.setString(6, district.d_name);
-                        distPrepStmt.setString(7, district.d_street_1);
-                        distPrepStmt.setString(8, district.d_street_2);
-                        distPrepStmt.setString(9, district.d_city);
-                        distPrepStmt.setString(10, district.d_state);
-                        distPrepStmt.setString(11, district.d_zip);
-                        distPrepStmt.executeUpdate();
-                    } else {
-                        String str = "";
-                        str = str + district.d_w_id + ",";
-                        str = str + district.d_id + ",";
-                        str = str + district.d_ytd + ",";
-                        str = str + district.d_tax + ",";
-                        str = str + district.d_next_o_id + ",";
-                        str = str + district.d_name + ",";
-                        str = str + district.d_street_1 + ",";
-                        str = str + district.d_street_2 + ",";
-                        str = str + district.d_city + ",";
-                        str = str + district.d_state + ",";
-                        str = str + district.d_zip;
-                        out.println(str);
-                    }
-                } // end for [d]
-            } // end for [w]
-
-            long tmpTime = new java.util.Date().getTime();
-            String etStr = "  Elasped Time(ms): "
-                    + ((tmpTime - lastTimeMS) / 1000.000)
-                    + "                    ";
-
-            LOG.debug(etStr.substring(0, 30) + "  Writing record " + k + " of " + t);
-
-            lastTimeMS = tmpTime;
-            transCommit();
-            now = new java.util.Date();
-            LOG.debug("End District Load @  " + now);
-        } catch (SQLException se) {
-            LOG.debug(se.getMessage());
-            transRollback();
-        } catch (Exception e) {
-            e.printStackTrace();
-            transRollback();
+    // -------------------------------------------------------------------
+    //                      Parallel warehouse population
+    // -------------------------------------------------------------------
+
+    /**
+     * Populates the warehouses assigned to it through its own connection, with a batched
+     * insert statement per table that is prepared once for all its warehouses.
+     */
+    private final class PartitionLoader implements Callable<Integer> {
+        private final AtomicInteger nextWarehouse;
+        private final long seed;
+
+        PartitionLoader(AtomicInteger nextWarehouse, long seed) {
+            this.nextWarehouse = nextWarehouse;
+            this.seed = seed;
         }
 
-        return k;
-
-    } // end loadDist()
-
-    private int loadCust(int whseKount, int distWhseKount, int custDistKount) {
-
-        int k = 0;
-        int t;
-
-        Customer customer = new Customer();
-        History history = new History();
-        PrintWriter outHist = null;
-        PrintWriter outcost = null;
-
-        try {
-            PreparedStatement histPrepStmt = conn.prepareStatement("INSERT INTO " + HTAPBConstants.TABLENAME_HISTORY + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
-            PreparedStatement custPrepStmt = conn.prepareStatement("INSERT INTO " + HTAPBConstants.TABLENAME_CUSTOMER + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        @Override
+        public Integer call() throws SQLException, IOException {
+            Connection partitionConn = configuration.openConnection();
+            Map<String, RowSink> inserts = new HashMap<String, RowSink>();
+            try {
+                for (int i = 0; i < WarehouseGenerator.TABLES.length; i++) {
+                    String table = WarehouseGenerator.TABLES[i];
+                    int batchSize = OptionUtil.getNamedValue("loader option", workConf.getLoaderBatchSize(), table, configCommitCount);
+                    int commitInterval = OptionUtil.getNamedValue("loader option", workConf.getLoaderCommitInterval(), table, configCommitCount);
+                    inserts.put(table, new BatchRowWriter(partitionConn, table, WarehouseGenerator.COLUMNS[i], batchSize, commitInterval));
+                }
 
-            now = new java.util.Date();
+                int k = 0;
+                for (int w = nextWarehouse.getAndIncrement(); w <= numWarehouses; w = nextWarehouse.getAndIncrement()) {
+                    if (manifest.isDone(w, WarehouseGenerator.TABLES))
+                        continue;
 
-            if (generateCsvFiles) {
-                outcost = new PrintWriter(new FileOutputStream(customerPath));
-                outHist = new PrintWriter(new FileOutputStream(historyPath));
-                LOG.debug("\nWriting Customer file to: " + customerPath);
-                LOG.debug("\nWriting Customer History file to: " + historyPath);
-            }
+                    k += new WarehouseGenerator(clock, counter, seed, w).generate(inserts);
 
-            t = (whseKount * distWhseKount * custDistKount * 2);
-            LOG.debug("\nStart Cust-Hist Load for " + t + " Cust-Hists @ " + now + " ...");
-
-            for (int w = 1; w <= whseKount; w++) {
-
-                for (int d = 1; d <= distWhseKount; d++) {
-
-                    for (int c = 1; c <= custDistKount; c++) {
-
-                        //**************************************************
-                        //TIMESTAMP DENSITY
-                        Timestamp sysdate = new java.sql.Timestamp(clock.populateTick());
-                        //**************************************************
-
-                        if (calibrate) {
-                            counter.incrementAndGet();
-                        }
-
-                        customer.c_id = c;
-                        customer.c_d_id = d;
-                        customer.c_w_id = w;
-
-                        // discount is random between [0.0000 ... 0.5000]
-                        customer.c_discount = (TPCCUtil.randomNumber(1, 5000, gen) / 1000.0);
-
-                        if (TPCCUtil.randomNumber(1, 100, gen) <= 10) {
-                            customer.c_credit = "BC"; // 10% Bad Credit
-                        } else {
-                            customer.c_credit = "GC"; // 90% Good Credit
-                        }
-                        if (c <= 1000) {
-                            customer.c_last = TPCCUtil.getLastName(c - 1);
-                        } else {
-                            customer.c_last = TPCCUtil.getNonUniformRandomLastNameForLoad(gen);
-                        }
-
-                        customer.c_first = TPCCUtil.randomStr(TPCCUtil.randomNumber(8, 16, gen));
-                        customer.c_credit_lim = 50000;
-                        customer.c_balance = -10;
-                        customer.c_ytd_payment = 10;
-                        customer.c_payment_cnt = 1;
-                        customer.c_delivery_cnt = 0;
-                        customer.c_street_1 = TPCCUtil.randomStr(TPCCUtil.randomNumber(10, 20, gen));
-                        customer.c_street_2 = TPCCUtil.randomStr(TPCCUtil.randomNumber(10, 20, gen));
-                        customer.c_city = TPCCUtil.randomStr(TPCCUtil.randomNumber(10, 20, gen));
-                        customer.c_state = TPCCUtil.randomStr(3).toUpperCase();
-                        customer.c_zip = TPCCUtil.randomNStr(4) + "11111"; // TPC-C 4.3.2.7: 4 random digits + "11111"
-                        customer.c_phone = TPCCUtil.randomNStr(16);
-                        customer.c_since = sysdate;
-                        customer.c_middle = "OE";
-                        customer.c_data = TPCCUtil.randomStr(TPCCUtil.randomNumber(300, 500, gen));
-
-                        history.h_c_id = c;
-                        history.h_c_d_id = d;
-                        history.h_c_w_id = w;
-                        history.h_d_id = d;
-                        history.h_w_id = w;
-                        history.h_date = sysdate;
-                        history.h_amount = 10;
-                        history.h_data = TPCCUtil.randomStr(TPCCUtil
-                                .randomNumber(10, 24, gen));
-
-                        k = k + 2;
-                        if (!generateCsvFiles) {
-                            custPrepStmt.setLong(1, customer.c_w_id);
-                            custPrepStmt.setLong(2, customer.c_d_id);
-                            custPrepStmt.setLong(3, customer.c_id);
-                            custPrepStmt.setDouble(4, customer.c_discount);
-                            custPrepStmt.setString(5, customer.c_credit);
-                            custPrepStmt.setString(6, customer.c_last);
-                            custPrepStmt.setString(7, customer.c_first);
-                            custPrepStmt.setDouble(8, customer.c_credit_lim);
-                            custPrepStmt.setDouble(9, customer.c_balance);
-                            custPrepStmt.setDouble(10, customer.c_ytd_payment);
-                            custPrepStmt.setLong(11, customer.c_payment_cnt);
-                            custPrepStmt.setLong(12, customer.c_delivery_cnt);
-                            custPrepStmt.setString(13, customer.c_street_1);
-                            custPrepStmt.setString(14, customer.c_street_2);
-                            custPrepStmt.setString(15, customer.c_city);
-                            custPrepStmt.setString(16, customer.c_state);
-                            custPrepStmt.setString(17, customer.c_zip);
-                            custPrepStmt.setString(18, customer.c_phone);
-
-                            custPrepStmt.setTimestamp(19, customer.c_since);
-                            custPrepStmt.setString(20, customer.c_middle);
-                            custPrepStmt.setString(21, customer.c_data);
-
-                            custPrepStmt.addBatch();
-
-                            histPrepStmt.setInt(1, history.h_c_id);
-                            histPrepStmt.setInt(2, history.h_c_d_id);
-                            histPrepStmt.setInt(3, history.h_c_w_id);
-
-                            histPrepStmt.setInt(4, history.h_d_id);
-                            histPrepStmt.setInt(5, history.h_w_id);
-                            histPrepStmt.setTimestamp(6, history.h_date);
-                            histPrepStmt.setDouble(7, history.h_amount);
-                            histPrepStmt.setString(8, history.h_data);
-
-                            histPrepStmt.addBatch();
-
-                            if ((k % configCommitCount) == 0) {
-                                long tmpTime = new java.util.Date().getTime();
-                                String etStr = "  Elasped Time(ms): "
-                                        + ((tmpTime - lastTimeMS) / 1000.000)
-                                        + "                    ";
-                                LOG.debug(etStr.substring(0, 30)
-                                        + "  Writing record " + k + " of " + t);
-                                lastTimeMS = tmpTime;
-
-                                custPrepStmt.executeBatch();
-                                histPrepStmt.executeBatch();
-                                custPrepStmt.clearBatch();
-                                custPrepStmt.clearBatch();
-
-                                transCommit();
-                            }
-                        } else {
-                            String str = "";
-                            str = str + customer.c_w_id + ",";
-                            str = str + customer.c_d_id + ",";
-                            str = str + customer.c_id + ",";
-                            str = str + customer.c_discount + ",";
-                            str = str + customer.c_credit + ",";
-                            str = str + customer.c_last + ",";
-                            str = str + customer.c_first + ",";
-                            str = str + customer.c_credit_lim + ",";
-                            str = str + customer.c_balance + ",";
-                            str = str + customer.c_ytd_payment + ",";
-                            str = str + customer.c_payment_cnt + ",";
-                            str = str + customer.c_delivery_cnt + ",";
-                            str = str + customer.c_street_1 + ",";
-                            str = str + customer.c_street_2 + ",";
-                            str = str + customer.c_city + ",";
-                            str = str + customer.c_state + ",";
-                            str = str + customer.c_zip + ",";
-                            str = str + customer.c_phone + ",";
-                            str = str + customer.c_since + ",";
-                            str = str + customer.c_middle + ",";
-                            str = str + customer.c_data;
-                            outcost.println(str);
-
-                            str = "";
-                            str = str + history.h_c_id + ",";
-                            str = str + history.h_c_d_id + ",";
-                            str = str + history.h_c_w_id + ",";
-                            str = str + history.h_d_id + ",";
-                            str = str + history.h_w_id + ",";
-                            str = str + history.h_date + ",";
-                            str = str + history.h_amount + ",";
-                            str = str + history.h_data;
-                            outHist.println(str);
-
-                            if ((k % configCommitCount) == 0) {
-                                long tmpTime = new java.util.Date().getTime();
-                                String etStr = "  Elasped Time(ms): "
-                                        + ((tmpTime - lastTimeMS) / 1000.000)
-                                        + "                    ";
-                                LOG.debug(etStr.substring(0, 30)
-                                        + "  Writing record " + k + " of " + t);
-                                lastTimeMS = tmpTime;
-                            }
-                        }
-                    } // end for [c]
-                } // end for [d]
-            } // end for [w]
+                    // Commit the warehouse before recording it in the manifest
+                    for (RowSink insert : inserts.values())
+                        insert.flush();
 
-            long tmpTime = new java.util.Date().getTime();
-            String etStr = "  Elasped Time(ms): "
-                    + ((tmpTime - lastTimeMS) / 1000.000)
-                    + "                    ";
-            LOG.debug(etStr.substring(0, 30) + "  Writing record " + k
-                    + " of " + t);
-            lastTimeMS = tmpTime;
+                    manifest.markDone(w, WarehouseGenerator.TABLES);
+                    LOG.debug("Populated warehouse " + w + " of " + numWarehouses);
+                }
 
-            custPrepStmt.executeBatch();
-            histPrepStmt.executeBatch();
-            custPrepStmt.clearBatch();
-            histPrepStmt.clearBatch();
+                for (RowSink insert : inserts.values())
+                    insert.close();
 
-            transCommit();
-            now = new java.util.Date();
-            if (generateCsvFiles) {
-                outHist.close();
-                outcost.close();
-            }
-            LOG.debug("End Cust-Hist Data Load @  " + now);
-        } catch (SQLException se) {
-            LOG.debug(se.getMessage());
-            transRollback();
-            if (generateCsvFiles) {
-                outHist.close();
-                outcost.close();
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            transRollback();
-            if (generateCsvFiles) {
-                outHist.close();
-                outcost.close();
+                return k;
+            } catch (SQLException ex) {
+                partitionConn.rollback();
+                throw ex;
+            } finally {
+                partitionConn.close();
             }
         }
+    }
 
-        return k;
-
-    } // end loadCust()
-
-    private int loadOrder(int whseKount, int distWhseKount, int custDistKount) {
+    /**
+     * Populates the WAREHOUSE, DISTRICT, CUSTOMER, HISTORY, ORDER, NEW_ORDER, ORDER_LINE and STOCK
+     * tables through loaderThreads connections, each taking the next warehouse to populate.
+     *
+     * @return the number of inserted rows.
+     */
+    protected long loadPartitions(long seed) throws SQLException {
+        int threads = workConf.getEffectiveLoaderThreads();
+        threads = Math.min(threads, numWarehouses);
 
-        int k = 0;
-        int t;
-        PrintWriter outLine = null;
-        PrintWriter outNewOrder = null;
+        LOG.info("Populating " + numWarehouses + " warehouses through " + threads + " connections");
 
+        AtomicInteger nextWarehouse = new AtomicInteger(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
         try {
-            PreparedStatement ordrPrepStmt = conn.prepareStatement("INSERT INTO " + HTAPBConstants.TABLENAME_ORDER + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
-            PreparedStatement nworPrepStmt = conn.prepareStatement("INSERT INTO " + HTAPBConstants.TABLENAME_NEWORDER + " VALUES (?, ?, ?)");
-            PreparedStatement orlnPrepStmt = conn.prepareStatement("INSERT INTO " + HTAPBConstants.TABLENAME_ORDERLINE + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
-
-            if (generateCsvFiles) {
-                out = new PrintWriter(new FileOutputStream(orderPath));
-                outLine = new PrintWriter(new FileOutputStream(orderLinePath));
-                outNewOrder = new PrintWriter(new FileOutputStream(newOrderPath));
-                LOG.debug("\nWriting Order file to: " + orderPath);
-                LOG.debug("\nWriting Order Line file to: " + orderLinePath);
-                LOG.debug("\nWriting New Order file to: " + newOrderPath);
-            }
-
-            now = new java.util.Date();
-            Oorder oorder = new Oorder();
-            NewOrder new_order = new NewOrder();
-            OrderLine order_line = new OrderLine();
-            jdbcIO myJdbcIO = new jdbcIO();
-
-            t = (whseKount * distWhseKount * custDistKount);
-            t = (t * 11) + (t / 3);
-            LOG.debug("whse=" + whseKount + ", dist=" + distWhseKount + ", cust=" + custDistKount);
-            LOG.debug("\nStart Order-Line-New Load for approx " + t + " rows @ " + now + " ...");
-
-            for (int w = 1; w <= whseKount; w++) {
-
-                for (int d = 1; d <= distWhseKount; d++) {
-                    // TPC-C 4.3.3.1: o_c_id must be a permutation of [1, 3000]
-                    int[] c_ids = new int[custDistKount];
-                    for (int i = 0; i < custDistKount; ++i) {
-                        c_ids[i] = i + 1;
-                    }
-                    // Collections.shuffle exists, but there is no
-                    // Arrays.shuffle
-                    for (int i = 0; i < c_ids.length - 1; ++i) {
-                        int remaining = c_ids.length - i - 1;
-                        int swapIndex = gen.nextInt(remaining) + i + 1;
-                        assert i < swapIndex;
-                        int temp = c_ids[swapIndex];
-                        c_ids[swapIndex] = c_ids[i];
-                        c_ids[i] = temp;
-                    }
-
-                    for (int c = 1; c <= custDistKount; c++) {
-
-                        oorder.o_id = c;
-                        oorder.o_w_id = w;
-                        oorder.o_d_id = d;
-                        oorder.o_c_id = c_ids[c - 1];
-                        // o_carrier_id is set *only* for orders with ids < 2101 [4.3.3.1]
-                        if (oorder.o_id < FIRST_UNPROCESSED_O_ID) {
-                            oorder.o_carrier_id = TPCCUtil.randomNumber(1, 10, gen);
-                        } else {
-                            oorder.o_carrier_id = null;
-                        }
-                        oorder.o_ol_cnt = TPCCUtil.randomNumber(5, 15, gen);
-                        oorder.o_all_local = 1;
-
-                        //**************************************************
-                        //TIMESTAMP DENSITY
-                        oorder.o_entry_d = clock.populateTick();
-                        //**************************************************
-
-                        if (calibrate) {
-                            counter.incrementAndGet();
-                        }
-
-                        k++;
-                        if (!generateCsvFiles) {
-                            myJdbcIO.insertOrder(ordrPrepStmt, oorder);
-                        } else {
-                            String str = "";
-                            str = str + oorder.o_id + ",";
-                            str = str + oorder.o_w_id + ",";
-                            str = str + oorder.o_d_id + ",";
-                            str = str + oorder.o_c_id + ",";
-                            str = str + oorder.o_carrier_id + ",";
-                            str = str + oorder.o_ol_cnt + ",";
-                            str = str + oorder.o_all_local + ",";
-                            Timestamp entry_d = new java.sql.Timestamp(oorder.o_entry_d);
-                            str = str + entry_d;
-                            out.println(str);
-                        }
-
-                        // 900 rows in the NEW-ORDER table corresponding to the last
-                        // 900 rows in the ORDER table for that district (i.e., with
-                        // NO_O_ID between 2,101 and 3,000)
-
-                        if (c >= FIRST_UNPROCESSED_O_ID) {
-
-                            new_order.no_w_id = w;
-                            new_order.no_d_id = d;
-                            new_order.no_o_id = c;
-
-                            k++;
-                            if (!generateCsvFiles) {
-                                myJdbcIO.insertNewOrder(nworPrepStmt, new_order);
-                            } else {
-                                String str = "";
-                                str = str + new_order.no_w_id + ",";
-                                str = str + new_order.no_d_id + ",";
-                                str = str + new_order.no_o_id;
-                                outNewOrder.println(str);
-                            }
-                        } // end new order
-
-                        for (int l = 1; l <= oorder.o_ol_cnt; l++) {
-                            order_line.ol_w_id = w;
-                            order_line.ol_d_id = d;
-                            order_line.ol_o_id = c;
-                            order_line.ol_number = l; // ol_number
-                            order_line.ol_i_id = TPCCUtil.randomNumber(1, 100000, gen);
-                            if (order_line.ol_o_id < FIRST_UNPROCESSED_O_ID) {
-                                order_line.ol_delivery_d = oorder.o_entry_d;
-                                order_line.ol_amount = 0;
-                            } else {
-                                order_line.ol_delivery_d = null;
-                                // random within [0.01 .. 9,999.99]
-                                order_line.ol_amount = (float) (TPCCUtil.randomNumber(1, 999999, gen) / 100.0);
-                            }
-
-                            order_line.ol_supply_w_id = order_line.ol_w_id;
-                            order_line.ol_quantity = 5;
-                            order_line.ol_dist_info = TPCCUtil.randomStr(24);
-
-                            k++;
-                            if (!generateCsvFiles) {
-                                myJdbcIO.insertOrderLine(orlnPrepStmt, order_line);
-                            } else {
-                                String str = "";
-                                str = str + order_line.ol_w_id + ",";
-                                str = str + order_line.ol_d_id + ",";
-                                str = str + order_line.ol_o_id + ",";
-                                str = str + order_line.ol_number + ",";
-                                str = str + order_line.ol_i_id + ",";
-
-                                Timestamp delivery_d;
-                                if (order_line.ol_delivery_d == null) {
-                                    delivery_d = new Timestamp(0L);
-                                } else {
-                                    delivery_d = new Timestamp(order_line.ol_delivery_d);
-                                }
-
-                                str = str + delivery_d + ",";
-                                str = str + order_line.ol_amount + ",";
-                                str = str + order_line.ol_supply_w_id + ",";
-                                str = str + order_line.ol_quantity + ",";
-                                str = str + order_line.ol_dist_info;
-                                outLine.println(str);
-                            }
-
-                            if ((k % configCommitCount) == 0) {
-                                long tmpTime = new java.util.Date().getTime();
-                                String etStr = "  Elasped Time(ms): "
-                                        + ((tmpTime - lastTimeMS) / 1000.000)
-                                        + "                    ";
-                                LOG.debug(etStr.substring(0, 30)
-                                        + "  Writing record " + k + " of " + t);
-                                lastTimeMS = tmpTime;
-                                if (!generateCsvFiles) {
-
-                                    ordrPrepStmt.executeBatch();
-                                    nworPrepStmt.executeBatch();
-                                    orlnPrepStmt.executeBatch();
-                                    ordrPrepStmt.clearBatch();
-                                    nworPrepStmt.clearBatch();
-                                    orlnPrepStmt.clearBatch();
-
-                                    transCommit();
-                                }
-                            }
-                        } // end for [l]
-                    } // end for [c]
-                } // end for [d]
-            } // end for [w]
-
-            LOG.debug("  Writing final records " + k + " of " + t);
-            if (!generateCsvFiles) {
-                ordrPrepStmt.executeBatch();
-                nworPrepStmt.executeBatch();
-                orlnPrepStmt.executeBatch();
-            } else {
-                outLine.close();
-                outNewOrder.close();
-            }
-            transCommit();
-            now = new java.util.Date();
-            LOG.debug("End Orders Load @  " + now);
-
-        } catch (SQLException se) {
-            LOG.debug(se.getMessage());
-            se.printStackTrace();
-            transRollback();
-        } catch (Exception e) {
-            e.printStackTrace();
-            transRollback();
-            if (generateCsvFiles) {
-                outLine.close();
-                outNewOrder.close();
-            }
+            List<Future<Integer>> loaders = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < threads; i++)
+                loaders.add(pool.submit(new PartitionLoader(nextWarehouse, seed)));
+
+            long k = 0;
+            for (Future<Integer> loader : loaders)
+                k += loader.get();
+
+            return k;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while populating the warehouses", ex);
+        } catch (ExecutionException ex) {
+            throw new SQLException("Error when trying to populate the warehouses", ex.getCause());
+        } finally {
+            pool.shutdownNow();
         }
-        return k;
-
-    } // end loadOrder()
+    }
 
     private int loadRegions() throws SQLException {
 
@@ -1357,9 +689,159 @@ public class HTAPBLoader extends Loader {
 
     } // end loadSuppliers()
 
+    // -------------------------------------------------------------------
+    //                          Resuming populations
+    // -------------------------------------------------------------------
+
+    private static final String[] SINGLE_TABLES = {HTAPBConstants.TABLENAME_ITEM, HTAPBConstants.TABLENAME_REGION,
+            HTAPBConstants.TABLENAME_NATION, HTAPBConstants.TABLENAME_SUPPLIER};
+
+    /**
+     * Removes the rows that the interrupted population left in the tables and warehouses
+     * that it did not finish, as those are loaded again.
+     */
+    private void removeUnfinishedRows() throws SQLException {
+        for (String table : SINGLE_TABLES) {
+            if (!manifest.isDone(table, 0))
+                truncateTable(table);
+        }
+
+        Statement stmt = conn.createStatement();
+        try {
+            for (int i = 0; i < WarehouseGenerator.TABLES.length; i++) {
+                String table = WarehouseGenerator.TABLES[i];
+                String column = WarehouseGenerator.WAREHOUSE_COLUMNS[i];
+
+                BitSet done = manifest.getDone(table);
+                if (done.get(1, numWarehouses + 1).cardinality() == numWarehouses)
+                    continue;
+
+                // Keep the rows of the done warehouses, e.g. NOT (w BETWEEN 1 AND 12 OR w = 15)
+                StringBuilder sql = new StringBuilder("DELETE FROM ").append(table);
+                String separator = " WHERE NOT (";
+                int from = done.nextSetBit(1);
+                while (from >= 0) {
+                    int to = done.nextClearBit(from) - 1;
+                    sql.append(separator).append(column);
+                    if (from == to)
+                        sql.append(" = ").append(from);
+                    else
+                        sql.append(" BETWEEN ").append(from).append(" AND ").append(to);
+
+                    separator = " OR ";
+                    from = done.nextSetBit(to + 1);
+                }
+
+                if (!done.isEmpty())
+                    sql.append(")");
+
+                int rows = stmt.executeUpdate(sql.toString());
+                transCommit();
+                LOG.info("Removed " + rows + " rows of the unfinished warehouses from " + table);
+            }
+        } finally {
+            stmt.close();
+        }
+    }
+
+    /**
+     * Records a single table as done if all its rows were loaded, as the load methods
+     * only log their errors.
+     *
+     * @return the number of loaded rows.
+     */
+    private int markLoaded(String table, int rows) throws SQLException {
+        Statement stmt = conn.createStatement();
+        try {
+            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table);
+            rs.next();
+            if (rs.getLong(1) == rows)
+                manifest.markDone(0, table);
+            else
+                LOG.warn("Loaded " + rs.getLong(1) + " of the " + rows + " rows of " + table);
+        } finally {
+            stmt.close();
+        }
+
+        return rows;
+    }
+
+    private boolean isComplete() {
+        for (String table : SINGLE_TABLES) {
+            if (!manifest.isDone(table, 0))
+                return false;
+        }
+
+        for (int w = 1; w <= numWarehouses; w++) {
+            if (!manifest.isDone(w, WarehouseGenerator.TABLES))
+                return false;
+        }
+
+        return true;
+    }
+
+    // -------------------------------------------------------------------
+    //                          Adding warehouses
+    // -------------------------------------------------------------------
+
+    /**
+     * Checks that the database and the htapb_auxiliar file hold a population of the
+     * given number of warehouses, whose timestamps the added warehouses extend.
+     */
+    private void checkScaleOut(int fromWarehouses) throws SQLException {
+        if (fromWarehouses >= numWarehouses)
+            throw new RuntimeException("The " + numWarehouses + " warehouses of the scale factor do not add to the "
+                    + fromWarehouses + " warehouses of scaleOutFrom.");
+
+        Statement stmt = conn.createStatement();
+        try {
+            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + HTAPBConstants.TABLENAME_WAREHOUSE);
+            rs.next();
+            if (rs.getInt(1) != fromWarehouses)
+                throw new RuntimeException("The database holds " + rs.getInt(1) + " warehouses instead of the "
+                        + fromWarehouses + " warehouses of scaleOutFrom.");
+        } finally {
+            stmt.close();
+        }
+
+        long populatedMs = AuxiliarFileHandler.importLastTs(csvFilePath) - AuxiliarFileHandler.importFirstTs(csvFilePath);
+        if (populatedMs != Clock.getPopulateIntervalSeconds(fromWarehouses) * 1000L)
+            throw new RuntimeException("The htapb_auxiliar file in " + csvFilePath + " does not belong to a population of "
+                    + fromWarehouses + " warehouses.");
+    }
+
     @Override
     public void load() throws SQLException {
-        if (!generateCsvFiles) {
+        // Adding warehouses extends the population recorded in the auxiliar file, unless
+        // it already did and was interrupted
+        int scaleOutFrom = workConf.getScaleOutFrom();
+        if (scaleOutFrom > 0 && !PopulationManifest.exists(csvFilePath))
+            checkScaleOut(scaleOutFrom);
+
+        // The number of timestamps generated in the population phase is known.
+        // This information is used to compute the start- and end timestamp of
+        // the generated timestamps, which is then written to an output file,
+        // so the Clock in the execution phase can be initialized with those
+        // values.
+        long startTS = clock.getStartTimestamp();
+        long finalTS = clock.getFinalPopulatedTs();
+        AuxiliarFileHandler.writeToFile(csvFilePath, startTS, finalTS);
+
+        // Track the progress of the population, resuming an interrupted one with the
+        // same start timestamp (see the Loader constructor)
+        manifest = PopulationManifest.open(csvFilePath, PopulationManifest.GENERATED, numWarehouses, startTS);
+
+        if (manifest.isResumed()) {
+            removeUnfinishedRows();
+        } else if (scaleOutFrom > 0) {
+            // Only the new warehouses are loaded, the populated ones and the other tables are kept
+            manifest.markDone(1, scaleOutFrom, WarehouseGenerator.TABLES);
+            manifest.markDone(0, SINGLE_TABLES);
+
+            LOG.info("Adding warehouses " + (scaleOutFrom + 1) + " to " + numWarehouses + " to the database");
+            LOG.warn("The added warehouses only have timestamps after those of the populated warehouses, "
+                    + "so the database differs from a fresh population of " + numWarehouses + " warehouses");
+        } else if (!generateCsvFiles) {
             truncateTable(HTAPBConstants.TABLENAME_ITEM);
             truncateTable(HTAPBConstants.TABLENAME_WAREHOUSE);
             truncateTable(HTAPBConstants.TABLENAME_STOCK);
@@ -1376,30 +858,31 @@ public class HTAPBLoader extends Loader {
 
         gen = new Random(clock.getStartTimestamp());
 
-        // The number of timestamps generated in the population phase is known.
-        // This information is used to compute the start- and end timestamp of
-        // the generated timestamps, which is then written to an output file,
-        // so the Clock in the execution phase can be initialized with those
-        // values.
-        long startTS = clock.getStartTimestamp();
-        long finalTS = clock.getFinalPopulatedTs();
-        AuxiliarFileHandler.writeToFile(csvFilePath, startTS, finalTS);
-
         Date startDate = new Date();
         LOG.debug("------------- LoadData Start Date = " + startDate + "-------------");
 
         long startTimeMS = new Date().getTime();
         lastTimeMS = startTimeMS;
 
-        long totalRows = loadWhse(numWarehouses);
-        totalRows += loadItem(configItemCount);
-        totalRows += loadStock(numWarehouses, configItemCount);
-        totalRows += loadDist(numWarehouses, configDistPerWhse);
-        totalRows += loadCust(numWarehouses, configDistPerWhse, configCustPerDist);
-        totalRows += loadOrder(numWarehouses, configDistPerWhse, configCustPerDist);
-        totalRows += loadRegions();
-        totalRows += loadNations();
-        totalRows += loadSuppliers();
+        long totalRows = 0;
+        if (!manifest.isDone(HTAPBConstants.TABLENAME_ITEM, 0))
+            totalRows += markLoaded(HTAPBConstants.TABLENAME_ITEM, loadItem(configItemCount));
+
+        totalRows += loadPartitions(startTS);
+
+        if (!manifest.isDone(HTAPBConstants.TABLENAME_REGION, 0))
+            totalRows += markLoaded(HTAPBConstants.TABLENAME_REGION, loadRegions());
+
+        if (!manifest.isDone(HTAPBConstants.TABLENAME_NATION, 0))
+            totalRows += markLoaded(HTAPBConstants.TABLENAME_NATION, loadNations());
+
+        if (!manifest.isDone(HTAPBConstants.TABLENAME_SUPPLIER, 0))
+            totalRows += markLoaded(HTAPBConstants.TABLENAME_SUPPLIER, loadSuppliers());
+
+        if (!isComplete())
+            throw new SQLException("The population is incomplete, run it again to resume it from " + csvFilePath);
+
+        manifest.complete();
 
         long runTimeMS = (new Date().getTime()) + 1 - startTimeMS;
         Date endDate = new Date();
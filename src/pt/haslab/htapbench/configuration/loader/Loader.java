@@ -43,6 +43,7 @@ import java.sql.SQLException;
 
 import org.apache.log4j.Logger;
 
+import pt.haslab.htapbench.benchmark.AuxiliarFileHandler;
 import pt.haslab.htapbench.benchmark.BenchmarkModule;
 import pt.haslab.htapbench.catalog.Catalog;
 import pt.haslab.htapbench.benchmark.WorkloadConfiguration;
@@ -86,7 +87,8 @@ public abstract class Loader {
 
     Loader(HTAPBenchmark benchmark, Connection conn) {
         this.workConf = benchmark.getWorkloadConfiguration();
-        this.generateCsvFiles = workConf.getUseCSV();
+        // The stream loader inserts the tables that are not streamed like the HTAPBLoader
+        this.generateCsvFiles = workConf.getUseCSV() && !workConf.getStreamLoad();
         this.csvFilePath = workConf.getFilePathCSV();
         this.scaleFactor = workConf.getScaleFactor();
         this.calibrate = workConf.getCalibrate();
@@ -107,9 +109,16 @@ public abstract class Loader {
         this.orderPath = csvFilePath + "/" + CSVNAME_ORDER;
         this.itemPath = csvFilePath + "/" + CSVNAME_ITEM;
 
-        // Set the clock
+        // Set the clock, keeping the timestamps of an interrupted population or, when adding
+        // warehouses, extending those of the populated database
         String csvFilePath = workConf.getFilePathCSV();
-        this.clock = new Clock((int) scaleFactor, csvFilePath);
+        long resumedStartTs = PopulationManifest.getStartTimestamp(csvFilePath);
+        if (workConf.getScaleOutFrom() > 0)
+            this.clock = new Clock(workConf.getScaleOutFrom(), (int) scaleFactor, csvFilePath, AuxiliarFileHandler.importFirstTs(csvFilePath));
+        else if (resumedStartTs > 0)
+            this.clock = new Clock((int) scaleFactor, csvFilePath, resumedStartTs);
+        else
+            this.clock = new Clock((int) scaleFactor, csvFilePath);
 
         // Initialize the RandomParameter
         this.randomParam = new RandomParameters("uniform", (int) scaleFactor);
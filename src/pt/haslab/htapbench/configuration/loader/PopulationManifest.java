@@ -0,0 +1,260 @@
+package pt.haslab.htapbench.configuration.loader;
+
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Tracks the progress of a population in the htapb_manifest file, next to the htapb_auxiliar
+ * file, so that a population that failed partway can be resumed. The manifest records the
+ * partitions of each table that are completely loaded, i.e. the warehouses of the tables
+ * generated per warehouse and partition 0 for the other tables and unpartitioned files, and
+ * is removed once the population completes.
+ *
+ * The manifest also records the start timestamp of the population, from which all the
+ * generated rows and the timestamps in the htapb_auxiliar file are derived, so a resumed
+ * population generates the same rows and keeps the same timestamp range.
+ */
+public class PopulationManifest {
+
+    private static final Logger LOG = Logger.getLogger(PopulationManifest.class);
+
+    private static final String FILE_NAME = "htapb_manifest";
+
+    // The loaders tracking the generated warehouses and the loaded CSV files, which
+    // do not resume each other's populations
+    public static final String GENERATED = "generated";
+    public static final String CSV = "csv";
+
+    private final File file;
+    private final String loader;
+    private final int warehouses;
+    private final long startTimestamp;
+    private final boolean resumed;
+    private final Map<String, BitSet> done = new HashMap<String, BitSet>();
+
+    private PopulationManifest(File file, String loader, int warehouses, long startTimestamp, boolean resumed) {
+        this.file = file;
+        this.loader = loader;
+        this.warehouses = warehouses;
+        this.startTimestamp = startTimestamp;
+        this.resumed = resumed;
+    }
+
+    /**
+     * Returns whether a population in the directory was interrupted.
+     */
+    public static boolean exists(String filePath) {
+        return new File(filePath, FILE_NAME).exists();
+    }
+
+    /**
+     * Returns the start timestamp of the interrupted population in the directory, or 0 if
+     * there is none.
+     */
+    public static long getStartTimestamp(String filePath) {
+        File file = new File(filePath, FILE_NAME);
+        if (!file.exists())
+            return 0;
+
+        try {
+            return Long.parseLong(read(file).getProperty("startLoadTimestamp"));
+        } catch (IOException | NumberFormatException ex) {
+            LOG.warn("Ignoring the unreadable manifest " + file + ": " + ex.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Discards the interrupted population in the directory, if any.
+     */
+    public static void delete(String filePath) {
+        if (new File(filePath, FILE_NAME).delete())
+            LOG.info("Discarded the manifest of the interrupted population");
+    }
+
+    /**
+     * Resumes the interrupted population in the directory or starts tracking a new one.
+     *
+     * @throws RuntimeException if the interrupted population was started with another
+     *                          loader, number of warehouses or start timestamp.
+     */
+    public static PopulationManifest open(String filePath, String loader, int warehouses, long startTimestamp) {
+        File file = new File(filePath, FILE_NAME);
+        if (!file.exists()) {
+            PopulationManifest manifest = new PopulationManifest(file, loader, warehouses, startTimestamp, false);
+            manifest.write();
+            return manifest;
+        }
+
+        try {
+            Properties props = read(file);
+            PopulationManifest manifest = new PopulationManifest(file, loader, warehouses, startTimestamp, true);
+            if (!loader.equals(props.getProperty("loader"))
+                    || warehouses != Integer.parseInt(props.getProperty("warehouses"))
+                    || startTimestamp != Long.parseLong(props.getProperty("startLoadTimestamp")))
+                throw new RuntimeException(String.format("The interrupted population in %s was started with other options. " +
+                        "Resume it with the same options or overwrite it.", file));
+
+            for (String table : props.stringPropertyNames()) {
+                if (table.equals(table.toUpperCase()))
+                    manifest.done.put(table, parseRanges(props.getProperty(table)));
+            }
+
+            LOG.info("Resuming the interrupted population tracked in " + file);
+            return manifest;
+        } catch (IOException | NumberFormatException ex) {
+            throw new RuntimeException("Error when trying to read the manifest " + file, ex);
+        }
+    }
+
+    /**
+     * Returns whether the manifest was left by an interrupted population.
+     */
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    public synchronized boolean isDone(String table, int partition) {
+        BitSet partitions = done.get(table);
+        return partitions != null && partitions.get(partition);
+    }
+
+    /**
+     * Returns whether the partition is done in all the tables.
+     */
+    public synchronized boolean isDone(int partition, String... tables) {
+        for (String table : tables) {
+            if (!isDone(table, partition))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns a copy of the done partitions of the table.
+     */
+    public synchronized BitSet getDone(String table) {
+        BitSet partitions = done.get(table);
+        return partitions != null ? (BitSet) partitions.clone() : new BitSet();
+    }
+
+    /**
+     * Records that the partition was committed in all the tables.
+     */
+    public void markDone(int partition, String... tables) {
+        markDone(partition, partition, tables);
+    }
+
+    /**
+     * Records that the partitions from fromPartition to toPartition, inclusive, were
+     * committed in all the tables.
+     */
+    public synchronized void markDone(int fromPartition, int toPartition, String... tables) {
+        for (String table : tables) {
+            if (!done.containsKey(table))
+                done.put(table, new BitSet());
+
+            done.get(table).set(fromPartition, toPartition + 1);
+        }
+
+        write();
+    }
+
+    /**
+     * Removes the manifest once the population completes.
+     */
+    public synchronized void complete() {
+        if (!file.delete() && file.exists())
+            LOG.warn("Failed to remove the manifest " + file);
+    }
+
+    // -------------------------------------------------------------------
+    //                              File format
+    // -------------------------------------------------------------------
+
+    /**
+     * Replaces the file atomically, so an interrupted write leaves the previous manifest.
+     */
+    private void write() {
+        Properties props = new Properties();
+        props.setProperty("loader", loader);
+        props.setProperty("warehouses", "" + warehouses);
+        props.setProperty("startLoadTimestamp", "" + startTimestamp);
+        for (Map.Entry<String, BitSet> e : done.entrySet())
+            props.setProperty(e.getKey(), formatRanges(e.getValue()));
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            OutputStream out = new FileOutputStream(tmp);
+            try {
+                props.store(out, "HTAPB population manifest");
+            } finally {
+                out.close();
+            }
+
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new RuntimeException("Error when trying to write the manifest " + file, ex);
+        }
+    }
+
+    private static Properties read(File file) throws IOException {
+        Properties props = new Properties();
+        InputStream in = new FileInputStream(file);
+        try {
+            props.load(in);
+        } finally {
+            in.close();
+        }
+
+        return props;
+    }
+
+    /**
+     * Formats the partitions as ranges, e.g. "1-12,15".
+     */
+    static String formatRanges(BitSet partitions) {
+        StringBuilder sb = new StringBuilder();
+        for (int from = partitions.nextSetBit(0); from >= 0; from = partitions.nextSetBit(from + 1)) {
+            int to = partitions.nextClearBit(from) - 1;
+            if (sb.length() > 0)
+                sb.append(',');
+
+            sb.append(from);
+            if (to > from)
+                sb.append('-').append(to);
+
+            from = to;
+        }
+
+        return sb.toString();
+    }
+
+    static BitSet parseRanges(String ranges) {
+        BitSet partitions = new BitSet();
+        for (String range : ranges.split(",")) {
+            if (range.isEmpty())
+                continue;
+
+            String[] bounds = range.split("-");
+            int from = Integer.parseInt(bounds[0].trim());
+            int to = bounds.length > 1 ? Integer.parseInt(bounds[1].trim()) : from;
+            partitions.set(from, to + 1);
+        }
+
+        return partitions;
+    }
+}
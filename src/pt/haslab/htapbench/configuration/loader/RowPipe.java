@@ -0,0 +1,173 @@
+package pt.haslab.htapbench.configuration.loader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded queue of row chunks between the threads generating the rows of a table and
+ * the threads streaming them into the bulk load command of the database. The generators
+ * write through channels, whose writes must end at row boundaries (see RowWriter), and
+ * each bulk load reads the rows of whole chunks through an InputStream.
+ *
+ * The generators block while the queue is full, so at most capacity chunks are buffered
+ * in memory. Once every writer is closed, each reader reaches the end of its stream.
+ */
+final class RowPipe {
+
+    // The end of the rows, put once for each reader
+    private static final byte[] EOF = new byte[0];
+
+    // Interval at which blocked threads check whether the pipe failed
+    private static final long POLL_MS = 100;
+
+    private final BlockingQueue<byte[]> chunks;
+    private final int readers;
+
+    private int openWriters;
+    private volatile Throwable failure = null;
+
+    /**
+     * @param capacity the maximum number of chunks in the queue.
+     * @param writers the number of channels that will write to the pipe.
+     * @param readers the number of streams that will read from the pipe.
+     */
+    RowPipe(int capacity, int writers, int readers) {
+        this.chunks = new ArrayBlockingQueue<byte[]>(capacity);
+        this.openWriters = writers;
+        this.readers = readers;
+    }
+
+    /**
+     * Aborts the pipe, e.g. when the generator or a bulk load fails, so the blocked
+     * readers and writers throw an IOException instead of waiting for each other.
+     */
+    void fail(Throwable cause) {
+        if (failure == null)
+            failure = cause;
+    }
+
+    WritableByteChannel newWriter() {
+        return new Writer();
+    }
+
+    InputStream newReader() {
+        return new Reader();
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null)
+            throw new IOException("The row pipe was aborted", failure);
+    }
+
+    private void put(byte[] chunk) throws IOException {
+        try {
+            while (!chunks.offer(chunk, POLL_MS, TimeUnit.MILLISECONDS))
+                checkFailure();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing to the row pipe", ex);
+        }
+    }
+
+    private byte[] take() throws IOException {
+        try {
+            byte[] chunk;
+            while ((chunk = chunks.poll(POLL_MS, TimeUnit.MILLISECONDS)) == null)
+                checkFailure();
+
+            return chunk;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading from the row pipe", ex);
+        }
+    }
+
+    private void closeWriter() throws IOException {
+        synchronized (this) {
+            if (--openWriters > 0)
+                return;
+        }
+
+        // The last writer ends the streams of all the readers
+        for (int i = 0; i < readers; i++)
+            put(EOF);
+    }
+
+    // -------------------------------------------------------------------
+    //                          Channels and streams
+    // -------------------------------------------------------------------
+
+    private final class Writer implements WritableByteChannel {
+        private boolean open = true;
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            checkFailure();
+
+            byte[] chunk = new byte[src.remaining()];
+            src.get(chunk);
+            if (chunk.length > 0)
+                put(chunk);
+
+            return chunk.length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (open) {
+                open = false;
+                closeWriter();
+            }
+        }
+    }
+
+    private final class Reader extends InputStream {
+        private byte[] chunk = null;
+        private int offset = 0;
+
+        /**
+         * Returns false at the end of the rows, otherwise makes sure the current chunk
+         * has bytes left.
+         */
+        private boolean next() throws IOException {
+            if (chunk == EOF)
+                return false;
+
+            if (chunk == null || offset == chunk.length) {
+                chunk = take();
+                offset = 0;
+            }
+
+            return chunk != EOF;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return next() ? chunk[offset++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+
+            if (!next())
+                return -1;
+
+            int n = Math.min(len, chunk.length - offset);
+            System.arraycopy(chunk, offset, b, off, n);
+            offset += n;
+            return n;
+        }
+    }
+}
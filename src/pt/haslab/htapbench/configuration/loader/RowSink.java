@@ -0,0 +1,73 @@
+package pt.haslab.htapbench.configuration.loader;
+
+import pt.haslab.htapbench.random.RandomGenerator;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * The destination of the rows of a table generated by the WarehouseGenerator, e.g. a CSV
+ * file or a batch of inserts.
+ *
+ * Each write method starts a new field of the current row and each append method adds
+ * to the current field, e.g. to put "ORIGINAL" in the middle of a random string.
+ */
+interface RowSink {
+
+    RowSink writeInt(long value) throws IOException, SQLException;
+
+    /**
+     * Writes the decimal unscaled / 10^scale, e.g. writeFixed(1999, 2) writes 19.99.
+     */
+    RowSink writeFixed(long unscaled, int scale) throws IOException, SQLException;
+
+    RowSink writeTimestamp(long timeMs) throws IOException, SQLException;
+
+    /**
+     * Writes a SQL-null value of the given java.sql.Types type.
+     */
+    RowSink writeNull(int sqlType) throws IOException, SQLException;
+
+    RowSink writeString(String value) throws IOException, SQLException;
+
+    RowSink appendString(String value) throws IOException, SQLException;
+
+    /**
+     * Writes the last name with the given number, see TPCCUtil.getLastName.
+     */
+    RowSink writeLastName(int num) throws IOException, SQLException;
+
+    /**
+     * Writes a random alphabetic string like TPCCUtil.randomStr, drawing the same values
+     * from the generator.
+     */
+    RowSink writeRandomStr(RandomGenerator gen, int strLen) throws IOException, SQLException;
+
+    RowSink appendRandomStr(RandomGenerator gen, int strLen) throws IOException, SQLException;
+
+    /**
+     * Writes a random upper case string, like TPCCUtil.randomStr(strLen).toUpperCase().
+     */
+    RowSink writeRandomUpperStr(RandomGenerator gen, int strLen) throws IOException, SQLException;
+
+    /**
+     * Writes a random numeric string like TPCCUtil.randomNStr.
+     */
+    RowSink writeRandomNStr(RandomGenerator gen, int stringLength) throws IOException, SQLException;
+
+    /**
+     * Terminates the current row.
+     */
+    void endRow() throws IOException, SQLException;
+
+    /**
+     * Writes the buffered rows, e.g. at the end of a partition, so that they can be
+     * committed.
+     */
+    void flush() throws IOException, SQLException;
+
+    /**
+     * Writes any buffered rows and releases the sink.
+     */
+    void close() throws IOException, SQLException;
+}
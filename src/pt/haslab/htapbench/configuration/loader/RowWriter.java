@@ -0,0 +1,297 @@
+package pt.haslab.htapbench.configuration.loader;
+
+import pt.haslab.htapbench.random.RandomGenerator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.TimeZone;
+
+import static pt.haslab.htapbench.benchmark.HTAPBConstants.nameTokens;
+
+/**
+ * Encodes CSV rows straight into a reusable byte buffer, which is written to a channel,
+ * e.g. a FileChannel, whenever it fills up. Numbers, timestamps and random strings are
+ * formatted in place, so generating a row does not allocate any objects.
+ *
+ * Only whole rows are written to the channel, so the rows of several writers can be
+ * interleaved write by write, e.g. in a RowPipe.
+ */
+final class RowWriter implements RowSink {
+
+    static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private static final long MS_PER_DAY = 86400000L;
+
+    private final WritableByteChannel channel;
+    private final byte[] buffer;
+    private final ByteBuffer wrapper;
+    private final TimeZone timeZone = TimeZone.getDefault();
+    private final String nullConstant;
+
+    private int position = 0;
+    private int rowStart = 0;
+    private boolean firstField = true;
+
+    /**
+     * @param nullConstant the string written for SQL-null values.
+     */
+    RowWriter(WritableByteChannel channel, int bufferSize, String nullConstant) {
+        this.channel = channel;
+        this.buffer = new byte[bufferSize];
+        this.wrapper = ByteBuffer.wrap(buffer);
+        this.nullConstant = nullConstant;
+    }
+
+    RowWriter(WritableByteChannel channel, String nullConstant) {
+        this(channel, DEFAULT_BUFFER_SIZE, nullConstant);
+    }
+
+    // -------------------------------------------------------------------
+    //                              Fields
+    // -------------------------------------------------------------------
+
+    @Override
+    public RowWriter writeInt(long value) throws IOException {
+        separate();
+        ensure(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+
+        appendDigits(value, 1);
+        return this;
+    }
+
+    @Override
+    public RowWriter writeFixed(long unscaled, int scale) throws IOException {
+        separate();
+        ensure(22 + scale);
+        if (unscaled < 0) {
+            buffer[position++] = '-';
+            unscaled = -unscaled;
+        }
+
+        long multiplier = 1;
+        for (int i = 0; i < scale; i++)
+            multiplier *= 10;
+
+        appendDigits(unscaled / multiplier, 1);
+        if (scale > 0) {
+            buffer[position++] = '.';
+            appendDigits(unscaled % multiplier, scale);
+        }
+
+        return this;
+    }
+
+    /**
+     * Writes the timestamp in the local time zone, in the same format as java.sql.Timestamp.
+     */
+    @Override
+    public RowWriter writeTimestamp(long timeMs) throws IOException {
+        separate();
+        ensure(32);
+
+        long local = timeMs + timeZone.getOffset(timeMs);
+        long days = floorDiv(local, MS_PER_DAY);
+        int msOfDay = (int) (local - days * MS_PER_DAY);
+
+        // Convert the days since the epoch to the civil date (the proleptic Gregorian calendar)
+        long z = days + 719468;
+        long era = floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        appendDigits(year, 4);
+        buffer[position++] = '-';
+        appendDigits(month, 2);
+        buffer[position++] = '-';
+        appendDigits(day, 2);
+        buffer[position++] = ' ';
+        appendDigits(msOfDay / 3600000, 2);
+        buffer[position++] = ':';
+        appendDigits(msOfDay / 60000 % 60, 2);
+        buffer[position++] = ':';
+        appendDigits(msOfDay / 1000 % 60, 2);
+        buffer[position++] = '.';
+
+        // Like Timestamp.toString, the fraction is written without trailing zeros
+        int ms = msOfDay % 1000;
+        if (ms == 0) {
+            buffer[position++] = '0';
+        } else {
+            int digits = 3;
+            while (ms % 10 == 0) {
+                ms /= 10;
+                digits--;
+            }
+
+            appendDigits(ms, digits);
+        }
+
+        return this;
+    }
+
+    @Override
+    public RowWriter writeNull(int sqlType) throws IOException {
+        return writeString(nullConstant);
+    }
+
+    /**
+     * Writes an ASCII string.
+     */
+    @Override
+    public RowWriter writeString(String value) throws IOException {
+        separate();
+        return appendString(value);
+    }
+
+    @Override
+    public RowWriter appendString(String value) throws IOException {
+        int length = value.length();
+        ensure(length);
+        for (int i = 0; i < length; i++)
+            buffer[position++] = (byte) value.charAt(i);
+
+        return this;
+    }
+
+    @Override
+    public RowWriter writeLastName(int num) throws IOException {
+        separate();
+        appendString(nameTokens[num / 100]);
+        appendString(nameTokens[(num / 10) % 10]);
+        return appendString(nameTokens[num % 10]);
+    }
+
+    // -------------------------------------------------------------------
+    //                          Random strings
+    // -------------------------------------------------------------------
+
+    @Override
+    public RowWriter writeRandomStr(RandomGenerator gen, int strLen) throws IOException {
+        separate();
+        return appendRandomStr(gen, strLen);
+    }
+
+    @Override
+    public RowWriter appendRandomStr(RandomGenerator gen, int strLen) throws IOException {
+        if (strLen > 1)
+            appendRandom(gen, strLen - 1, 'a', 26);
+
+        return this;
+    }
+
+    @Override
+    public RowWriter writeRandomUpperStr(RandomGenerator gen, int strLen) throws IOException {
+        separate();
+        if (strLen > 1)
+            appendRandom(gen, strLen - 1, 'A', 26);
+
+        return this;
+    }
+
+    @Override
+    public RowWriter writeRandomNStr(RandomGenerator gen, int stringLength) throws IOException {
+        separate();
+        if (stringLength > 0)
+            appendRandom(gen, stringLength, '0', 10);
+
+        return this;
+    }
+
+    private void appendRandom(RandomGenerator gen, int length, char base, int numCharacters) throws IOException {
+        // Draw the length like RandomGenerator.astring and nstring, to generate the same strings
+        length = gen.number(length, length);
+        ensure(length);
+        for (int i = 0; i < length; i++)
+            buffer[position++] = (byte) (base + gen.number(0, numCharacters - 1));
+    }
+
+    // -------------------------------------------------------------------
+    //                          Rows and buffer
+    // -------------------------------------------------------------------
+
+    @Override
+    public void endRow() throws IOException {
+        ensure(1);
+        buffer[position++] = '\n';
+        firstField = true;
+        rowStart = position;
+    }
+
+    /**
+     * Writes the complete rows to the channel and moves the current row, if any, to the
+     * start of the buffer.
+     */
+    @Override
+    public void flush() throws IOException {
+        write(rowStart);
+        System.arraycopy(buffer, rowStart, buffer, 0, position - rowStart);
+        position -= rowStart;
+        rowStart = 0;
+    }
+
+    private void write(int length) throws IOException {
+        wrapper.clear();
+        wrapper.limit(length);
+        while (wrapper.hasRemaining())
+            channel.write(wrapper);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void separate() throws IOException {
+        if (firstField) {
+            firstField = false;
+        } else {
+            ensure(1);
+            buffer[position++] = ',';
+        }
+    }
+
+    private void ensure(int length) throws IOException {
+        if (position + length > buffer.length) {
+            flush();
+
+            if (position + length > buffer.length)
+                throw new IOException("The row of " + (position + length) + " bytes does not fit in the row buffer");
+        }
+    }
+
+    /**
+     * Appends the non-negative value, padded with leading zeros to at least the given width.
+     */
+    private void appendDigits(long value, int width) {
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10)
+            digits++;
+
+        digits = Math.max(digits, width);
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+
+        position += digits;
+    }
+
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y != 0 && (x ^ y) < 0) ? q - 1 : q;
+    }
+}
@@ -0,0 +1,221 @@
+package pt.haslab.htapbench.configuration.loader;
+
+import org.apache.log4j.Logger;
+import pt.haslab.htapbench.configuration.Configuration;
+import pt.haslab.htapbench.core.HTAPBenchmark;
+import pt.haslab.htapbench.util.OptionUtil;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Populates the warehouse-partitioned tables without intermediate CSV files: the generator
+ * threads encode the CSV rows into a RowPipe per table, which streams them straight into
+ * the bulk load command of the database, e.g. COPY FROM STDIN in PostgreSQL or load data
+ * local infile in MySQL. The small ITEM, REGION, NATION and SUPPLIER tables are inserted
+ * as in the HTAPBLoader.
+ *
+ * With the binaryCopy option, the rows are encoded in the binary COPY format of PostgreSQL
+ * by BinaryRowWriters instead, from the column types of the tables.
+ *
+ * The warehouses are only recorded in the PopulationManifest once every stream has been
+ * committed, so a resumed population loads all the warehouses that were streamed again.
+ */
+public class StreamLoader extends HTAPBLoader {
+
+    private static final Logger LOG = Logger.getLogger(StreamLoader.class);
+
+    // Number of row chunks buffered in the pipe of each table
+    private static final int PIPE_CAPACITY = 64;
+
+    public StreamLoader(HTAPBenchmark benchmark, Configuration configuration, Connection c) {
+        super(benchmark, configuration, c);
+    }
+
+    /**
+     * Generates the rows of the warehouses assigned to it into the pipes of the tables.
+     */
+    private final class Generator implements Callable<Integer> {
+        private final Map<String, RowPipe> pipes;
+        private final Map<String, int[]> columnTypes;
+        private final AtomicInteger nextWarehouse;
+        private final long seed;
+
+        /**
+         * @param columnTypes the column types of the tables for the binary format, or null for CSV.
+         */
+        Generator(Map<String, RowPipe> pipes, Map<String, int[]> columnTypes, AtomicInteger nextWarehouse, long seed) {
+            this.pipes = pipes;
+            this.columnTypes = columnTypes;
+            this.nextWarehouse = nextWarehouse;
+            this.seed = seed;
+        }
+
+        @Override
+        public Integer call() throws IOException, SQLException {
+            try {
+                Map<String, RowSink> writers = new HashMap<String, RowSink>();
+                for (Map.Entry<String, RowPipe> pipe : pipes.entrySet()) {
+                    if (columnTypes != null)
+                        writers.put(pipe.getKey(), new BinaryRowWriter(pipe.getValue().newWriter(), columnTypes.get(pipe.getKey())));
+                    else
+                        writers.put(pipe.getKey(), new RowWriter(pipe.getValue().newWriter(), nullConstant));
+                }
+
+                int k = 0;
+                for (int w = nextWarehouse.getAndIncrement(); w <= numWarehouses; w = nextWarehouse.getAndIncrement()) {
+                    if (manifest.isDone(w, WarehouseGenerator.TABLES))
+                        continue;
+
+                    k += new WarehouseGenerator(clock, counter, seed, w).generate(writers);
+                    LOG.debug("Generated warehouse " + w + " of " + numWarehouses);
+                }
+
+                for (RowSink writer : writers.values())
+                    writer.close();
+
+                return k;
+            } catch (IOException | SQLException | RuntimeException ex) {
+                for (RowPipe pipe : pipes.values())
+                    pipe.fail(ex);
+
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Streams the rows of a pipe into its table through its own connection.
+     */
+    private final class BulkLoad implements Callable<Long> {
+        private final String table;
+        private final RowPipe pipe;
+        private final boolean binary;
+
+        BulkLoad(String table, RowPipe pipe, boolean binary) {
+            this.table = table;
+            this.pipe = pipe;
+            this.binary = binary;
+        }
+
+        @Override
+        public Long call() throws IOException, SQLException {
+            Connection streamConn = configuration.openConnection();
+            try {
+                long rows = binary
+                        ? configuration.loadBinaryStream(streamConn, table, BinaryRowWriter.wrap(pipe.newReader()))
+                        : configuration.loadStream(streamConn, table, pipe.newReader());
+                if (configuration.getTxnControl())
+                    streamConn.commit();
+
+                LOG.debug("Streamed " + rows + " rows into the " + table + " table");
+                return rows;
+            } catch (IOException | SQLException | RuntimeException ex) {
+                pipe.fail(ex);
+                if (configuration.getTxnControl())
+                    streamConn.rollback();
+
+                throw ex;
+            } finally {
+                streamConn.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the java.sql.Types of the columns of the table, in order.
+     */
+    private int[] getColumnTypes(String table) throws SQLException {
+        Statement stmt = conn.createStatement();
+        try {
+            ResultSetMetaData metaData = stmt.executeQuery("SELECT * FROM " + table + " WHERE 1 = 0").getMetaData();
+            int[] types = new int[metaData.getColumnCount()];
+            for (int i = 0; i < types.length; i++)
+                types[i] = metaData.getColumnType(i + 1);
+
+            return types;
+        } finally {
+            stmt.close();
+        }
+    }
+
+    /**
+     * Populates the WAREHOUSE, DISTRICT, CUSTOMER, HISTORY, ORDER, NEW_ORDER, ORDER_LINE and STOCK
+     * tables through loaderThreads generators and loaderStreams bulk loads per table.
+     *
+     * @return the number of generated rows.
+     */
+    @Override
+    protected long loadPartitions(long seed) throws SQLException {
+        int threads = workConf.getEffectiveLoaderThreads();
+        threads = Math.min(threads, numWarehouses);
+
+        // The binary format encodes each field in the type of its column
+        boolean binary = workConf.getBinaryCopy();
+        Map<String, int[]> columnTypes = null;
+        if (binary) {
+            columnTypes = new HashMap<String, int[]>();
+            for (String table : WarehouseGenerator.TABLES)
+                columnTypes.put(table, getColumnTypes(table));
+        }
+
+        // Create the pipes and the bulk loads reading from them
+        Map<String, RowPipe> pipes = new HashMap<String, RowPipe>();
+        List<Callable<Long>> bulkLoads = new ArrayList<Callable<Long>>();
+        for (String table : WarehouseGenerator.TABLES) {
+            int streams = Math.max(OptionUtil.getNamedValue("loader option", workConf.getLoaderStreams(), table, 1), 1);
+            RowPipe pipe = new RowPipe(PIPE_CAPACITY, threads, streams);
+            pipes.put(table, pipe);
+
+            for (int i = 0; i < streams; i++)
+                bulkLoads.add(new BulkLoad(table, pipe, binary));
+        }
+
+        LOG.info("Streaming " + numWarehouses + " warehouses from " + threads + " generators into " + bulkLoads.size()
+                + (binary ? " binary" : "") + " bulk loads");
+
+        // Every generator and bulk load runs at once, as they wait for each other
+        AtomicInteger nextWarehouse = new AtomicInteger(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads + bulkLoads.size());
+        try {
+            List<Future<Integer>> generators = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < threads; i++)
+                generators.add(pool.submit(new Generator(pipes, columnTypes, nextWarehouse, seed)));
+
+            List<Future<Long>> loads = new ArrayList<Future<Long>>();
+            for (Callable<Long> bulkLoad : bulkLoads)
+                loads.add(pool.submit(bulkLoad));
+
+            long k = 0;
+            for (Future<Integer> generator : generators)
+                k += generator.get();
+
+            for (Future<Long> load : loads)
+                load.get();
+
+            // The streams commit all the warehouses at once
+            manifest.markDone(1, numWarehouses, WarehouseGenerator.TABLES);
+            return k;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while streaming the warehouses", ex);
+        } catch (ExecutionException ex) {
+            throw new SQLException("Error when trying to stream the warehouses", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
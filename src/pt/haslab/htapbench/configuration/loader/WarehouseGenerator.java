@@ -0,0 +1,349 @@
+package pt.haslab.htapbench.configuration.loader;
+
+import pt.haslab.htapbench.core.Clock;
+import pt.haslab.htapbench.random.RandomGenerator;
+import pt.haslab.htapbench.random.RandomParameters;
+import pt.haslab.htapbench.util.TPCCUtil;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static pt.haslab.htapbench.benchmark.HTAPBConstants.*;
+
+/**
+ * Generates all the rows of a single warehouse: the WAREHOUSE row, its DISTRICT, CUSTOMER,
+ * HISTORY, ORDER, NEW_ORDER and ORDER_LINE rows, and its STOCK. Each warehouse draws from
+ * its own generator, seeded from the seed of the population and the warehouse id, so the
+ * warehouses can be generated concurrently and the rows do not depend on the number of
+ * threads or on the RowSinks they are written to.
+ */
+final class WarehouseGenerator {
+
+    // The tables generated per warehouse, in the order of the columns below
+    static final String[] TABLES = {TABLENAME_WAREHOUSE, TABLENAME_DISTRICT, TABLENAME_CUSTOMER,
+            TABLENAME_HISTORY, TABLENAME_ORDER, TABLENAME_NEWORDER, TABLENAME_ORDERLINE, TABLENAME_STOCK};
+    static final int[] COLUMNS = {10, 12, 21, 8, 8, 3, 10, 18};
+    static final String[] WAREHOUSE_COLUMNS = {"W_ID", "D_W_ID", "C_W_ID", "H_W_ID", "O_W_ID", "NO_W_ID", "OL_W_ID", "S_W_ID"};
+
+    private static final int FIRST_UNPROCESSED_O_ID = 2101;
+
+    private final Clock clock;
+    private final AtomicInteger counter;
+    private final int w;
+    private final RandomGenerator gen;
+
+    // The permutation of the customer ids, reused for every district
+    private final int[] c_ids = new int[configCustPerDist];
+
+    /**
+     * @param counter the number of generated order timestamps.
+     */
+    WarehouseGenerator(Clock clock, AtomicInteger counter, long seed, int w) {
+        this.clock = clock;
+        this.counter = counter;
+        this.w = w;
+        this.gen = new RandomGenerator(getPartitionSeed(seed, w));
+    }
+
+    /**
+     * Derives the seed of a partition from the seed of the population, so that each
+     * partition generates the same rows no matter which thread generates it.
+     */
+    static long getPartitionSeed(long seed, int partition) {
+        // Scramble the seeds of neighbouring partitions (the finalizer of SplitMix64)
+        long z = seed + partition * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Generates the rows of the warehouse into the sinks of the TABLES.
+     *
+     * @return the number of generated rows.
+     */
+    int generate(Map<String, RowSink> sinks) throws IOException, SQLException {
+        int k = loadTimestamped(sinks, configDistPerWhse, configCustPerDist);
+        k += loadStock(sinks.get(TABLENAME_STOCK), configItemCount);
+        return k;
+    }
+
+    /**
+     * Writes a random string like TPCCUtil.randomStr, where 10% of the strings have "ORIGINAL"
+     * crammed somewhere in the middle.
+     */
+    private void writeData(RowSink out) throws IOException, SQLException {
+        int randPct = TPCCUtil.randomNumber(1, 100, gen);
+        int len = TPCCUtil.randomNumber(26, 50, gen);
+        if (randPct > 10) {
+            // 90% of time i_data isa random string of length [26 .. 50]
+            out.writeRandomStr(gen, len);
+        } else {
+            // 10% of time i_data has "ORIGINAL" crammed somewhere in middle
+            int startORIGINAL = TPCCUtil.randomNumber(2, (len - 8), gen);
+            out.writeRandomStr(gen, startORIGINAL - 1)
+                    .appendString("ORIGINAL")
+                    .appendRandomStr(gen, len - startORIGINAL - 9);
+        }
+    }
+
+    private int loadStock(RowSink out, int itemKount) throws IOException, SQLException {
+
+        int k = 0;
+
+        for (int i = 1; i <= itemKount; i++) {
+            out.writeInt(w);                                        // s_w_id
+            out.writeInt(i);                                        // s_i_id
+            out.writeInt(TPCCUtil.randomNumber(10, 100, gen));      // s_quantity
+            out.writeInt(TPCCUtil.randomNumber(1, 10000, gen));     // s_suppkey
+            out.writeInt(0);                                        // s_ytd
+            out.writeInt(0);                                        // s_order_cnt
+            out.writeInt(0);                                        // s_remote_cnt
+            writeData(out);                                         // s_data
+
+            // s_dist_01 .. s_dist_10
+            for (int dist = 1; dist <= 10; dist++)
+                out.writeRandomStr(gen, 24);
+
+            out.endRow();
+            k++;
+        } // end for [i]
+
+        return k;
+
+    } // end loadStock()
+
+    /**
+     * This method combines the semantics of loadCust and loadOrder into a single
+     * method, so that the generated timestamps can be split evenly across the ORDER
+     * and CUSTOMER tables. Previously, two separate method would increment the clock
+     * independently, so that the earliest half of all timestamps ended up in one table
+     * and the other half in the other table.
+     *
+     * The ORDER_LINE table depends on ORDER, so all the ORDER related tables are included
+     * as well.
+     */
+    private int loadTimestamped(Map<String, RowSink> sinks, int distWhseKount, int custDistKount)
+            throws IOException, SQLException {
+
+        int k = 0;
+
+        RowSink outWhse = sinks.get(TABLENAME_WAREHOUSE);
+        RowSink outDist = sinks.get(TABLENAME_DISTRICT);
+        RowSink outCust = sinks.get(TABLENAME_CUSTOMER);
+        RowSink outHist = sinks.get(TABLENAME_HISTORY);
+        RowSink outOrder = sinks.get(TABLENAME_ORDER);
+        RowSink outNewOrder = sinks.get(TABLENAME_NEWORDER);
+        RowSink outOrderLine = sinks.get(TABLENAME_ORDERLINE);
+
+        // ***********************************************
+        //          Start of WAREHOUSE population
+        // ***********************************************
+
+        // The nationkey is selected via. an alternating region strategy. The entries are selected
+        // as the first nation in Africa, the first nation in Asia and so on. When all the regions
+        // are covered once, the second nation in each nation is chosen. The nationkey gets the
+        // values [1 .. 60], ... , [1 .. 60] as there are 60 nations in total.
+        int w_nationkey = (w - 1) % 60 + 1;
+
+        outWhse.writeInt(w);                                                            // w_id
+        outWhse.writeFixed(30000000, 2);                                                // w_ytd
+        outWhse.writeFixed(TPCCUtil.randomNumber(0, 2000, gen), 4);                     // w_tax [0.0000 .. 0.2000]
+        outWhse.writeRandomStr(gen, TPCCUtil.randomNumber(6, 10, gen));                 // w_name
+        outWhse.writeRandomStr(gen, TPCCUtil.randomNumber(10, 20, gen));                // w_street_1
+        outWhse.writeRandomStr(gen, TPCCUtil.randomNumber(10, 20, gen));                // w_street_2
+        outWhse.writeRandomStr(gen, TPCCUtil.randomNumber(10, 20, gen));                // w_city
+        outWhse.writeRandomUpperStr(gen, 3);                                            // w_state
+        outWhse.writeString("123456789");                                               // w_zip
+        outWhse.writeInt(w_nationkey);                                                  // w_nationkey
+        outWhse.endRow();
+        k++;
+
+        for (int d = 1; d <= distWhseKount; d++) {
+
+            // ***********************************************
+            //             Start of DISTRICT population
+            // ***********************************************
+
+            outDist.writeInt(w);                                                        // d_w_id
+            outDist.writeInt(d);                                                        // d_id
+            outDist.writeFixed(3000000, 2);                                             // d_ytd
+            outDist.writeFixed(TPCCUtil.randomNumber(0, 2000, gen), 4);                 // d_tax [0.0000 .. 0.2000]
+            outDist.writeInt(3001);                                                     // d_next_o_id
+            outDist.writeRandomStr(gen, TPCCUtil.randomNumber(6, 10, gen));             // d_name
+            outDist.writeRandomStr(gen, TPCCUtil.randomNumber(10, 20, gen));            // d_street_1
+            outDist.writeRandomStr(gen, TPCCUtil.randomNumber(10, 20, gen));            // d_street_2
+            outDist.writeRandomStr(gen, TPCCUtil.randomNumber(10, 20, gen));            // d_city
+            outDist.writeRandomUpperStr(gen, 3);                                        // d_state
+            outDist.writeString("123456789");                                           // d_zip
+            outDist.writeInt(RandomParameters.getDistrictNationKey(w_nationkey, d));    // d_nationkey
+            outDist.endRow();
+            k++;
+
+            // ***********************************************
+            //          Prepare CUSTOMER population
+            // ***********************************************
+
+            // TPC-C 4.3.3.1: o_c_id must be a permutation of [1, 3000]
+            for (int i = 0; i < custDistKount; ++i) {
+                c_ids[i] = i + 1;
+            }
+
+            // Collections.shuffle exists, but there is no Arrays.shuffle
+            for (int i = 0; i < c_ids.length - 1; ++i) {
+                int remaining = c_ids.length - i - 1;
+                int swapIndex = gen.nextInt(remaining) + i + 1;
+                assert i < swapIndex;
+                int temp = c_ids[swapIndex];
+                c_ids[swapIndex] = c_ids[i];
+                c_ids[i] = temp;
+            }
+
+            for (int c = 1; c <= custDistKount; c++) {
+
+                // ***********************************************
+                //                Start of CUSTOMER population
+                // ***********************************************
+
+                // NOTE: The consistency of columns using the sysdate variable as the
+                // datetime is not guaranteed: The columns are never used in either
+                // the transactional or analytical queries. Enforcing consistency on
+                // the variable would logically require that c_since <= o_entry_d,
+                // which would skew the values of o_entry_d, which is often used.
+                // This could of course be handled with some extra work, but that is
+                // deemed unnecessary at this point.
+                long sysdate = clock.populateTick(gen);
+
+                outCust.writeInt(w);                                                    // c_w_id
+                outCust.writeInt(d);                                                    // c_d_id
+                outCust.writeInt(c);                                                    // c_id
+                outCust.writeFixed((long) (gen.nextDouble() * 5000), 4);                // c_discount [0.0000 ... 0.5000]
+
+                // c_credit, 10% Bad Credit and 90% Good Credit
+                outCust.writeString(TPCCUtil.randomNumber(1, 100, gen) <= 10 ? "BC" : "GC");
+
+                // c_last
+                if (c <= 1000) {
+                    outCust.writeLastName(c - 1);
+                } else {
+                    outCust.writeLastName(TPCCUtil.getNonUniformRandomLastNumberForLoad(gen));
+                }
+
+                outCust.writeRandomStr(gen, TPCCUtil.randomNumber(8, 16, gen));         // c_first
+                outCust.writeFixed(5000000, 2);                                         // c_credit_lim
+                outCust.writeFixed(-1000, 2);                                           // c_balance
+                outCust.writeFixed(1000, 2);                                            // c_ytd_payment
+                outCust.writeInt(1);                                                    // c_payment_cnt
+                outCust.writeInt(0);                                                    // c_delivery_cnt
+                outCust.writeRandomStr(gen, TPCCUtil.randomNumber(10, 20, gen));        // c_street_1
+                outCust.writeRandomStr(gen, TPCCUtil.randomNumber(10, 20, gen));        // c_street_2
+                outCust.writeRandomStr(gen, TPCCUtil.randomNumber(10, 20, gen));        // c_city
+                outCust.writeRandomUpperStr(gen, 3);                                    // c_state
+                outCust.writeRandomNStr(gen, 4).appendString("11111");                  // c_zip, TPC-C 4.3.2.7: 4 random digits + "11111"
+                outCust.writeRandomNStr(gen, 16);                                       // c_phone
+                outCust.writeTimestamp(sysdate);                                        // c_since
+                outCust.writeString("OE");                                              // c_middle
+                outCust.writeRandomStr(gen, TPCCUtil.randomNumber(300, 500, gen));      // c_data
+                outCust.endRow();
+                k++;
+
+                // ***********************************************
+                //                Start of HISTORY population
+                // ***********************************************
+
+                outHist.writeInt(c);                                                    // h_c_id
+                outHist.writeInt(d);                                                    // h_c_d_id
+                outHist.writeInt(w);                                                    // h_c_w_id
+                outHist.writeInt(d);                                                    // h_d_id
+                outHist.writeInt(w);                                                    // h_w_id
+                outHist.writeTimestamp(sysdate);                                        // h_date
+                outHist.writeFixed(1000, 2);                                            // h_amount
+                outHist.writeRandomStr(gen, TPCCUtil.randomNumber(10, 24, gen));        // h_data
+                outHist.endRow();
+                k++;
+
+                // ***********************************************
+                //                Start of ORDER population
+                // ***********************************************
+
+                long o_entry_d = clock.populateTick(gen);
+
+                // Count the number of new timestamps (that are relevant for TPCH queries)
+                counter.incrementAndGet();
+
+                int o_ol_cnt = TPCCUtil.randomNumber(5, 15, gen);
+
+                // The variable o_all_local is used in the modified TPCH queries and should
+                // therefore not be a constant value. Set 5 % of all orders as not all local.
+                int o_all_local = gen.nextDouble() * 100 <= 5 ? 0 : 1;
+
+                outOrder.writeInt(w);                                                   // o_w_id
+                outOrder.writeInt(d);                                                   // o_d_id
+                outOrder.writeInt(c);                                                   // o_id
+                outOrder.writeInt(c_ids[c - 1]);                                        // o_c_id
+
+                // o_carrier_id is set *only* for orders with ids < 2101 [4.3.3.1]
+                if (c < FIRST_UNPROCESSED_O_ID) {
+                    outOrder.writeInt(TPCCUtil.randomNumber(1, 10, gen));
+                } else {
+                    outOrder.writeNull(Types.INTEGER);
+                }
+
+                outOrder.writeInt(o_ol_cnt);                                            // o_ol_cnt
+                outOrder.writeInt(o_all_local);                                         // o_all_local
+                outOrder.writeTimestamp(o_entry_d);                                     // o_entry_d
+                outOrder.endRow();
+                k++;
+
+                // ***********************************************
+                //                Start of NEW_ORDER population
+                // ***********************************************
+
+                // 900 rows in the NEW-ORDER table corresponding to the last
+                // 900 rows in the ORDER table for that district
+                // (i.e., with NO_O_ID between 2,101 and 3,000)
+
+                if (c >= FIRST_UNPROCESSED_O_ID) {
+                    outNewOrder.writeInt(w);                                            // no_w_id
+                    outNewOrder.writeInt(d);                                            // no_d_id
+                    outNewOrder.writeInt(c);                                            // no_o_id
+                    outNewOrder.endRow();
+                    k++;
+                }
+
+                // ***********************************************
+                //                Start of ORDER-LINE population
+                // ***********************************************
+
+                for (int l = 1; l <= o_ol_cnt; l++) {
+
+                    outOrderLine.writeInt(w);                                           // ol_w_id
+                    outOrderLine.writeInt(d);                                           // ol_d_id
+                    outOrderLine.writeInt(c);                                           // ol_o_id
+                    outOrderLine.writeInt(l);                                           // ol_number
+                    outOrderLine.writeInt(TPCCUtil.randomNumber(1, 100000, gen));       // ol_i_id
+
+                    if (c < FIRST_UNPROCESSED_O_ID) {
+                        outOrderLine.writeTimestamp(o_entry_d);                         // ol_delivery_d
+                        outOrderLine.writeFixed(0, 2);                                  // ol_amount
+                    } else {
+                        // Random between [0.01 .. 9,999.99]
+                        outOrderLine.writeNull(Types.TIMESTAMP);                        // ol_delivery_d
+                        outOrderLine.writeFixed(TPCCUtil.randomNumber(1, 999999, gen), 2); // ol_amount
+                    }
+
+                    outOrderLine.writeInt(w);                                           // ol_supply_w_id
+                    outOrderLine.writeInt(5);                                           // ol_quantity
+                    outOrderLine.writeRandomStr(gen, 24);                               // ol_dist_info
+                    outOrderLine.endRow();
+                    k++;
+                } // end for [l]
+            } // end for [c]
+        } // end for [d]
+
+        return k;
+    }
+}
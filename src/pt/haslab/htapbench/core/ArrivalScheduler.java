@@ -0,0 +1,145 @@
+package pt.haslab.htapbench.core;
+
+import org.apache.log4j.Logger;
+
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop arrival generator for rate-limited phases. The scheduler runs on its own
+ * thread, precomputes the intended arrival timestamps of the current phase into a ring
+ * and releases every arrival to the WorkloadState once its timestamp has passed.
+ *
+ * Arrivals are never shifted: if the scheduler falls behind, e.g. due to timer jitter
+ * or a GC pause, the overdue arrivals are released at once with their original
+ * timestamps. Each SubmittedProcedure carries its intended start time, so that
+ * latency can be measured from the moment the transaction should have started
+ * rather than from the moment a worker dequeued it.
+ */
+class ArrivalScheduler implements Runnable {
+
+    private static final Logger LOG = Logger.getLogger(ArrivalScheduler.class);
+
+    // Number of precomputed arrivals. Must be a power of two.
+    private static final int RING_SIZE = 1024;
+    private static final int RING_MASK = RING_SIZE - 1;
+
+    // Park until this close to the next arrival and spin for the remaining time
+    private static final long SPIN_THRESHOLD_NS = 100000L;
+
+    // Time to back off when the current phase does not use the work queue
+    private static final long IDLE_NS = 10000000L;
+
+    private final Random gen = new Random();
+    private final WorkloadState workState;
+    private final Worker worker;
+
+    // Precomputed arrivals in [head, tail)
+    private final long[] ring = new long[RING_SIZE];
+    private final long[] released = new long[RING_SIZE];
+    private long head = 0;
+    private long tail = 0;
+
+    private Phase phase;
+    private long nextArrivalNs;
+
+    private volatile Thread thread;
+    private volatile boolean terminate = false;
+
+    /**
+     * @param workState the WorkloadState that receives the arrivals.
+     * @param worker    the worker used to choose the transaction for each arrival.
+     */
+    ArrivalScheduler(WorkloadState workState, Worker worker) {
+        this.workState = workState;
+        this.worker = worker;
+    }
+
+    /**
+     * Returns the time until the next arrival for the given rate and arrival distribution.
+     */
+    static long getInterval(int rate, Phase.Arrival arrival, Random gen) {
+        if (arrival == Phase.Arrival.POISSON)
+            return (long) ((-Math.log(1 - gen.nextDouble()) / rate) * 1000000000.);
+        else
+            return (long) (1000000000. / (double) rate + 0.5);
+    }
+
+    @Override
+    public void run() {
+        thread = Thread.currentThread();
+
+        while (!terminate) {
+            Phase current = workState.getCurrentPhase();
+            if (current == null)
+                break;
+
+            // Start a new arrival schedule when the phase changes
+            if (current != phase) {
+                phase = current;
+                head = tail = 0;
+                nextArrivalNs = System.nanoTime();
+            }
+
+            // Only rate-limited phases use the work queue
+            if (phase.isDisabled() || !phase.isRateLimited() || phase.isSerial() || phase.rate <= 0) {
+                LockSupport.parkNanos(this, IDLE_NS);
+                continue;
+            }
+
+            if (tail - head < RING_SIZE / 2)
+                refill();
+
+            waitUntil(ring[(int) (head & RING_MASK)]);
+            if (terminate || workState.getCurrentPhase() != phase)
+                continue;
+
+            // Release every arrival that is due, including those we fell behind on
+            long now = System.nanoTime();
+            int count = 0;
+            while (head < tail && ring[(int) (head & RING_MASK)] - now <= 0) {
+                released[count++] = ring[(int) (head & RING_MASK)];
+                head++;
+            }
+
+            workState.addArrivals(released, count, worker);
+        }
+
+        LOG.debug("[ArrivalScheduler] Finished releasing arrivals ..");
+    }
+
+    /**
+     * Precomputes arrivals until the ring is full.
+     */
+    private void refill() {
+        while (tail - head < RING_SIZE) {
+            nextArrivalNs += getInterval(phase.rate, phase.arrival, gen);
+            ring[(int) (tail & RING_MASK)] = nextArrivalNs;
+            tail++;
+        }
+    }
+
+    /**
+     * Waits until the given System.nanoTime() deadline. The thread parks while the
+     * deadline is far away and spins for the last part to limit the timer jitter.
+     */
+    private void waitUntil(long deadlineNs) {
+        long remaining;
+        while (!terminate && (remaining = deadlineNs - System.nanoTime()) > SPIN_THRESHOLD_NS)
+            LockSupport.parkNanos(this, remaining - SPIN_THRESHOLD_NS);
+
+        while (!terminate && deadlineNs - System.nanoTime() > 0)
+            Thread.yield();
+    }
+
+    /**
+     * Stops releasing arrivals.
+     */
+    void terminate() {
+        terminate = true;
+
+        Thread t = thread;
+        if (t != null)
+            LockSupport.unpark(t);
+    }
+}
@@ -71,9 +71,8 @@ public final class BenchmarkState {
 	}
 
 	State getState() {
-		synchronized (this) {
-			return state;
-		}
+		// The state is volatile: reading it must not block workers running on virtual threads
+		return state;
 	}
 
 	/**
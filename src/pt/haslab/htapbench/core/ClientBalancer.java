@@ -149,9 +149,10 @@ public class ClientBalancer implements Runnable {
 
         long measureEnd = System.nanoTime();
 
+        // The iterator reuses a single Sample, so each sample is copied into the list
         for (LatencyRecord.Sample sample : getLatencyRecords()) {
             if (sample != null)
-                samples.add(sample);
+                samples.add(sample.copy());
         }
 
         Collections.sort(samples);
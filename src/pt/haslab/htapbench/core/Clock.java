@@ -18,6 +18,7 @@
 package pt.haslab.htapbench.core;
 
 import java.sql.Timestamp;
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -45,19 +46,54 @@ public class Clock {
     private int intervalSizeSeconds;
     private long startTime;
     private long populateStartTs;
+    private long populateTickStart;
     private boolean hybrid;
 
     /**
      * Clock constructor for the population phase.
      */
     public Clock(int warehouses, String filePath) {
-        int timestamps = warehouses * HTAPBConstants.configDistPerWhse * HTAPBConstants.configCustPerDist;
-        this.intervalSizeSeconds = timestamps / targetPopulateTsPerSec;
+        this.intervalSizeSeconds = getPopulateIntervalSeconds(warehouses);
 
         FileUtil.makeDirIfNotExists(filePath);
 
         this.startTime = System.currentTimeMillis();
         this.populateStartTs = startTime;
+        this.populateTickStart = startTime;
+    }
+
+    /**
+     * Clock constructor for resuming an interrupted population phase that started at
+     * the given timestamp.
+     */
+    public Clock(int warehouses, String filePath, long startTime) {
+        this(warehouses, filePath);
+
+        this.startTime = startTime;
+        this.populateStartTs = startTime;
+        this.populateTickStart = startTime;
+    }
+
+    /**
+     * Clock constructor for adding warehouses to a population that started at the given
+     * timestamp. The timestamps of the new warehouses are generated after those of the
+     * existing warehouses, extending the interval of the population phase at the same
+     * density of timestamps. Unlike in a fresh population, the new warehouses have no
+     * timestamps in the interval of the existing ones.
+     */
+    public Clock(int fromWarehouses, int toWarehouses, String filePath, long startTime) {
+        this(toWarehouses, filePath, startTime);
+
+        this.populateTickStart = startTime + getPopulateIntervalSeconds(fromWarehouses) * 1000L;
+    }
+
+    /**
+     * Returns the size of the interval of the timestamps generated in the population
+     * phase for the given number of warehouses.
+     */
+    public static int getPopulateIntervalSeconds(int warehouses) {
+        int timestamps = warehouses * HTAPBConstants.configDistPerWhse * HTAPBConstants.configCustPerDist;
+        return timestamps / targetPopulateTsPerSec;
     }
 
     /**
@@ -99,7 +135,16 @@ public class Clock {
      * @return a random long between the start and finish timestamp of the population phase.
      */
     public long populateTick() {
-        return ThreadLocalRandom.current().nextLong(startTime, getFinalPopulatedTs());
+        return ThreadLocalRandom.current().nextLong(populateTickStart, getFinalPopulatedTs());
+    }
+
+    /**
+     * Generates a random long between the start and finish timestamp of the population
+     * phase from the given generator, so the timestamps of a seeded generator can be
+     * reproduced.
+     */
+    public long populateTick(Random r) {
+        return populateTickStart + (long) (r.nextDouble() * (getFinalPopulatedTs() - populateTickStart));
     }
 
     /**
@@ -113,7 +158,7 @@ public class Clock {
      * Computes and returns the last populated TS.
      */
     public long getFinalPopulatedTs() {
-        return startTime + intervalSizeSeconds * 1000;
+        return startTime + intervalSizeSeconds * 1000L;
     }
 
     public long getCurrentTs() {
@@ -137,6 +137,25 @@ public class HTAPBench {
         options.addOption("ts", "tracescript", true, "Script of transactions to execute");
         options.addOption(null, "dialects-export", true, "Export benchmark SQL to a dialects file");
         options.addOption("ic", "idealClient", false, "Determine the scaling factor based on an ideal client, default false");
+        options.addOption(null, "workQueue", true, "Work queue used in rate-limited phases, either ring (lock-free), sharded or linked, default ring.");
+        options.addOption(null, "workQueueShards", true, "Number of shards in the sharded work queue, default one per warehouse, capped so that each shard holds at least 64 queued procedures.");
+        options.addOption(null, "executor", true, "Run the workers on platform or virtual threads (Java 21+), default platform.");
+        options.addOption(null, "carrierThreads", true, "Number of carrier threads for virtual thread workers, default the number of cores.");
+        options.addOption(null, "sampleLog", true, "Spill the raw samples to memory-mapped files in the given directory while running, default disabled.");
+        options.addOption(null, "live", true, "Report live windowed results every 'live' seconds while running, default disabled.");
+        options.addOption(null, "statementCache", true, "Prepared statements cached per procedure and connection, at least the statements of the procedure, default 32.");
+        options.addOption(null, "prepareThreshold", true, "Executions before the PostgreSQL driver uses a server-side prepared statement, default the driver's.");
+        options.addOption(null, "fetchSize", true, "Rows fetched at once from the results of the OLAP queries, default the driver's.");
+        options.addOption(null, "queryTimeout", true, "Time budget in seconds of the OLAP queries, e.g. 600,Q21=1800, default none.");
+        options.addOption(null, "resultChecksum", true, "Log a checksum of the rows of each OLAP query result, default false.");
+        options.addOption(null, "loaderThreads", true, "Number of threads generating the data in the generate or populate phase, default the number of cores.");
+        options.addOption(null, "loaderBatchSize", true, "Rows per insert batch when populating without CSV files, e.g. 1000,ORDER_LINE=5000, default 1000.");
+        options.addOption(null, "loaderCommitInterval", true, "Rows per commit when populating without CSV files, e.g. 1000,ORDER_LINE=5000, default 1000.");
+        options.addOption(null, "stream", true, "Stream the generated rows into the bulk load command of the database instead of CSV files in the populate phase, default false.");
+        options.addOption(null, "loaderStreams", true, "Bulk load streams per table when streaming, e.g. 1,ORDER_LINE=4, default 1.");
+        options.addOption(null, "binaryCopy", true, "Stream the generated rows in the binary COPY format of PostgreSQL instead of CSV, default false.");
+        options.addOption(null, "scaleOutFrom", true, "Add the warehouses beyond this number to the populated database instead of populating it from scratch, default 0. The added warehouses only get timestamps from the end of the population interval, unlike in a fresh population.");
+        options.addOption(null, "csvCompression", true, "Compression of the CSV files generated per warehouse, none or gzip, default none.");
 
         // Parse the command line arguments
         CommandLine argsLine = parser.parse(options, args);
@@ -247,6 +266,14 @@ public class HTAPBench {
 
         // Execute Workload
         if (mode == Mode.EXECUTE) {
+            // Stream the live windowed results next to the other result files
+            if (argsLine.hasOption("live")) {
+                FileUtil.makeDirIfNotExists(outputDirectory);
+                String liveFile = FileUtil.getNextFilename(FileUtil.joinPath(outputDirectory, timestampValue + "live.res"));
+                for (BenchmarkModule benchmark : benchList)
+                    benchmark.getWorkloadConfiguration().setLiveResultsFile(liveFile);
+            }
+
             // Bombs away!
             List<Results> results = workload.execute();
 
@@ -351,6 +378,9 @@ public class HTAPBench {
             if (!singleHistogram.getErrorHistogram().isEmpty())
                 LOG.info("Unexpected Errors:\n" + singleHistogram.getErrorHistogram() + "\n");
 
+            if (!singleHistogram.getTimeoutHistogram().isEmpty())
+                LOG.info("Timed Out Queries:\n" + singleHistogram.getTimeoutHistogram() + "\n");
+
             if (!singleHistogram.getRecordedMessagesHistogram().isEmpty())
                 LOG.info("Recorded exceptions:\n" + StringUtil.formatRecordedMessages(singleHistogram.getRecordedMessagesHistogram()));
 
@@ -482,6 +512,25 @@ public class HTAPBench {
             wrkld.setFilePathCSV(filePathCSV);
             wrkld.setCalibrate(mode);
             wrkld.setHybridStrategy(strategy);
+            wrkld.setWorkQueue(argsLine.getOptionValue("workQueue", "ring"));
+            wrkld.setWorkQueueShards(Integer.parseInt(argsLine.getOptionValue("workQueueShards", "0")));
+            wrkld.setExecutor(argsLine.getOptionValue("executor", "platform"));
+            wrkld.setCarrierThreads(Integer.parseInt(argsLine.getOptionValue("carrierThreads", "0")));
+            wrkld.setSampleLog(argsLine.getOptionValue("sampleLog"));
+            wrkld.setLiveWindow(Integer.parseInt(argsLine.getOptionValue("live", "0")));
+            wrkld.setStatementCacheSize(Integer.parseInt(argsLine.getOptionValue("statementCache", "32")));
+            wrkld.setPrepareThreshold(Integer.parseInt(argsLine.getOptionValue("prepareThreshold", "0")));
+            wrkld.setFetchSize(Integer.parseInt(argsLine.getOptionValue("fetchSize", "0")));
+            wrkld.setQueryTimeout(argsLine.getOptionValue("queryTimeout"));
+            wrkld.setResultChecksum(Boolean.parseBoolean(argsLine.getOptionValue("resultChecksum", "false")));
+            wrkld.setLoaderThreads(Integer.parseInt(argsLine.getOptionValue("loaderThreads", "0")));
+            wrkld.setLoaderBatchSize(argsLine.getOptionValue("loaderBatchSize"));
+            wrkld.setLoaderCommitInterval(argsLine.getOptionValue("loaderCommitInterval"));
+            wrkld.setStreamLoad(Boolean.parseBoolean(argsLine.getOptionValue("stream", "false")));
+            wrkld.setLoaderStreams(argsLine.getOptionValue("loaderStreams"));
+            wrkld.setBinaryCopy(Boolean.parseBoolean(argsLine.getOptionValue("binaryCopy", "false")));
+            wrkld.setScaleOutFrom(Integer.parseInt(argsLine.getOptionValue("scaleOutFrom", "0")));
+            wrkld.setCSVCompression(argsLine.getOptionValue("csvCompression"));
 
             // Set the useCSV value according to the input
             if (argsLine.hasOption("useCSV")) {
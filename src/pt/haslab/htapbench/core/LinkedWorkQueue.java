@@ -0,0 +1,47 @@
+package pt.haslab.htapbench.core;
+
+import pt.haslab.htapbench.benchmark.SubmittedProcedure;
+
+import java.util.LinkedList;
+
+/**
+ * WorkQueue backed by a LinkedList guarded by a single monitor. This is the
+ * original work queue and is kept as a reference implementation.
+ */
+class LinkedWorkQueue extends WorkQueue {
+
+    private final LinkedList<SubmittedProcedure> queue = new LinkedList<SubmittedProcedure>();
+
+    LinkedWorkQueue(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    synchronized boolean offer(SubmittedProcedure procedure) {
+        if (queue.size() >= capacity)
+            return false;
+
+        queue.add(procedure);
+        return true;
+    }
+
+    @Override
+    synchronized SubmittedProcedure poll() {
+        return queue.poll();
+    }
+
+    @Override
+    synchronized SubmittedProcedure peek() {
+        return queue.peek();
+    }
+
+    @Override
+    synchronized int size() {
+        return queue.size();
+    }
+
+    @Override
+    synchronized void clear() {
+        queue.clear();
+    }
+}
@@ -0,0 +1,159 @@
+package pt.haslab.htapbench.core;
+
+import org.apache.log4j.Logger;
+import pt.haslab.htapbench.api.TransactionType;
+import pt.haslab.htapbench.benchmark.IntervalRecorder;
+import pt.haslab.htapbench.benchmark.LatencyHistogram;
+import pt.haslab.htapbench.benchmark.WindowedHistograms;
+
+import java.io.PrintStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reports windowed throughput and latency percentiles while the benchmark is running,
+ * e.g. to watch the OLTP latencies degrade as the ClientBalancer adds OLAP streams.
+ *
+ * Every window, the aggregator drains the IntervalRecorder of each worker and writes one
+ * line for TPCC and TPCH, followed by one line per transaction type, to the live results
+ * stream and to the log.
+ */
+class LiveMetrics implements Runnable {
+
+    private static final Logger LOG = Logger.getLogger(LiveMetrics.class);
+
+    private static final String HEADER = "  time, workload, transaction,     TPS, avg_lat, min_lat, 25th_lat, 50th_lat, 75th_lat,"
+            + " 90th_lat, 95th_lat, 99th_lat,  max_lat, 99th_resp";
+    private static final String FORMAT = "%6d, %8s, %11s, %7.2f, %7.2f, %7.2f, %8.2f, %8.2f, %8.2f, %8.2f, %8.2f, %8.2f, %8.2f, %9.2f";
+
+    private final int windowSizeSeconds;
+    private final PrintStream out;
+    private final Collection<TransactionType> transTypes;
+
+    // The recorders of the TPCC and TPCH workers, which may be added while running
+    private final List<IntervalRecorder> recordersOLTP = new CopyOnWriteArrayList<IntervalRecorder>();
+    private final List<IntervalRecorder> recordersOLAP = new CopyOnWriteArrayList<IntervalRecorder>();
+
+    private volatile Thread thread;
+    private volatile boolean terminate = false;
+
+    /**
+     * @param out the live results stream, or null to only write to the log.
+     */
+    LiveMetrics(int windowSizeSeconds, PrintStream out, Collection<TransactionType> transTypes) {
+        assert windowSizeSeconds > 0;
+        this.windowSizeSeconds = windowSizeSeconds;
+        this.out = out;
+        this.transTypes = transTypes;
+    }
+
+    /**
+     * Returns a new recorder for the given worker, which is drained every window.
+     */
+    IntervalRecorder register(Worker worker) {
+        IntervalRecorder recorder = new IntervalRecorder();
+        if (worker instanceof TPCCWorker)
+            recordersOLTP.add(recorder);
+        else
+            recordersOLAP.add(recorder);
+
+        return recorder;
+    }
+
+    @Override
+    public void run() {
+        thread = Thread.currentThread();
+
+        if (out != null)
+            out.println(HEADER);
+
+        long windowNs = TimeUnit.SECONDS.toNanos(windowSizeSeconds);
+        long startNs = System.nanoTime();
+        long nextNs = startNs + windowNs;
+        int window = 0;
+
+        while (!terminate) {
+            long remaining = nextNs - System.nanoTime();
+            if (remaining > 0) {
+                LockSupport.parkNanos(this, remaining);
+                continue;
+            }
+
+            report(window++, (double) windowSizeSeconds);
+            nextNs += windowNs;
+        }
+
+        // Report the partial last window
+        double elapsed = (System.nanoTime() - (startNs + window * windowNs)) / 1e9;
+        if (elapsed > 0)
+            report(window, elapsed);
+
+        if (out != null)
+            out.flush();
+    }
+
+    private void report(int window, double seconds) {
+        int time = window * windowSizeSeconds;
+        report(time, seconds, "TPCC", recordersOLTP);
+        report(time, seconds, "TPCH", recordersOLAP);
+    }
+
+    private void report(int time, double seconds, String workload, List<IntervalRecorder> recorders) {
+        if (recorders.isEmpty())
+            return;
+
+        WindowedHistograms interval = new WindowedHistograms(windowSizeSeconds);
+        for (IntervalRecorder recorder : recorders)
+            recorder.drainInto(interval, 0);
+
+        write(time, seconds, workload, "ALL", interval, TransactionType.INVALID);
+
+        for (TransactionType type : transTypes) {
+            if (type != TransactionType.INVALID)
+                write(time, seconds, workload, type.getName(), interval, type);
+        }
+    }
+
+    private void write(int time, double seconds, String workload, String name, WindowedHistograms interval,
+                       TransactionType type) {
+        LatencyHistogram service = interval.getHistogram(0, type, false);
+        if (service.getTotalCount() == 0 && type != TransactionType.INVALID)
+            return;
+
+        LatencyHistogram response = interval.getHistogram(0, type, true);
+        final double factor = 1000;
+
+        String line = String.format(Locale.US, FORMAT, time, workload, name,
+                service.getTotalCount() / seconds,
+                service.getMean() / factor,
+                service.getMin() / factor,
+                service.getValueAtPercentile(0.25) / factor,
+                service.getValueAtPercentile(0.5) / factor,
+                service.getValueAtPercentile(0.75) / factor,
+                service.getValueAtPercentile(0.9) / factor,
+                service.getValueAtPercentile(0.95) / factor,
+                service.getValueAtPercentile(0.99) / factor,
+                service.getMax() / factor,
+                response.getValueAtPercentile(0.99) / factor);
+
+        if (out != null)
+            out.println(line);
+
+        LOG.info("[Live] " + line);
+    }
+
+    /**
+     * Reports the last window and stops the aggregator.
+     */
+    void terminate() {
+        terminate = true;
+
+        Thread t = thread;
+        if (t != null)
+            LockSupport.unpark(t);
+    }
+}
@@ -0,0 +1,137 @@
+package pt.haslab.htapbench.core;
+
+import pt.haslab.htapbench.api.TransactionType;
+import pt.haslab.htapbench.benchmark.LatencyRecord.Sample;
+import pt.haslab.htapbench.util.Histogram;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Merges the results of the workers at the end of a run through a fork-join merge tree.
+ * Each leaf flushes the latency records of a range of workers and sums their transaction
+ * histograms into a private Partial, after which the partials are merged pairwise up the
+ * tree. The TPCC and TPCH workers are kept apart in separate partials, so the OLTP/OLAP
+ * split is only applied when the final Results are built.
+ */
+class ResultsMerger extends RecursiveTask<ResultsMerger.Partial[]> {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int OLTP = 0;
+    static final int OLAP = 1;
+
+    // Number of workers merged sequentially by a single task
+    private static final int THRESHOLD = 8;
+
+    private final List<Worker> workers;
+    private final int from;
+    private final int to;
+
+    ResultsMerger(List<Worker> workers) {
+        this(workers, 0, workers.size());
+    }
+
+    private ResultsMerger(List<Worker> workers, int from, int to) {
+        this.workers = workers;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected Partial[] compute() {
+        if (to - from <= THRESHOLD) {
+            Partial[] partials = {new Partial(), new Partial()};
+            for (int i = from; i < to; i++) {
+                Worker w = workers.get(i);
+                partials[w instanceof TPCCWorker ? OLTP : OLAP].add(w);
+            }
+
+            return partials;
+        }
+
+        int mid = (from + to) >>> 1;
+        ResultsMerger left = new ResultsMerger(workers, from, mid);
+        left.fork();
+        Partial[] right = new ResultsMerger(workers, mid, to).compute();
+        Partial[] partials = left.join();
+
+        partials[OLTP].merge(right[OLTP]);
+        partials[OLAP].merge(right[OLAP]);
+        return partials;
+    }
+
+    /**
+     * The combined results of a group of workers.
+     */
+    static final class Partial {
+        int workers = 0;
+        int requests = 0;
+        Integer tsCounter = null;
+
+        final Histogram<TransactionType> txnSuccess = new Histogram<TransactionType>(true);
+        final Histogram<TransactionType> txnAborted = new Histogram<TransactionType>(true);
+        final Histogram<TransactionType> txnErrors = new Histogram<TransactionType>(true);
+        final Histogram<TransactionType> txnRetry = new Histogram<TransactionType>(true);
+        final Histogram<TransactionType> txnTimeouts = new Histogram<TransactionType>(true);
+        final Map<TransactionType, Histogram<String>> txnRecordedMessages = new HashMap<TransactionType, Histogram<String>>();
+
+        // The latency records of the workers, in the order of the workers
+        final List<Iterable<Sample>> records = new ArrayList<Iterable<Sample>>();
+
+        private void add(Worker w) {
+            // Add the histograms of the last window to the aggregate of the workload group
+            w.flushLatencyRecord();
+
+            if (w.getLatencyRecords() != null)
+                records.add(w.getLatencyRecords());
+
+            workers++;
+            requests += w.getRequests();
+
+            txnSuccess.putHistogram(w.getSuccessHistogram());
+            txnAborted.putHistogram(w.getAbortedHistogram());
+            txnErrors.putHistogram(w.getErrorHistogram());
+            txnRetry.putHistogram(w.getRetryHistogram());
+            txnTimeouts.putHistogram(w.getTimeoutHistogram());
+
+            if (w.getWorkloadConfiguration().getCalibrate() && w instanceof TPCCWorker)
+                tsCounter = ((TPCCWorker) w).getTsCounter().get();
+
+            putMessages(w.getRecordedMessagesHistogram());
+        }
+
+        private void merge(Partial other) {
+            workers += other.workers;
+            requests += other.requests;
+            records.addAll(other.records);
+
+            // The counter of the last worker is kept, as in a sequential merge
+            if (other.tsCounter != null)
+                tsCounter = other.tsCounter;
+
+            txnSuccess.putHistogram(other.txnSuccess);
+            txnAborted.putHistogram(other.txnAborted);
+            txnErrors.putHistogram(other.txnErrors);
+            txnRetry.putHistogram(other.txnRetry);
+            txnTimeouts.putHistogram(other.txnTimeouts);
+
+            putMessages(other.txnRecordedMessages);
+        }
+
+        private void putMessages(Map<TransactionType, Histogram<String>> messages) {
+            for (Map.Entry<TransactionType, Histogram<String>> e : messages.entrySet()) {
+                Histogram<String> h = txnRecordedMessages.get(e.getKey());
+                if (h == null) {
+                    h = new Histogram<String>(true);
+                    txnRecordedMessages.put(e.getKey(), h);
+                }
+
+                h.putHistogram(e.getValue());
+            }
+        }
+    }
+}
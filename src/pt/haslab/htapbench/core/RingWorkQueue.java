@@ -0,0 +1,107 @@
+package pt.haslab.htapbench.core;
+
+import pt.haslab.htapbench.benchmark.SubmittedProcedure;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free, multi-producer multi-consumer WorkQueue backed by a bounded ring buffer.
+ *
+ * Every slot in the ring carries a sequence number that tells producers and consumers
+ * whether the slot is ready to be written or read at a given position. Producers and
+ * consumers claim positions with a CAS on the respective cursor, so neither side ever
+ * blocks the other (Vyukov's bounded MPMC queue).
+ */
+class RingWorkQueue extends WorkQueue {
+
+    private final AtomicReferenceArray<SubmittedProcedure> slots;
+    private final AtomicLongArray sequences;
+
+    // Position of the next slot to be written and read, respectively
+    private final AtomicLong tail = new AtomicLong(0);
+    private final AtomicLong head = new AtomicLong(0);
+
+    RingWorkQueue(int capacity) {
+        super(capacity);
+
+        this.slots = new AtomicReferenceArray<SubmittedProcedure>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+
+        // Each slot is initially ready to be written at its own position
+        for (int i = 0; i < capacity; i++)
+            sequences.set(i, i);
+    }
+
+    @Override
+    boolean offer(SubmittedProcedure procedure) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos % capacity);
+            long diff = sequences.get(index) - pos;
+
+            if (diff == 0) {
+                // The slot is free - try to claim it
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.set(index, procedure);
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                // The slot still holds the element from the previous lap: the queue is full
+                return false;
+            } else {
+                // Another producer claimed this position
+                pos = tail.get();
+            }
+        }
+    }
+
+    @Override
+    SubmittedProcedure poll() {
+        long pos = head.get();
+        while (true) {
+            int index = (int) (pos % capacity);
+            long diff = sequences.get(index) - (pos + 1);
+
+            if (diff == 0) {
+                // The slot has been written - try to claim it
+                if (head.compareAndSet(pos, pos + 1)) {
+                    SubmittedProcedure procedure = slots.getAndSet(index, null);
+                    sequences.set(index, pos + capacity);
+                    return procedure;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                // The slot has not been written yet: the queue is empty
+                return null;
+            } else {
+                // Another consumer claimed this position
+                pos = head.get();
+            }
+        }
+    }
+
+    @Override
+    SubmittedProcedure peek() {
+        long pos = head.get();
+        int index = (int) (pos % capacity);
+
+        if (sequences.get(index) != pos + 1)
+            return null;
+
+        // The element may be consumed concurrently, in which case null is returned
+        return slots.get(index);
+    }
+
+    @Override
+    int size() {
+        long size = tail.get() - head.get();
+        if (size < 0)
+            return 0;
+
+        return (int) Math.min(size, capacity);
+    }
+}
@@ -0,0 +1,141 @@
+package pt.haslab.htapbench.core;
+
+import pt.haslab.htapbench.benchmark.SubmittedProcedure;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WorkQueue partitioned into one RingWorkQueue per warehouse (or per group of
+ * warehouses). New work is spread round-robin over the shards and each TPCCWorker
+ * polls the shard of its own warehouse, so terminals of different warehouses do not
+ * compete for the same cursors. A worker whose shard runs dry steals work from the
+ * other shards, so the target rate is still met when the arrivals are unevenly
+ * consumed. The number of shards is capped so that each shard holds at least
+ * MIN_SHARD_CAPACITY procedures, as tiny shards would drop work that the other
+ * shards have room for.
+ */
+class ShardedWorkQueue extends WorkQueue {
+
+    static final int MIN_SHARD_CAPACITY = 64;
+
+    private final RingWorkQueue[] shards;
+
+    // The shard that receives the next piece of work
+    private final AtomicInteger nextShard = new AtomicInteger(0);
+
+    ShardedWorkQueue(int capacity, int numShards) {
+        super(capacity);
+        assert numShards > 0;
+        numShards = Math.max(1, Math.min(numShards, capacity / MIN_SHARD_CAPACITY));
+
+        // Split the capacity evenly, so the total stays close to the configured limit
+        int shardCapacity = (capacity + numShards - 1) / numShards;
+
+        this.shards = new RingWorkQueue[numShards];
+        for (int i = 0; i < numShards; i++)
+            shards[i] = new RingWorkQueue(shardCapacity);
+    }
+
+    /**
+     * Returns the home shard of the given worker.
+     */
+    private int shardOf(Worker worker) {
+        if (worker instanceof TPCCWorker)
+            return (((TPCCWorker) worker).getTerminalWarehouseID() - 1) % shards.length;
+
+        return worker.getId() % shards.length;
+    }
+
+    private RingWorkQueue nextShard() {
+        int next = nextShard.getAndIncrement() & Integer.MAX_VALUE;
+        return shards[next % shards.length];
+    }
+
+    @Override
+    boolean offer(SubmittedProcedure procedure) {
+        return nextShard().offer(procedure);
+    }
+
+    @Override
+    void add(SubmittedProcedure procedure) {
+        // Drop the oldest work of the receiving shard if it is full
+        nextShard().add(procedure);
+    }
+
+    @Override
+    SubmittedProcedure poll() {
+        return pollFrom(0);
+    }
+
+    @Override
+    SubmittedProcedure poll(Worker worker) {
+        return pollFrom(shardOf(worker));
+    }
+
+    /**
+     * Polls the home shard first and steals from the remaining shards if the home shard
+     * is empty. The scan starts at a random shard, so the idle workers do not all drain
+     * the shard next to their own.
+     */
+    private SubmittedProcedure pollFrom(int home) {
+        SubmittedProcedure procedure = shards[home].poll();
+        if (procedure != null || shards.length == 1)
+            return procedure;
+
+        int start = ThreadLocalRandom.current().nextInt(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            int shard = (start + i) % shards.length;
+            if (shard == home)
+                continue;
+
+            procedure = shards[shard].poll();
+            if (procedure != null)
+                return procedure;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the number of shards, which may be less than requested.
+     */
+    int getNumShards() {
+        return shards.length;
+    }
+
+    @Override
+    SubmittedProcedure peek() {
+        for (RingWorkQueue shard : shards) {
+            SubmittedProcedure procedure = shard.peek();
+            if (procedure != null)
+                return procedure;
+        }
+
+        return null;
+    }
+
+    @Override
+    int size() {
+        int size = 0;
+        for (RingWorkQueue shard : shards)
+            size += shard.size();
+
+        return size;
+    }
+
+    @Override
+    void clear() {
+        for (RingWorkQueue shard : shards)
+            shard.clear();
+    }
+
+    @Override
+    long getDropped() {
+        long dropped = 0;
+        for (RingWorkQueue shard : shards)
+            dropped += shard.getDropped();
+
+        return dropped;
+    }
+}
@@ -121,6 +121,10 @@ public class TPCCWorker extends Worker {
         return TransactionStatus.SUCCESS;
     }
 
+    int getTerminalWarehouseID() {
+        return this.terminalWarehouseID;
+    }
+
     public AtomicInteger getTsCounter() {
         return this.ts_counter;
     }
@@ -35,6 +35,7 @@ import java.sql.SQLException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import pt.haslab.htapbench.procedures.tpch.GenericQuery.InvalidResultException;
+import pt.haslab.htapbench.procedures.tpch.GenericQuery.QueryTimeoutException;
 import pt.haslab.htapbench.procedures.tpch.GenericQuery;
 import pt.haslab.htapbench.benchmark.BenchmarkModule;
 import pt.haslab.htapbench.types.TransactionStatus;
@@ -62,9 +63,13 @@ public class TPCHWorker extends Worker {
             proc.setOwner(this);
             int resultSetRowNumber = proc.run(conn, clock, super.getWorkloadConfiguration());
             rows.setRows(resultSetRowNumber);
+            rows.setChecksum(proc.getResultChecksum());
         } catch (InvalidResultException ex) {
             recordMessage(nextTransaction, ex);
             return TransactionStatus.INVALID_RESULT;
+        } catch (QueryTimeoutException ex) {
+            recordMessage(nextTransaction, ex);
+            return TransactionStatus.TIMEOUT;
         }
 
         // TPCH transactions cannot be committed. If they are, it will interfere with the statistics returned.
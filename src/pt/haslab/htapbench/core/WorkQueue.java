@@ -0,0 +1,98 @@
+package pt.haslab.htapbench.core;
+
+import pt.haslab.htapbench.benchmark.SubmittedProcedure;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded queue of SubmittedProcedures shared between the Workload, which posts
+ * new work, and the Workers, which consume it during rate-limited phases. When the
+ * queue is full, the oldest procedure is dropped to make room for the newest one.
+ */
+abstract class WorkQueue {
+
+    // Supported queue implementations
+    static final String RING = "ring";
+    static final String LINKED = "linked";
+    static final String SHARDED = "sharded";
+
+    final int capacity;
+
+    // The number of procedures dropped because the queue was full
+    private final AtomicLong dropped = new AtomicLong(0);
+
+    WorkQueue(int capacity) {
+        assert capacity > 0;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Instantiates the WorkQueue implementation identified by the given type.
+     * The number of shards is only used by the sharded implementation.
+     */
+    static WorkQueue create(String type, int capacity, int shards) {
+        if (type == null || type.equalsIgnoreCase(RING))
+            return new RingWorkQueue(capacity);
+        else if (type.equalsIgnoreCase(LINKED))
+            return new LinkedWorkQueue(capacity);
+        else if (type.equalsIgnoreCase(SHARDED))
+            return new ShardedWorkQueue(capacity, Math.max(shards, 1));
+        else
+            throw new RuntimeException("Work queue " + type + " not recognized as a valid option.");
+    }
+
+    /**
+     * Inserts the procedure at the tail of the queue if there is room for it.
+     *
+     * @return true if the procedure was inserted and false if the queue is full.
+     */
+    abstract boolean offer(SubmittedProcedure procedure);
+
+    /**
+     * Retrieves and removes the head of the queue.
+     *
+     * @return the oldest procedure in the queue or null if the queue is empty.
+     */
+    abstract SubmittedProcedure poll();
+
+    /**
+     * Retrieves and removes the next procedure to be executed by the given worker.
+     * Partitioned implementations use this to serve a worker from its own partition.
+     */
+    SubmittedProcedure poll(Worker worker) {
+        return poll();
+    }
+
+    /**
+     * Retrieves, but does not remove, the head of the queue.
+     *
+     * @return the oldest procedure in the queue or null if the queue is empty.
+     */
+    abstract SubmittedProcedure peek();
+
+    /**
+     * Returns the number of procedures currently in the queue.
+     */
+    abstract int size();
+
+    /**
+     * Inserts the procedure at the tail of the queue. If the queue is full, the
+     * oldest procedures are removed from the head of the queue until it fits.
+     */
+    void add(SubmittedProcedure procedure) {
+        while (!offer(procedure)) {
+            if (poll() != null)
+                dropped.incrementAndGet();
+        }
+    }
+
+    void clear() {
+        while (poll() != null) {
+            // Discard the remaining work
+        }
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+}
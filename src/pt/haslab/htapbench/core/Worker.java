@@ -47,8 +47,11 @@ import pt.haslab.htapbench.api.TransactionType;
 import pt.haslab.htapbench.api.TransactionTypes;
 import pt.haslab.htapbench.benchmark.BenchmarkModule;
 import pt.haslab.htapbench.catalog.Catalog;
+import pt.haslab.htapbench.benchmark.IntervalRecorder;
 import pt.haslab.htapbench.benchmark.LatencyRecord;
+import pt.haslab.htapbench.benchmark.SampleLog;
 import pt.haslab.htapbench.benchmark.SubmittedProcedure;
+import pt.haslab.htapbench.benchmark.WindowedHistograms;
 import pt.haslab.htapbench.benchmark.WorkloadConfiguration;
 import pt.haslab.htapbench.procedures.tpch.GenericQuery.InvalidResultException;
 import pt.haslab.htapbench.configuration.Configuration;
@@ -65,7 +68,7 @@ public abstract class Worker implements Runnable {
 
     private WorkloadState wrkldState;
     private LatencyRecord latencies;
-    private Statement currStatement;
+    private volatile Statement currStatement;
     private final int id;
 
     // Interval requests used by the monitor
@@ -87,6 +90,10 @@ public abstract class Worker implements Runnable {
     private final Histogram<TransactionType> txnAborted = new Histogram<TransactionType>();
     private final Histogram<TransactionType> txnRetry = new Histogram<TransactionType>();
     private final Histogram<TransactionType> txnErrors = new Histogram<TransactionType>();
+    private final Histogram<TransactionType> txnTimeouts = new Histogram<TransactionType>();
+
+    // The status of the last executed transaction
+    private TransactionStatus lastStatus;
 
     private boolean seenDone = false;
 
@@ -158,6 +165,40 @@ public abstract class Worker implements Runnable {
         return latencies;
     }
 
+    /**
+     * Records the latencies of this worker into per-window histograms, which are added
+     * to the given aggregate of its workload group.
+     */
+    final void initializeHistograms(WindowedHistograms histograms) {
+        latencies.setHistograms(histograms);
+    }
+
+    /**
+     * Records the latencies of this worker into the given interval histograms,
+     * which are drained while running to report live metrics.
+     */
+    final void initializeIntervalRecorder(IntervalRecorder recorder) {
+        latencies.setIntervalRecorder(recorder);
+    }
+
+    /**
+     * Appends the samples of this worker to the given log on disk while running.
+     */
+    final void initializeSampleLog(SampleLog log) {
+        latencies.setSampleLog(log);
+    }
+
+    /**
+     * Adds the histograms of the last window to the aggregate and flushes the sample log.
+     * Only call this once the worker stopped executing.
+     */
+    final void flushLatencyRecord() {
+        latencies.flushHistograms();
+
+        if (latencies.getSampleLog() != null)
+            latencies.getSampleLog().force();
+    }
+
     /**
      * Returns the current txn count on this worker. Before returning the value,
      * the counter is set to 0. This avoids storing past counter values in the client balancer.
@@ -189,22 +230,28 @@ public abstract class Worker implements Runnable {
         return (this.txnErrors);
     }
 
+    final Histogram<TransactionType> getTimeoutHistogram() {
+        return (this.txnTimeouts);
+    }
+
     final Map<TransactionType, Histogram<String>> getRecordedMessagesHistogram() {
         return (this.txnRecordedMessages);
     }
 
-    synchronized public void setCurrStatement(Statement s) {
+    public void setCurrStatement(Statement s) {
         this.currStatement = s;
     }
 
     /**
-     * Stop executing the current statement.
+     * Stop executing the current statement. The statement is read once, so the
+     * worker is never blocked from publishing its next statement by a slow cancel.
      */
-    synchronized void cancelStatement() {
+    void cancelStatement() {
+        Statement s = currStatement;
         try {
-            if (currStatement != null){
+            if (s != null){
                 LOG.debug("Worker: [" + this.getName() + "] is canceling statement");
-                currStatement.cancel();
+                s.cancel();
             }
         } catch (SQLException e) {
             LOG.error("Failed to cancel statement: " + e.getMessage());
@@ -345,16 +392,19 @@ public abstract class Worker implements Runnable {
                     // changed, otherwise we're recording results for a query
                     // that either started during the warmup phase or ended
                     // after the timer went off.
-                    if (preState == State.MEASURE && type != null && wrkldState.getCurrentPhase().id == phase.id) {
+                    // Queries cancelled over their time budget are not counted as completed.
+                    if (preState == State.MEASURE && type != null && wrkldState.getCurrentPhase().id == phase.id
+                            && lastStatus != TransactionStatus.TIMEOUT) {
                         // Record the result
-                        latencies.addLatency(type.getId(), start, end, id, rows.getRows());
+                        latencies.addLatency(type.getId(), pieceOfWork.getStartTime(), start, end, id, rows.getRows());
 
                         // Increment the number of requests in this interval for TPS control purposes
                         intervalRequests.incrementAndGet();
 
                         // Write the query information to the log for TPCHWorkers
                         if (this instanceof TPCHWorker)
-                            LOG.debug("Stat [Txn ID,latency,rows]: " + type.getName() + ", " + (end - start) + ", " + rows.getRows());
+                            LOG.debug("Stat [Txn ID,latency,rows,checksum]: " + type.getName() + ", " + (end - start) + ", " + rows.getRows()
+                                    + ", " + Long.toHexString(rows.getChecksum()));
                     }
 
                     // Start a cold query in case of latency run
@@ -384,6 +434,7 @@ public abstract class Worker implements Runnable {
         TransactionType next = null;
         TransactionStatus status = TransactionStatus.RETRY;
         final DatabaseType dbType = wrkld.getDBType();
+        lastStatus = null;
 
         try {
             while (status == TransactionStatus.RETRY && this.wrkldState.getGlobalState() != State.DONE) {
@@ -428,6 +479,9 @@ public abstract class Worker implements Runnable {
                                 // This should be treated as an outright error due to query validation
                                 txnErrors.put(next);
                                 break;
+                            case TIMEOUT:
+                                txnTimeouts.put(next);
+                                break;
                             case UNKNOWN_EXCEPTION:
                                 LOG.warn("Caught an unknown SQLException in " + next.getName() + ". Examine the recorded error messages.");
                                 txnErrors.put(next);
@@ -443,6 +497,7 @@ public abstract class Worker implements Runnable {
                     this.getName(), next, dbType), ex);
         }
 
+        lastStatus = status;
         return next;
     }
 
@@ -463,6 +518,16 @@ public abstract class Worker implements Runnable {
      * Called at the end of the test to do any clean up that may be required.
      */
     public void tearDown() {
+        long hits = 0;
+        long misses = 0;
+        for (Procedure proc : procedures.values()) {
+            hits += proc.getStatementCacheHits();
+            misses += proc.getStatementCacheMisses();
+            proc.closePreparedStatements();
+        }
+
+        LOG.debug(String.format("%s prepared statement cache: %d hits, %d misses", getName(), hits, misses));
+
         try {
             conn.close();
         } catch (SQLException e) {
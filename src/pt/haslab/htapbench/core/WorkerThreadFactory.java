@@ -0,0 +1,66 @@
+package pt.haslab.htapbench.core;
+
+import org.apache.log4j.Logger;
+
+import java.lang.reflect.Method;
+
+/**
+ * Creates the threads that run the Workers of a Workload. Workers run either on
+ * platform threads, one OS thread per terminal, or on virtual threads multiplexed
+ * over a pool of carrier threads. Virtual threads allow for tens of thousands of
+ * terminals that mostly sleep through their think and keying times.
+ *
+ * Virtual threads are only available from Java 21 onwards and are therefore looked
+ * up reflectively. On older runtimes the factory falls back to platform threads.
+ */
+class WorkerThreadFactory {
+
+    private static final Logger LOG = Logger.getLogger(WorkerThreadFactory.class);
+
+    // Supported executors
+    static final String PLATFORM = "platform";
+    static final String VIRTUAL = "virtual";
+
+    // Thread.Builder.OfVirtual instance and its unstarted(Runnable) method, if available
+    private Object virtualBuilder;
+    private Method unstarted;
+
+    WorkerThreadFactory(String executor, int carrierThreads) {
+        if (executor == null || executor.equalsIgnoreCase(PLATFORM))
+            return;
+
+        if (!executor.equalsIgnoreCase(VIRTUAL))
+            throw new RuntimeException("Executor " + executor + " not recognized as a valid option.");
+
+        // The carrier pool is sized when the first virtual thread is created
+        if (carrierThreads > 0) {
+            System.setProperty("jdk.virtualThreadScheduler.parallelism", String.valueOf(carrierThreads));
+            System.setProperty("jdk.virtualThreadScheduler.maxPoolSize", String.valueOf(carrierThreads));
+        }
+
+        try {
+            virtualBuilder = Thread.class.getMethod("ofVirtual").invoke(null);
+            unstarted = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+            LOG.info("[Workload] Running workers on virtual threads"
+                    + (carrierThreads > 0 ? " with " + carrierThreads + " carrier threads" : ""));
+        } catch (ReflectiveOperationException ex) {
+            LOG.warn("Virtual threads are not supported by this Java runtime. Falling back to platform threads.");
+            virtualBuilder = null;
+            unstarted = null;
+        }
+    }
+
+    /**
+     * Returns a new, unstarted thread that runs the given worker.
+     */
+    Thread newThread(Worker worker) {
+        if (virtualBuilder == null)
+            return new Thread(worker);
+
+        try {
+            return (Thread) unstarted.invoke(virtualBuilder, worker);
+        } catch (ReflectiveOperationException ex) {
+            throw new RuntimeException("Failed to create a virtual thread for " + worker.getName(), ex);
+        }
+    }
+}
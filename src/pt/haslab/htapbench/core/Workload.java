@@ -3,13 +3,16 @@ package pt.haslab.htapbench.core;
 import org.apache.log4j.Logger;
 import pt.haslab.htapbench.api.TransactionType;
 import pt.haslab.htapbench.benchmark.*;
-import pt.haslab.htapbench.benchmark.LatencyRecord.Sample;
 import pt.haslab.htapbench.configuration.workload.Analytical;
 import pt.haslab.htapbench.configuration.workload.Hybrid;
 import pt.haslab.htapbench.types.State;
-import pt.haslab.htapbench.util.Histogram;
 
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -23,6 +26,7 @@ public abstract class Workload {
     protected List<Phase> phases = new ArrayList<Phase>();
 
     private WorkloadState workState;
+    private final WorkerThreadFactory threadFactory;
 
     // Read-write lock for protecting shared state
     private final ReadWriteLock RWLock = new ReentrantReadWriteLock();
@@ -31,6 +35,24 @@ public abstract class Workload {
     private ClientBalancer balancer;
     private Thread threadBalancer;
 
+    // ArrivalScheduler, only used by rate-limited workloads
+    private ArrivalScheduler scheduler;
+    private Thread threadScheduler;
+
+    // Control interval of the main loop when the ArrivalScheduler posts the work
+    private static final long CONTROL_INTERVAL_NS = 10000000L;
+
+    private final Random gen = new Random();
+
+    // LiveMetrics, only used when a live window is configured
+    private LiveMetrics liveMetrics;
+    private Thread threadLiveMetrics;
+    private PrintStream liveOut;
+
+    // Latency histograms of the TPCC and TPCH workers, aggregated per window
+    private final WindowedHistograms histogramsOLTP;
+    private final WindowedHistograms histogramsOLAP;
+
     // Workload configuration
     protected HTAPBenchmark bench;
     private WorkloadConfiguration workConf;
@@ -54,6 +76,13 @@ public abstract class Workload {
         // Set the Phases of this Workload
         this.phases = bench.getWorkloadConfiguration().getAllPhases();
 
+        // Prepare the factory for the Worker threads
+        threadFactory = new WorkerThreadFactory(workConf.getExecutor(), workConf.getCarrierThreads());
+
+        // The histograms use the window size of the output
+        histogramsOLTP = new WindowedHistograms(workConf.getSamplingSize());
+        histogramsOLAP = new WindowedHistograms(workConf.getSamplingSize());
+
         // Prepare the ClientBalancer
         balancer = new ClientBalancer(bench, workers, this);
         threadBalancer = new Thread(balancer);
@@ -63,7 +92,11 @@ public abstract class Workload {
      * Initiate a new benchmark and workload state.
      */
     private WorkloadState initializeState(BenchmarkState benchmarkState) {
-        return new WorkloadState(benchmarkState, phases, terminals, workConf.getTraceReader());
+        // The sharded work queue defaults to one shard per warehouse
+        int shards = workConf.getWorkQueueShards() > 0 ? workConf.getWorkQueueShards() : (int) workConf.getScaleFactor();
+
+        return new WorkloadState(benchmarkState, phases, terminals, workConf.getTraceReader(),
+                workConf.getWorkQueue(), shards);
     }
 
     // -------------------------------------------------------------------
@@ -93,6 +126,14 @@ public abstract class Workload {
         final BenchmarkState benchmarkState = new BenchmarkState(workers.size() + 1);
         workState = initializeState(benchmarkState);
 
+        // Prepare the live metrics before the workers register their recorders
+        if (workConf.getLiveWindow() > 0)
+            initializeLiveMetrics();
+
+        // Remove the sample logs of an earlier run, which would be replayed as part of this one
+        if (workConf.getSampleLog() != null)
+            clearSampleLogs();
+
         // Create the initial Threads that are used for this benchmark
         createWorkerThreads(workState);
         benchmarkState.blockForStart();
@@ -107,6 +148,14 @@ public abstract class Workload {
         // Log information about the current phase
         LOG.info(phase.currentPhaseString());
 
+        // Rate-limited workloads post their work through the open-loop ArrivalScheduler.
+        // Trace scripts keep posting from the main loop, as the trace dictates the arrivals.
+        if (isRateLimited() && workConf.getTraceReader() == null) {
+            scheduler = new ArrivalScheduler(workState, workers.get(0));
+            threadScheduler = new Thread(scheduler, "ArrivalScheduler");
+            threadScheduler.start();
+        }
+
         // Set the lowest observed phase-rate which is used to determine the sleep intervals
         int lowestRate = Integer.MAX_VALUE;
         if (phase.rate < lowestRate) {
@@ -114,7 +163,7 @@ public abstract class Workload {
         }
 
         // Determine the sleeping interval to meet the specified TPS
-        long intervalNs = getInterval(lowestRate, phase.arrival);
+        long intervalNs = scheduler != null ? CONTROL_INTERVAL_NS : ArrivalScheduler.getInterval(lowestRate, phase.arrival, gen);
 
         // Set the test- and warm-up duration in nanoseconds
         long testDurationNs = phase.time * 1000000000L;
@@ -139,7 +188,10 @@ public abstract class Workload {
             } else {
                 rateFactor = 1;
             }
-            workState.addToQueue(nextToAdd * rateFactor, resetQueues, workers.get(0));
+            if (scheduler == null)
+                workState.addToQueue(nextToAdd * rateFactor, resetQueues, workers.get(0));
+            else if (resetQueues)
+                workState.clearQueue();
             resetQueues = false;
 
             // Wait until the interval expires, which may be "don't wait"
@@ -192,32 +244,34 @@ public abstract class Workload {
                         benchmarkState.ackLatencyComplete();
                     }
 
-                    // Fetch a new Phase while synchronizing on the shared WorkloadState
-                    synchronized (workState) {
-                        workState.switchToNextPhase();
-                        lowestRate = Integer.MAX_VALUE;
-                        phase = workState.getCurrentPhase();
-                        interruptWorkers();
-
-                        // Check if there are any more phases left to benchmark
-                        if (phase == null) {
-                            // Last phase
-                            endTime = now;
-                            execute = false;
-                            benchmarkState.startCoolDown();
-                            LOG.info("[Workload] Waiting for all terminals to finish ..");
-
-                            // Stop the ClientBalancer in case of a Hybrid workload
-                            if (threadBalancer.isAlive()) {
-                                balancer.terminate();
-                                threadBalancer.interrupt();
-                            }
-                        } else {
-                            phase.resetSerial();
-                            LOG.info(phase.currentPhaseString());
-                            if (phase.rate < lowestRate)
-                                lowestRate = phase.rate;
+                    // Fetch a new Phase, the WorkloadState guards its own phase bookkeeping
+                    workState.switchToNextPhase();
+                    lowestRate = Integer.MAX_VALUE;
+                    phase = workState.getCurrentPhase();
+                    interruptWorkers();
+
+                    // Check if there are any more phases left to benchmark
+                    if (phase == null) {
+                        // Last phase
+                        endTime = now;
+                        execute = false;
+                        benchmarkState.startCoolDown();
+                        LOG.info("[Workload] Waiting for all terminals to finish ..");
+
+                        // Stop the ClientBalancer in case of a Hybrid workload
+                        if (threadBalancer.isAlive()) {
+                            balancer.terminate();
+                            threadBalancer.interrupt();
                         }
+
+                        // Stop releasing new work
+                        if (scheduler != null)
+                            scheduler.terminate();
+                    } else {
+                        phase.resetSerial();
+                        LOG.info(phase.currentPhaseString());
+                        if (phase.rate < lowestRate)
+                            lowestRate = phase.rate;
                     }
                 }
 
@@ -229,11 +283,14 @@ public abstract class Workload {
             }
 
             // Compute the next interval and how many messages to deliver
-            if (phase != null) {
+            if (phase != null && scheduler != null) {
+                // The ArrivalScheduler posts the work, only check the phase and state
+                nextInterval = Math.max(nextInterval, now) + CONTROL_INTERVAL_NS;
+            } else if (phase != null) {
                 intervalNs = 0;
                 nextToAdd = 0;
                 do {
-                    intervalNs += getInterval(lowestRate, phase.arrival);
+                    intervalNs += ArrivalScheduler.getInterval(lowestRate, phase.arrival, gen);
                     nextToAdd++;
                 } while ((-diff) > intervalNs);
                 nextInterval += intervalNs;
@@ -256,6 +313,10 @@ public abstract class Workload {
                 if (this instanceof Hybrid)
                     threadBalancer.start();
 
+                // Align the live windows with the windows of the results
+                if (threadLiveMetrics != null)
+                    threadLiveMetrics.start();
+
                 // For serial executions, we want to do every query exactly
                 // once, so we need to restart in case some of the queries
                 // began during the warmup phase.
@@ -271,8 +332,22 @@ public abstract class Workload {
         }
 
         try {
-            // Make sure all the workers ended
+            // Make sure the ArrivalScheduler and all the workers ended
+            if (threadScheduler != null) {
+                scheduler.terminate();
+                threadScheduler.join();
+            }
+
             finalizeWorkers(workerThreads);
+
+            // Report the last live window once all workers finished
+            if (threadLiveMetrics != null && threadLiveMetrics.isAlive()) {
+                liveMetrics.terminate();
+                threadLiveMetrics.join();
+            }
+
+            if (liveOut != null)
+                liveOut.close();
         } catch (InterruptedException ex) {
             throw new RuntimeException(ex);
         }
@@ -288,20 +363,17 @@ public abstract class Workload {
     private List<Results> collectResults() {
         List<Results> results = new ArrayList<Results>();
 
-        // Distinguish between OLAP and OLTP workers to calculate statistics for each
-        List<Worker> workersOLTP = new ArrayList<Worker>();
-        List<Worker> workersOLAP = new ArrayList<Worker>();
-
-        // Split the workers into two
-        for (Worker w : workers) {
-            if (w instanceof TPCCWorker)
-                workersOLTP.add(w);
-            else
-                workersOLAP.add(w);
+        // Merge the results of all workers in parallel, keeping the OLTP and OLAP workers apart
+        ResultsMerger.Partial[] partials;
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            partials = pool.invoke(new ResultsMerger(new ArrayList<Worker>(workers)));
+        } finally {
+            pool.shutdown();
         }
 
-        Results resultOLTP = prepareResults(workersOLTP, "TPCC");
-        Results resultOLAP = prepareResults(workersOLAP, "TPCH");
+        Results resultOLTP = prepareResults(partials[ResultsMerger.OLTP], histogramsOLTP, "TPCC");
+        Results resultOLAP = prepareResults(partials[ResultsMerger.OLAP], histogramsOLAP, "TPCH");
         Results resultBalancer = balancer.getResults(isHybridWorkload());
 
         results.add(resultOLTP);
@@ -311,42 +383,14 @@ public abstract class Workload {
         return results;
     }
 
-    private Results prepareResults(List<Worker> workersSplit, String name) {
-        ArrayList<Sample> samples = new ArrayList<Sample>();
-
-        // Return no results if the input list is empty
-        if (workersSplit.isEmpty())
+    private Results prepareResults(ResultsMerger.Partial partial, WindowedHistograms histograms, String name) {
+        // Return no results if there were no workers of this kind
+        if (partial.workers == 0)
             return null;
 
-        // Prepare a variable to count the number of requests
-        int requests = 0;
-
-        // Combine all the latencies together in the most disgusting way possible: sorting!
-        for (Worker w : workersSplit) {
-            // Examine the contents of the latency records
-            if (w.getLatencyRecords() != null) {
-                for (Sample sample : w.getLatencyRecords()) {
-                    if (sample != null)
-                        samples.add(sample);
-                }
-            }
-
-            // Count the number of requests made to this worker
-            requests += w.getRequests();
-        }
-
-        // Sort the samples
-        Collections.sort(samples);
-
-        // Compute stats on all the latencies
-        long[] latencies = new long[samples.size()];
-        for (int i = 0; i < samples.size(); ++i) {
-            latencies[i] = samples.get(i).getLatencyUs();
-        }
-
-        DistributionStatistics stats = DistributionStatistics.computeStatistics(latencies);
-
-        Results results = new Results(endTime - startTime, requests, stats, samples);
+        // The workers recorded their latencies into histograms, so there is no need to sort the samples.
+        // The samples are merged lazily by end time when the raw results are written.
+        Results results = new Results(endTime - startTime, partial.requests, histograms, new MergedSampleIterable(partial.records));
         results.setName(name);
 
         // Compute transaction histogram
@@ -358,28 +402,17 @@ public abstract class Workload {
         results.txnRetry.putAll(txnTypes, 0);
         results.txnAborted.putAll(txnTypes, 0);
         results.txnErrors.putAll(txnTypes, 0);
+        results.txnTimeouts.putAll(txnTypes, 0);
 
-        for (Worker w : workersSplit) {
-            results.txnSuccess.putHistogram(w.getSuccessHistogram());
-            results.txnAborted.putHistogram(w.getAbortedHistogram());
-            results.txnErrors.putHistogram(w.getErrorHistogram());
-            results.txnRetry.putHistogram(w.getRetryHistogram());
-
-            if (w.getWorkloadConfiguration().getCalibrate()) {
-                if (w instanceof TPCCWorker)
-                    results.setTsCounter(((TPCCWorker) w).getTsCounter().get());
-            }
-
-            for (Map.Entry<TransactionType, Histogram<String>> e : w.getRecordedMessagesHistogram().entrySet()) {
-                Histogram<String> h = results.txnRecordedMessages.get(e.getKey());
-                if (h == null) {
-                    h = new Histogram<String>(true);
-                    results.txnRecordedMessages.put(e.getKey(), h);
-                }
+        results.txnSuccess.putHistogram(partial.txnSuccess);
+        results.txnAborted.putHistogram(partial.txnAborted);
+        results.txnErrors.putHistogram(partial.txnErrors);
+        results.txnRetry.putHistogram(partial.txnRetry);
+        results.txnTimeouts.putHistogram(partial.txnTimeouts);
+        results.txnRecordedMessages.putAll(partial.txnRecordedMessages);
 
-                h.putHistogram(e.getValue());
-            }
-        }
+        if (partial.tsCounter != null)
+            results.setTsCounter(partial.tsCounter);
 
         return results;
     }
@@ -396,6 +429,14 @@ public abstract class Workload {
         }
 
         LOG.info("[Workload] All terminals have finished ..");
+
+        // Report on the work queue used by the rate-limited phases
+        if (isRateLimited()) {
+            long waits = workState.getWaitCount();
+            LOG.info(String.format("[Workload] Work queue: [Depth= %d] [Max depth= %d] [Dropped= %d] [Waits= %d] [Avg wait= %.3f ms]",
+                    workState.getQueueDepth(), workState.getMaxQueueDepth(), workState.getDroppedWork(), waits,
+                    waits == 0 ? 0.0 : workState.getWaitTimeNs() / (double) waits / 1000000.0));
+        }
     }
 
     private void interruptWorkers() {
@@ -427,16 +468,59 @@ public abstract class Workload {
     private void createWorkerThreads(WorkloadState workloadState) {
         for (Worker worker : workers) {
             worker.initializeState(workloadState);
-            Thread thread = new Thread(worker);
+            initializeLatencyRecord(worker);
+            Thread thread = threadFactory.newThread(worker);
             thread.start();
             workerThreads.add(thread);
         }
     }
 
+    private void initializeLiveMetrics() {
+        String file = workConf.getLiveResultsFile();
+        if (file != null) {
+            try {
+                liveOut = new PrintStream(new File(file));
+                LOG.info("[Workload] Output live windowed results into file: " + file);
+            } catch (FileNotFoundException ex) {
+                throw new RuntimeException("Unable to create the live results file " + file, ex);
+            }
+        }
+
+        liveMetrics = new LiveMetrics(workConf.getLiveWindow(), liveOut, workConf.getTransTypes());
+        threadLiveMetrics = new Thread(liveMetrics);
+    }
+
+    private void clearSampleLogs() {
+        File directory = new File(workConf.getSampleLog());
+        try {
+            SampleLog.clear(directory, SampleLog.OLTP_PREFIX);
+            SampleLog.clear(directory, SampleLog.OLAP_PREFIX);
+        } catch (IOException ex) {
+            throw new RuntimeException("Unable to clear the sample logs in " + directory, ex);
+        }
+    }
+
+    private void initializeLatencyRecord(Worker worker) {
+        worker.initializeHistograms(worker instanceof TPCCWorker ? histogramsOLTP : histogramsOLAP);
+
+        if (liveMetrics != null)
+            worker.initializeIntervalRecorder(liveMetrics.register(worker));
+
+        // Spill the samples of each worker to its own log, which survives a crash of the benchmark
+        if (workConf.getSampleLog() != null) {
+            try {
+                worker.initializeSampleLog(new SampleLog(new File(workConf.getSampleLog()), worker.getName()));
+            } catch (IOException ex) {
+                throw new RuntimeException("Unable to create the sample log of " + worker.getName(), ex);
+            }
+        }
+    }
+
     void addTPCHWorker() {
         // Create a worker and initialize it with the shared WorkloadState
         Worker worker = bench.makeOLAPWorker();
         worker.initializeState(workState);
+        initializeLatencyRecord(worker);
 
         // The ClientBalancer is likely to conflict on the workers list with
         // the iteration in interruptWorkers(). Guard for this possibility by
@@ -446,18 +530,11 @@ public abstract class Workload {
         RWLock.writeLock().unlock();
 
         // Create a thread and start it
-        Thread thread = new Thread(worker);
+        Thread thread = threadFactory.newThread(worker);
         thread.start();
         workerThreads.add(thread);
     }
 
-    private long getInterval(int lowestRate, Phase.Arrival arrival) {
-        if (arrival == Phase.Arrival.POISSON)
-            return (long) ((-Math.log(1 - Math.random()) / lowestRate) * 1000000000.);
-        else
-            return (long) (1000000000. / (double) lowestRate + 0.5);
-    }
-
     // -------------------------------------------------------------------
     //                     Workload specific information
     // -------------------------------------------------------------------
@@ -35,10 +35,15 @@
 */
 package pt.haslab.htapbench.core;
 
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.LinkedList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 
 import pt.haslab.htapbench.benchmark.SubmittedProcedure;
 import pt.haslab.htapbench.benchmark.TraceReader;
@@ -56,31 +61,69 @@ public class WorkloadState {
     private static final Logger LOG = Logger.getLogger(WorkloadState.class);
 
     private static final int RATE_QUEUE_LIMIT = 10000;
-    private final LinkedList<SubmittedProcedure> workQueue = new LinkedList<SubmittedProcedure>();
+    private final WorkQueue workQueue;
     private final BenchmarkState benchmarkState;
 
-    private int workersWaiting = 0;
-    private int workersWorking = 0;
+    // Guards the phase and sleep bookkeeping. A ReentrantLock is used instead of the
+    // object monitor, so that workers running on virtual threads do not pin their
+    // carrier thread while they wait for the next phase.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+
+    // Workers parked while waiting for work in a rate-limited phase
+    private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<Waiter>();
+
+    private final AtomicInteger workersWaiting = new AtomicInteger(0);
+    private final AtomicInteger workersWorking = new AtomicInteger(0);
     private int num_terminals;
     private int workerNeedSleep;
 
-    private Phase currentPhase = null;
+    // Work queue statistics
+    private final AtomicLong waitTimeNs = new AtomicLong(0);
+    private final AtomicLong waitCount = new AtomicLong(0);
+    private volatile int maxQueueDepth = 0;
+
+    private volatile Phase currentPhase = null;
     private Iterator<Phase> phaseIterator;
     private TraceReader traceReader;
 
-    public WorkloadState(BenchmarkState benchmarkState, List<Phase> works, int num_terminals, TraceReader traceReader) {
+    public WorkloadState(BenchmarkState benchmarkState, List<Phase> works, int num_terminals, TraceReader traceReader,
+                         String workQueueType, int workQueueShards) {
         this.phaseIterator = works.iterator();
         this.benchmarkState = benchmarkState;
         this.num_terminals = num_terminals;
         this.workerNeedSleep = num_terminals;
         this.traceReader = traceReader;
+        this.workQueue = WorkQueue.create(workQueueType, RATE_QUEUE_LIMIT, workQueueShards);
+    }
+
+    /**
+     * A Worker parked in fetchWork. The flag is cleared exactly once, either by the
+     * thread that wakes the Worker or by the Worker itself when it stops waiting.
+     */
+    private static final class Waiter {
+        private final Thread thread = Thread.currentThread();
+        private final AtomicBoolean waiting = new AtomicBoolean(true);
+
+        boolean cancel() {
+            return waiting.compareAndSet(true, false);
+        }
+
+        boolean wake() {
+            if (!cancel())
+                return false;
+
+            LockSupport.unpark(thread);
+            return true;
+        }
     }
 
     /**
      * Add a request to do work.
      */
     void addToQueue(int amount, boolean resetQueues, Worker worker) {
-        synchronized (this) {
+        lock.lock();
+        try {
             if (resetQueues)
                 workQueue.clear();
 
@@ -90,9 +133,12 @@ public class WorkloadState {
                 return;
 
             // Only use the work queue if the phase is enabled and rate limited.
+            // Can't keep up with current rate? The queue removes the oldest
+            // transactions (from the front of the queue) to make room.
             if (traceReader != null && currentPhase != null) {
                 if (benchmarkState.getState() != State.WARMUP) {
-                    workQueue.addAll(traceReader.getProcedures(System.nanoTime()));
+                    for (SubmittedProcedure procedure : traceReader.getProcedures(System.nanoTime()))
+                        workQueue.add(procedure);
                 }
             } else if (currentPhase == null || currentPhase.isDisabled()
                     || !currentPhase.isRateLimited() || currentPhase.isSerial()) {
@@ -103,99 +149,173 @@ public class WorkloadState {
                     workQueue.add(new SubmittedProcedure(currentPhase.chooseTransaction(false, worker)));
             }
 
-            // Can't keep up with current rate? Remove the oldest transactions
-            // (from the front of the queue).
-            while (workQueue.size() > RATE_QUEUE_LIMIT)
-                workQueue.remove();
+            recordQueueDepth();
+        } finally {
+            lock.unlock();
+        }
+
+        // Wake up sleeping workers to deal with the new work.
+        wakeWaiters(amount);
+    }
+
+    /**
+     * Add the arrivals released by the ArrivalScheduler. Each procedure is
+     * submitted with its intended arrival time as its start time.
+     */
+    void addArrivals(long[] arrivalsNs, int count, Worker worker) {
+        if (count == 0)
+            return;
+
+        lock.lock();
+        try {
+            // Only use the work queue if the phase is enabled and rate limited.
+            if (currentPhase == null || currentPhase.isDisabled()
+                    || !currentPhase.isRateLimited() || currentPhase.isSerial())
+                return;
 
-            // Wake up sleeping workers to deal with the new work.
-            int numToWake = (amount <= workersWaiting ? amount : workersWaiting);
-            for (int i = 0; i < numToWake; ++i)
-                this.notify();
+            for (int i = 0; i < count; ++i)
+                workQueue.add(new SubmittedProcedure(currentPhase.chooseTransaction(false, worker), arrivalsNs[i]));
+
+            recordQueueDepth();
+        } finally {
+            lock.unlock();
         }
+
+        wakeWaiters(count);
+    }
+
+    private void recordQueueDepth() {
+        int depth = workQueue.size();
+        if (depth > maxQueueDepth)
+            maxQueueDepth = depth;
     }
 
     boolean getScriptPhaseComplete() {
         assert (traceReader != null);
-        synchronized (this) {
-            return traceReader.getPhaseComplete() && workQueue.size() == 0 && workersWorking == 0;
+        lock.lock();
+        try {
+            return traceReader.getPhaseComplete() && workQueue.size() == 0 && workersWorking.get() == 0;
+        } finally {
+            lock.unlock();
         }
     }
 
     void signalDone() {
         int current = this.benchmarkState.signalDone();
         if (current == 0) {
-            synchronized (this) {
-                if (workersWaiting > 0) {
-                    this.notifyAll();
+            lock.lock();
+            try {
+                if (workersWaiting.get() > 0) {
+                    stateChanged.signalAll();
                 }
+            } finally {
+                lock.unlock();
             }
+            wakeAllWaiters();
+        }
+    }
+
+    /**
+     * Unparks up to the given number of Workers waiting for work.
+     */
+    private void wakeWaiters(int amount) {
+        int woken = 0;
+        while (woken < amount) {
+            Waiter waiter = waiters.poll();
+            if (waiter == null)
+                break;
+
+            // Waiters that already stopped waiting do not count
+            if (waiter.wake())
+                woken++;
         }
     }
 
+    private void wakeAllWaiters() {
+        Waiter waiter;
+        while ((waiter = waiters.poll()) != null)
+            waiter.wake();
+    }
+
     /** Called by ThreadPoolThreads when waiting for work. */
     SubmittedProcedure fetchWork(Worker worker) {
-        synchronized (this) {
+        lock.lock();
+        try {
             if (currentPhase != null && currentPhase.isSerial()) {
-                ++workersWaiting;
+                workersWaiting.incrementAndGet();
                 while (getGlobalState() == State.LATENCY_COMPLETE) {
                     try {
-                        this.wait();
+                        stateChanged.await();
                     } catch (InterruptedException e) {
                         throw new RuntimeException(e);
                     }
                 }
-                --workersWaiting;
+                workersWaiting.decrementAndGet();
 
                 if (getGlobalState() == State.EXIT || getGlobalState() == State.DONE)
                     return null;
 
-                ++workersWorking;
+                workersWorking.incrementAndGet();
                 return new SubmittedProcedure(currentPhase.chooseTransaction(getGlobalState() == State.COLD_QUERY, worker));
             }
+        } finally {
+            lock.unlock();
         }
 
         // Unlimited-rate phases and TPCHWorkers don't use the work queue.
         if (currentPhase != null && traceReader == null && !currentPhase.isRateLimited()
                 || worker instanceof TPCHWorker) {
-            synchronized (this) {
-                ++workersWorking;
-            }
+            workersWorking.incrementAndGet();
             return new SubmittedProcedure(currentPhase.chooseTransaction(getGlobalState() == State.COLD_QUERY, worker));
         }
 
-        synchronized (this) {
-            // Sleep until work is available.
-            if (workQueue.peek() == null) {
-                workersWaiting += 1;
-                while (workQueue.peek() == null) {
+        // Take work from the queue without acquiring the monitor.
+        SubmittedProcedure work = takeWork(worker);
+        if (work == null) {
+            // Park until work is available.
+            long waitStart = System.nanoTime();
+            workersWaiting.incrementAndGet();
+            try {
+                while ((work = takeWork(worker)) == null) {
                     if (this.benchmarkState.getState() == State.EXIT || this.benchmarkState.getState() == State.DONE)
                         return null;
 
-                    try {
-                        this.wait();
-                    } catch (InterruptedException e) {
-                        throw new RuntimeException(e);
-                    }
+                    // Publish the waiter before checking the queue again, so that
+                    // work added in between is guaranteed to unpark this worker.
+                    Waiter waiter = new Waiter();
+                    waiters.add(waiter);
+                    if (workQueue.peek() == null && this.benchmarkState.getState() != State.EXIT
+                            && this.benchmarkState.getState() != State.DONE)
+                        LockSupport.park(this);
+                    waiter.cancel();
+
+                    if (Thread.interrupted())
+                        throw new RuntimeException(new InterruptedException());
                 }
-                workersWaiting -= 1;
+            } finally {
+                workersWaiting.decrementAndGet();
+                waitTimeNs.addAndGet(System.nanoTime() - waitStart);
+                waitCount.incrementAndGet();
             }
+        }
 
-            ++workersWorking;
+        workersWorking.incrementAndGet();
+        return work;
+    }
 
-            // Return and remove the topmost piece of work, unless we're in the
-            // warmup stage of a script, in which case we shouldn't remove it.
-            if (traceReader != null && this.benchmarkState.getState() == State.WARMUP)
-                return workQueue.peek();
-            return workQueue.remove();
-        }
+    /**
+     * Return and remove the topmost piece of work, unless we're in the
+     * warmup stage of a script, in which case we shouldn't remove it.
+     */
+    private SubmittedProcedure takeWork(Worker worker) {
+        if (traceReader != null && this.benchmarkState.getState() == State.WARMUP)
+            return workQueue.peek();
+        return workQueue.poll(worker);
     }
 
     void finishedWork() {
-        synchronized (this) {
-            assert workersWorking > 0;
-            --workersWorking;
-        }
+        int working = workersWorking.decrementAndGet();
+        assert working >= 0;
     }
 
     private Phase getNextPhase() {
@@ -205,14 +325,15 @@ public class WorkloadState {
     }
 
     Phase getCurrentPhase() {
-        synchronized (benchmarkState) {
-            return currentPhase;
-        }
+        return currentPhase;
     }
 
     void clearQueue() {
-        synchronized (this) {
+        lock.lock();
+        try {
             workQueue.clear();
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -220,20 +341,24 @@ public class WorkloadState {
      * Called by workers to ask if they should stay awake in this phase
      */
     void stayAwake() {
-        synchronized (this) {
+        lock.lock();
+        try {
             while (workerNeedSleep > 0) {
                 workerNeedSleep--;
                 try {
-                    this.wait();
+                    stateChanged.await();
                 } catch (InterruptedException e) {
                     e.printStackTrace();
                 }
             }
+        } finally {
+            lock.unlock();
         }
     }
 
     void switchToNextPhase() {
-        synchronized (this) {
+        lock.lock();
+        try {
             this.currentPhase = this.getNextPhase();
 
             // Clear the work from the previous phase.
@@ -258,8 +383,13 @@ public class WorkloadState {
             }
 
 
-            this.notifyAll();
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
         }
+
+        // Parked workers must observe the new phase as well
+        wakeAllWaiters();
     }
 
     /**
@@ -306,4 +436,34 @@ public class WorkloadState {
         return benchmarkState.getTestStartNs();
     }
 
+    // -------------------------------------------------------------------
+    //                       Work queue statistics
+    // -------------------------------------------------------------------
+
+    int getQueueDepth() {
+        return workQueue.size();
+    }
+
+    int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    long getDroppedWork() {
+        return workQueue.getDropped();
+    }
+
+    /**
+     * Returns the accumulated time workers spent waiting for work in the queue.
+     */
+    long getWaitTimeNs() {
+        return waitTimeNs.get();
+    }
+
+    /**
+     * Returns the number of times a worker had to wait for work in the queue.
+     */
+    long getWaitCount() {
+        return waitCount.get();
+    }
+
 }
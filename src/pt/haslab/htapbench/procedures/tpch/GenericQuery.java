@@ -32,10 +32,13 @@
  */
 package pt.haslab.htapbench.procedures.tpch;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.zip.CRC32;
 
 import org.apache.log4j.Logger;
 import pt.haslab.htapbench.api.Procedure;
@@ -43,63 +46,164 @@ import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.core.Worker;
 import pt.haslab.htapbench.benchmark.WorkloadConfiguration;
 import pt.haslab.htapbench.core.Clock;
+import pt.haslab.htapbench.util.OptionUtil;
 
 public abstract class GenericQuery extends Procedure {
 
     protected static final Logger LOG = Logger.getLogger(GenericQuery.class);
 
+    // Time the driver is given to enforce the query timeout before the watchdog cancels the query
+    private static final long WATCHDOG_GRACE_MS = 1000;
+
     public PreparedStatement stmt;
     protected Worker owner;
 
+    // The checksum of the rows of the last result, if enabled
+    private final CRC32 checksum = new CRC32();
+    private long resultChecksum = 0;
+
+    // The PostgreSQL SQLState and the MySQL error code of a cancelled query
+    private static final String PG_QUERY_CANCELED = "57014";
+    private static final int MYSQL_QUERY_INTERRUPTED = 1317;
+
     public void setOwner(Worker w) {
         this.owner = w;
     }
 
-    protected abstract SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf);
+    /**
+     * Returns the checksum of the rows of the last result, or 0 unless the resultChecksum
+     * option is set.
+     */
+    public long getResultChecksum() {
+        return resultChecksum;
+    }
+
+    /**
+     * Returns the parameterised query, which is the same SQLStmt on every execution so
+     * that it is only prepared once per connection.
+     */
+    protected abstract SQLStmt get_query();
+
+    /**
+     * Sets the parameters of the prepared query for an execution, drawing them from the
+     * RandomParameters and the Clock.
+     */
+    protected abstract void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException;
 
     public int run(Connection conn, Clock clock, WorkloadConfiguration wrklConf)
-            throws SQLException, InvalidResultException {
-        // Initializing all prepared statements
-        stmt = this.getPreparedStatement(conn, get_query(clock, wrklConf));
+            throws SQLException, InvalidResultException, QueryTimeoutException {
+        // The time budget in seconds, from a specification like "600,Q21=1800"
+        int timeout = OptionUtil.getNamedValue("query timeout", wrklConf.getQueryTimeout(), getProcedureName(), 0);
+        prepare(conn, clock, wrklConf, timeout);
 
-        // Set the owner of the statement, so that it can be cancelled if needed
-        if (owner != null)
-            owner.setCurrStatement(stmt);
+        // The watchdog also covers the drivers that ignore the query timeout or do not
+        // apply it to fetching the rows
+        QueryWatchdog.Watch watch = null;
+        if (timeout > 0)
+            watch = QueryWatchdog.watch(stmt, timeout * 1000L + WATCHDOG_GRACE_MS);
 
-        ResultSet rs;
         try {
-            rs = stmt.executeQuery();
-        } catch (SQLException ex) {
-            // If the system thinks we're missing a prepared statement, then we should regenerate them.
-            if (ex.getErrorCode() == 0 && ex.getSQLState() != null && ex.getSQLState().equals("07003")) {
-                this.resetPreparedStatements();
+            ResultSet rs;
+            try {
                 rs = stmt.executeQuery();
-            } else {
-                throw ex;
+            } catch (SQLException ex) {
+                // If the system thinks we're missing a prepared statement, then we should regenerate them.
+                if (ex.getErrorCode() == 0 && ex.getSQLState() != null && ex.getSQLState().equals("07003")) {
+                    this.resetPreparedStatements();
+                    prepare(conn, clock, wrklConf, timeout);
+                    if (watch != null) {
+                        watch.stop();
+                        watch = QueryWatchdog.watch(stmt, timeout * 1000L + WATCHDOG_GRACE_MS);
+                    }
+
+                    rs = stmt.executeQuery();
+                } else {
+                    throw ex;
+                }
+            }
+
+            try {
+                return validateResult(rs, wrklConf.getResultChecksum());
+            } finally {
+                rs.close();
             }
+        } catch (SQLException ex) {
+            // The query failed because it was cancelled once its budget ran out
+            if (watch != null && (watch.timedOut() || isCancelled(ex)))
+                throw new QueryTimeoutException("Query " + this + " exceeded its time budget of " + timeout + " seconds", ex, stmt);
+
+            throw ex;
+        } finally {
+            if (watch != null)
+                watch.stop();
         }
+    }
+
+    /**
+     * Returns whether the driver or the server cancelled the query, e.g. on its query timeout.
+     */
+    private static boolean isCancelled(SQLException ex) {
+        return ex instanceof SQLTimeoutException
+                || PG_QUERY_CANCELED.equals(ex.getSQLState())
+                || ex.getErrorCode() == MYSQL_QUERY_INTERRUPTED;
+    }
+
+    /**
+     * Gets the prepared statement and binds the parameters of this execution.
+     */
+    private void prepare(Connection conn, Clock clock, WorkloadConfiguration wrklConf, int timeout) throws SQLException {
+        stmt = this.getPreparedStatement(conn, get_query());
+        bind(stmt, clock, wrklConf);
+        setFetchSize(stmt, wrklConf);
+        if (timeout > 0)
+            stmt.setQueryTimeout(timeout);
+
+        // Set the owner of the statement, so that it can be cancelled if needed
+        if (owner != null)
+            owner.setCurrStatement(stmt);
+    }
 
-        return validateResult(rs, wrklConf.getHybridWorkload());
+    /**
+     * Streams the rows in batches of fetchSize rows, if set, rather than letting the driver
+     * hold the whole result in memory. PostgreSQL only streams the rows within a
+     * transaction, i.e. when the connection is not in auto-commit mode.
+     */
+    private static void setFetchSize(PreparedStatement stmt, WorkloadConfiguration wrklConf) throws SQLException {
+        if (wrklConf.getFetchSize() > 0)
+            stmt.setFetchSize(wrklConf.getFetchSize());
     }
 
     /**
      * Validate the results based on the number of rows retrieved from the
-     * result set and depending on the current workload.
+     * result set. The rows are read once, forward only, so the ResultSet is never
+     * rewound and can be streamed by the driver.
      *
-     * @param rs          the ResultSet to be validated
-     * @param hybridWrkld boolean flag indicating if the current workload is hybrid
+     * @param rs           the ResultSet to be validated
+     * @param withChecksum boolean flag indicating if the checksum of the rows is computed
      * @return the number of rows in the ResultSet
      * @throws SQLException           if an exception is thrown while operating on the ResultSet
      * @throws InvalidResultException if the result is NULL or if the ResultSet is empty
      */
-    private int validateResult(ResultSet rs, boolean hybridWrkld)
+    private int validateResult(ResultSet rs, boolean withChecksum)
             throws SQLException, InvalidResultException {
-        // Determine the number of rows in the ResultSet
+        int columns = withChecksum ? rs.getMetaData().getColumnCount() : 0;
+        checksum.reset();
+
+        // Determine the number of rows in the ResultSet, keeping whether the first value is NULL
         int t = 0;
+        boolean firstIsNull = false;
         while (rs.next()) {
+            if (t == 0)
+                firstIsNull = rs.getString(1) == null;
+
+            for (int i = 1; i <= columns; i++)
+                updateChecksum(rs.getString(i));
+
             t = t + 1;
         }
 
+        resultChecksum = withChecksum ? checksum.getValue() : 0;
+
         // ----------------------------------------
         //               Validation
         // ----------------------------------------
@@ -110,17 +214,26 @@ public abstract class GenericQuery extends Procedure {
         }
 
         // Check that the returned value is not NULL
-        if (t == 1) {
-            rs.beforeFirst();
-            rs.next();
-            String result = rs.getString(1);
-            if (result == null)
-                throw new InvalidResultException("Query " + this + " returned a null value", stmt);
+        if (t == 1 && firstIsNull) {
+            throw new InvalidResultException("Query " + this + " returned a null value", stmt);
         }
 
         return t;
     }
 
+    /**
+     * Adds a value to the checksum, separated from the next one so that the values
+     * cannot run into each other.
+     */
+    private void updateChecksum(String value) {
+        if (value != null)
+            checksum.update(value.getBytes(StandardCharsets.UTF_8));
+        else
+            checksum.update(0);
+
+        checksum.update('|');
+    }
+
     /**
      * Thrown from a TPC-H procedure to indicate to the Worker
      * that the result set should be treated as invalid.
@@ -154,4 +267,31 @@ public abstract class GenericQuery extends Procedure {
             return stmt;
         }
     } // END CLASS
+
+    /**
+     * Thrown from a TPC-H procedure to indicate to the Worker that the query
+     * was cancelled because it exceeded its time budget.
+     */
+    public static class QueryTimeoutException extends RuntimeException {
+        private static final long serialVersionUID = -1L;
+
+        private PreparedStatement stmt = null;
+
+        /**
+         * Constructs a new QueryTimeoutException with the specified detail message.
+         */
+        QueryTimeoutException(String msg, Throwable ex, PreparedStatement stmt) {
+            super(msg, ex);
+            this.stmt = stmt;
+        }
+
+        /**
+         * Get the PreparedStatement that timed out
+         *
+         * @return PreparedStatement that timed out
+         */
+        public PreparedStatement getStmt() {
+            return stmt;
+        }
+    } // END CLASS
 }
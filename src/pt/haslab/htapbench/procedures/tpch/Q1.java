@@ -37,36 +37,36 @@ import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
 import pt.haslab.htapbench.random.RandomParameters;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 
 public class Q1 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(Clock clock) {
+    public final SQLStmt query_stmt = new SQLStmt(
+              "SELECT ol_number, "
+            + "sum(ol_quantity) AS sum_qty, "
+            + "sum(ol_amount) AS sum_amount, "
+            + "avg(ol_quantity) AS avg_qty, "
+            + "avg(ol_amount) AS avg_amount, "
+            + "count(*) AS count_order "
+            + "FROM " + HTAPBConstants.TABLENAME_ORDERLINE
+            + " WHERE ol_delivery_d <= ? "
+            + "GROUP BY ol_number "
+            + "ORDER BY ol_number");
+
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
+    }
+
+    @Override
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
         // Compute random number of days [60,120]
         int days = RandomParameters.randBetween(60, 120);
 
         // Calculate the correct offset and then convert to the correct timestamp
         long ts_minusXdays = clock.computeEndMinusXDays(days);
-        Timestamp ts = new Timestamp(clock.transformDeliveryTsToLong(ts_minusXdays));
-
-        String query = "SELECT ol_number, "
-                + "sum(ol_quantity) AS sum_qty, "
-                + "sum(ol_amount) AS sum_amount, "
-                + "avg(ol_quantity) AS avg_qty, "
-                + "avg(ol_amount) AS avg_amount, "
-                + "count(*) AS count_order "
-                + "FROM " + HTAPBConstants.TABLENAME_ORDERLINE
-                + " WHERE ol_delivery_d <= '"
-                + ts.toString()
-                + "' GROUP BY ol_number "
-                + "ORDER BY ol_number";
-        return new SQLStmt(query);
+        stmt.setTimestamp(1, new Timestamp(clock.transformDeliveryTsToLong(ts_minusXdays)));
     }
-
-    @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt(clock);
-    }
-
-
 }
\ No newline at end of file
@@ -37,6 +37,8 @@ import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
 import pt.haslab.htapbench.random.RandomParameters;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 
 /**
@@ -48,7 +50,48 @@ import java.sql.Timestamp;
  */
 public class Q10 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(Clock clock){
+    public final SQLStmt query_stmt = new SQLStmt(
+               "SELECT c_id, "
+            +         "c_first, "
+            +         "c_balance, "
+            +         "n_name, "
+            +         "c_phone, "
+            +         "c_data, "
+            +         "sum(ol_amount) AS revenue "
+            +  "FROM "
+            +  HTAPBConstants.TABLENAME_CUSTOMER + ", "
+            +  HTAPBConstants.TABLENAME_ORDER + ", "
+            +  HTAPBConstants.TABLENAME_ORDERLINE + ", "
+            +  HTAPBConstants.TABLENAME_DISTRICT + ", "
+            +  HTAPBConstants.TABLENAME_NATION + " "
+            +  "WHERE c_w_id = o_w_id "
+            +    "AND c_d_id = o_d_id "
+            +    "AND c_id   = o_c_id "
+            +    "AND o_w_id = ol_w_id "
+            +    "AND o_d_id = ol_d_id "
+            +    "AND o_id   = ol_o_id "
+            +    "AND c_w_id  = d_w_id "
+            +    "AND c_d_id  = d_id "
+            +    "AND d_nationkey = n_nationkey "
+            +    "AND o_entry_d >= ? "
+            +    "AND o_entry_d < ? "
+            +    "AND o_all_local = 0 "
+            +  "GROUP BY c_id, "
+            +           "c_first, "
+            +           "c_balance, "
+            +           "n_name, "
+            +           "c_phone, "
+            +           "c_data "
+            +  "ORDER BY revenue DESC "
+            +  "LIMIT 20");
+
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
+    }
+
+    @Override
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
         int year = RandomParameters.randBetween(1993, 1995);
 
         int month;
@@ -62,48 +105,7 @@ public class Q10 extends GenericQuery {
         long date1 = RandomParameters.convertDateToLong(year, month, 1);
         long date2 = RandomParameters.addMonthsToDate(date1, 3);
 
-        Timestamp ts1 = new Timestamp(clock.transformOrderTsToLong(date1));
-        Timestamp ts2 = new Timestamp(clock.transformOrderTsToLong(date2));
-
-        String query = "SELECT c_id, "
-                +             "c_first, "
-                +             "c_balance, "
-                +             "n_name, "
-                +             "c_phone, "
-                +             "c_data, "
-                +             "sum(ol_amount) AS revenue "
-                +      "FROM "
-                +      HTAPBConstants.TABLENAME_CUSTOMER + ", "
-                +      HTAPBConstants.TABLENAME_ORDER + ", "
-                +      HTAPBConstants.TABLENAME_ORDERLINE + ", "
-                +      HTAPBConstants.TABLENAME_DISTRICT + ", "
-                +      HTAPBConstants.TABLENAME_NATION + " "
-                +      "WHERE c_w_id = o_w_id "
-                +        "AND c_d_id = o_d_id "
-                +        "AND c_id   = o_c_id "
-                +        "AND o_w_id = ol_w_id "
-                +        "AND o_d_id = ol_d_id "
-                +        "AND o_id   = ol_o_id "
-                +        "AND c_w_id  = d_w_id "
-                +        "AND c_d_id  = d_id "
-                +        "AND d_nationkey = n_nationkey "
-                +        "AND o_entry_d >= '" + ts1.toString() + "' "
-                +        "AND o_entry_d < '" + ts2.toString() + "' "
-                +        "AND o_all_local = 0 "
-                +      "GROUP BY c_id, "
-                +               "c_first, "
-                +               "c_balance, "
-                +               "n_name, "
-                +               "c_phone, "
-                +               "c_data "
-                +      "ORDER BY revenue DESC "
-                +      "LIMIT 20";
-        return new SQLStmt(query);
-    }
-
-    @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-
-        return buildQueryStmt(clock);
+        stmt.setTimestamp(1, new Timestamp(clock.transformOrderTsToLong(date1)));
+        stmt.setTimestamp(2, new Timestamp(clock.transformOrderTsToLong(date2)));
     }
 }
\ No newline at end of file
@@ -37,6 +37,9 @@ import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
 import pt.haslab.htapbench.random.RandomParameters;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.text.DecimalFormat;
 
 /**
@@ -48,43 +51,47 @@ import java.text.DecimalFormat;
  */
 public class Q11 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(){
+    public final SQLStmt query_stmt = new SQLStmt(
+               "SELECT s_i_id, "
+            +         "sum(i_price * s_quantity) AS value "
+            +  "FROM "
+            +  HTAPBConstants.TABLENAME_ITEM + ", "
+            +  HTAPBConstants.TABLENAME_STOCK + ", "
+            +  HTAPBConstants.TABLENAME_SUPPLIER + ", "
+            +  HTAPBConstants.TABLENAME_NATION + " "
+            +  "WHERE i_id = s_i_id "
+            +    "AND s_suppkey = su_suppkey "
+            +    "AND su_nationkey = n_nationkey "
+            +    "AND n_name = ? "
+            +  "GROUP BY s_i_id "
+            +  "HAVING sum(i_price * s_quantity) > ( "
+            +          "SELECT sum(i_price * s_quantity) * ? "
+            +          "FROM "
+            +           HTAPBConstants.TABLENAME_ITEM + ", "
+            +           HTAPBConstants.TABLENAME_STOCK + ", "
+            +           HTAPBConstants.TABLENAME_SUPPLIER + ", "
+            +           HTAPBConstants.TABLENAME_NATION + " "
+            +          "WHERE i_id = s_i_id "
+            +            "AND s_suppkey = su_suppkey "
+            +            "AND su_nationkey = n_nationkey "
+            +            "AND n_name = ?) "
+            +  "ORDER BY value DESC");
 
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
+    }
+
+    @Override
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
         String nation = random.getRandomNation();
 
+        // The fraction is bound as the same decimal that was formatted into the query
         double frac = RandomParameters.randDoubleBetween(0, 5) / 100000;
         String fraction = new DecimalFormat("#.###########").format(frac).replace(',', '.');
 
-        String query = "SELECT s_i_id, "
-                +             "sum(i_price * s_quantity) AS value "
-                +      "FROM "
-                +      HTAPBConstants.TABLENAME_ITEM + ", "
-                +      HTAPBConstants.TABLENAME_STOCK + ", "
-                +      HTAPBConstants.TABLENAME_SUPPLIER + ", "
-                +      HTAPBConstants.TABLENAME_NATION + " "
-                +      "WHERE i_id = s_i_id "
-                +        "AND s_suppkey = su_suppkey "
-                +        "AND su_nationkey = n_nationkey "
-                +        "AND n_name = '" + nation + "' "
-                +      "GROUP BY s_i_id "
-                +      "HAVING sum(i_price * s_quantity) > ( "
-                +              "SELECT sum(i_price * s_quantity) * " + fraction + " "
-                +              "FROM "
-                +               HTAPBConstants.TABLENAME_ITEM + ", "
-                +               HTAPBConstants.TABLENAME_STOCK + ", "
-                +               HTAPBConstants.TABLENAME_SUPPLIER + ", "
-                +               HTAPBConstants.TABLENAME_NATION + " "
-                +              "WHERE i_id = s_i_id "
-                +                "AND s_suppkey = su_suppkey "
-                +                "AND su_nationkey = n_nationkey "
-                +                "AND n_name = '" + nation + "') "
-                +      "ORDER BY value DESC";
-
-        return new SQLStmt(query);
-    }
-
-    @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt();
+        stmt.setString(1, nation);
+        stmt.setBigDecimal(2, new BigDecimal(fraction));
+        stmt.setString(3, nation);
     }
 }
\ No newline at end of file
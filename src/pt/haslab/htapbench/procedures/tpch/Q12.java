@@ -37,6 +37,8 @@ import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
 import pt.haslab.htapbench.random.RandomParameters;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 
 /**
@@ -46,35 +48,36 @@ import java.sql.Timestamp;
  */
 public class Q12 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(Clock clock){
+    public final SQLStmt query_stmt = new SQLStmt(
+              "SELECT o_ol_cnt, "
+            +   "sum(CASE WHEN o_carrier_id = 1 "
+            +       "OR o_carrier_id = 2 THEN 1 ELSE 0 END) AS high_line_count, "
+            +   "sum(CASE WHEN o_carrier_id <> 1 "
+            +       "AND o_carrier_id <> 2 THEN 1 ELSE 0 END) AS low_line_count "
+            + "FROM "
+            + HTAPBConstants.TABLENAME_ORDER + ", "
+            + HTAPBConstants.TABLENAME_ORDERLINE
+            + " WHERE ol_w_id = o_w_id "
+            +   "AND ol_d_id = o_d_id "
+            +   "AND ol_o_id = o_id "
+            +   "AND ol_delivery_d >= ? "
+            +   "AND ol_delivery_d < ? "
+            + "GROUP BY o_ol_cnt "
+            + "ORDER BY o_ol_cnt");
+
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
+    }
+
+    @Override
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
         int year = RandomParameters.randBetween(1993, 1997);
 
         long date1 = RandomParameters.convertDateToLong(year, 1, 1);
         long date2 = RandomParameters.convertDateToLong(year + 1, 1, 1);
 
-        Timestamp ts1 = new Timestamp(clock.transformDeliveryTsToLong(date1));
-        Timestamp ts2 = new Timestamp(clock.transformDeliveryTsToLong(date2));
-
-        String query = "SELECT o_ol_cnt, "
-                +        "sum(CASE WHEN o_carrier_id = 1 "
-                +            "OR o_carrier_id = 2 THEN 1 ELSE 0 END) AS high_line_count, "
-                +        "sum(CASE WHEN o_carrier_id <> 1 "
-                +            "AND o_carrier_id <> 2 THEN 1 ELSE 0 END) AS low_line_count "
-                + "FROM "
-                + HTAPBConstants.TABLENAME_ORDER + ", "
-                + HTAPBConstants.TABLENAME_ORDERLINE
-                + " WHERE ol_w_id = o_w_id "
-                +   "AND ol_d_id = o_d_id "
-                +   "AND ol_o_id = o_id "
-                +   "AND ol_delivery_d >= '"+ts1.toString()+"' "
-                +   "AND ol_delivery_d < '"+ts2.toString()+"' "
-                + "GROUP BY o_ol_cnt "
-                + "ORDER BY o_ol_cnt";
-        return new SQLStmt(query);
-    }
-
-    @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt(clock);
+        stmt.setTimestamp(1, new Timestamp(clock.transformDeliveryTsToLong(date1)));
+        stmt.setTimestamp(2, new Timestamp(clock.transformDeliveryTsToLong(date2)));
     }
 }
\ No newline at end of file
@@ -37,6 +37,8 @@ import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
 import pt.haslab.htapbench.random.RandomParameters;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 
 /**
  * The business question of Q13 can be expressed as:
@@ -45,28 +47,29 @@ import pt.haslab.htapbench.random.RandomParameters;
  */
 public class Q13 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(){
-        String id = "" + RandomParameters.randBetween(1, 10);
+    public final SQLStmt query_stmt = new SQLStmt(
+               "SELECT c_count, "
+            +  "count(*) AS custdist "
+            +  "FROM "
+            +    "(SELECT c_id, count(o_id) AS c_count "
+            +     "FROM " + HTAPBConstants.TABLENAME_CUSTOMER + " "
+            +     "LEFT OUTER JOIN " + HTAPBConstants.TABLENAME_ORDER + " "
+            +         " ON (c_w_id = o_w_id "
+            +          "AND c_d_id = o_d_id "
+            +          "AND c_id = o_c_id "
+            +          "AND o_carrier_id > ?) "
+            +     "GROUP BY c_id) AS c_orders "
+            +  "GROUP BY c_count "
+            +  "ORDER BY custdist DESC,"
+            +           "c_count DESC");
 
-        String query = "SELECT c_count, "
-                +      "count(*) AS custdist "
-                +      "FROM "
-                +        "(SELECT c_id, count(o_id) AS c_count "
-                +         "FROM " + HTAPBConstants.TABLENAME_CUSTOMER + " "
-                +         "LEFT OUTER JOIN " + HTAPBConstants.TABLENAME_ORDER + " "
-                +             " ON (c_w_id = o_w_id "
-                +              "AND c_d_id = o_d_id "
-                +              "AND c_id = o_c_id "
-                +              "AND o_carrier_id > " + id + ") "
-                +         "GROUP BY c_id) AS c_orders "
-                +      "GROUP BY c_count "
-                +      "ORDER BY custdist DESC,"
-                +               "c_count DESC";
-        return new SQLStmt(query);
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
     }
 
     @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt();
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
+        stmt.setInt(1, RandomParameters.randBetween(1, 10));
     }
 }
\ No newline at end of file
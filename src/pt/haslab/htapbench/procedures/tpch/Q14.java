@@ -37,6 +37,8 @@ import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
 import pt.haslab.htapbench.random.RandomParameters;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 
 /**
@@ -47,29 +49,30 @@ import java.sql.Timestamp;
  */
 public class Q14 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(Clock clock){
+    public final SQLStmt query_stmt = new SQLStmt(
+               "SELECT (100.00 * sum( CASE WHEN i_data LIKE 'PR%' THEN ol_amount "
+            +                        "ELSE 0 END) / (1 + sum(ol_amount))) AS promo_revenue "
+            +  "FROM "
+            +   HTAPBConstants.TABLENAME_ORDERLINE + ", "
+            +   HTAPBConstants.TABLENAME_ITEM
+            +   " WHERE ol_i_id = i_id "
+            +     "AND ol_delivery_d >= ? "
+            +     "AND ol_delivery_d < ?");
+
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
+    }
+
+    @Override
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
         int year = RandomParameters.randBetween(1993, 1997);
         int month = RandomParameters.randBetween(1, 12);
 
         long date1 = RandomParameters.convertDateToLong(year, month, 1);
         long date2 = RandomParameters.convertDateToLong(year + 1, month, 1);
 
-        Timestamp ts1 = new Timestamp(clock.transformDeliveryTsToLong(date1));
-        Timestamp ts2 = new Timestamp(clock.transformDeliveryTsToLong(date2));
-
-        String query = "SELECT (100.00 * sum( CASE WHEN i_data LIKE 'PR%' THEN ol_amount "
-                +                            "ELSE 0 END) / (1 + sum(ol_amount))) AS promo_revenue "
-                +      "FROM "
-                +       HTAPBConstants.TABLENAME_ORDERLINE + ", "
-                +       HTAPBConstants.TABLENAME_ITEM
-                +       " WHERE ol_i_id = i_id "
-                +         "AND ol_delivery_d >= '" + ts1.toString() + "' "
-                +         "AND ol_delivery_d < '" + ts2.toString() + "'";
-        return new SQLStmt(query);
-    }
-
-    @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt(clock);
+        stmt.setTimestamp(1, new Timestamp(clock.transformDeliveryTsToLong(date1)));
+        stmt.setTimestamp(2, new Timestamp(clock.transformDeliveryTsToLong(date2)));
     }
 }
\ No newline at end of file
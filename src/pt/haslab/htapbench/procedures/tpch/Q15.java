@@ -41,18 +41,61 @@ import pt.haslab.htapbench.random.RandomParameters;
 import pt.haslab.htapbench.types.DatabaseType;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.Statement;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.EnumSet;
 
 /**
  * The business question of Q15 can be expressed as:
  *
  * Determine which suppliers was responsible for the most overall revenue.
+ *
+ * The revenue of the suppliers is computed in a common table expression, so the query is
+ * a single statement. The databases without common table expressions create a view per
+ * worker before the query and drop it afterwards instead. A dialect of query_stmt in the
+ * dialects file selects the single statement for any other database type, e.g. MySQL 8.
  */
 public class Q15 extends GenericQuery {
 
-    private SQLStmt buildViewStmt(Worker owner, Clock clock){
+    // The database types with common table expressions
+    private static final EnumSet<DatabaseType> CTE_TYPES = EnumSet.of(DatabaseType.POSTGRES, DatabaseType.ORACLE,
+            DatabaseType.DB2, DatabaseType.SQLSERVER, DatabaseType.SQLAZURE, DatabaseType.H2, DatabaseType.HSQLDB,
+            DatabaseType.MONETDB, DatabaseType.SQLITE);
+
+    public final SQLStmt query_stmt = new SQLStmt(
+               "WITH revenue (supplier_no, total_revenue) AS ("
+            +      "SELECT "
+            +          "su_suppkey as supplier_no, "
+            +          "sum(ol_amount) as total_revenue "
+            +      "FROM "
+            +      HTAPBConstants.TABLENAME_ORDERLINE + ", "
+            +      HTAPBConstants.TABLENAME_STOCK + ", "
+            +      HTAPBConstants.TABLENAME_SUPPLIER + " "
+            +      "WHERE ol_supply_w_id = s_w_id "
+            +        "AND ol_i_id = s_i_id "
+            +        "AND s_suppkey = su_suppkey "
+            +        "AND ol_delivery_d between ? AND ? "
+            +      "GROUP BY su_suppkey) "
+            +  "SELECT su_suppkey, "
+            +         "su_name, "
+            +         "su_address, "
+            +         "su_phone, "
+            +         "total_revenue "
+            +  "FROM " + HTAPBConstants.TABLENAME_SUPPLIER + ", revenue "
+            +  "WHERE su_suppkey = supplier_no "
+            +    "AND total_revenue = (SELECT max(total_revenue) "
+            +                         "FROM revenue) "
+            +  "ORDER BY su_suppkey");
+
+    // The query reads the view of its worker, so it is only built once the owner is set
+    private SQLStmt view_query_stmt;
+
+    /**
+     * Draws the first and the last delivery date of the revenue.
+     */
+    private Timestamp[] getDates(Clock clock) {
         int year = RandomParameters.randBetween(1993, 1997);
 
         int month;
@@ -64,10 +107,16 @@ public class Q15 extends GenericQuery {
         long date1 = RandomParameters.convertDateToLong(year, month, 1);
         long date2 = RandomParameters.addMonthsToDate(date1, 3);
 
-        Timestamp ts1 = new Timestamp(clock.transformDeliveryTsToLong(date1));
-        Timestamp ts2 = new Timestamp(clock.transformDeliveryTsToLong(date2));
+        return new Timestamp[]{
+                new Timestamp(clock.transformDeliveryTsToLong(date1)),
+                new Timestamp(clock.transformDeliveryTsToLong(date2))};
+    }
+
+    private String buildViewSQL(Worker owner, Clock clock){
+        Timestamp[] ts = getDates(clock);
 
-        String view = "CREATE view revenue" + owner.getId() + " (supplier_no, total_revenue) AS "
+        // A view definition cannot take parameters, so the dates are inlined
+        return "CREATE view revenue" + owner.getId() + " (supplier_no, total_revenue) AS "
                 +     "SELECT "
                 +         "su_suppkey as supplier_no, "
                 +         "sum(ol_amount) as total_revenue "
@@ -78,9 +127,8 @@ public class Q15 extends GenericQuery {
                 +     "WHERE ol_supply_w_id = s_w_id "
                 +       "AND ol_i_id = s_i_id "
                 +       "AND s_suppkey = su_suppkey "
-                +       "AND ol_delivery_d between '" + ts1.toString() + "' AND '" + ts2.toString() + "' "
+                +       "AND ol_delivery_d between '" + ts[0].toString() + "' AND '" + ts[1].toString() + "' "
                 +     "GROUP BY supplier_no";
-        return new SQLStmt(view);
     }
 
     private SQLStmt buildQueryStmt(Worker owner){
@@ -98,29 +146,56 @@ public class Q15 extends GenericQuery {
         return new SQLStmt(query);
     }
 
-    private SQLStmt dropViewStmt(Worker owner) {
-        String query = "DROP VIEW revenue" + owner.getId();
-        return new SQLStmt(query);
+    private String dropViewSQL(Worker owner) {
+        return "DROP VIEW revenue" + owner.getId();
+    }
+
+    /**
+     * Returns whether the query is run as a single statement rather than over a view.
+     */
+    private boolean useCTE() {
+        return CTE_TYPES.contains(getDatabaseType()) || hasDialect(query_stmt);
     }
 
     @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt(owner);
+    protected SQLStmt get_query() {
+        if (useCTE())
+            return query_stmt;
+
+        if (view_query_stmt == null)
+            view_query_stmt = buildQueryStmt(owner);
+
+        return view_query_stmt;
+    }
+
+    @Override
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
+        // The view has the dates inlined
+        if (!useCTE())
+            return;
+
+        Timestamp[] ts = getDates(clock);
+        stmt.setTimestamp(1, ts[0]);
+        stmt.setTimestamp(2, ts[1]);
     }
 
     public int run(Connection conn, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
-        // With this query, we have to set up a view before we execute the
-        // query, then drop it once we're done.
+        if (useCTE())
+            return super.run(conn, clock, wrklConf);
+
+        // Without common table expressions, we have to set up a view before we
+        // execute the query, then drop it once we're done.
 
         Statement stmt = conn.createStatement();
         int ret;
         try {
-            stmt.executeUpdate(buildViewStmt(owner, clock).getSQL());
+            stmt.executeUpdate(buildViewSQL(owner, clock));
             ret = super.run(conn, clock, wrklConf);
         } finally {
-            stmt.executeUpdate(dropViewStmt(owner).getSQL());
+            stmt.executeUpdate(dropViewSQL(owner));
+            stmt.close();
         }
 
         return ret;
     }
-}
\ No newline at end of file
+}
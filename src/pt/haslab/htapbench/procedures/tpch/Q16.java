@@ -36,6 +36,8 @@ import pt.haslab.htapbench.benchmark.WorkloadConfiguration;
 import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 
 /**
  * The business question of Q16 can be expressed as:
@@ -45,34 +47,34 @@ import pt.haslab.htapbench.core.Clock;
  */
 public class Q16 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(){
+    public final SQLStmt query_stmt = new SQLStmt(
+               "SELECT i_name, "
+            +         "i_price, "
+            +         "count(DISTINCT s_suppkey) AS supplier_cnt "
+            +  "FROM "
+            +  HTAPBConstants.TABLENAME_STOCK + ", "
+            +  HTAPBConstants.TABLENAME_ITEM + " "
+            +  "WHERE s_i_id = i_id "
+            +    "AND i_data NOT LIKE ? "
+            +    "AND s_suppkey NOT IN "
+            +          "(SELECT su_suppkey "
+            +           "FROM "+HTAPBConstants.TABLENAME_SUPPLIER + " "
+            +           "WHERE su_comment LIKE ?) "
+            +  "GROUP BY i_name, "
+            +           "i_price "
+            +  "ORDER BY supplier_cnt DESC");
 
-        String st1 = random.generateRandomCharacter().toString();
-        String st2 = random.generateRandomCharacter().toString();
-
-        String data = st1 + st2 + "%";
-        String su_comment = "%" + random.getRandomSuComment() + "%";
-
-        String query = "SELECT i_name, "
-                +             "i_price, "
-                +             "count(DISTINCT s_suppkey) AS supplier_cnt "
-                +      "FROM "
-                +      HTAPBConstants.TABLENAME_STOCK + ", "
-                +      HTAPBConstants.TABLENAME_ITEM + " "
-                +      "WHERE s_i_id = i_id "
-                +        "AND i_data NOT LIKE '" + data + "' "
-                +        "AND s_suppkey NOT IN "
-                +              "(SELECT su_suppkey "
-                +               "FROM "+HTAPBConstants.TABLENAME_SUPPLIER + " "
-                +               "WHERE su_comment LIKE '" + su_comment + "') "
-                +      "GROUP BY i_name, "
-                +               "i_price "
-                +      "ORDER BY supplier_cnt DESC";
-        return new SQLStmt(query);
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
     }
 
     @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt();
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
+        String st1 = random.generateRandomCharacter().toString();
+        String st2 = random.generateRandomCharacter().toString();
+
+        stmt.setString(1, st1 + st2 + "%");
+        stmt.setString(2, "%" + random.getRandomSuComment() + "%");
     }
 }
\ No newline at end of file
@@ -36,7 +36,8 @@ import pt.haslab.htapbench.benchmark.WorkloadConfiguration;
 import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
-import pt.haslab.htapbench.random.RandomParameters;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 
 /**
  * The business question of Q17 can be expressed as:
@@ -46,27 +47,30 @@ import pt.haslab.htapbench.random.RandomParameters;
  */
 public class Q17 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(){
+    public final SQLStmt query_stmt = new SQLStmt(
+               "SELECT SUM(ol_amount) / 2.0 AS avg_yearly "
+            +  "FROM "
+            +   HTAPBConstants.TABLENAME_ORDERLINE + ", "
+            +   HTAPBConstants.TABLENAME_ITEM + " "
+            +  "WHERE ol_i_id = i_id "
+            +    "AND i_data LIKE ? "
+            +    "AND ol_quantity < "
+            +          "(SELECT AVG(i_price) * 0.2 AS avg_price "
+            +           "FROM " + HTAPBConstants.TABLENAME_ITEM + " "
+            +           "WHERE i_id = ol_i_id "
+            +             "AND i_data LIKE ? "
+            +           "GROUP BY i_id, i_price)");
 
-        String i_data = "%" + random.generateRandomCharacter();
-
-        String query = "SELECT SUM(ol_amount) / 2.0 AS avg_yearly "
-            +          "FROM "
-            +           HTAPBConstants.TABLENAME_ORDERLINE + ", "
-            +           HTAPBConstants.TABLENAME_ITEM + " "
-            +          "WHERE ol_i_id = i_id "
-            +            "AND i_data LIKE '" + i_data + "' "
-            +            "AND ol_quantity < "
-            +                  "(SELECT AVG(i_price) * 0.2 AS avg_price "
-            +                   "FROM " + HTAPBConstants.TABLENAME_ITEM + " "
-            +                   "WHERE i_id = ol_i_id "
-            +                     "AND i_data LIKE '" + i_data + "' "
-            +                   "GROUP BY i_id, i_price)";
-       return new SQLStmt(query);
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
     }
 
     @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt();
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
+        String i_data = "%" + random.generateRandomCharacter();
+
+        stmt.setString(1, i_data);
+        stmt.setString(2, i_data);
     }
 }
\ No newline at end of file
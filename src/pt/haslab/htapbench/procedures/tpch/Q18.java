@@ -37,6 +37,8 @@ import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
 import pt.haslab.htapbench.random.RandomParameters;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 
 /**
  * The business question of Q18 can be expressed as:
@@ -45,38 +47,39 @@ import pt.haslab.htapbench.random.RandomParameters;
  */
 public class Q18 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(){
-        String amount = "" + RandomParameters.randBetween(12, 15);
+    public final SQLStmt query_stmt = new SQLStmt(
+               "SELECT c_last, "
+            +         "c_id, "
+            +         "o_id, "
+            +         "o_entry_d, "
+            +         "o_ol_cnt, "
+            +         "sum(ol_amount) AS amount_sum "
+            +  "FROM "
+            +  HTAPBConstants.TABLENAME_CUSTOMER + ", "
+            +  HTAPBConstants.TABLENAME_ORDER +    ", "
+            +  HTAPBConstants.TABLENAME_ORDERLINE
+            +  " WHERE c_w_id = o_w_id "
+            +     "AND c_d_id = o_d_id "
+            +     "AND c_id   = o_c_id "
+            +     "AND o_w_id = ol_w_id "
+            +     "AND o_d_id = ol_d_id "
+            +     "AND o_id   = ol_o_id "
+            +     "AND ol_amount > ? "
+            +  "GROUP BY c_last, "
+            +           "c_id, "
+            +           "o_id, "
+            +           "o_entry_d, "
+            +           "o_ol_cnt "
+            +  "ORDER BY amount_sum DESC, o_entry_d "
+            +  "LIMIT 100");
 
-        String query = "SELECT c_last, "
-                +             "c_id, "
-                +             "o_id, "
-                +             "o_entry_d, "
-                +             "o_ol_cnt, "
-                +             "sum(ol_amount) AS amount_sum "
-                +      "FROM "
-                +      HTAPBConstants.TABLENAME_CUSTOMER + ", "
-                +      HTAPBConstants.TABLENAME_ORDER +    ", "
-                +      HTAPBConstants.TABLENAME_ORDERLINE
-                +      " WHERE c_w_id = o_w_id "
-                +         "AND c_d_id = o_d_id "
-                +         "AND c_id   = o_c_id "
-                +         "AND o_w_id = ol_w_id "
-                +         "AND o_d_id = ol_d_id "
-                +         "AND o_id   = ol_o_id "
-                +         "AND ol_amount > " + amount + " "
-                +      "GROUP BY c_last, "
-                +               "c_id, "
-                +               "o_id, "
-                +               "o_entry_d, "
-                +               "o_ol_cnt "
-                +      "ORDER BY amount_sum DESC, o_entry_d "
-                +      "LIMIT 100";
-        return new SQLStmt(query);
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
     }
 
     @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt();
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
+        stmt.setInt(1, RandomParameters.randBetween(12, 15));
     }
 }
\ No newline at end of file
@@ -37,6 +37,8 @@ import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
 import pt.haslab.htapbench.random.RandomParameters;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 
 /**
  * The business question of Q19 can be expressed as:
@@ -46,47 +48,53 @@ import pt.haslab.htapbench.random.RandomParameters;
  */
 public class Q19 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(){
+    public final SQLStmt query_stmt = new SQLStmt(
+               "SELECT sum(ol_amount) AS revenue "
+            +  "FROM "
+            +  HTAPBConstants.TABLENAME_ORDERLINE + ", "
+            +  HTAPBConstants.TABLENAME_ITEM + " "
+            +  "WHERE (ol_i_id = i_id "
+            +         "AND i_data LIKE ? "
+            +         "AND ol_quantity >= 1 "
+            +         "AND ol_quantity <= 5 "
+            +         "AND i_price BETWEEN ? AND ? "
+            +         "AND ol_w_id IN (1, 2, 3)) "
+            +     "OR (ol_i_id = i_id "
+            +         "AND i_data LIKE ? "
+            +         "AND ol_quantity >= 1 "
+            +         "AND ol_quantity <= 10 "
+            +         "AND i_price BETWEEN ? AND ? "
+            +         "AND ol_w_id IN (1, 2, 4)) "
+            +     "OR (ol_i_id = i_id "
+            +         "AND i_data LIKE ? "
+            +         "AND ol_quantity >= 1 "
+            +         "AND ol_quantity <= 15 "
+            +         "AND i_price BETWEEN ? AND ? "
+            +         "AND ol_w_id IN (1, 5, 3))");
 
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
+    }
+
+    @Override
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
         int price1 = RandomParameters.randBetween(1, 10);
         int price2 = RandomParameters.randBetween(10, 20);
         int price3 = RandomParameters.randBetween(20, 30);
 
-        int price12 = price1 + 10;
-        int price22 = price2 + 10;
-        int price32 = price3 + 10;
-
         String i_data1 = "%" + random.generateRandomCharacter();
         String i_data2 = "%" + random.generateRandomCharacter();
         String i_data3 = "%" + random.generateRandomCharacter();
 
-        String query = "SELECT sum(ol_amount) AS revenue "
-                +      "FROM "
-                +      HTAPBConstants.TABLENAME_ORDERLINE + ", "
-                +      HTAPBConstants.TABLENAME_ITEM + " "
-                +      "WHERE (ol_i_id = i_id "
-                +             "AND i_data LIKE '" + i_data1 + "' "
-                +             "AND ol_quantity >=" + 1 + " "
-                +             "AND ol_quantity <=" + 5 + " "
-                +             "AND i_price BETWEEN "+ price1 + " AND "+ price12 + " "
-                +             "AND ol_w_id IN (1, 2, 3)) "
-                +         "OR (ol_i_id = i_id "
-                +             "AND i_data LIKE '" + i_data2 + "' "
-                +             "AND ol_quantity >=" + 1 + " "
-                +             "AND ol_quantity <= " + 10 + " "
-                +             "AND i_price BETWEEN " + price2 + " AND " + price22 + " "
-                +             "AND ol_w_id IN (1, 2, 4)) "
-                +         "OR (ol_i_id = i_id "
-                +             "AND i_data LIKE '" + i_data3 + "' "
-                +             "AND ol_quantity >=" + 1 + " "
-                +             "AND ol_quantity <= " + 15 + " "
-                +             "AND i_price BETWEEN " + price3 + " AND " + price32 + " "
-                +             "AND ol_w_id IN (1, 5, 3))";
-        return new SQLStmt(query);
-    }
-
-    @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt();
+        stmt.setString(1, i_data1);
+        stmt.setInt(2, price1);
+        stmt.setInt(3, price1 + 10);
+        stmt.setString(4, i_data2);
+        stmt.setInt(5, price2);
+        stmt.setInt(6, price2 + 10);
+        stmt.setString(7, i_data3);
+        stmt.setInt(8, price3);
+        stmt.setInt(9, price3 + 10);
     }
 }
\ No newline at end of file
@@ -36,6 +36,8 @@ import pt.haslab.htapbench.benchmark.WorkloadConfiguration;
 import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 
 /**
  * The business question of Q2 can be expressed as:
@@ -44,56 +46,60 @@ import pt.haslab.htapbench.core.Clock;
  */
 public class Q2 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(){
+    public final SQLStmt query_stmt = new SQLStmt(
+               "SELECT su_acctbal, "
+            +          "su_name, "
+            +          "n_name, "
+            +          "i_name, "
+            +          "su_address, "
+            +          "su_phone, "
+            +          "su_comment "
+            +   "FROM "
+            +   HTAPBConstants.TABLENAME_ITEM + ", "
+            +   HTAPBConstants.TABLENAME_STOCK + ", "
+            +   HTAPBConstants.TABLENAME_SUPPLIER + ", "
+            +   HTAPBConstants.TABLENAME_NATION + ", "
+            +   HTAPBConstants.TABLENAME_REGION + " "
+            +   "WHERE i_id = s_i_id "
+            +     "AND s_suppkey = su_suppkey "
+            +     "AND su_nationkey = n_nationkey "
+            +     "AND n_regionkey = r_regionkey "
+            +     "AND i_data LIKE ? "
+            +     "AND r_name = ? "
+            +     "AND s_quantity = "
+            +            "(SELECT min(s_quantity) "
+            +             "FROM "
+            +              HTAPBConstants.TABLENAME_ITEM + ", "
+            +              HTAPBConstants.TABLENAME_STOCK + ", "
+            +              HTAPBConstants.TABLENAME_SUPPLIER + ", "
+            +              HTAPBConstants.TABLENAME_NATION + ", "
+            +              HTAPBConstants.TABLENAME_REGION + " "
+            +             "WHERE i_id = s_i_id "
+            +               "AND s_suppkey = su_suppkey "
+            +               "AND su_nationkey = n_nationkey "
+            +               "AND n_regionkey = r_regionkey "
+            +               "AND i_data LIKE ? "
+            +               "AND r_name LIKE ?) "
+            +   "ORDER BY su_acctbal DESC, "
+            +            "n_name, "
+            +            "su_name, "
+            +            "i_name "
+            +   "LIMIT 100");
 
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
+    }
+
+    @Override
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
         String region = random.getRandomRegion();
 
         String i_data = "%" + random.generateRandomCharacter();
 
-        String query ="SELECT su_acctbal, "
-            +                "su_name, "
-            +                "n_name, "
-            +                "i_name, "
-            +                "su_address, "
-            +                "su_phone, "
-            +                "su_comment "
-            +          "FROM "
-            +          HTAPBConstants.TABLENAME_ITEM + ", "
-            +          HTAPBConstants.TABLENAME_STOCK + ", "
-            +          HTAPBConstants.TABLENAME_SUPPLIER + ", "
-            +          HTAPBConstants.TABLENAME_NATION + ", "
-            +          HTAPBConstants.TABLENAME_REGION + " "
-            +          "WHERE i_id = s_i_id "
-            +            "AND s_suppkey = su_suppkey "
-            +            "AND su_nationkey = n_nationkey "
-            +            "AND n_regionkey = r_regionkey "
-            +            "AND i_data LIKE '" + i_data + "' "
-            +            "AND r_name = '" + region + "' "
-            +            "AND s_quantity = "
-            +                   "(SELECT min(s_quantity) "
-            +                    "FROM "
-            +                     HTAPBConstants.TABLENAME_ITEM + ", "
-            +                     HTAPBConstants.TABLENAME_STOCK + ", "
-            +                     HTAPBConstants.TABLENAME_SUPPLIER + ", "
-            +                     HTAPBConstants.TABLENAME_NATION + ", "
-            +                     HTAPBConstants.TABLENAME_REGION + " "
-            +                    "WHERE i_id = s_i_id "
-            +                      "AND s_suppkey = su_suppkey "
-            +                      "AND su_nationkey = n_nationkey "
-            +                      "AND n_regionkey = r_regionkey "
-            +                      "AND i_data LIKE '" + i_data + "' "
-            +                      "AND r_name LIKE '" + region + "') "
-            +          "ORDER BY su_acctbal DESC, "
-            +                   "n_name, "
-            +                   "su_name, "
-            +                   "i_name "
-            +          "LIMIT 100";
-        return new SQLStmt(query);
-
-    }
-
-    @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt();
+        stmt.setString(1, i_data);
+        stmt.setString(2, region);
+        stmt.setString(3, i_data);
+        stmt.setString(4, region);
     }
 }
\ No newline at end of file
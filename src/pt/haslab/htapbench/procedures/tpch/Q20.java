@@ -37,6 +37,8 @@ import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
 import pt.haslab.htapbench.random.RandomParameters;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 
 /**
@@ -47,8 +49,42 @@ import java.sql.Timestamp;
  */
 public class Q20 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(Clock clock){
+    public final SQLStmt query_stmt = new SQLStmt(
+               "SELECT n_name, "
+            +         "su_address "
+            +  "FROM "
+            +  HTAPBConstants.TABLENAME_ORDERLINE + ", "
+            +  HTAPBConstants.TABLENAME_STOCK + ", "
+            +  HTAPBConstants.TABLENAME_ITEM + ", "
+            +  HTAPBConstants.TABLENAME_SUPPLIER + ", "
+            +  HTAPBConstants.TABLENAME_NATION + " "
+            +  "WHERE ol_supply_w_id = s_w_id "
+            +    "AND ol_i_id = s_i_id "
+            +    "AND s_i_id = i_id "
+            +    "AND s_suppkey = su_suppkey "
+            +    "AND su_nationkey = n_nationkey "
+            +    "AND n_name = ? "
+            +    "AND ol_delivery_d >= ? "
+            +    "AND ol_delivery_d < ? "
+            +    "AND i_data LIKE ? "
+            +    "AND s_quantity > ( "
+            +                "SELECT avg(s_quantity) "
+            +                "FROM "
+            +                 HTAPBConstants.TABLENAME_ORDERLINE + ", "
+            +                 HTAPBConstants.TABLENAME_STOCK + " "
+            +                "WHERE ol_supply_w_id = s_w_id "
+            +                  "AND ol_i_id = s_i_id "
+            +                  "AND ol_delivery_d >= ? "
+            +                  "AND ol_delivery_d < ?) "
+            +  "ORDER BY su_name, su_address");
 
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
+    }
+
+    @Override
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
         String nation = random.getRandomNation();
         String char1 = random.generateRandomCharacter() + "%";
 
@@ -60,38 +96,11 @@ public class Q20 extends GenericQuery {
         Timestamp ts1 = new Timestamp(clock.transformDeliveryTsToLong(date1));
         Timestamp ts2 = new Timestamp(clock.transformDeliveryTsToLong(date2));
 
-        String query = "SELECT n_name, "
-                +             "su_address "
-                +      "FROM "
-                +      HTAPBConstants.TABLENAME_ORDERLINE + ", "
-                +      HTAPBConstants.TABLENAME_STOCK + ", "
-                +      HTAPBConstants.TABLENAME_ITEM + ", "
-                +      HTAPBConstants.TABLENAME_SUPPLIER + ", "
-                +      HTAPBConstants.TABLENAME_NATION + " "
-                +      "WHERE ol_supply_w_id = s_w_id "
-                +        "AND ol_i_id = s_i_id "
-                +        "AND s_i_id = i_id "
-                +        "AND s_suppkey = su_suppkey "
-                +        "AND su_nationkey = n_nationkey "
-                +        "AND n_name = '" + nation + "' "
-                +        "AND ol_delivery_d >= '" + ts1.toString() + "' "
-                +        "AND ol_delivery_d < '" + ts2.toString() + "' "
-                +        "AND i_data LIKE '" + char1 + "' "
-                +        "AND s_quantity > ( "
-                +                    "SELECT avg(s_quantity) "
-                +                    "FROM "
-                +                     HTAPBConstants.TABLENAME_ORDERLINE + ", "
-                +                     HTAPBConstants.TABLENAME_STOCK + " "
-                +                    "WHERE ol_supply_w_id = s_w_id "
-                +                      "AND ol_i_id = s_i_id "
-                +                      "AND ol_delivery_d >= '" + ts1.toString() + "' "
-                +                      "AND ol_delivery_d < '" + ts2.toString() + "') "
-                +      "ORDER BY su_name, su_address";
-        return new SQLStmt(query);
-    }
-
-    @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt(clock);
+        stmt.setString(1, nation);
+        stmt.setTimestamp(2, ts1);
+        stmt.setTimestamp(3, ts2);
+        stmt.setString(4, char1);
+        stmt.setTimestamp(5, ts1);
+        stmt.setTimestamp(6, ts2);
     }
 }
\ No newline at end of file
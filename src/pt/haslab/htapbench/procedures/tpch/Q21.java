@@ -36,7 +36,8 @@ import pt.haslab.htapbench.benchmark.WorkloadConfiguration;
 import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
-import pt.haslab.htapbench.random.RandomParameters;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 
 /**
  * The business question of Q21 can be expressed as:
@@ -46,40 +47,40 @@ import pt.haslab.htapbench.random.RandomParameters;
  */
 public class Q21 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(){
+    public final SQLStmt query_stmt = new SQLStmt(
+               "SELECT n_name, "
+            +         "o_carrier_id, "
+            +         "count(*) AS numwait "
+            +  "FROM "
+            +  HTAPBConstants.TABLENAME_CUSTOMER + ", "
+            +  HTAPBConstants.TABLENAME_ORDER + ", "
+            +  HTAPBConstants.TABLENAME_ORDERLINE + ", "
+            +  HTAPBConstants.TABLENAME_DISTRICT + ", "
+            +  HTAPBConstants.TABLENAME_NATION + " "
+            +  "WHERE c_w_id = o_w_id "
+            +    "AND c_d_id = o_d_id "
+            +    "AND c_id   = o_c_id "
+            +    "AND o_w_id = ol_w_id "
+            +    "AND o_d_id = ol_d_id "
+            +    "AND o_id   = ol_o_id "
+            +    "AND c_w_id = d_w_id "
+            +    "AND c_d_id = d_id "
+            +    "AND d_nationkey = n_nationkey "
+            +    "AND ol_delivery_d > o_entry_d "
+            +    "AND n_name = ? "
+            +  "GROUP BY n_name, "
+            +           "o_carrier_id "
+            +  "ORDER BY numwait DESC, "
+            +           "n_name, "
+            +           "o_carrier_id");
 
-        String nation = random.getRandomNation();
-
-        String query = "SELECT n_name, "
-            +                 "o_carrier_id, "
-            +                 "count(*) AS numwait "
-            +          "FROM "
-            +          HTAPBConstants.TABLENAME_CUSTOMER + ", "
-            +          HTAPBConstants.TABLENAME_ORDER + ", "
-            +          HTAPBConstants.TABLENAME_ORDERLINE + ", "
-            +          HTAPBConstants.TABLENAME_DISTRICT + ", "
-            +          HTAPBConstants.TABLENAME_NATION + " "
-            +          "WHERE c_w_id = o_w_id "
-            +            "AND c_d_id = o_d_id "
-            +            "AND c_id   = o_c_id "
-            +            "AND o_w_id = ol_w_id "
-            +            "AND o_d_id = ol_d_id "
-            +            "AND o_id   = ol_o_id "
-            +            "AND c_w_id = d_w_id "
-            +            "AND c_d_id = d_id "
-            +            "AND d_nationkey = n_nationkey "
-            +            "AND ol_delivery_d > o_entry_d "
-            +            "AND n_name = '" + nation + "' "
-            +          "GROUP BY n_name, "
-            +                   "o_carrier_id "
-            +          "ORDER BY numwait DESC, "
-            +                   "n_name, "
-            +                   "o_carrier_id";
-        return new SQLStmt(query);
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
     }
 
     @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt();
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
+        stmt.setString(1, random.getRandomNation());
     }
 }
\ No newline at end of file
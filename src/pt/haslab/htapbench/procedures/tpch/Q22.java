@@ -35,7 +35,8 @@ import pt.haslab.htapbench.benchmark.WorkloadConfiguration;
 import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
-import pt.haslab.htapbench.random.RandomParameters;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 
 /**
  * The business question of Q21 can be expressed as:
@@ -45,53 +46,40 @@ import pt.haslab.htapbench.random.RandomParameters;
  */
 public class Q22 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(){
+    // The number of phone country codes in each IN list
+    private static final int CODES = 7;
 
-        String code1 = random.getRandomPhoneCountryCode();
-        String code2 = random.getRandomPhoneCountryCode();
-        String code3 = random.getRandomPhoneCountryCode();
-        String code4 = random.getRandomPhoneCountryCode();
-        String code5 = random.getRandomPhoneCountryCode();
-        String code6 = random.getRandomPhoneCountryCode();
-        String code7 = random.getRandomPhoneCountryCode();
+    public final SQLStmt query_stmt = new SQLStmt(
+               "SELECT n_name, "
+            +         "count(*) AS numcust, "
+            +         "sum(c_balance) AS totacctbal "
+            +  "FROM "
+            +   HTAPBConstants.TABLENAME_CUSTOMER + ", "
+            +   HTAPBConstants.TABLENAME_DISTRICT + ", "
+            +   HTAPBConstants.TABLENAME_NATION + " "
+            +  "WHERE c_w_id = d_w_id "
+            +    "AND c_d_id = d_id "
+            +    "AND d_nationkey = n_nationkey "
+            +    "AND substring(c_phone from 1 for 2) IN (??) "
+            +    "AND c_balance > "
+            +      "(SELECT avg(c_balance) "
+            +       "FROM " + HTAPBConstants.TABLENAME_CUSTOMER + " "
+            +       "WHERE c_balance > 0.00 "
+            +         "AND substring(c_phone from 1 for 2) IN (??)) "
+            +  "GROUP BY n_name "
+            +  "ORDER BY n_name ", CODES, CODES);
 
-        String query = "SELECT n_name, "
-                +             "count(*) AS numcust, "
-                +             "sum(c_balance) AS totacctbal "
-                +      "FROM "
-                +       HTAPBConstants.TABLENAME_CUSTOMER + ", "
-                +       HTAPBConstants.TABLENAME_DISTRICT + ", "
-                +       HTAPBConstants.TABLENAME_NATION + " "
-                +      "WHERE c_w_id = d_w_id "
-                +        "AND c_d_id = d_id "
-                +        "AND d_nationkey = n_nationkey "
-                +        "AND substring(c_phone from 1 for 2) IN "
-                +                     "('" + code1 + "', "
-                +                      "'" + code2 + "', "
-                +                      "'" + code3 + "', "
-                +                      "'" + code4 + "', "
-                +                      "'" + code5 + "', "
-                +                      "'" + code6 + "', "
-                +                      "'" + code7 + "') "
-                +        "AND c_balance > "
-                +          "(SELECT avg(c_balance) "
-                +           "FROM " + HTAPBConstants.TABLENAME_CUSTOMER + " "
-                +           "WHERE c_balance > 0.00 "
-                +             "AND substring(c_phone from 1 for 2) IN "
-                +                          "('" + code1 + "',"
-                +                           "'" + code2 + "',"
-                +                           "'" + code3 + "',"
-                +                           "'" + code4 + "',"
-                +                           "'" + code5 + "',"
-                +                           "'" + code6 + "',"
-                +                           "'" + code7 + "')) "
-                +      "GROUP BY n_name "
-                +      "ORDER BY n_name ";
-        return new SQLStmt(query);
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
     }
 
     @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt();
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
+        for (int i = 1; i <= CODES; i++) {
+            String code = random.getRandomPhoneCountryCode();
+            stmt.setString(i, code);
+            stmt.setString(CODES + i, code);
+        }
     }
 }
\ No newline at end of file
@@ -37,6 +37,8 @@ import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
 import pt.haslab.htapbench.random.RandomParameters;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 
 /**
@@ -50,8 +52,46 @@ import java.sql.Timestamp;
  */
 public class Q3 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(Clock clock){
+    public final SQLStmt query_stmt = new SQLStmt(
+               "SELECT ol_o_id, "
+            +         "ol_w_id, "
+            +         "ol_d_id, "
+            +         "sum(ol_amount) AS revenue, "
+            +         "o_entry_d "
+            +  "FROM "
+            +   HTAPBConstants.TABLENAME_CUSTOMER + ", "
+            +   HTAPBConstants.TABLENAME_ORDER +    ", "
+            +   HTAPBConstants.TABLENAME_ORDERLINE + ", "
+            +   HTAPBConstants.TABLENAME_DISTRICT + ", "
+            +   HTAPBConstants.TABLENAME_NATION + ", "
+            +   HTAPBConstants.TABLENAME_REGION + " "
+            +   "WHERE c_w_id = o_w_id "
+            +     "AND c_d_id = o_d_id "
+            +     "AND c_id   = o_c_id "
+            +     "AND o_w_id = ol_w_id "
+            +     "AND o_d_id = ol_d_id "
+            +     "AND o_id   = ol_o_id "
+            +     "AND c_w_id = d_w_id "
+            +     "AND c_d_id = d_id "
+            +     "AND d_nationkey = n_nationkey "
+            +     "AND n_nationkey = r_regionkey "
+            +     "AND r_name = ? "
+            +     "AND o_entry_d > ? "
+            +     "AND ol_delivery_d is null "
+            +   "GROUP BY ol_o_id, "
+            +            "ol_w_id, "
+            +            "ol_d_id, "
+            +            "o_entry_d "
+            +   "ORDER BY revenue DESC, "
+            +            "o_entry_d");
 
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
+    }
+
+    @Override
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
         int day = RandomParameters.randBetween(1, 31);
         long date = RandomParameters.convertDateToLong(1995, 3, day);
 
@@ -59,42 +99,7 @@ public class Q3 extends GenericQuery {
 
         String region = random.getRandomRegion();
 
-        String query ="SELECT ol_o_id, "
-                +            "ol_w_id, "
-                +            "ol_d_id, "
-                +            "sum(ol_amount) AS revenue, "
-                +            "o_entry_d "
-                +     "FROM "
-                +      HTAPBConstants.TABLENAME_CUSTOMER + ", "
-                +      HTAPBConstants.TABLENAME_ORDER +    ", "
-                +      HTAPBConstants.TABLENAME_ORDERLINE + ", "
-                +      HTAPBConstants.TABLENAME_DISTRICT + ", "
-                +      HTAPBConstants.TABLENAME_NATION + ", "
-                +      HTAPBConstants.TABLENAME_REGION + " "
-                +      "WHERE c_w_id = o_w_id "
-                +        "AND c_d_id = o_d_id "
-                +        "AND c_id   = o_c_id "
-                +        "AND o_w_id = ol_w_id "
-                +        "AND o_d_id = ol_d_id "
-                +        "AND o_id   = ol_o_id "
-                +        "AND c_w_id = d_w_id "
-                +        "AND c_d_id = d_id "
-                +        "AND d_nationkey = n_nationkey "
-                +        "AND n_nationkey = r_regionkey "
-                +        "AND r_name = '" + region + "' "
-                +        "AND o_entry_d > '" + ts.toString()+ "' "
-                +        "AND ol_delivery_d is null "
-                +      "GROUP BY ol_o_id, "
-                +               "ol_w_id, "
-                +               "ol_d_id, "
-                +               "o_entry_d "
-                +      "ORDER BY revenue DESC, "
-                +               "o_entry_d";
-        return new SQLStmt(query);
-    }
-
-    @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt(clock);
+        stmt.setString(1, region);
+        stmt.setTimestamp(2, ts);
     }
 }
\ No newline at end of file
@@ -37,6 +37,8 @@ import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
 import pt.haslab.htapbench.random.RandomParameters;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 
 /**
@@ -48,7 +50,29 @@ import java.sql.Timestamp;
  */
 public class Q4 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(Clock clock){
+    public final SQLStmt query_stmt = new SQLStmt(
+               "SELECT o_ol_cnt, "
+            +         "count(*) AS order_count "
+            +  "FROM " + HTAPBConstants.TABLENAME_ORDER + " "
+            +  "WHERE o_entry_d >= ? "
+            +    "AND o_entry_d < ? "
+            +    "AND EXISTS "
+            +            "(SELECT * "
+            +             "FROM " + HTAPBConstants.TABLENAME_ORDERLINE + " "
+            +             "WHERE o_id = ol_o_id "
+            +               "AND o_w_id = ol_w_id "
+            +               "AND o_d_id = ol_d_id "
+            +               "AND ol_delivery_d >= o_entry_d) "
+            +  "GROUP BY o_ol_cnt "
+            +  "ORDER BY o_ol_cnt");
+
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
+    }
+
+    @Override
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
         int year = RandomParameters.randBetween(1993, 1997);
 
         int month;
@@ -60,28 +84,7 @@ public class Q4 extends GenericQuery {
         long date1 = RandomParameters.convertDateToLong(year, month, 1);
         long date2 = RandomParameters.addMonthsToDate(date1, 3);
 
-        Timestamp ts1 = new Timestamp(clock.transformOrderTsToLong(date1));
-        Timestamp ts2 = new Timestamp(clock.transformOrderTsToLong(date2));
-
-        String query = "SELECT o_ol_cnt, "
-                +             "count(*) AS order_count "
-                +      "FROM " + HTAPBConstants.TABLENAME_ORDER + " "
-                +      "WHERE o_entry_d >= '" + ts1.toString() + "' "
-                +        "AND o_entry_d < '" + ts2.toString() + "' "
-                +        "AND EXISTS "
-                +                "(SELECT * "
-                +                 "FROM " + HTAPBConstants.TABLENAME_ORDERLINE + " "
-                +                 "WHERE o_id = ol_o_id "
-                +                   "AND o_w_id = ol_w_id "
-                +                   "AND o_d_id = ol_d_id "
-                +                   "AND ol_delivery_d >= o_entry_d) "
-                +      "GROUP BY o_ol_cnt "
-                +      "ORDER BY o_ol_cnt";
-        return new SQLStmt(query);
-    }
-
-    @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt(clock);
+        stmt.setTimestamp(1, new Timestamp(clock.transformOrderTsToLong(date1)));
+        stmt.setTimestamp(2, new Timestamp(clock.transformOrderTsToLong(date2)));
     }
 }
\ No newline at end of file
@@ -36,6 +36,8 @@ import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
 import pt.haslab.htapbench.random.RandomParameters;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 
 /**
@@ -46,8 +48,45 @@ import java.sql.Timestamp;
  */
 public class Q5 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(Clock clock){
+    public final SQLStmt query_stmt = new SQLStmt(
+               "SELECT n_name, "
+            +         "sum(ol_amount) AS revenue "
+            +  "FROM "
+            +   HTAPBConstants.TABLENAME_CUSTOMER + ", "
+            +   HTAPBConstants.TABLENAME_ORDER +    ", "
+            +   HTAPBConstants.TABLENAME_ORDERLINE+ ", "
+            +   HTAPBConstants.TABLENAME_STOCK + ", "
+            +   HTAPBConstants.TABLENAME_DISTRICT + ", "
+            +   HTAPBConstants.TABLENAME_SUPPLIER + ", "
+            +   HTAPBConstants.TABLENAME_NATION +   ", "
+            +   HTAPBConstants.TABLENAME_REGION + " "
+            +  "WHERE c_w_id  = o_w_id "
+            +    "AND c_d_id  = o_d_id "
+            +    "AND c_id    = o_c_id "
+            +    "AND ol_o_id = o_id "
+            +    "AND ol_w_id = o_w_id "
+            +    "AND ol_d_id = o_d_id "
+            +    "AND ol_supply_w_id = s_w_id "
+            +    "AND ol_i_id = s_i_id "
+            +    "AND c_w_id  = d_w_id "
+            +    "AND c_d_id  = d_id "
+            +    "AND s_suppkey = su_suppkey "
+            +    "AND su_nationkey = d_nationkey "
+            +    "AND su_nationkey = n_nationkey "
+            +    "AND n_regionkey  = r_regionkey "
+            +    "AND r_name = ? "
+            +    "AND o_entry_d >= ? "
+            +    "AND o_entry_d < ? "
+            +  "GROUP BY n_name "
+            +  "ORDER BY revenue DESC");
 
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
+    }
+
+    @Override
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
         String region = random.getRandomRegion();
 
         int year = RandomParameters.randBetween(1993, 1997);
@@ -55,44 +94,8 @@ public class Q5 extends GenericQuery {
         long date1 = RandomParameters.convertDateToLong(year, 1, 1);
         long date2 = RandomParameters.convertDateToLong(year + 1, 1, 1);
 
-        Timestamp ts1 = new Timestamp(clock.transformOrderTsToLong(date1));
-        Timestamp ts2 = new Timestamp(clock.transformOrderTsToLong(date2));
-
-        String query = "SELECT n_name, "
-                +             "sum(ol_amount) AS revenue "
-                +      "FROM "
-                +       HTAPBConstants.TABLENAME_CUSTOMER + ", "
-                +       HTAPBConstants.TABLENAME_ORDER +    ", "
-                +       HTAPBConstants.TABLENAME_ORDERLINE+ ", "
-                +       HTAPBConstants.TABLENAME_STOCK + ", "
-                +       HTAPBConstants.TABLENAME_DISTRICT + ", "
-                +       HTAPBConstants.TABLENAME_SUPPLIER + ", "
-                +       HTAPBConstants.TABLENAME_NATION +   ", "
-                +       HTAPBConstants.TABLENAME_REGION + " "
-                +      "WHERE c_w_id  = o_w_id "
-                +        "AND c_d_id  = o_d_id "
-                +        "AND c_id    = o_c_id "
-                +        "AND ol_o_id = o_id "
-                +        "AND ol_w_id = o_w_id "
-                +        "AND ol_d_id = o_d_id "
-                +        "AND ol_supply_w_id = s_w_id "
-                +        "AND ol_i_id = s_i_id "
-                +        "AND c_w_id  = d_w_id "
-                +        "AND c_d_id  = d_id "
-                +        "AND s_suppkey = su_suppkey "
-                +        "AND su_nationkey = d_nationkey "
-                +        "AND su_nationkey = n_nationkey "
-                +        "AND n_regionkey  = r_regionkey "
-                +        "AND r_name = '" + region + "' "
-                +        "AND o_entry_d >= '" + ts1.toString() + "' "
-                +        "AND o_entry_d < '" + ts2.toString() + "' "
-                +      "GROUP BY n_name "
-                +      "ORDER BY revenue DESC";
-        return new SQLStmt(query);
-    }
-
-    @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt(clock);
+        stmt.setString(1, region);
+        stmt.setTimestamp(2, new Timestamp(clock.transformOrderTsToLong(date1)));
+        stmt.setTimestamp(3, new Timestamp(clock.transformOrderTsToLong(date2)));
     }
 }
\ No newline at end of file
@@ -37,9 +37,11 @@ import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
 import pt.haslab.htapbench.random.RandomParameters;
-
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 
+
 /**
  * The business question of Q6 can be expressed as:
  *
@@ -48,7 +50,29 @@ import java.sql.Timestamp;
  */
 public class Q6 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(Clock clock, boolean hybridWkrld){
+    public final SQLStmt query_stmt = new SQLStmt(
+               "SELECT sum(ol_amount * c_discount) AS revenue "
+            +  "FROM "
+            +   HTAPBConstants.TABLENAME_CUSTOMER + ", "
+            +   HTAPBConstants.TABLENAME_ORDER + ", "
+            +   HTAPBConstants.TABLENAME_ORDERLINE + " "
+            +  "WHERE c_w_id = o_w_id "
+            +    "AND c_d_id = o_d_id "
+            +    "AND c_id   = o_c_id "
+            +    "AND o_w_id = ol_w_id "
+            +    "AND o_d_id = ol_d_id "
+            +    "AND o_id   = ol_o_id "
+            +    "AND c_discount BETWEEN ? AND ? "
+            +    "AND ol_delivery_d >= ? "
+            +    "AND ol_delivery_d < ? ");
+
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
+    }
+
+    @Override
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
         double discount1;
         double discount2;
 
@@ -71,29 +95,9 @@ public class Q6 extends GenericQuery {
         long date1 = RandomParameters.convertDateToLong(year, 1, 1);
         long date2 = RandomParameters.convertDateToLong(year + 1, 1, 1);
 
-        Timestamp ts1 = new Timestamp(clock.transformDeliveryTsToLong(date1));
-        Timestamp ts2 = new Timestamp(clock.transformDeliveryTsToLong(date2));
-
-        String query = "SELECT sum(ol_amount * c_discount) AS revenue "
-                +      "FROM "
-                +       HTAPBConstants.TABLENAME_CUSTOMER + ", "
-                +       HTAPBConstants.TABLENAME_ORDER + ", "
-                +       HTAPBConstants.TABLENAME_ORDERLINE + " "
-                +      "WHERE c_w_id = o_w_id "
-                +        "AND c_d_id = o_d_id "
-                +        "AND c_id   = o_c_id "
-                +        "AND o_w_id = ol_w_id "
-                +        "AND o_d_id = ol_d_id "
-                +        "AND o_id   = ol_o_id "
-                +        "AND c_discount BETWEEN " + discount1 + " AND " + discount2 + " "
-                +        "AND ol_delivery_d >= '" + ts1 + "' "
-                +        "AND ol_delivery_d < '" + ts2 + "' ";
-
-        return new SQLStmt(query);
-    }
-
-    @Override
-    protected SQLStmt get_query(Clock clock,WorkloadConfiguration wrklConf) {
-        return buildQueryStmt(clock, wrklConf.getHybridWorkload());
+        stmt.setDouble(1, discount1);
+        stmt.setDouble(2, discount2);
+        stmt.setTimestamp(3, new Timestamp(clock.transformDeliveryTsToLong(date1)));
+        stmt.setTimestamp(4, new Timestamp(clock.transformDeliveryTsToLong(date2)));
     }
 }
\ No newline at end of file
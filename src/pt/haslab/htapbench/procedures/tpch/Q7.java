@@ -36,6 +36,8 @@ import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
 import pt.haslab.htapbench.random.RandomParameters;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 
 /**
@@ -47,60 +49,64 @@ import java.sql.Timestamp;
  */
 public class Q7 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(Clock clock){
+    public final SQLStmt query_stmt = new SQLStmt(
+               "SELECT n1.n_name as su_nation, "
+            +         "n2.n_name as c_nation, "
+            +         "sum(ol_amount) AS revenue "
+            +  "FROM "
+            +  HTAPBConstants.TABLENAME_CUSTOMER + ", "
+            +  HTAPBConstants.TABLENAME_ORDER +    ", "
+            +  HTAPBConstants.TABLENAME_ORDERLINE+ ", "
+            +  HTAPBConstants.TABLENAME_STOCK +    ", "
+            +  HTAPBConstants.TABLENAME_DISTRICT + ", "
+            +  HTAPBConstants.TABLENAME_SUPPLIER + ", "
+            +  HTAPBConstants.TABLENAME_NATION   + " n1, "
+            +  HTAPBConstants.TABLENAME_NATION   + " n2 "
+            +  "WHERE c_w_id = o_w_id "
+            +    "AND c_d_id = o_d_id "
+            +    "AND c_id   = o_c_id "
+            +    "AND o_w_id = ol_w_id "
+            +    "AND o_d_id = ol_d_id "
+            +    "AND o_id   = ol_o_id "
+            +    "AND ol_supply_w_id = s_w_id "
+            +    "AND ol_i_id   = s_i_id "
+            +    "AND c_w_id  = d_w_id "
+            +    "AND c_d_id  = d_id "
+            +    "AND s_suppkey = su_suppkey "
+            +    "AND su_nationkey = n1.n_nationkey "
+            +    "AND d_nationkey  = n2.n_nationkey "
+            +    "AND ol_delivery_d between ? and ? "
+            +    "AND ((n1.n_name = ? AND n2.n_name = ?) "
+            +         "OR (n1.n_name = ? AND n2.n_name = ?)) "
+            +  "GROUP BY su_nationkey, "
+            +           "c_nation "
+            +  "ORDER BY su_nationkey, "
+            +           "c_nation");
 
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
+    }
+
+    @Override
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
         // The nation should be within the same region
         String region = random.getRandomRegion();
         String nation1 = random.getRandomNation(region);
         String nation2 = random.getRandomNation(region);
 
         // Retry until the nations are different
-        if (nation1.equals(nation2))
-            buildQueryStmt(clock);
+        while (nation1.equals(nation2))
+            nation2 = random.getRandomNation(region);
 
         long date1 = RandomParameters.convertDateToLong(1995, 1, 1);
         long date2 = RandomParameters.convertDateToLong(1996, 12, 31);
 
-        Timestamp ts1 = new Timestamp(clock.transformDeliveryTsToLong(date1));
-        Timestamp ts2 = new Timestamp(clock.transformDeliveryTsToLong(date2));
-
-        String query = "SELECT n1.n_name as su_nation, "
-                +             "n2.n_name as c_nation, "
-                +             "sum(ol_amount) AS revenue "
-                +      "FROM "
-                +      HTAPBConstants.TABLENAME_CUSTOMER + ", "
-                +      HTAPBConstants.TABLENAME_ORDER +    ", "
-                +      HTAPBConstants.TABLENAME_ORDERLINE+ ", "
-                +      HTAPBConstants.TABLENAME_STOCK +    ", "
-                +      HTAPBConstants.TABLENAME_DISTRICT + ", "
-                +      HTAPBConstants.TABLENAME_SUPPLIER + ", "
-                +      HTAPBConstants.TABLENAME_NATION   + " n1, "
-                +      HTAPBConstants.TABLENAME_NATION   + " n2 "
-                +      "WHERE c_w_id = o_w_id "
-                +        "AND c_d_id = o_d_id "
-                +        "AND c_id   = o_c_id "
-                +        "AND o_w_id = ol_w_id "
-                +        "AND o_d_id = ol_d_id "
-                +        "AND o_id   = ol_o_id "
-                +        "AND ol_supply_w_id = s_w_id "
-                +        "AND ol_i_id   = s_i_id "
-                +        "AND c_w_id  = d_w_id "
-                +        "AND c_d_id  = d_id "
-                +        "AND s_suppkey = su_suppkey "
-                +        "AND su_nationkey = n1.n_nationkey "
-                +        "AND d_nationkey  = n2.n_nationkey "
-                +        "AND ol_delivery_d between '" + ts1.toString() + "' and '" + ts2.toString() + "' "
-                +        "AND ((n1.n_name = '" + nation1 + "' AND n2.n_name = '" + nation2 + "') "
-                +             "OR (n1.n_name = '" + nation2 + "' AND n2.n_name = '" + nation1 + "')) "
-                +      "GROUP BY su_nationkey, "
-                +               "c_nation "
-                +      "ORDER BY su_nationkey, "
-                +               "c_nation";
-        return new SQLStmt(query);
-    }
-
-    @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt(clock);
+        stmt.setTimestamp(1, new Timestamp(clock.transformDeliveryTsToLong(date1)));
+        stmt.setTimestamp(2, new Timestamp(clock.transformDeliveryTsToLong(date2)));
+        stmt.setString(3, nation1);
+        stmt.setString(4, nation2);
+        stmt.setString(5, nation2);
+        stmt.setString(6, nation1);
     }
 }
\ No newline at end of file
@@ -36,6 +36,8 @@ import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
 import pt.haslab.htapbench.random.RandomParameters;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 
 /**
@@ -45,8 +47,46 @@ import java.sql.Timestamp;
  */
 public class Q8 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(Clock clock){
+    public final SQLStmt query_stmt = new SQLStmt(
+               "SELECT sum(CASE WHEN n2.n_name = ? "
+            +             "THEN ol_amount ELSE 0 END) / sum(ol_amount) AS mkt_share "
+            +  "FROM "
+            +  HTAPBConstants.TABLENAME_CUSTOMER + ", "
+            +  HTAPBConstants.TABLENAME_ORDER + ", "
+            +  HTAPBConstants.TABLENAME_ORDERLINE +", "
+            +  HTAPBConstants.TABLENAME_STOCK + ", "
+            +  HTAPBConstants.TABLENAME_ITEM + ", "
+            +  HTAPBConstants.TABLENAME_DISTRICT + ", "
+            +  HTAPBConstants.TABLENAME_SUPPLIER + ", "
+            +  HTAPBConstants.TABLENAME_NATION + " n1, "
+            +  HTAPBConstants.TABLENAME_NATION + " n2, "
+            +  HTAPBConstants.TABLENAME_REGION + " "
+            +  "WHERE c_w_id = o_w_id "
+            +    "AND c_d_id = o_d_id "
+            +    "AND c_id   = o_c_id "
+            +    "AND o_w_id = ol_w_id "
+            +    "AND o_d_id = ol_d_id "
+            +    "AND o_id   = ol_o_id "
+            +    "AND ol_supply_w_id = s_w_id "
+            +    "AND ol_i_id = s_i_id "
+            +    "AND c_w_id  = d_w_id "
+            +    "AND c_d_id  = d_id "
+            +    "AND s_i_id  = i_id "
+            +    "AND s_suppkey = su_suppkey "
+            +    "AND d_nationkey = n1.n_nationkey "
+            +    "AND su_nationkey = n2.n_nationkey "
+            +    "AND n1.n_regionkey = r_regionkey "
+            +    "AND r_name = ? "
+            +    "AND o_entry_d between ? AND ? "
+            +    "AND i_data LIKE ?");
 
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
+    }
+
+    @Override
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
         String region = random.getRandomRegion();
         String nation = random.getRandomNation(region);
 
@@ -55,45 +95,10 @@ public class Q8 extends GenericQuery {
         long date1 = RandomParameters.convertDateToLong(1995, 1, 1);
         long date2 = RandomParameters.convertDateToLong(1996, 12, 31);
 
-        Timestamp ts1 = new Timestamp(clock.transformOrderTsToLong(date1));
-        Timestamp ts2 = new Timestamp(clock.transformOrderTsToLong(date2));
-
-        String query = "SELECT sum(CASE WHEN n2.n_name = '" + nation + "' "
-                +                 "THEN ol_amount ELSE 0 END) / sum(ol_amount) AS mkt_share "
-                +      "FROM "
-                +      HTAPBConstants.TABLENAME_CUSTOMER + ", "
-                +      HTAPBConstants.TABLENAME_ORDER + ", "
-                +      HTAPBConstants.TABLENAME_ORDERLINE +", "
-                +      HTAPBConstants.TABLENAME_STOCK + ", "
-                +      HTAPBConstants.TABLENAME_ITEM + ", "
-                +      HTAPBConstants.TABLENAME_DISTRICT + ", "
-                +      HTAPBConstants.TABLENAME_SUPPLIER + ", "
-                +      HTAPBConstants.TABLENAME_NATION + " n1, "
-                +      HTAPBConstants.TABLENAME_NATION + " n2, "
-                +      HTAPBConstants.TABLENAME_REGION + " "
-                +      "WHERE c_w_id = o_w_id "
-                +        "AND c_d_id = o_d_id "
-                +        "AND c_id   = o_c_id "
-                +        "AND o_w_id = ol_w_id "
-                +        "AND o_d_id = ol_d_id "
-                +        "AND o_id   = ol_o_id "
-                +        "AND ol_supply_w_id = s_w_id "
-                +        "AND ol_i_id = s_i_id "
-                +        "AND c_w_id  = d_w_id "
-                +        "AND c_d_id  = d_id "
-                +        "AND s_i_id  = i_id "
-                +        "AND s_suppkey = su_suppkey "
-                +        "AND d_nationkey = n1.n_nationkey "
-                +        "AND su_nationkey = n2.n_nationkey "
-                +        "AND n1.n_regionkey = r_regionkey "
-                +        "AND r_name = '" + region + "' "
-                +        "AND o_entry_d between '" + ts1.toString() + "' AND '" + ts2.toString() + "' "
-                +        "AND i_data LIKE '" + i_data + "'";
-        return new SQLStmt(query);
-    }
-
-    @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt(clock);
+        stmt.setString(1, nation);
+        stmt.setString(2, region);
+        stmt.setTimestamp(3, new Timestamp(clock.transformOrderTsToLong(date1)));
+        stmt.setTimestamp(4, new Timestamp(clock.transformOrderTsToLong(date2)));
+        stmt.setString(5, i_data);
     }
 }
\ No newline at end of file
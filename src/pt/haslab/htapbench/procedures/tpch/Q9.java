@@ -36,6 +36,8 @@ import pt.haslab.htapbench.benchmark.WorkloadConfiguration;
 import pt.haslab.htapbench.api.SQLStmt;
 import pt.haslab.htapbench.benchmark.HTAPBConstants;
 import pt.haslab.htapbench.core.Clock;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 
 /**
  * The business question of Q9 can be expressed as:
@@ -45,41 +47,41 @@ import pt.haslab.htapbench.core.Clock;
  */
 public class Q9 extends GenericQuery {
 
-    private SQLStmt buildQueryStmt(){
+    public final SQLStmt query_stmt = new SQLStmt(
+               "SELECT n_name, "
+            +         "YEAR(o_entry_d) AS o_year, "
+            +         "sum(ol_amount) AS sum_profit "
+            +  "FROM "
+            +   HTAPBConstants.TABLENAME_ORDER + ", "
+            +   HTAPBConstants.TABLENAME_ORDERLINE + ", "
+            +   HTAPBConstants.TABLENAME_STOCK + ", "
+            +   HTAPBConstants.TABLENAME_ITEM + ", "
+            +   HTAPBConstants.TABLENAME_SUPPLIER + ", "
+            +   HTAPBConstants.TABLENAME_NATION + " "
+            +  "WHERE o_w_id = ol_w_id "
+            +    "AND o_d_id = ol_d_id "
+            +    "AND o_id   = ol_o_id "
+            +    "AND ol_supply_w_id = s_w_id "
+            +    "AND ol_i_id = s_i_id "
+            +    "AND s_i_id  = i_id "
+            +    "AND s_suppkey = su_suppkey "
+            +    "AND su_nationkey = n_nationkey "
+            +    "AND i_data LIKE ? "
+            +  "GROUP BY n_name, "
+            +           "o_year "
+            +  "ORDER BY n_name, "
+            +           "o_year");
 
-        Character st2 = random.generateRandomCharacter();
-        Character st1 = random.generateRandomCharacter();
-
-        String i_data = "%" + st1 + st2;
-
-        String query = "SELECT n_name, "
-                +             "YEAR(o_entry_d) AS o_year, "
-                +             "sum(ol_amount) AS sum_profit "
-                +      "FROM "
-                +       HTAPBConstants.TABLENAME_ORDER + ", "
-                +       HTAPBConstants.TABLENAME_ORDERLINE + ", "
-                +       HTAPBConstants.TABLENAME_STOCK + ", "
-                +       HTAPBConstants.TABLENAME_ITEM + ", "
-                +       HTAPBConstants.TABLENAME_SUPPLIER + ", "
-                +       HTAPBConstants.TABLENAME_NATION + " "
-                +      "WHERE o_w_id = ol_w_id "
-                +        "AND o_d_id = ol_d_id "
-                +        "AND o_id   = ol_o_id "
-                +        "AND ol_supply_w_id = s_w_id "
-                +        "AND ol_i_id = s_i_id "
-                +        "AND s_i_id  = i_id "
-                +        "AND s_suppkey = su_suppkey "
-                +        "AND su_nationkey = n_nationkey "
-                +        "AND i_data LIKE '" + i_data + "' "
-                +      "GROUP BY n_name, "
-                +               "o_year "
-                +      "ORDER BY n_name, "
-                +               "o_year";
-        return new SQLStmt(query);
+    @Override
+    protected SQLStmt get_query() {
+        return query_stmt;
     }
 
     @Override
-    protected SQLStmt get_query(Clock clock, WorkloadConfiguration wrklConf) {
-        return buildQueryStmt();
+    protected void bind(PreparedStatement stmt, Clock clock, WorkloadConfiguration wrklConf) throws SQLException {
+        Character st2 = random.generateRandomCharacter();
+        Character st1 = random.generateRandomCharacter();
+
+        stmt.setString(1, "%" + st1 + st2);
     }
 }
\ No newline at end of file
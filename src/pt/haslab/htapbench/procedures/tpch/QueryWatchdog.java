@@ -0,0 +1,91 @@
+package pt.haslab.htapbench.procedures.tpch;
+
+import org.apache.log4j.Logger;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancels the OLAP queries that overrun their time budget. Statement.setQueryTimeout is
+ * ignored by some drivers and others only apply it to the execution and not to fetching
+ * the rows, so a single daemon thread also watches the queries of all the TPC-H workers.
+ */
+final class QueryWatchdog {
+
+    private static final Logger LOG = Logger.getLogger(QueryWatchdog.class);
+
+    private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "QueryWatchdog");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    static {
+        // Most queries finish within their budget, so their cancel tasks are dropped at once
+        TIMER.setRemoveOnCancelPolicy(true);
+    }
+
+    private QueryWatchdog() {
+    }
+
+    /**
+     * Cancels the statement once delayMs milliseconds have elapsed, unless the returned
+     * watch is stopped first.
+     */
+    static Watch watch(Statement stmt, long delayMs) {
+        Watch watch = new Watch(stmt);
+        watch.future = TIMER.schedule(watch, delayMs, TimeUnit.MILLISECONDS);
+        return watch;
+    }
+
+    /**
+     * The watch over one execution of a statement. The prepared statements are cached and
+     * executed again by the next query, so a watch only cancels the statement while its
+     * execution has not been stopped, and stopping it waits for a cancel in progress.
+     */
+    static final class Watch implements Runnable {
+        private final Statement stmt;
+        private Future<?> future;
+        private boolean stopped = false;
+        private volatile boolean timedOut = false;
+
+        private Watch(Statement stmt) {
+            this.stmt = stmt;
+        }
+
+        @Override
+        public synchronized void run() {
+            if (stopped)
+                return;
+
+            timedOut = true;
+            try {
+                stmt.cancel();
+            } catch (SQLException ex) {
+                LOG.warn("Failed to cancel a query over its time budget: " + ex.getMessage());
+            }
+        }
+
+        /**
+         * Returns whether the watch cancelled the statement.
+         */
+        boolean timedOut() {
+            return timedOut;
+        }
+
+        /**
+         * Ends the execution, after which the statement is no longer cancelled.
+         */
+        synchronized void stop() {
+            stopped = true;
+            future.cancel(false);
+        }
+    }
+}
@@ -44,6 +44,10 @@ public class RandomGenerator extends Random {
         super(seed);
     }
 
+    public RandomGenerator(long seed) {
+        super(seed);
+    }
+
 
     /**
      * Returns a random int value between minimum and maximum (inclusive)
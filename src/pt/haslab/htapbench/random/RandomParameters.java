@@ -211,6 +211,19 @@ public class RandomParameters {
         return nations.indexOf(randomNation) + 1;
     }
 
+    /**
+     * Returns a random nationkey like getRandomNationKey(), drawn from the given
+     * generator so that a seeded population always gets the same keys.
+     *
+     * @return a random nationkey
+     */
+    public int getRandomNationKey(RandomGenerator gen) {
+        String region = acceptableRegions.get(gen.number(0, acceptableRegions.size() - 1));
+        List<String> nationsWithinRandomRegion = regionToNations.get(region);
+        String randomNation = nationsWithinRandomRegion.get(gen.number(0, nationsWithinRandomRegion.size() - 1));
+        return nations.indexOf(randomNation) + 1;
+    }
+
     public String getRandomRegion() {
         String nation = nations.get(getRandomNationKey() - 1);
         return nationToRegion.get(nation);
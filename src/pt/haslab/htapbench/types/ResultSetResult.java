@@ -34,9 +34,11 @@ package pt.haslab.htapbench.types;
 public class ResultSetResult {
 
     private int rows;
+    private long checksum;
 
     public ResultSetResult() {
         this.rows = 0;
+        this.checksum = 0;
     }
 
     public void setRows(int rows) {
@@ -46,4 +48,12 @@ public class ResultSetResult {
     public int getRows() {
         return this.rows;
     }
+
+    public void setChecksum(long checksum) {
+        this.checksum = checksum;
+    }
+
+    public long getChecksum() {
+        return this.checksum;
+    }
 }
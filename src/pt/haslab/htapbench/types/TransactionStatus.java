@@ -65,6 +65,12 @@ public enum TransactionStatus {
      */
     INVALID_RESULT,
 
+    /**
+     * The query was cancelled because it exceeded its time budget.
+     * This status only applies to TPC-H queries.
+     */
+    TIMEOUT,
+
     /**
      * The transaction resulted in an unknown SQLException.
      */
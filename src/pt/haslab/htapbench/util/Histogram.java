@@ -194,6 +194,13 @@ public class Histogram<X> implements JSONSerializable {
         this.dirty = false;
     }
 
+    /**
+     * Returns the total number of occurrences of all the values.
+     */
+    public int getSampleCount() {
+        return (this.num_samples);
+    }
+
     /**
      * Returns true if the Histogram is empty.
      */
@@ -0,0 +1,36 @@
+package pt.haslab.htapbench.util;
+
+/**
+ * Parsing of the command line options with values per table or query.
+ */
+public abstract class OptionUtil {
+
+    /**
+     * Returns the value for a name from a specification like "1000,ORDER_LINE=5000", i.e.
+     * an optional default value followed by the values of individual tables or queries.
+     *
+     * @param option the name of the option, for the error message.
+     * @throws RuntimeException if the specification is malformed.
+     */
+    public static int getNamedValue(String option, String spec, String name, int defaultValue) {
+        if (spec == null || spec.isEmpty())
+            return defaultValue;
+
+        int value = defaultValue;
+        for (String token : spec.split(",")) {
+            String[] entry = token.trim().split("=");
+            try {
+                if (entry.length == 1)
+                    value = Integer.parseInt(entry[0]);
+                else if (entry.length == 2 && entry[0].trim().equalsIgnoreCase(name))
+                    return Integer.parseInt(entry[1].trim());
+                else if (entry.length != 2)
+                    throw new NumberFormatException(token);
+            } catch (NumberFormatException ex) {
+                throw new RuntimeException("The " + option + " " + spec + " not recognized as a valid option.", ex);
+            }
+        }
+
+        return value;
+    }
+}
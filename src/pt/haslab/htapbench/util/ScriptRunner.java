@@ -39,6 +39,8 @@ import java.io.LineNumberReader;
 import java.io.PrintWriter;
 import java.io.Reader;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.log4j.Logger;
 
@@ -73,6 +75,36 @@ public class ScriptRunner {
         this.stopOnError = stopOnError;
     }
 
+    /**
+     * Splits an SQL script into its statements, without the comments and the
+     * default delimiter, so that they can be run separately.
+     */
+    public static List<String> getStatements(URL resource) throws IOException {
+        List<String> statements = new ArrayList<String>();
+        LineNumberReader lineReader = new LineNumberReader(new InputStreamReader(resource.openStream()));
+        try {
+            StringBuilder command = new StringBuilder();
+            String line;
+            while ((line = lineReader.readLine()) != null) {
+                String trimmedLine = line.trim();
+                if (trimmedLine.length() < 1 || trimmedLine.startsWith("--") || trimmedLine.startsWith("//"))
+                    continue;
+
+                if (trimmedLine.endsWith(DEFAULT_DELIMITER)) {
+                    command.append(trimmedLine.substring(0, trimmedLine.lastIndexOf(DEFAULT_DELIMITER)));
+                    statements.add(command.toString().trim());
+                    command.setLength(0);
+                } else {
+                    command.append(trimmedLine).append(" ");
+                }
+            }
+        } finally {
+            lineReader.close();
+        }
+
+        return statements;
+    }
+
     /**
      * Runs an SQL script (read in using the Reader parameter)
      */
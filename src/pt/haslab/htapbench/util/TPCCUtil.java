@@ -96,13 +96,21 @@ public class TPCCUtil {
     private static final RandomGenerator ran = new RandomGenerator(0);
 
     public static String randomStr(int strLen) {
+        return randomStr(strLen, ran);
+    } // end randomStr
+
+    public static String randomStr(int strLen, RandomGenerator ran) {
         if (strLen > 1)
             return ran.astring(strLen - 1, strLen - 1);
         else
             return "";
-    } // end randomStr
+    }
 
     public static String randomNStr(int stringLength) {
+        return randomNStr(stringLength, ran);
+    }
+
+    public static String randomNStr(int stringLength, RandomGenerator ran) {
         if (stringLength > 0)
             return ran.nstring(stringLength, stringLength);
         else
@@ -135,7 +143,14 @@ public class TPCCUtil {
     }
 
     public static String getNonUniformRandomLastNameForLoad(Random r) {
-        return getLastName(nonUniformRandom(255, C_LAST_LOAD_C, 0, 999, r));
+        return getLastName(getNonUniformRandomLastNumberForLoad(r));
+    }
+
+    /**
+     * Returns the number of a random last name in the population phase, see getLastName.
+     */
+    public static int getNonUniformRandomLastNumberForLoad(Random r) {
+        return nonUniformRandom(255, C_LAST_LOAD_C, 0, 999, r);
     }
 
     public static int randomNumber(int min, int max, Random r) {
@@ -0,0 +1,83 @@
+package pt.haslab.htapbench.api;
+
+import junit.framework.TestCase;
+import pt.haslab.htapbench.types.DatabaseType;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+public class ProcedureTest extends TestCase {
+
+    /**
+     * A procedure that, like Delivery, fetches all its statements before executing them.
+     */
+    public static class FetchAllFirst extends Procedure {
+        public final SQLStmt stmt1 = new SQLStmt("SELECT 1");
+        public final SQLStmt stmt2 = new SQLStmt("SELECT 2");
+        public final SQLStmt stmt3 = new SQLStmt("SELECT 3");
+        public final SQLStmt stmt4 = new SQLStmt("SELECT 4");
+        public final SQLStmt stmt5 = new SQLStmt("SELECT 5");
+        public final SQLStmt stmt6 = new SQLStmt("SELECT 6");
+        public final SQLStmt stmt7 = new SQLStmt("SELECT 7");
+
+        void run(Connection conn) throws SQLException {
+            SQLStmt[] stmts = {stmt1, stmt2, stmt3, stmt4, stmt5, stmt6, stmt7};
+            PreparedStatement[] prepared = new PreparedStatement[stmts.length];
+            for (int i = 0; i < stmts.length; i++)
+                prepared[i] = getPreparedStatement(conn, stmts[i]);
+
+            for (PreparedStatement pStmt : prepared)
+                pStmt.execute();
+        }
+    }
+
+    /**
+     * Returns a PreparedStatement that fails to execute once it is closed.
+     */
+    private static PreparedStatement statement() {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new InvocationHandler() {
+                    private boolean closed = false;
+
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws SQLException {
+                        if (method.getName().equals("close"))
+                            closed = true;
+                        else if (method.getName().equals("execute") && closed)
+                            throw new SQLException("This statement has been closed.");
+
+                        return method.getReturnType() == boolean.class ? Boolean.FALSE : null;
+                    }
+                });
+    }
+
+    private static Connection connection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("prepareStatement"))
+                            return statement();
+
+                        return null;
+                    }
+                });
+    }
+
+    public void testSmallCacheKeepsTheStatementsInUse() throws SQLException {
+        FetchAllFirst proc = new FetchAllFirst().initialize(DatabaseType.POSTGRES, 1);
+        proc.setStatementCache(2, 0);
+
+        Connection conn = connection();
+        proc.run(conn);
+        proc.run(conn);
+
+        // All the statements stay cached, so only the first execution prepares them
+        assertEquals(7, proc.getStatementCacheMisses());
+        assertEquals(7, proc.getStatementCacheHits());
+    }
+}
@@ -0,0 +1,52 @@
+package pt.haslab.htapbench.benchmark;
+
+import junit.framework.TestCase;
+
+public class IntervalRecorderTest extends TestCase {
+
+    public void testDrainsAndResets() {
+        IntervalRecorder recorder = new IntervalRecorder();
+        recorder.record(0, 100, 150);
+        recorder.record(2, 200, 250);
+        recorder.record(2, 300, 350);
+
+        WindowedHistograms target = new WindowedHistograms(1);
+        recorder.drainInto(target, 0);
+        assertEquals(3, target.getTotal(false).getTotalCount());
+        assertEquals(300, target.getTotal(false).getMax());
+        assertEquals(350, target.getTotal(true).getMax());
+
+        // The drained interval starts empty
+        recorder.drainInto(target, 1);
+        assertEquals(3, target.getTotal(false).getTotalCount());
+
+        recorder.record(1, 50, 60);
+        recorder.drainInto(target, 2);
+        assertEquals(4, target.getTotal(false).getTotalCount());
+        assertEquals(50, target.getTotal(false).getMin());
+    }
+
+    public void testNoLatencyIsLostWhileDraining() throws InterruptedException {
+        final IntervalRecorder recorder = new IntervalRecorder();
+        final int count = 2000000;
+        Thread worker = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; i < count; i++)
+                    recorder.record(i % 5, i % 1000, i % 1000 + 10);
+            }
+        };
+
+        WindowedHistograms target = new WindowedHistograms(1);
+        worker.start();
+        int window = 0;
+        while (worker.isAlive())
+            recorder.drainInto(target, window++ % 100);
+
+        worker.join();
+        recorder.drainInto(target, 0);
+
+        assertEquals(count, target.getTotal(false).getTotalCount());
+        assertEquals(count, target.getTotal(true).getTotalCount());
+    }
+}
@@ -0,0 +1,136 @@
+package pt.haslab.htapbench.benchmark;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class LatencyHistogramTest extends TestCase {
+
+    private static final double[] PERCENTILES = {0.0, 0.01, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 0.999, 1.0};
+
+    /**
+     * Returns latencies spread over several orders of magnitude, like those of a mix of
+     * OLTP transactions and OLAP queries.
+     */
+    private static long[] latencies(long seed, int count) {
+        Random random = new Random(seed);
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++)
+            values[i] = (long) Math.exp(random.nextDouble() * Math.log(1e9));
+
+        return values;
+    }
+
+    /**
+     * Checks the value at each percentile against the exact value at the same index.
+     */
+    private static void assertPercentiles(long[] values, LatencyHistogram histogram) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        for (double percentile : PERCENTILES) {
+            long exact = sorted[Math.min((int) (percentile * sorted.length), sorted.length - 1)];
+            long reported = histogram.getValueAtPercentile(percentile);
+            assertTrue("p" + percentile + ": " + reported + " instead of " + exact,
+                    Math.abs(reported - exact) <= exact * 0.01);
+        }
+    }
+
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 256; i++)
+            histogram.record(i);
+
+        assertEquals(256, histogram.getTotalCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(255, histogram.getMax());
+        assertEquals(127.5, histogram.getMean(), 1e-9);
+        assertEquals(128, histogram.getValueAtPercentile(0.5));
+        assertEquals(230, histogram.getValueAtPercentile(0.9));
+    }
+
+    public void testPercentilesWithinOnePercent() {
+        long[] values = latencies(42, 100000);
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value : values)
+            histogram.record(value);
+
+        assertPercentiles(values, histogram);
+
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        assertEquals(sorted[0], histogram.getMin());
+        assertEquals(sorted[sorted.length - 1], histogram.getMax());
+    }
+
+    public void testStatistics() {
+        long[] values = {10, 20, 30, 40, 1000000};
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value : values)
+            histogram.record(value);
+
+        double mean = (10 + 20 + 30 + 40 + 1000000) / 5.0;
+        double squares = 0;
+        for (long value : values)
+            squares += (value - mean) * (value - mean);
+
+        assertEquals(mean, histogram.getMean(), 1e-6);
+        assertEquals(Math.sqrt(squares / 4), histogram.getStandardDeviation(), 1e-6);
+    }
+
+    public void testMergeMatchesSingleHistogram() {
+        long[] first = latencies(1, 50000);
+        long[] second = latencies(2, 30000);
+
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        LatencyHistogram all = new LatencyHistogram();
+        for (long value : first) {
+            a.record(value);
+            all.record(value);
+        }
+        for (long value : second) {
+            b.record(value);
+            all.record(value);
+        }
+
+        LatencyHistogram merged = a.copy();
+        merged.add(b);
+
+        assertEquals(all.getTotalCount(), merged.getTotalCount());
+        assertEquals(all.getMin(), merged.getMin());
+        assertEquals(all.getMax(), merged.getMax());
+        assertEquals(all.getMean(), merged.getMean(), 1e-6);
+        for (double percentile : PERCENTILES)
+            assertEquals(all.getValueAtPercentile(percentile), merged.getValueAtPercentile(percentile));
+
+        long[] values = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, values, first.length, second.length);
+        assertPercentiles(values, merged);
+
+        // The copy is independent of the original
+        assertEquals(first.length, a.getTotalCount());
+    }
+
+    public void testEmptyAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(-1, histogram.getValueAtPercentile(0.5));
+        assertEquals(0, histogram.getMin());
+
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(0, histogram.getMin());
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+
+        histogram.reset();
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(-1, histogram.getValueAtPercentile(0.99));
+
+        // Adding an empty histogram keeps the minimum
+        histogram.record(7);
+        histogram.add(new LatencyHistogram());
+        assertEquals(7, histogram.getMin());
+    }
+}
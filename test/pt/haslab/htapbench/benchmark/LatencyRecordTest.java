@@ -0,0 +1,123 @@
+package pt.haslab.htapbench.benchmark;
+
+import junit.framework.TestCase;
+
+import java.util.Iterator;
+import java.util.Random;
+
+public class LatencyRecordTest extends TestCase {
+
+    private static final long GLOBAL_START_NS = 1000000000L;
+
+    /**
+     * A sample as recorded, in nanoseconds.
+     */
+    private static final class Recorded {
+        int type;
+        long arrivalNs;
+        long startNs;
+        long endNs;
+        int workerId;
+        int phaseId;
+    }
+
+    private static void assertSample(Recorded expected, LatencyRecord.Sample sample) {
+        assertEquals(expected.type, sample.tranType);
+        assertEquals((expected.startNs - GLOBAL_START_NS) / 1000, sample.startUs);
+        assertEquals((expected.endNs - GLOBAL_START_NS) / 1000, sample.endUs);
+        assertEquals((expected.endNs - expected.startNs) / 1000, sample.latencyUs);
+        assertEquals((expected.endNs - Math.min(expected.arrivalNs, expected.startNs)) / 1000, sample.responseUs);
+        assertEquals(expected.workerId, sample.workerId);
+        assertEquals(expected.phaseId, sample.phaseId);
+    }
+
+    public void testIteratesOverSeveralChunks() {
+        // More samples than fit in two chunks, with nanosecond times that do not round evenly
+        Random random = new Random(3);
+        Recorded[] recorded = new Recorded[150000];
+        LatencyRecord record = new LatencyRecord(GLOBAL_START_NS);
+
+        long startNs = GLOBAL_START_NS;
+        for (int i = 0; i < recorded.length; i++) {
+            Recorded r = new Recorded();
+            r.type = random.nextInt(30);
+            r.startNs = startNs;
+            r.arrivalNs = startNs - random.nextInt(5000000);
+            r.endNs = startNs + random.nextInt(100000000);
+            r.workerId = random.nextInt(100);
+            r.phaseId = random.nextInt(3);
+            recorded[i] = r;
+
+            record.addLatency(r.type, r.arrivalNs, r.startNs, r.endNs, r.workerId, r.phaseId);
+            startNs += random.nextInt(2000000);
+        }
+
+        assertEquals(recorded.length, record.size());
+
+        int i = 0;
+        for (LatencyRecord.Sample sample : record)
+            assertSample(recorded[i++], sample);
+
+        assertEquals(recorded.length, i);
+    }
+
+    public void testStartDeltaOverflowStartsNewChunk() {
+        LatencyRecord record = new LatencyRecord(GLOBAL_START_NS);
+
+        // The gap between the samples does not fit in the int increment of the start time
+        Recorded[] recorded = new Recorded[3];
+        long[] starts = {GLOBAL_START_NS + 1500, GLOBAL_START_NS + 3000000000000L, GLOBAL_START_NS + 3000000001999L};
+        for (int i = 0; i < starts.length; i++) {
+            Recorded r = new Recorded();
+            r.type = i;
+            r.startNs = starts[i];
+            r.arrivalNs = starts[i];
+            r.endNs = starts[i] + 2500;
+            recorded[i] = r;
+
+            record.addLatency(r.type, r.arrivalNs, r.startNs, r.endNs, 0, 0);
+        }
+
+        assertEquals(3, record.size());
+
+        int i = 0;
+        for (LatencyRecord.Sample sample : record)
+            assertSample(recorded[i++], sample);
+    }
+
+    public void testIteratorReusesTheSample() {
+        LatencyRecord record = new LatencyRecord(0);
+        record.addLatency(1, 1000, 3000, 0, 0);
+        record.addLatency(2, 5000, 9000, 0, 0);
+
+        Iterator<LatencyRecord.Sample> iterator = record.iterator();
+        LatencyRecord.Sample first = iterator.next();
+        LatencyRecord.Sample copy = first.copy();
+        LatencyRecord.Sample second = iterator.next();
+
+        // The iterator updated the first sample in place, but not its copy
+        assertSame(first, second);
+        assertEquals(2, first.tranType);
+        assertEquals(1, copy.tranType);
+        assertEquals(1, copy.startUs);
+        assertEquals(3, copy.endUs);
+        assertEquals(2, copy.latencyUs);
+        assertEquals(2, copy.getResponseUs());
+        assertFalse(iterator.hasNext());
+    }
+
+    public void testCopyHoldsAllFields() {
+        LatencyRecord.Sample sample = new LatencyRecord.Sample(5, 10, 40, 25, 35, 7, 2);
+        LatencyRecord.Sample copy = sample.copy();
+
+        assertNotSame(sample, copy);
+        assertEquals(5, copy.tranType);
+        assertEquals(10, copy.startUs);
+        assertEquals(40, copy.endUs);
+        assertEquals(25, copy.getLatencyUs());
+        assertEquals(35, copy.getResponseUs());
+        assertEquals(7, copy.workerId);
+        assertEquals(2, copy.phaseId);
+        assertEquals(0, sample.compareTo(copy));
+    }
+}
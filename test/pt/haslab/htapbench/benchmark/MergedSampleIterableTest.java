@@ -0,0 +1,99 @@
+package pt.haslab.htapbench.benchmark;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+public class MergedSampleIterableTest extends TestCase {
+
+    private static final long MS = 1000000L;
+
+    /**
+     * Returns a record of the given worker whose samples end at the given times.
+     */
+    private static LatencyRecord record(int workerId, long... endMs) {
+        LatencyRecord record = new LatencyRecord(0);
+        for (long end : endMs)
+            record.addLatency(1, end * MS - MS, end * MS, workerId, 0);
+
+        return record;
+    }
+
+    public void testMergesInEndTimeOrder() {
+        List<LatencyRecord> records = Arrays.asList(
+                record(0, 1, 4, 7, 10),
+                record(1, 2, 5, 8),
+                record(2),
+                record(3, 3, 6, 9, 11, 12));
+
+        List<Long> ends = new ArrayList<Long>();
+        List<Integer> workers = new ArrayList<Integer>();
+        for (LatencyRecord.Sample sample : new MergedSampleIterable(records)) {
+            ends.add(sample.endUs / 1000);
+            workers.add(sample.workerId);
+        }
+
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L), ends);
+        assertEquals(Arrays.asList(0, 1, 3, 0, 1, 3, 0, 1, 3, 0, 3, 3), workers);
+    }
+
+    public void testFlyweightSamplesAreNotOverwritten() {
+        // Every record reuses a single Sample, so the merge must read it before advancing
+        Random random = new Random(7);
+        List<LatencyRecord> records = new ArrayList<LatencyRecord>();
+        List<Long> expected = new ArrayList<Long>();
+        for (int worker = 0; worker < 5; worker++) {
+            long[] ends = new long[1000];
+            long end = 0;
+            for (int i = 0; i < ends.length; i++) {
+                end += 1 + random.nextInt(10);
+                ends[i] = end;
+                expected.add(end);
+            }
+            records.add(record(worker, ends));
+        }
+        Collections.sort(expected);
+
+        List<LatencyRecord.Sample> copies = new ArrayList<LatencyRecord.Sample>();
+        for (LatencyRecord.Sample sample : new MergedSampleIterable(records))
+            copies.add(sample.copy());
+
+        assertEquals(expected.size(), copies.size());
+        for (int i = 0; i < copies.size(); i++) {
+            assertEquals((long) expected.get(i), copies.get(i).endUs / 1000);
+            assertEquals(MS / 1000, copies.get(i).latencyUs);
+        }
+    }
+
+    public void testSkipsNullSamples() {
+        List<LatencyRecord.Sample> withNulls = Arrays.asList(
+                null, new LatencyRecord.Sample(1, 0, 5, 5, 5, 9, 0), null);
+
+        List<Iterable<LatencyRecord.Sample>> records = new ArrayList<Iterable<LatencyRecord.Sample>>();
+        records.add(withNulls);
+        records.add(record(1, 0));
+
+        List<Long> ends = new ArrayList<Long>();
+        for (LatencyRecord.Sample sample : new MergedSampleIterable(records))
+            ends.add(sample.endUs);
+
+        assertEquals(Arrays.asList(0L, 5L), ends);
+    }
+
+    public void testEmpty() {
+        MergedSampleIterable merged = new MergedSampleIterable(new ArrayList<LatencyRecord>());
+        assertFalse(merged.iterator().hasNext());
+
+        try {
+            merged.iterator().next();
+            fail();
+        } catch (NoSuchElementException ex) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package pt.haslab.htapbench.benchmark;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+public class SampleLogTest extends TestCase {
+
+    private File directory;
+
+    @Override
+    protected void setUp() throws IOException {
+        directory = Files.createTempDirectory("htapb-samples").toFile();
+    }
+
+    @Override
+    protected void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files)
+                file.delete();
+        }
+        directory.delete();
+    }
+
+    private void touch(String name) throws IOException {
+        assertTrue(new File(directory, name).createNewFile());
+    }
+
+    private static SampleLog log(File directory, String name, int samples) throws IOException {
+        SampleLog log = new SampleLog(directory, name);
+        for (int i = 0; i < samples; i++)
+            log.append(1, i, i + 5, 5, 5, 0, 0);
+
+        return log;
+    }
+
+    public void testReplaysOnlyTheWorkersOfThisRun() throws IOException {
+        // An earlier run had more workers, and more segments for a worker of this run
+        touch("TPCCWorker000-0001.seg");
+        touch("TPCCWorker000-0002.seg");
+        touch("TPCCWorker015-0001.seg");
+        touch("TPCHWorker003-0001.seg");
+        touch("notes.txt");
+
+        SampleLog.clear(directory, SampleLog.OLTP_PREFIX);
+        SampleLog.clear(directory, SampleLog.OLAP_PREFIX);
+        log(directory, "TPCCWorker000", 3);
+        log(directory, "TPCCWorker001", 2);
+
+        Map<String, List<File>> workers = SampleLogReader.findSegments(directory, SampleLog.OLTP_PREFIX);
+        assertEquals(2, workers.size());
+        assertEquals(1, workers.get("TPCCWorker000").size());
+        assertEquals(1, workers.get("TPCCWorker001").size());
+        assertTrue(SampleLogReader.findSegments(directory, SampleLog.OLAP_PREFIX).isEmpty());
+        assertTrue(new File(directory, "notes.txt").exists());
+
+        int samples = 0;
+        for (LatencyRecord.Sample sample : new SampleLogReader(workers.get("TPCCWorker000"))) {
+            assertEquals(samples + 5, sample.endUs);
+            samples++;
+        }
+        assertEquals(3, samples);
+    }
+
+    public void testNewLogDeletesItsOwnStaleSegments() throws IOException {
+        touch("TPCCWorker001-0002.seg");
+        touch("TPCCWorker0010-0001.seg");
+
+        log(directory, "TPCCWorker001", 1);
+
+        Map<String, List<File>> workers = SampleLogReader.findSegments(directory, SampleLog.OLTP_PREFIX);
+        assertEquals(1, workers.get("TPCCWorker001").size());
+
+        // Another worker whose name starts with the same characters is kept
+        assertTrue(workers.containsKey("TPCCWorker0010"));
+    }
+}
@@ -0,0 +1,118 @@
+package pt.haslab.htapbench.configuration.loader;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.sql.Types;
+import java.util.Random;
+
+public class BinaryRowWriterTest extends TestCase {
+
+    private static final int NUMERIC_NEG = 0x4000;
+
+    /**
+     * A numeric field of the binary COPY format.
+     */
+    private static final class Numeric {
+        int weight;
+        int sign;
+        int dscale;
+        int[] digits;
+
+        BigDecimal toBigDecimal() {
+            BigDecimal value = BigDecimal.ZERO;
+            BigDecimal base = BigDecimal.valueOf(10000);
+            for (int i = 0; i < digits.length; i++) {
+                int exponent = weight - i;
+                BigDecimal digit = BigDecimal.valueOf(digits[i]);
+                value = value.add(exponent >= 0 ? digit.multiply(base.pow(exponent))
+                        : digit.divide(base.pow(-exponent)));
+            }
+
+            return sign == NUMERIC_NEG ? value.negate() : value;
+        }
+    }
+
+    /**
+     * Writes the decimal into a single-column NUMERIC row and decodes the tuple.
+     */
+    private static Numeric numeric(long unscaled, int scale) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryRowWriter writer = new BinaryRowWriter(Channels.newChannel(out), new int[]{Types.NUMERIC}, 256);
+        writer.writeFixed(unscaled, scale);
+        writer.endRow();
+        writer.close();
+
+        ByteBuffer tuple = ByteBuffer.wrap(out.toByteArray());
+        assertEquals(1, tuple.getShort());
+
+        int length = tuple.getInt();
+        Numeric numeric = new Numeric();
+        numeric.digits = new int[tuple.getShort()];
+        numeric.weight = tuple.getShort();
+        numeric.sign = tuple.getShort();
+        numeric.dscale = tuple.getShort();
+        for (int i = 0; i < numeric.digits.length; i++)
+            numeric.digits[i] = tuple.getShort();
+
+        assertEquals(8 + 2 * numeric.digits.length, length);
+        assertFalse(tuple.hasRemaining());
+        return numeric;
+    }
+
+    private static void assertNumeric(long unscaled, int scale, int weight, int... digits) throws IOException {
+        Numeric numeric = numeric(unscaled, scale);
+        assertEquals(weight, numeric.weight);
+        assertEquals(scale, numeric.dscale);
+        assertEquals(unscaled < 0 ? NUMERIC_NEG : 0, numeric.sign);
+        assertEquals(digits.length, numeric.digits.length);
+        for (int i = 0; i < digits.length; i++)
+            assertEquals(digits[i], numeric.digits[i]);
+    }
+
+    public void testNumericDigitsAndWeight() throws IOException {
+        assertNumeric(0, 0, 0);
+        assertNumeric(0, 2, 0);
+        assertNumeric(1, 0, 0, 1);
+        assertNumeric(1234567, 2, 1, 1, 2345, 6700);
+        assertNumeric(5, 1, -1, 5000);
+        assertNumeric(1, 4, -1, 1);
+        assertNumeric(1, 5, -2, 1000);
+        assertNumeric(-10000, 0, 1, 1);
+        assertNumeric(100000000, 0, 2, 1);
+        assertNumeric(-99999999, 2, 1, 99, 9999, 9900);
+    }
+
+    public void testNumericMatchesBigDecimal() throws IOException {
+        Random random = new Random(9);
+        for (int scale = 0; scale <= 8; scale++) {
+            for (int i = 0; i < 1000; i++) {
+                long unscaled = random.nextLong() / (1L << random.nextInt(63));
+                BigDecimal expected = BigDecimal.valueOf(unscaled, scale);
+                Numeric numeric = numeric(unscaled, scale);
+
+                assertEquals(expected + " " + scale, 0, expected.compareTo(numeric.toBigDecimal()));
+                assertEquals(scale, numeric.dscale);
+
+                // No leading or trailing zero digits, and the weight of the first digit
+                if (unscaled == 0) {
+                    assertEquals(0, numeric.digits.length);
+                    continue;
+                }
+
+                assertTrue(numeric.digits[0] != 0);
+                assertTrue(numeric.digits[numeric.digits.length - 1] != 0);
+
+                BigInteger integer = expected.abs().setScale(0, BigDecimal.ROUND_DOWN).toBigInteger();
+                int expectedWeight = integer.signum() > 0 ? (integer.toString().length() - 1) / 4
+                        : -1 - (expected.abs().scale() - expected.abs().precision()) / 4;
+                assertEquals(expected.toPlainString(), expectedWeight, numeric.weight);
+            }
+        }
+    }
+}
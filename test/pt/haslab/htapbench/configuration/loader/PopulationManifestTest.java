@@ -0,0 +1,96 @@
+package pt.haslab.htapbench.configuration.loader;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.BitSet;
+import java.util.Random;
+
+public class PopulationManifestTest extends TestCase {
+
+    private File directory;
+
+    @Override
+    protected void setUp() throws IOException {
+        directory = Files.createTempDirectory("htapb-manifest").toFile();
+    }
+
+    @Override
+    protected void tearDown() {
+        PopulationManifest.delete(directory.getPath());
+        directory.delete();
+    }
+
+    private static BitSet bits(int... partitions) {
+        BitSet bits = new BitSet();
+        for (int partition : partitions)
+            bits.set(partition);
+
+        return bits;
+    }
+
+    public void testFormatRanges() {
+        assertEquals("", PopulationManifest.formatRanges(new BitSet()));
+        assertEquals("0", PopulationManifest.formatRanges(bits(0)));
+        assertEquals("1-3,5,7-8", PopulationManifest.formatRanges(bits(1, 2, 3, 5, 7, 8)));
+        assertEquals("0-1,100", PopulationManifest.formatRanges(bits(0, 1, 100)));
+    }
+
+    public void testParseRanges() {
+        assertEquals(new BitSet(), PopulationManifest.parseRanges(""));
+        assertEquals(bits(1, 2, 3, 5, 7, 8), PopulationManifest.parseRanges("1-3,5,7-8"));
+        assertEquals(bits(4, 5, 9), PopulationManifest.parseRanges(" 4 - 5 , 9 ,"));
+    }
+
+    public void testRangesRoundTrip() {
+        Random random = new Random(13);
+        for (int i = 0; i < 1000; i++) {
+            BitSet partitions = new BitSet();
+            int size = random.nextInt(200);
+            for (int p = 0; p < size; p++) {
+                if (random.nextInt(3) > 0)
+                    partitions.set(p);
+            }
+
+            String ranges = PopulationManifest.formatRanges(partitions);
+            assertEquals(ranges, partitions, PopulationManifest.parseRanges(ranges));
+        }
+    }
+
+    public void testResumesTheDonePartitions() {
+        String path = directory.getPath();
+        assertFalse(PopulationManifest.exists(path));
+
+        PopulationManifest manifest = PopulationManifest.open(path, PopulationManifest.CSV, 10, 1234L);
+        assertFalse(manifest.isResumed());
+        manifest.markDone(1, 4, "STOCK", "CUSTOMER");
+        manifest.markDone(7, "STOCK");
+
+        assertTrue(PopulationManifest.exists(path));
+        assertEquals(1234L, PopulationManifest.getStartTimestamp(path));
+
+        PopulationManifest resumed = PopulationManifest.open(path, PopulationManifest.CSV, 10, 1234L);
+        assertTrue(resumed.isResumed());
+        assertEquals(bits(1, 2, 3, 4, 7), resumed.getDone("STOCK"));
+        assertTrue(resumed.isDone(4, "STOCK", "CUSTOMER"));
+        assertFalse(resumed.isDone(7, "STOCK", "CUSTOMER"));
+        assertFalse(resumed.isDone("ORDER_LINE", 1));
+
+        resumed.complete();
+        assertFalse(PopulationManifest.exists(path));
+    }
+
+    public void testRejectsOtherOptions() {
+        String path = directory.getPath();
+        PopulationManifest.open(path, PopulationManifest.CSV, 10, 1234L);
+
+        try {
+            PopulationManifest.open(path, PopulationManifest.CSV, 20, 1234L);
+            fail();
+        } catch (RuntimeException ex) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package pt.haslab.htapbench.configuration.loader;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.sql.Timestamp;
+import java.util.Random;
+import java.util.TimeZone;
+
+public class RowWriterTest extends TestCase {
+
+    private static final String[] TIME_ZONES = {"UTC", "Europe/Lisbon", "America/Sao_Paulo", "Asia/Kolkata", "Pacific/Chatham"};
+
+    private TimeZone defaultTimeZone;
+
+    @Override
+    protected void setUp() {
+        defaultTimeZone = TimeZone.getDefault();
+    }
+
+    @Override
+    protected void tearDown() {
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    /**
+     * Writes a single field with the given writer and returns the text of the row.
+     */
+    private interface Field {
+        void write(RowWriter writer) throws IOException;
+    }
+
+    private static String row(Field field) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RowWriter writer = new RowWriter(Channels.newChannel(out), 64, "\\N");
+        field.write(writer);
+        writer.endRow();
+        writer.close();
+
+        String row = out.toString("US-ASCII");
+        assertTrue(row.endsWith("\n"));
+        return row.substring(0, row.length() - 1);
+    }
+
+    private static String timestamp(final long timeMs) throws IOException {
+        return row(new Field() {
+            @Override
+            public void write(RowWriter writer) throws IOException {
+                writer.writeTimestamp(timeMs);
+            }
+        });
+    }
+
+    private static String fixed(final long unscaled, final int scale) throws IOException {
+        return row(new Field() {
+            @Override
+            public void write(RowWriter writer) throws IOException {
+                writer.writeFixed(unscaled, scale);
+            }
+        });
+    }
+
+    public void testTimestampMatchesTimestampToString() throws IOException {
+        Random random = new Random(11);
+        for (String zone : TIME_ZONES) {
+            TimeZone.setDefault(TimeZone.getTimeZone(zone));
+
+            // From 1901 to 2099, with every number of milliseconds
+            for (int i = 0; i < 20000; i++) {
+                long timeMs = -2177452800000L + (long) (random.nextDouble() * 6279000000000L);
+                assertEquals(zone, new Timestamp(timeMs).toString(), timestamp(timeMs));
+            }
+
+            assertEquals(zone, new Timestamp(0).toString(), timestamp(0));
+        }
+    }
+
+    public void testTimestampAroundDaylightSavingTime() throws IOException {
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Lisbon"));
+
+        // The hours around the changes of 2017, at 01:00 UTC on the 26th of March and 29th of October
+        long[] changes = {1490490000000L, 1509238800000L};
+        for (long change : changes) {
+            for (long timeMs = change - 7200000; timeMs <= change + 7200000; timeMs += 60001)
+                assertEquals(new Timestamp(timeMs).toString(), timestamp(timeMs));
+        }
+    }
+
+    public void testFixedMatchesBigDecimal() throws IOException {
+        Random random = new Random(5);
+        for (int scale = 0; scale <= 6; scale++) {
+            for (int i = 0; i < 1000; i++) {
+                long unscaled = random.nextLong() / (1L << random.nextInt(63));
+                assertEquals(BigDecimal.valueOf(unscaled, scale).toPlainString(), fixed(unscaled, scale));
+            }
+        }
+    }
+
+    public void testFixedEdgeCases() throws IOException {
+        assertEquals("0", fixed(0, 0));
+        assertEquals("0.00", fixed(0, 2));
+        assertEquals("0.05", fixed(5, 2));
+        assertEquals("-0.05", fixed(-5, 2));
+        assertEquals("-12.30", fixed(-1230, 2));
+        assertEquals("10000.00", fixed(1000000, 2));
+    }
+
+    public void testFieldsAreSeparated() throws IOException {
+        String row = row(new Field() {
+            @Override
+            public void write(RowWriter writer) throws IOException {
+                writer.writeInt(-42).writeString("abc").writeNull(0).writeFixed(150, 1);
+            }
+        });
+
+        assertEquals("-42,abc,\\N,15.0", row);
+    }
+}
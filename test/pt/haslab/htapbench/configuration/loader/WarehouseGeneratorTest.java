@@ -0,0 +1,79 @@
+package pt.haslab.htapbench.configuration.loader;
+
+import junit.framework.TestCase;
+import pt.haslab.htapbench.core.Clock;
+import pt.haslab.htapbench.random.RandomParameters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WarehouseGeneratorTest extends TestCase {
+
+    private static final long SEED = 1500000000000L;
+
+    public void testPartitionSeedIsDeterministic() {
+        for (int w = 0; w <= 100; w++)
+            assertEquals(WarehouseGenerator.getPartitionSeed(SEED, w), WarehouseGenerator.getPartitionSeed(SEED, w));
+    }
+
+    public void testPartitionSeedsAreDistinct() {
+        // Neighbouring partitions and populations do not share seeds
+        Set<Long> seeds = new HashSet<Long>();
+        for (long seed = SEED; seed < SEED + 10; seed++) {
+            for (int w = 0; w <= 1000; w++)
+                assertTrue(seeds.add(WarehouseGenerator.getPartitionSeed(seed, w)));
+        }
+    }
+
+    /**
+     * Generates the rows of the warehouse as CSV, per table.
+     */
+    private static Map<String, byte[]> generate(Clock clock, int w) throws IOException, SQLException {
+        Map<String, ByteArrayOutputStream> outs = new HashMap<String, ByteArrayOutputStream>();
+        Map<String, RowSink> sinks = new HashMap<String, RowSink>();
+        for (String table : WarehouseGenerator.TABLES) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            outs.put(table, out);
+            sinks.put(table, new RowWriter(Channels.newChannel(out), "\\N"));
+        }
+
+        new WarehouseGenerator(clock, new AtomicInteger(0), SEED, w).generate(sinks);
+
+        Map<String, byte[]> rows = new HashMap<String, byte[]>();
+        for (String table : WarehouseGenerator.TABLES) {
+            sinks.get(table).close();
+            rows.put(table, outs.get(table).toByteArray());
+        }
+
+        return rows;
+    }
+
+    public void testWarehouseRowsAreDeterministic() throws IOException, SQLException {
+        // The Loader sets up the nations of the regions before generating any warehouse
+        new RandomParameters("uniform", 6);
+
+        File directory = Files.createTempDirectory("htapb-generator").toFile();
+        Clock clock = new Clock(4, directory.getPath(), SEED);
+        directory.delete();
+
+        Map<String, byte[]> first = generate(clock, 3);
+        Map<String, byte[]> again = generate(clock, 3);
+        Map<String, byte[]> other = generate(clock, 4);
+
+        for (String table : WarehouseGenerator.TABLES) {
+            assertTrue(table, first.get(table).length > 0);
+            assertTrue(table, Arrays.equals(first.get(table), again.get(table)));
+            assertFalse(table, Arrays.equals(first.get(table), other.get(table)));
+        }
+    }
+}
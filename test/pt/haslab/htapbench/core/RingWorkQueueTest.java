@@ -0,0 +1,126 @@
+package pt.haslab.htapbench.core;
+
+import junit.framework.TestCase;
+import pt.haslab.htapbench.benchmark.SubmittedProcedure;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RingWorkQueueTest extends TestCase {
+
+    public void testOfferAndPollInOrder() {
+        RingWorkQueue queue = new RingWorkQueue(4);
+        for (int i = 0; i < 4; i++)
+            assertTrue(queue.offer(new SubmittedProcedure(i)));
+
+        assertEquals(4, queue.size());
+        assertEquals(0, queue.peek().getType());
+        for (int i = 0; i < 4; i++)
+            assertEquals(i, queue.poll().getType());
+
+        assertNull(queue.poll());
+        assertNull(queue.peek());
+        assertEquals(0, queue.size());
+    }
+
+    public void testOfferFailsWhenFull() {
+        RingWorkQueue queue = new RingWorkQueue(2);
+        assertTrue(queue.offer(new SubmittedProcedure(1)));
+        assertTrue(queue.offer(new SubmittedProcedure(2)));
+        assertFalse(queue.offer(new SubmittedProcedure(3)));
+        assertEquals(2, queue.size());
+    }
+
+    public void testWraparound() {
+        RingWorkQueue queue = new RingWorkQueue(3);
+
+        // Keep the queue partially filled over many laps of the ring
+        int next = 0;
+        int expected = 0;
+        for (int lap = 0; lap < 100; lap++) {
+            assertTrue(queue.offer(new SubmittedProcedure(next++)));
+            assertTrue(queue.offer(new SubmittedProcedure(next++)));
+            assertEquals(expected++, queue.poll().getType());
+            assertEquals(expected++, queue.poll().getType());
+        }
+
+        assertNull(queue.poll());
+    }
+
+    public void testAddDropsTheOldest() {
+        RingWorkQueue queue = new RingWorkQueue(3);
+        for (int i = 0; i < 5; i++)
+            queue.add(new SubmittedProcedure(i));
+
+        assertEquals(2, queue.getDropped());
+        assertEquals(3, queue.size());
+        assertEquals(2, queue.poll().getType());
+        assertEquals(3, queue.poll().getType());
+        assertEquals(4, queue.poll().getType());
+    }
+
+    public void testClear() {
+        RingWorkQueue queue = new RingWorkQueue(8);
+        for (int i = 0; i < 5; i++)
+            queue.add(new SubmittedProcedure(i));
+
+        queue.clear();
+        assertEquals(0, queue.size());
+        assertNull(queue.poll());
+
+        // The queue is usable after it is cleared
+        assertTrue(queue.offer(new SubmittedProcedure(7)));
+        assertEquals(7, queue.poll().getType());
+        assertEquals(0, queue.getDropped());
+    }
+
+    public void testConcurrentProducersAndConsumers() throws InterruptedException {
+        final RingWorkQueue queue = new RingWorkQueue(64);
+        final int producers = 4;
+        final int perProducer = 50000;
+        final AtomicLong consumed = new AtomicLong(0);
+        final AtomicLong sum = new AtomicLong(0);
+        final CountDownLatch produced = new CountDownLatch(producers);
+
+        Thread[] threads = new Thread[producers * 2];
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!queue.offer(new SubmittedProcedure(i)))
+                            Thread.yield();
+                    }
+                    produced.countDown();
+                }
+            };
+        }
+        for (int c = producers; c < threads.length; c++) {
+            threads[c] = new Thread() {
+                @Override
+                public void run() {
+                    while (true) {
+                        SubmittedProcedure procedure = queue.poll();
+                        if (procedure != null) {
+                            consumed.incrementAndGet();
+                            sum.addAndGet(procedure.getType());
+                        } else if (produced.getCount() == 0 && queue.size() == 0) {
+                            return;
+                        } else {
+                            Thread.yield();
+                        }
+                    }
+                }
+            };
+        }
+
+        for (Thread thread : threads)
+            thread.start();
+        for (Thread thread : threads)
+            thread.join();
+
+        // Every procedure is consumed exactly once
+        assertEquals((long) producers * perProducer, consumed.get());
+        assertEquals((long) producers * perProducer * (perProducer - 1) / 2, sum.get());
+    }
+}
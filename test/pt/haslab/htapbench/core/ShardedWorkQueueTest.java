@@ -0,0 +1,81 @@
+package pt.haslab.htapbench.core;
+
+import junit.framework.TestCase;
+import pt.haslab.htapbench.benchmark.SubmittedProcedure;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class ShardedWorkQueueTest extends TestCase {
+
+    public void testShardsHoldAtLeastTheMinimumCapacity() {
+        assertEquals(4, new ShardedWorkQueue(1000, 4).getNumShards());
+        assertEquals(10000 / ShardedWorkQueue.MIN_SHARD_CAPACITY, new ShardedWorkQueue(10000, 1000).getNumShards());
+        assertEquals(1, new ShardedWorkQueue(10, 8).getNumShards());
+    }
+
+    public void testWorkIsSpreadOverTheShards() {
+        ShardedWorkQueue queue = new ShardedWorkQueue(4 * ShardedWorkQueue.MIN_SHARD_CAPACITY, 4);
+        for (int i = 0; i < 4; i++)
+            assertTrue(queue.offer(new SubmittedProcedure(i)));
+
+        // The home shard is served first, the rest is stolen from the other shards
+        assertEquals(4, queue.size());
+        assertEquals(0, queue.poll().getType());
+
+        Set<Integer> stolen = new HashSet<Integer>();
+        for (int i = 0; i < 3; i++)
+            stolen.add(queue.poll().getType());
+
+        assertEquals(3, stolen.size());
+        assertTrue(stolen.contains(1) && stolen.contains(2) && stolen.contains(3));
+        assertNull(queue.poll());
+    }
+
+    public void testStealsFromEveryShard() {
+        ShardedWorkQueue queue = new ShardedWorkQueue(8 * ShardedWorkQueue.MIN_SHARD_CAPACITY, 8);
+
+        // The steal scan starts at a random shard, yet every shard is drained
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 8; i++)
+                queue.add(new SubmittedProcedure(i));
+
+            Set<Integer> polled = new HashSet<Integer>();
+            for (int i = 0; i < 8; i++)
+                polled.add(queue.poll().getType());
+
+            assertEquals(8, polled.size());
+            assertNull(queue.poll());
+        }
+    }
+
+    public void testWraparoundAndDrop() {
+        int shardCapacity = ShardedWorkQueue.MIN_SHARD_CAPACITY;
+        ShardedWorkQueue queue = new ShardedWorkQueue(2 * shardCapacity, 2);
+
+        // Laps over both rings while the queue is kept partially filled
+        for (int i = 0; i < 10 * shardCapacity; i++) {
+            queue.add(new SubmittedProcedure(i));
+            assertNotNull(queue.poll());
+        }
+        assertEquals(0, queue.getDropped());
+
+        // Overfilling drops the oldest work of each shard
+        for (int i = 0; i < 3 * shardCapacity; i++)
+            queue.add(new SubmittedProcedure(i));
+
+        assertEquals(shardCapacity, queue.getDropped());
+        assertEquals(2 * shardCapacity, queue.size());
+    }
+
+    public void testClear() {
+        ShardedWorkQueue queue = new ShardedWorkQueue(4 * ShardedWorkQueue.MIN_SHARD_CAPACITY, 4);
+        for (int i = 0; i < 10; i++)
+            queue.add(new SubmittedProcedure(i));
+
+        queue.clear();
+        assertEquals(0, queue.size());
+        assertNull(queue.peek());
+        assertNull(queue.poll());
+    }
+}
@@ -0,0 +1,60 @@
+package pt.haslab.htapbench.procedures.tpch;
+
+import junit.framework.TestCase;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class QueryWatchdogTest extends TestCase {
+
+    /**
+     * Returns a statement that only counts its cancellations.
+     */
+    private static Statement statement(final AtomicInteger cancels) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("cancel"))
+                            cancels.incrementAndGet();
+
+                        return null;
+                    }
+                });
+    }
+
+    public void testCancelsOverrunningQuery() throws InterruptedException {
+        AtomicInteger cancels = new AtomicInteger(0);
+        QueryWatchdog.Watch watch = QueryWatchdog.watch(statement(cancels), 10);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!watch.timedOut() && System.currentTimeMillis() < deadline)
+            Thread.sleep(5);
+
+        assertTrue(watch.timedOut());
+        assertEquals(1, cancels.get());
+        watch.stop();
+    }
+
+    public void testStoppedWatchNeverCancels() throws InterruptedException {
+        AtomicInteger cancels = new AtomicInteger(0);
+        Statement stmt = statement(cancels);
+
+        // The executions reuse the statement right after the watch of the previous one
+        // stops, some of them racing with the watchdog
+        int timedOut = 0;
+        for (int i = 0; i < 1000; i++) {
+            QueryWatchdog.Watch watch = QueryWatchdog.watch(stmt, i % 3);
+            watch.stop();
+            if (watch.timedOut())
+                timedOut++;
+        }
+
+        // Only the watches that timed out before they were stopped cancelled the statement
+        Thread.sleep(50);
+        assertEquals(timedOut, cancels.get());
+    }
+}
@@ -0,0 +1,45 @@
+package pt.haslab.htapbench.util;
+
+import junit.framework.TestCase;
+
+public class OptionUtilTest extends TestCase {
+
+    private static int value(String spec, String name, int defaultValue) {
+        return OptionUtil.getNamedValue("test option", spec, name, defaultValue);
+    }
+
+    public void testDefaultWithoutSpecification() {
+        assertEquals(7, value(null, "Q1", 7));
+        assertEquals(7, value("", "Q1", 7));
+    }
+
+    public void testQueryTimeouts() {
+        String spec = "600,Q21=1800,Q9=900";
+        assertEquals(600, value(spec, "Q1", 0));
+        assertEquals(1800, value(spec, "Q21", 0));
+        assertEquals(900, value(spec, "q9", 0));
+
+        // Without a default value in the specification, the given default applies
+        assertEquals(0, value("Q21=1800", "Q1", 0));
+    }
+
+    public void testTableOptions() {
+        String spec = " 1000 , ORDER_LINE = 5000 ,STOCK=2000";
+        assertEquals(1000, value(spec, "CUSTOMER", 100));
+        assertEquals(5000, value(spec, "order_line", 100));
+        assertEquals(2000, value(spec, "STOCK", 100));
+        assertEquals(4, value("4", "ORDER_LINE", 1));
+    }
+
+    public void testMalformedSpecification() {
+        String[] specs = {"abc", "Q1=", "Q1=x", "Q1=1=2", "600,,Q1=5"};
+        for (String spec : specs) {
+            try {
+                value(spec, "Q1", 0);
+                fail(spec);
+            } catch (RuntimeException ex) {
+                assertTrue(ex.getMessage().contains("test option " + spec));
+            }
+        }
+    }
+}